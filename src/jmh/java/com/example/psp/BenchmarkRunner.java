@@ -0,0 +1,41 @@
+package com.example.psp;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the {@code jmh} profile.
+ *
+ * <p>Accepts the usual JMH command line and always attaches the GC profiler, so every benchmark reports
+ * {@code gc.alloc.rate.norm} (bytes allocated per operation) next to its score. Unless {@code -rff} is given,
+ * results are also written to {@code target/jmh-result.json} for comparison between runs.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec                                # all benchmarks
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="LuhnValidator"   # benchmarks matching a regex
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("target/jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.psp;
+
+import com.example.psp.model.PaymentRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the 400 error body in {@link GlobalExceptionHandler} for a request with two invalid fields.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="GlobalExceptionHandlerBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GlobalExceptionHandlerBenchmark {
+
+    GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    MethodArgumentNotValidException exception;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        BeanPropertyBindingResult result = new BeanPropertyBindingResult(new PaymentRequest(), "paymentRequest");
+        result.addError(new FieldError("paymentRequest", "cardNumber", "Invalid card number"));
+        result.addError(new FieldError("paymentRequest", "cvv", "CVV must be 3 or 4 digits"));
+        MethodParameter parameter = new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("target", PaymentRequest.class), 0);
+        exception = new MethodArgumentNotValidException(parameter, result);
+    }
+
+    @SuppressWarnings("unused")
+    private void target(PaymentRequest request) {
+    }
+
+    @Benchmark
+    public Map<String, Object> buildValidationErrorBody() {
+        return handler.handleValidationExceptions(exception);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.psp;
+
+import com.example.psp.loadgen.PaymentMix;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startup time and resident memory of the packaged application, per launch mode:
+ * <ul>
+ *     <li>{@code jvm}: {@code java -jar target/PSPsystem1-0.0.1-SNAPSHOT.jar}</li>
+ *     <li>{@code aot}: the same jar with {@code -Dspring.aot.enabled=true} (jar built with {@code -Pnative})</li>
+ *     <li>{@code cds}: the extracted jar in {@code target/cds} with its class data sharing archive, and AOT if the
+ *     jar has it</li>
+ *     <li>{@code native}: the GraalVM binary {@code target/psp}</li>
+ * </ul>
+ * Each run starts a fresh process on a free port and reports the time from process start until
+ * {@code /actuator/health} answers, Spring's own "Started ... in" time, and the RSS ({@code VmRSS}, Linux only)
+ * once ready and after {@code payments} sequential payments. The table shows the median of the runs; modes whose
+ * artifact is missing are skipped.
+ *
+ * <pre>
+ * mvn -Pnative,cds -DskipTests package -Dcds.jvmArgs=-Dspring.aot.enabled=true
+ * mvn -Pnative -DskipTests native:compile
+ * mvn -Pjmh test-compile exec:exec -Dbench.main=com.example.psp.StartupBenchmark -Dbench.args="10 500 jvm aot cds native"
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final Path TARGET = Path.of("target");
+    private static final String JAR = "PSPsystem1-0.0.1-SNAPSHOT.jar";
+    private static final String AOT_INITIALIZER = "com/example/psp/PspApplication__ApplicationContextInitializer.class";
+    private static final Pattern STARTED = Pattern.compile("Started PspApplication in ([0-9.]+) seconds");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StartupBenchmark() {
+    }
+
+    record Sample(long readyMillis, double startedSeconds, long readyRssKb, long loadedRssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int payments = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        List<String> modes = args.length > 2 ? Arrays.asList(args).subList(2, args.length)
+                : List.of("jvm", "aot", "cds", "native");
+        StartupBenchmark benchmark = new StartupBenchmark();
+
+        System.out.println("| Mode | Ready (ms) | Started in (s) | RSS ready (MB) | RSS after " + payments + " payments (MB) |");
+        System.out.println("|---|---|---|---|---|");
+        for (String mode : modes) {
+            List<String> command = command(mode);
+            if (command == null) {
+                System.out.printf("| %s | skipped: artifact not built | | | |%n", mode);
+                continue;
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                samples.add(benchmark.run(mode, i, command, payments));
+            }
+            System.out.printf("| %s | %d | %.2f | %.0f | %.0f |%n", label(mode, command),
+                    median(samples.stream().mapToLong(Sample::readyMillis).toArray()),
+                    median(samples.stream().mapToLong(s -> Math.round(s.startedSeconds() * 1000)).toArray()) / 1000.0,
+                    median(samples.stream().mapToLong(Sample::readyRssKb).toArray()) / 1024.0,
+                    median(samples.stream().mapToLong(Sample::loadedRssKb).toArray()) / 1024.0);
+        }
+    }
+
+    private Sample run(String mode, int index, List<String> command, int payments) throws Exception {
+        int port = freePort();
+        List<String> full = new ArrayList<>(command);
+        int managementPort = freePort();
+        full.add("--server.port=" + port);
+        full.add("--management.server.port=" + managementPort);
+        full.add("--psp.tokenization.random-key=true");
+        Path log = TARGET.resolve("startup").resolve(mode + "-" + index + ".log");
+        Files.createDirectories(log.getParent());
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(full).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            URI health = URI.create("http://127.0.0.1:" + managementPort + "/actuator/health");
+            while (!healthy(health)) {
+                if (!process.isAlive()) throw new IllegalStateException(mode + " exited, see " + log);
+                if (System.nanoTime() - started > TimeUnit.SECONDS.toNanos(120)) {
+                    throw new IllegalStateException(mode + " not ready after 120 s, see " + log);
+                }
+                Thread.sleep(10);
+            }
+            long ready = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            long readyRss = rssKb(process.pid());
+            pay(port, payments);
+            return new Sample(ready, startedSeconds(log), readyRss, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    private boolean healthy(URI health) throws InterruptedException {
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(health).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            // not listening yet
+            return false;
+        }
+    }
+
+    private void pay(int port, int payments) throws IOException, InterruptedException {
+        PaymentMix mix = PaymentMix.defaults(100, 0);
+        SplittableRandom random = new SplittableRandom(42);
+        URI uri = URI.create("http://localhost:" + port + "/payments");
+        for (int i = 0; i < payments; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(mix.next(random))))
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    /**
+     * Launch command of the mode, or null if its artifact has not been built.
+     */
+    private static List<String> command(String mode) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Path jar = TARGET.resolve(JAR);
+        Path cdsJar = TARGET.resolve("cds").resolve(JAR);
+        Path archive = TARGET.resolve("cds").resolve("application.jsa");
+        Path binary = TARGET.resolve("psp");
+        return switch (mode) {
+            case "jvm" -> Files.exists(jar) ? List.of(java, "-jar", jar.toString()) : null;
+            case "aot" -> hasAot(jar) ? List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.toString()) : null;
+            case "cds" -> {
+                if (!Files.exists(archive) || !Files.exists(cdsJar)) yield null;
+                List<String> command = new ArrayList<>(List.of(java, "-XX:SharedArchiveFile=" + archive));
+                if (hasAot(cdsJar)) command.add("-Dspring.aot.enabled=true");
+                command.addAll(List.of("-jar", cdsJar.toString()));
+                yield command;
+            }
+            case "native" -> Files.isExecutable(binary) ? List.of(binary.toString()) : null;
+            default -> throw new IllegalArgumentException("unknown mode: " + mode + " (jvm, aot, cds, native)");
+        };
+    }
+
+    private static String label(String mode, List<String> command) {
+        return "cds".equals(mode) && command.contains("-Dspring.aot.enabled=true") ? "cds+aot" : mode;
+    }
+
+    private static boolean hasAot(Path jar) throws IOException {
+        if (!Files.exists(jar)) return false;
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.getEntry("BOOT-INF/classes/" + AOT_INITIALIZER) != null || file.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static double startedSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) return -1;
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+            }
+        }
+        return -1;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
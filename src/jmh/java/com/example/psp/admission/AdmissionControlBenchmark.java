@@ -0,0 +1,53 @@
+package com.example.psp.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the admission check per payment: shedding decision, concurrency slot, token bucket and release,
+ * for an admitted payment and for one rejected by the rate limit.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="AdmissionControlBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AdmissionControlBenchmark {
+
+    AdmissionControl admission;
+
+    @Setup
+    public void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getDefaultLimits().setRate(1e9);
+        properties.getDefaultLimits().setBurst(1_000_000);
+        AdmissionProperties.Limits limited = new AdmissionProperties.Limits();
+        limited.setRate(0.001);
+        limited.setBurst(1);
+        properties.getMerchants().put("M-LIMITED", limited);
+        admission = new AdmissionControl(properties, new LoadShedder(properties, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+        admission.admit("M-LIMITED").release();
+    }
+
+    @Benchmark
+    public void admitted() {
+        admission.admit("M123").release();
+    }
+
+    @Benchmark
+    public Object rejected() {
+        try {
+            return admission.admit("M-LIMITED");
+        } catch (AdmissionRejectedException e) {
+            return e;
+        }
+    }
+}
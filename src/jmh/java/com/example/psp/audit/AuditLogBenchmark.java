@@ -0,0 +1,50 @@
+package com.example.psp.audit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the two audit events of a payment ({@link AuditLog#created} and {@link AuditLog#completed}); the
+ * background writer formats into a discarding writer. With {@code BLOCK} producers are throttled to the writer's pace,
+ * so the score is the sustained cost of the whole pipeline; with {@code DROP} a producer faster than the writer
+ * mostly measures the overflow path.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="AuditLogBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AuditLogBenchmark {
+
+    @Param({"BLOCK", "DROP"})
+    AuditProperties.Overflow overflow;
+
+    AuditLog auditLog;
+    String transactionId = UUID.randomUUID().toString();
+
+    @Setup
+    public void setUp() {
+        AuditProperties properties = new AuditProperties();
+        properties.setOverflow(overflow);
+        auditLog = new AuditLog(properties, Writer.nullWriter());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        auditLog.shutdown();
+    }
+
+    @Benchmark
+    public void paymentEvents() {
+        auditLog.created(transactionId, "M123", 100.0, "USD", "A");
+        auditLog.completed(transactionId, "A", "Approved");
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.psp.binary;
+
+import com.example.psp.PspApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payments per second through the running application over loopback: {@code POST /payments} JSON against the binary
+ * protocol, each one request at a time and pipelined 64 deep. Both are driven the same way: one persistent
+ * connection, a blocking {@link SocketChannel} and requests encoded once in setup, so the scores compare the
+ * protocols and their server side, not two client libraries. Client and server share the machine, so on one core
+ * the scores are requests per second per core including the client's own I/O. The HTTP and JSON stack takes about
+ * a dozen warmup iterations to settle on one core, hence the long warmup.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="BinaryProtocolBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 15, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class BinaryProtocolBenchmark {
+
+    private static final int PIPELINE = 64;
+
+    private static final byte[] JSON_BODY = """
+            {"cardNumber":"4242424242424242","expiryDate":"12/30","cvv":"123","amount":100.0,"currency":"USD","merchantId":"M123"}"""
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.US_ASCII);
+
+    ConfigurableApplicationContext context;
+    SocketChannel httpChannel;
+    ByteBuffer jsonSingle;
+    ByteBuffer jsonPipelined;
+    ByteBuffer httpResponses = ByteBuffer.allocate(PIPELINE * 1024);
+    SocketChannel channel;
+    ByteBuffer single = ByteBuffer.allocateDirect(BinaryProtocol.REQUEST_FRAME);
+    ByteBuffer pipelined = ByteBuffer.allocateDirect(PIPELINE * BinaryProtocol.REQUEST_FRAME);
+    ByteBuffer results = ByteBuffer.allocateDirect(PIPELINE * BinaryProtocol.RESPONSE_FRAME);
+
+    @Setup
+    public void start() throws IOException {
+        // command-line arguments, so they take precedence over application.properties; Tomcat would otherwise close
+        // the HTTP connection every 100 requests, which the binary connection is never asked to do
+        context = new SpringApplicationBuilder(PspApplication.class)
+                .run("--server.port=0", "--psp.binary.enabled=true", "--psp.binary.port=0",
+                        "--server.tomcat.max-keep-alive-requests=-1",
+                        "--psp.admission.enabled=false", "--psp.audit.enabled=false", "--logging.level.root=WARN");
+        int httpPort = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+        httpChannel = SocketChannel.open(new InetSocketAddress("localhost", httpPort));
+        byte[] head = ("POST /payments HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + JSON_BODY.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        jsonSingle = ByteBuffer.allocateDirect(head.length + JSON_BODY.length).put(head).put(JSON_BODY);
+        jsonPipelined = ByteBuffer.allocateDirect(PIPELINE * (head.length + JSON_BODY.length));
+        for (int i = 0; i < PIPELINE; i++) {
+            jsonPipelined.put(head).put(JSON_BODY);
+        }
+
+        channel = SocketChannel.open(new InetSocketAddress("localhost", context.getBean(BinaryPaymentServer.class).port()));
+        BinaryProtocol.encodeRequest(single, 1, "4242424242424242", 12, 30, "123", 10_000, 840, "M123");
+        for (int i = 0; i < PIPELINE; i++) {
+            BinaryProtocol.encodeRequest(pipelined, i, "4242424242424242", 12, 30, "123", 10_000, 840, "M123");
+        }
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        channel.close();
+        httpChannel.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        return exchangeHttp(jsonSingle, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public int jsonPipelined() throws IOException {
+        return exchangeHttp(jsonPipelined, PIPELINE);
+    }
+
+    @Benchmark
+    public byte binary() throws IOException {
+        return exchange(single, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public byte binaryPipelined() throws IOException {
+        return exchange(pipelined, PIPELINE);
+    }
+
+    private byte exchange(ByteBuffer frames, int count) throws IOException {
+        frames.rewind();
+        while (frames.hasRemaining()) {
+            channel.write(frames);
+        }
+        results.clear().limit(count * BinaryProtocol.RESPONSE_FRAME);
+        while (results.hasRemaining()) {
+            channel.read(results);
+        }
+        return results.get(6);
+    }
+
+    /**
+     * Sends the requests and reads as many HTTP/1.1 responses, framed by {@code Content-Length} or chunked.
+     * @return the status code of the last response
+     */
+    private int exchangeHttp(ByteBuffer requests, int count) throws IOException {
+        requests.rewind();
+        while (requests.hasRemaining()) {
+            httpChannel.write(requests);
+        }
+        int status = 0;
+        ByteBuffer in = httpResponses.clear();
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int headEnd;
+            while ((headEnd = headEnd(in, start)) < 0) {
+                read(in);
+            }
+            status = (in.get(start + 9) - '0') * 100 + (in.get(start + 10) - '0') * 10 + in.get(start + 11) - '0';
+            int length = contentLength(in, start, headEnd);
+            int end = length >= 0 ? headEnd + length : chunkedEnd(in, headEnd);
+            while (in.position() < end) {
+                read(in);
+            }
+            start = end;
+        }
+        return status;
+    }
+
+    private void read(ByteBuffer in) throws IOException {
+        if (httpChannel.read(in) < 0) throw new IOException("connection closed");
+    }
+
+    /**
+     * Reads until the byte at {@code index} has arrived and returns it.
+     */
+    private byte byteAt(ByteBuffer in, int index) throws IOException {
+        while (in.position() <= index) {
+            read(in);
+        }
+        return in.get(index);
+    }
+
+    /**
+     * Position after a chunked body starting at {@code at}; chunk extensions and trailers are not expected.
+     */
+    private int chunkedEnd(ByteBuffer in, int at) throws IOException {
+        while (true) {
+            int size = 0;
+            for (byte b; (b = byteAt(in, at++)) != '\r'; ) {
+                size = size * 16 + Character.digit(b, 16);
+            }
+            // the size line's \n, then the chunk and its \r\n; the last chunk is empty
+            at += 1 + size + 2;
+            if (size == 0) return at;
+        }
+    }
+
+    /**
+     * Position after the blank line ending the head that starts at {@code start}, or -1 if not read yet.
+     */
+    private static int headEnd(ByteBuffer in, int start) {
+        for (int i = start; i + 3 < in.position(); i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Value of the {@code Content-Length} header, or -1 if there is none; parsed without allocating so the client
+     * side stays as cheap as the binary one.
+     */
+    private static int contentLength(ByteBuffer in, int start, int headEnd) {
+        for (int line = start; line < headEnd; ) {
+            if (startsWithIgnoringCase(in, line, CONTENT_LENGTH)) {
+                int length = 0;
+                for (int i = line + CONTENT_LENGTH.length; in.get(i) != '\r'; i++) {
+                    byte b = in.get(i);
+                    if (b >= '0' && b <= '9') length = length * 10 + b - '0';
+                }
+                return length;
+            }
+            while (in.get(line) != '\n') {
+                line++;
+            }
+            line++;
+        }
+        return -1;
+    }
+
+    private static boolean startsWithIgnoringCase(ByteBuffer in, int at, byte[] lowerCase) {
+        for (int i = 0; i < lowerCase.length; i++) {
+            if ((in.get(at + i) | 0x20) != lowerCase[i]) return false;
+        }
+        return true;
+    }
+}
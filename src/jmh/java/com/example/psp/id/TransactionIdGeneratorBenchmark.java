@@ -0,0 +1,60 @@
+package com.example.psp.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction id generation by 1 to 64 concurrent threads: {@code random} ({@link java.util.UUID#randomUUID()},
+ * one shared {@code SecureRandom}) vs {@code time-ordered} ({@link TimeOrderedIdGenerator}, a shared counter and
+ * striped {@code SecureRandom}s).
+ * Time per id per thread; on an uncontended generator it stays flat as threads are added (up to the core count).
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="TransactionIdGeneratorBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransactionIdGeneratorBenchmark {
+
+    @Param({"random", "time-ordered"})
+    String type;
+
+    TransactionIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        TransactionIdProperties properties = new TransactionIdProperties();
+        properties.setType(type);
+        generator = new TransactionIdConfig().transactionIdGenerator(properties);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads01() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads04() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String threads64() {
+        return generator.next();
+    }
+}
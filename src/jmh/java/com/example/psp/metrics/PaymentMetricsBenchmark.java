@@ -0,0 +1,65 @@
+package com.example.psp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation cost per payment: the stage timestamps plus {@link PaymentMetrics#recordStages}, compared with
+ * the same four recordings on Micrometer percentile timers. Budget: 400 ns and no allocation per payment.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="PaymentMetricsBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PaymentMetricsBenchmark {
+
+    PaymentMetrics metrics;
+    Timer[] timers = new Timer[4];
+    long value = 1_000;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        metrics = new PaymentMetrics(registry, true);
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = Timer.builder("bench.stage").tag("stage", String.valueOf(i))
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * What {@code PaymentServiceImpl} adds to one payment: five stage timestamps (one read at completion) and four histogram recordings.
+     */
+    @Benchmark
+    public void paymentInstrumentation() {
+        long started = metrics.now();
+        long routed = metrics.now();
+        long stored = metrics.now();
+        long answered = metrics.now();
+        metrics.recordStages("A", "Approved", routed - started, stored - routed, answered - stored,
+                metrics.now() - answered);
+    }
+
+    @Benchmark
+    public void recordStages() {
+        metrics.recordStages("A", "Approved", value, value, value, value);
+    }
+
+    @Benchmark
+    public void micrometerTimers() {
+        for (Timer timer : timers) {
+            timer.record(value, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.psp.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the JSON API: reading a {@link PaymentRequest} and writing a {@link PaymentResponse},
+ * with an {@link ObjectMapper} configured like Spring Boot's.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="JsonSerializationBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonSerializationBenchmark {
+
+    ObjectReader requestReader;
+    ObjectWriter responseWriter;
+    byte[] requestJson;
+    PaymentResponse response = new PaymentResponse("0190a3c2-7d1e-7b4a-9c3f-5e2d1a0b9c8d", "Approved", "Processed by Acquirer A");
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(PaymentRequest.class);
+        responseWriter = objectMapper.writerFor(PaymentResponse.class);
+        requestJson = """
+                {"cardNumber":"4242424242424242","expiryDate":"12/30","cvv":"123","amount":100.0,"currency":"USD","merchantId":"M123"}"""
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PaymentRequest readRequest() throws IOException {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.psp.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of the compiled {@link BinRoutingTable} against the original substring/stream digit-sum routing,
+ * and of the health-aware decision of {@link AcquirerHealthMonitor} with acquirer "A" failed over (circuit open).
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="BinRoutingBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BinRoutingBenchmark {
+
+    private static final int CARDS = 1024;
+
+    @Param({"5000"})
+    int rules;
+
+    BinRoutingTable table;
+    AcquirerHealthMonitor monitor;
+    String[] cards;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        TreeSet<Integer> bins = new TreeSet<>();
+        while (bins.size() < rules) {
+            bins.add(400000 + random.nextInt(200000));
+        }
+        StringBuilder source = new StringBuilder();
+        int i = 0;
+        for (int bin : bins) {
+            source.append(bin).append(',').append((char) ('A' + i % 4)).append('/').append((char) ('A' + (i + 1) % 4))
+                    .append('\n');
+            // every tenth BIN gets a nested 8-digit override
+            if (i++ % 10 == 0) {
+                source.append(bin).append("10,").append(bin).append("19,E\n");
+            }
+        }
+        table = BinRoutingTable.parse(new StringReader(source.toString()));
+
+        monitor = new AcquirerHealthMonitor(new RoutingProperties(), new SimpleMeterRegistry());
+        for (int call = 0; call < 100; call++) {
+            monitor.onAcquirerCall("A", 1_000, false);
+        }
+
+        Integer[] known = bins.toArray(new Integer[0]);
+        cards = new String[CARDS];
+        for (int c = 0; c < CARDS; c++) {
+            int bin = c % 4 == 0 ? 400000 + random.nextInt(200000) : known[random.nextInt(known.length)];
+            cards[c] = bin + String.format("%010d", Math.abs(random.nextLong() % 10_000_000_000L));
+        }
+    }
+
+    private String nextCard() {
+        return cards[next++ & (CARDS - 1)];
+    }
+
+    @Benchmark
+    public String digitSumRouting() {
+        String bin = nextCard().substring(0, 6);
+        int sum = bin.chars().map(Character::getNumericValue).sum();
+        return (sum % 2 == 0) ? "A" : "B";
+    }
+
+    @Benchmark
+    public String tableRouting() {
+        String card = nextCard();
+        String acquirer = table.lookup(card);
+        return acquirer != null ? acquirer : BinRouter.defaultAcquirer(card);
+    }
+
+    @Benchmark
+    public String healthAwareRouting() {
+        String card = nextCard();
+        int range = table.find(card);
+        return range >= 0
+                ? monitor.choose(table.acquirer(range), table.secondary(range))
+                : monitor.choose(BinRouter.defaultAcquirer(card), null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.psp.service;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.routing.RoutingProperties;
+import com.example.psp.store.CompactTransactionStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the blocking and asynchronous payment paths under simulated acquirer latency.
+ *
+ * <p>One operation processes {@code payments} payments concurrently. The blocking path runs
+ * {@link PaymentService#processPayment} on a pool of 200 platform threads (Tomcat's default maximum); the async path
+ * starts every {@link PaymentService#processPaymentAsync} at once and waits for all of them.
+ * Payments per second = payments / score.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="AcquirerPathBenchmark -p latencyMillis=50"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AcquirerPathBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"50"})
+    int latencyMillis;
+
+    @Param({"5000"})
+    int payments;
+
+    PaymentService service;
+    ExecutorService platformPool;
+    PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", "M123");
+
+    @Setup
+    public void setUp() {
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getMock().setLatency(Duration.ofMillis(latencyMillis));
+        properties.getDefaultLimits().setMaxConcurrent(Integer.MAX_VALUE);
+        properties.getDefaultLimits().setDeadline(Duration.ofMinutes(1));
+        AcquirerGateway gateway = new AcquirerGateway(new AcquirerServiceMockImpl(properties), properties);
+        BinRouter router = new BinRouter(new DefaultResourceLoader(), new RoutingProperties());
+        service = PaymentServices.create(new CompactTransactionStore(1 << 20, 64, Duration.ZERO, 1024), gateway, router);
+        platformPool = Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platformPool.shutdownNow();
+    }
+
+    /**
+     * Blocking acquirer calls: each in-flight payment holds a platform thread for the whole latency.
+     */
+    @Benchmark
+    public int blocking() throws Exception {
+        Future<?>[] futures = new Future<?>[payments];
+        for (int i = 0; i < payments; i++) {
+            futures[i] = platformPool.submit(() -> service.processPayment(request));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return futures.length;
+    }
+
+    @Benchmark
+    public int async() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[payments];
+        for (int i = 0; i < payments; i++) {
+            futures[i] = service.processPaymentAsync(request);
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+}
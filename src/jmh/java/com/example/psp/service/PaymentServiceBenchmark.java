@@ -0,0 +1,70 @@
+package com.example.psp.service;
+
+import com.example.psp.audit.AuditLog;
+import com.example.psp.id.TimeOrderedIdGenerator;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.idempotency.IdempotencyProperties;
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.routing.RoutingProperties;
+import com.example.psp.settlement.SettlementLedger;
+import com.example.psp.settlement.SettlementProperties;
+import com.example.psp.store.CompactTransactionStore;
+import com.example.psp.tokenization.CardTokenizer;
+import com.example.psp.tokenization.TokenizationProperties;
+import com.example.psp.velocity.VelocityEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link PaymentServiceImpl#processPayment} with the mock acquirer (no simulated latency):
+ * id generation, routing, card tokenization, store writes, the acquirer gateway, settlement totals and response building.
+ * {@code stageMetrics=true} adds the per-stage timers of {@link PaymentMetrics}; the difference to {@code false} is
+ * the instrumentation overhead.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="PaymentServiceBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PaymentServiceBenchmark {
+
+    @Param({"false", "true"})
+    boolean stageMetrics;
+
+    PaymentService service;
+    PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", "M123");
+
+    @Setup
+    public void setUp() {
+        AcquirerProperties properties = new AcquirerProperties();
+        AcquirerServiceMockImpl acquirer = new AcquirerServiceMockImpl(properties);
+        AcquirerGateway gateway = new AcquirerGateway(acquirer, properties,
+                new AcquirerBatcher(acquirer, properties, new SimpleMeterRegistry()));
+        BinRouter router = new BinRouter(new DefaultResourceLoader(), new RoutingProperties());
+        PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry(), stageMetrics);
+        TokenizationProperties tokenization = new TokenizationProperties();
+        tokenization.setRandomKey(true);
+        service = new PaymentServiceImpl(new CompactTransactionStore(1 << 20, 64, Duration.ZERO, 1024), gateway, router,
+                new IdempotencyGuard(new IdempotencyProperties()), metrics, AuditLog.disabled(),
+                new SettlementLedger(new SettlementProperties()), new TimeOrderedIdGenerator(),
+                VelocityEngine.disabled(),
+                new CardTokenizer(tokenization, metrics, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public PaymentResponse processPayment() {
+        return service.processPayment(request);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal append throughput (one "Pending" and one result record per payment) and replay time of a
+ * multi-million-record journal into a {@link CompactTransactionStore}.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="TransactionJournalBenchmark"
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class TransactionJournalBenchmark {
+
+    private static Transaction transaction() {
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", "M123");
+        return new Transaction(UUID.randomUUID().toString(), request, "Pending", "A", System.currentTimeMillis());
+    }
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        Path directory;
+        TransactionJournal journal;
+        Transaction tx = transaction();
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("journal-append");
+            journal = new TransactionJournal(directory, 256L << 20, Duration.ofMillis(5), 256, Duration.ZERO);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            journal.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+
+        @Param({"2000000"})
+        int payments;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            directory = Files.createTempDirectory("journal-recovery");
+            try (TransactionJournal journal = new TransactionJournal(directory, 64L << 20, Duration.ofMillis(5), 256, Duration.ZERO)) {
+                for (int i = 0; i < payments; i++) {
+                    Transaction tx = transaction();
+                    journal.appendCreated(tx);
+                    journal.appendStatus(tx.getTransactionId(), "Approved");
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long appendPayment(AppendState state) {
+        state.journal.appendCreated(state.tx);
+        return state.journal.appendStatus(state.tx.getTransactionId(), "Approved");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long recover(RecoveryState state) {
+        CompactTransactionStore store = new CompactTransactionStore(state.payments, 64, Duration.ZERO, 1024);
+        try (TransactionJournal journal = new TransactionJournal(state.directory, 1 << 20, Duration.ofMillis(5), 256, Duration.ZERO)) {
+            return journal.replay(store);
+        }
+    }
+}
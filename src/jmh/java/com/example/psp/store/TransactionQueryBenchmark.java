@@ -0,0 +1,63 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read latency of a {@link CompactTransactionStore} as it grows: lookup by id, and a 100-transaction page of one
+ * merchant starting at a random point in time. Both should stay flat from 100k to 2M stored transactions.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="TransactionQueryBenchmark" -Dbench.jvmArgs=-Xmx3g
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionQueryBenchmark {
+
+    private static final int MERCHANTS = 100;
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Param({"100000", "2000000"})
+    int transactions;
+
+    CompactTransactionStore store;
+    String[] ids;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        store = new CompactTransactionStore(2 * transactions, 64, Duration.ZERO, MERCHANTS);
+        ids = new String[transactions];
+        for (int i = 0; i < transactions; i++) {
+            PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD",
+                    "M" + (i % MERCHANTS));
+            ids[i] = UUID.randomUUID().toString();
+            store.save(new Transaction(ids[i], request, "Approved", "A", T0 + i));
+        }
+    }
+
+    @Benchmark
+    public Transaction findById() {
+        return store.findById(ids[ThreadLocalRandom.current().nextInt(transactions)]).orElseThrow();
+    }
+
+    @Benchmark
+    public TransactionCursor merchantPage(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String merchant = "M" + random.nextInt(MERCHANTS);
+        long from = T0 + random.nextInt(transactions / 2);
+        return store.findByMerchant(new TransactionQuery(merchant, from, Long.MAX_VALUE, null, null, 100),
+                blackhole::consume);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Retained-heap comparison between {@link InMemoryTransactionStore} and {@link CompactTransactionStore}.
+ *
+ * <p>Run with:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.main=com.example.psp.store.TransactionStoreFootprint \
+ *     -Dbench.jvmArgs=-Xmx4g -Dbench.args=1000000
+ * </pre>
+ * Each stored request gets its own String instances, as it would when deserialized by Jackson.
+ */
+public final class TransactionStoreFootprint {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP"};
+
+    private TransactionStoreFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        measure("map", entries, InMemoryTransactionStore::new);
+        measure("compact", entries, () -> new CompactTransactionStore(entries, 64, Duration.ZERO, 1 << 16));
+    }
+
+    private static void measure(String name, int entries, Supplier<TransactionStore> factory) {
+        long before = usedHeapAfterGc();
+        TransactionStore store = factory.get();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < entries; i++) {
+            PaymentRequest request = new PaymentRequest(
+                    new String("4242424242424242"),
+                    new String("12/30"),
+                    new String("123"),
+                    10 + i % 1000,
+                    new String(CURRENCIES[i % CURRENCIES.length]),
+                    "M" + (i % 1000));
+            store.save(new Transaction(UUID.randomUUID().toString(), request, "Approved", "A", now));
+        }
+        long after = usedHeapAfterGc();
+        long retained = after - before;
+        System.out.printf("%-8s entries=%,d retained=%,d KB bytes/entry=%.1f size=%,d%n",
+                name, entries, retained / 1024, (double) retained / entries, store.size());
+        Reference.reachabilityFence(store);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.psp.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link LuhnValidator#isValid} for a valid card, a card failing the checksum and a card with non-digits
+ * (the card-testing reject path), and of the {@link Luhn} bulk variants per batch of {@value #BATCH} cards.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="LuhnValidatorBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LuhnValidatorBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"4242424242424242", "4242424242424243", "4242abcd42424242"})
+    String cardNumber;
+
+    LuhnValidator validator = new LuhnValidator();
+
+    String[] batch = new String[BATCH];
+    byte[] ascii;
+    int[] offsets = new int[BATCH];
+    int[] lengths = new int[BATCH];
+    boolean[] results = new boolean[BATCH];
+
+    @Setup
+    public void setUp() {
+        // mixed 16-digit cards, roughly one in ten passing the checksum
+        Random random = new Random(7);
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < BATCH; i++) {
+            StringBuilder card = new StringBuilder("4");
+            for (int d = 1; d < 16; d++) card.append((char) ('0' + random.nextInt(10)));
+            batch[i] = card.toString();
+            offsets[i] = buffer.length();
+            lengths[i] = batch[i].length();
+            buffer.append(batch[i]).append('\n');
+        }
+        ascii = buffer.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(cardNumber, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batchScalar() {
+        int valid = 0;
+        for (int i = 0; i < BATCH; i++) {
+            boolean ok = Luhn.isValid(batch[i]);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batchSwarAscii() {
+        return Luhn.validateAll(ascii, offsets, lengths, results);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.psp.validation;
+
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.util.CardExpiry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentRequestValidator} in both modes, for a valid request and for one with two invalid fields, including
+ * the error entries of the 400 body. Stage metrics are off, so only the validation itself is measured.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="PaymentRequestValidatorBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PaymentRequestValidatorBenchmark {
+
+    @Param({"FAST", "BEAN"})
+    ValidationProperties.Mode mode;
+
+    ValidatorFactory factory;
+    PaymentRequestValidator validator;
+    PaymentRequest valid = new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", "M123");
+    PaymentRequest invalid = new PaymentRequest("4242424242424243", "12/30", "12", 100.0, "USD", "M123");
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = new PaymentRequestValidator(mode, factory.getValidator(),
+                new PaymentMetrics(new SimpleMeterRegistry(), false), CardExpiry.system());
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public List<Map<String, String>> validRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> invalidRequest() {
+        return validator.validate(invalid);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.psp.velocity;
+
+import com.example.psp.model.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VelocityEngine#check} per payment over a pool of {@code cards} distinct cards paying at 1,000 merchants,
+ * with the default settings. The time per check should not depend on the number of cards.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.args="VelocityEngineBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VelocityEngineBenchmark {
+
+    private static final int POOL = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    int cards;
+
+    VelocityEngine engine;
+    PaymentRequest[] payments = new PaymentRequest[POOL];
+    int next;
+
+    @Setup
+    public void setUp() {
+        VelocityProperties properties = new VelocityProperties();
+        // the sketch as sized for the default limits
+        properties.setSketchWidth(VelocityEngine.sketchWidth(properties));
+        // measure the full check: no payment stops at the first rule
+        properties.setMaxCardAttempts(Integer.MAX_VALUE);
+        properties.setMaxDistinctCards(Integer.MAX_VALUE);
+        engine = new VelocityEngine(properties, new SimpleMeterRegistry());
+        Random random = new Random(11);
+        for (int i = 0; i < POOL; i++) {
+            String card = String.format("4%015d", random.nextInt(cards));
+            payments[i] = new PaymentRequest(card, "12/30", "123", 10.0, "USD", "M" + random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public VelocityEngine.Rule check() {
+        return engine.check(payments[next++ & (POOL - 1)]);
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%nvelocity memory: %,d bytes%n", engine.memoryBytes());
+    }
+}
@@ -1,6 +1,14 @@
 package com.example.psp;
 
+import com.example.psp.admission.AdmissionRejectedException;
+import com.example.psp.cluster.ClusterException;
+import com.example.psp.idempotency.IdempotencyKeyException;
+import com.example.psp.service.InvalidQueryException;
+import com.example.psp.store.MerchantLimitExceededException;
+import com.example.psp.validation.InvalidPaymentException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -32,4 +40,55 @@ public class GlobalExceptionHandler {
 
         return Map.of("errors", errors);
     }
+
+    @ExceptionHandler(InvalidPaymentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, Object> handleInvalidPayment(InvalidPaymentException ex) {
+        return Map.of("errors", ex.getErrors());
+    }
+
+    /**
+     * Unusable Idempotency-Key: 422 when it was already used for a different request, 400 otherwise.
+     */
+    @ExceptionHandler(IdempotencyKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKey(IdempotencyKeyException ex) {
+        HttpStatus status = ex.isReused() ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status)
+                .body(Map.of("errors", List.of(Map.of("field", "Idempotency-Key", "message", ex.getMessage()))));
+    }
+
+    @ExceptionHandler(InvalidQueryException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, Object> handleInvalidQuery(InvalidQueryException ex) {
+        return Map.of("errors", List.of(Map.of("field", ex.getField(), "message", ex.getMessage())));
+    }
+
+    /**
+     * Payment turned away by admission control: 429 for a merchant over its limits, 503 while shedding load.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmissionRejected(AdmissionRejectedException ex) {
+        HttpStatus status = ex.isShed() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(Map.of("errors", List.of(Map.of("field", "merchantId", "message", ex.getMessage()))));
+    }
+
+    /**
+     * The transaction store is full of other merchants' records; the payment was not processed.
+     */
+    @ExceptionHandler(MerchantLimitExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Map<String, Object> handleMerchantLimit(MerchantLimitExceededException ex) {
+        return Map.of("errors", List.of(Map.of("field", "merchantId", "message", ex.getMessage())));
+    }
+
+    /**
+     * Another cluster node needed for the request could not be reached.
+     */
+    @ExceptionHandler(ClusterException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> handleCluster(ClusterException ex) {
+        return Map.of("errors", List.of(Map.of("field", "cluster", "message", ex.getMessage())));
+    }
 }
@@ -2,11 +2,16 @@ package com.example.psp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 /**
  * Main Spring Boot application class (PSP System).
  * Creates embedded Tomcat and initializes the application context.
+ * {@link PspRuntimeHints} adds the reflection and resource hints for the AOT and native image builds.
  */
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(PspRuntimeHints.class)
 public class PspApplication {
 
     public static void main(String[] args) {
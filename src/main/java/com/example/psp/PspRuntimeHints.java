@@ -0,0 +1,60 @@
+package com.example.psp;
+
+import com.example.psp.model.BatchPaymentResult;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.model.TransactionDetails;
+import com.example.psp.settlement.SettlementTotal;
+import com.example.psp.util.LuhnValidator;
+import com.example.psp.util.NotExpired;
+import com.example.psp.util.NotExpiredValidator;
+import com.example.psp.util.ValidCardNumber;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reflection and resource hints for the AOT-processed and native image builds ({@code -Pnative}).
+ *
+ * <p>Spring's AOT processing finds controller signatures and configuration properties by itself. This covers
+ * what it cannot see: DTOs that Jackson binds through readers and writers built by hand (batch lines, transaction
+ * pages, acquirer requests and replies), the Bean Validation constraints and their validators (instantiated reflectively by
+ * Hibernate Validator in {@code psp.validation.mode=bean}), the exception handler methods and the default BIN
+ * routing table.
+ */
+public class PspRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] JSON_TYPES = {
+            PaymentRequest.class, PaymentResponse.class, BatchPaymentResult.class, TransactionDetails.class,
+            SettlementTotal.class
+    };
+
+    /** Records of {@code HttpAcquirerService}: the authorization request it writes and the reply it reads. */
+    private static final String[] ACQUIRER_JSON_TYPES = {
+            "com.example.psp.service.HttpAcquirerService$Authorization",
+            "com.example.psp.service.HttpAcquirerService$Reply"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(), JSON_TYPES);
+        for (String type : ACQUIRER_JSON_TYPES) {
+            bindings.registerReflectionHints(hints.reflection(), ClassUtils.resolveClassName(type, classLoader));
+        }
+
+        hints.reflection().registerType(PaymentRequest.class, MemberCategory.DECLARED_FIELDS);
+        hints.reflection().registerType(ValidCardNumber.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(NotExpired.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(LuhnValidator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(NotExpiredValidator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.reflection().registerType(GlobalExceptionHandler.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("bin-routes.csv");
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.psp.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits or rejects payments per merchant before they are validated and routed.
+ *
+ * <p>Each merchant gets a {@link MerchantLimiter} with its configured rate and concurrency limit, so a merchant in a
+ * retry loop only exhausts its own budget. The {@link LoadShedder} additionally turns payments away for everyone
+ * while the acquirers are slow. Checks are lock-free; rejections are counted in {@code psp.admission.rejected}
+ * tagged by reason. Per-merchant limits can be changed at runtime with {@link #setLimits}.
+ *
+ * <p>At most {@code maxMerchants} limiters are kept. When a new merchant finds them all taken, limiters that are
+ * idle (no payment in flight, bucket full again) are dropped, at most once per second; only if none is idle does
+ * the merchant share the overflow limiter.
+ */
+@Component
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionControl {
+
+    private static final String OVERFLOW = "*";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final AdmissionProperties.Limits defaultLimits;
+    private final Map<String, AdmissionProperties.Limits> overrides = new ConcurrentHashMap<>();
+    private final Map<String, MerchantLimiter> limiters = new ConcurrentHashMap<>();
+    private final int maxMerchants;
+    private final MerchantLimiter overflow;
+    private final LoadShedder loadShedder;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSweep;
+    private final Counter rateRejected;
+    private final Counter concurrencyRejected;
+    private final Counter shed;
+
+    @Autowired
+    public AdmissionControl(AdmissionProperties properties, LoadShedder loadShedder, MeterRegistry registry) {
+        this(properties, loadShedder, registry, System::nanoTime);
+    }
+
+    AdmissionControl(AdmissionProperties properties, LoadShedder loadShedder, MeterRegistry registry,
+                     LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        this.defaultLimits = properties.getDefaultLimits().copy();
+        properties.getMerchants().forEach((merchantId, limits) -> overrides.put(merchantId, validated(limits.copy())));
+        this.maxMerchants = properties.getMaxMerchants();
+        this.loadShedder = loadShedder;
+        this.nanoClock = nanoClock;
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong());
+        this.overflow = new MerchantLimiter(validated(defaultLimits), nanoClock.getAsLong());
+        this.rateRejected = rejected(registry, "rate");
+        this.concurrencyRejected = rejected(registry, "concurrency");
+        this.shed = rejected(registry, "shed");
+    }
+
+    /**
+     * Admits one payment of the merchant.
+     * @return the limiter whose concurrency slot the payment holds until {@link MerchantLimiter#release()},
+     * or null when admission control is off
+     * @throws AdmissionRejectedException if the payment is shed or the merchant is over a limit
+     */
+    public MerchantLimiter admit(String merchantId) {
+        if (!enabled) return null;
+        if (loadShedder.shouldShed()) {
+            shed.increment();
+            throw new AdmissionRejectedException(AdmissionRejectedException.Reason.SHED,
+                    "Acquirers are overloaded, retry later", 1);
+        }
+        MerchantLimiter limiter = limiter(merchantId);
+        while (!limiter.tryEnter()) {
+            if (!limiter.isRetired()) {
+                concurrencyRejected.increment();
+                throw new AdmissionRejectedException(AdmissionRejectedException.Reason.CONCURRENCY,
+                        "Too many concurrent payments for merchant", 1);
+            }
+            // dropped as idle since the lookup
+            limiter = limiter(merchantId);
+        }
+        long waitNanos = limiter.tryAcquire(nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            limiter.release();
+            rateRejected.increment();
+            throw new AdmissionRejectedException(AdmissionRejectedException.Reason.RATE,
+                    "Rate limit exceeded for merchant", Math.max(1, divideRoundingUp(waitNanos)));
+        }
+        return limiter;
+    }
+
+    /**
+     * Limits currently applied to the merchant.
+     */
+    public AdmissionProperties.Limits limits(String merchantId) {
+        return overrides.getOrDefault(merchantId, defaultLimits).copy();
+    }
+
+    /**
+     * Merchants with their own limits.
+     */
+    public Map<String, AdmissionProperties.Limits> overrides() {
+        return Map.copyOf(overrides);
+    }
+
+    public AdmissionProperties.Limits defaultLimits() {
+        return defaultLimits.copy();
+    }
+
+    /**
+     * Replaces the merchant's limits; payments in progress keep their slots and the bucket keeps its fill level.
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public void setLimits(String merchantId, AdmissionProperties.Limits limits) {
+        AdmissionProperties.Limits copy = validated(limits.copy());
+        overrides.put(merchantId, copy);
+        MerchantLimiter limiter = limiters.get(merchantId);
+        if (limiter != null) limiter.setLimits(copy, nanoClock.getAsLong());
+    }
+
+    /**
+     * Puts the merchant back on the default limits.
+     */
+    public void resetLimits(String merchantId) {
+        overrides.remove(merchantId);
+        MerchantLimiter limiter = limiters.get(merchantId);
+        if (limiter != null) limiter.setLimits(defaultLimits, nanoClock.getAsLong());
+    }
+
+    /**
+     * Payments of the merchant currently holding a concurrency slot.
+     */
+    public int inFlight(String merchantId) {
+        MerchantLimiter limiter = limiters.get(merchantId);
+        return limiter == null ? 0 : limiter.inFlight();
+    }
+
+    public LoadShedder loadShedder() {
+        return loadShedder;
+    }
+
+    private MerchantLimiter limiter(String merchantId) {
+        if (merchantId == null) return overflow;
+        MerchantLimiter limiter = limiters.get(merchantId);
+        if (limiter != null) return limiter;
+        if (limiters.size() >= maxMerchants && !overrides.containsKey(merchantId)) {
+            evictIdle();
+            if (limiters.size() >= maxMerchants) return overflow;
+        }
+        return limiters.computeIfAbsent(merchantId,
+                m -> new MerchantLimiter(overrides.getOrDefault(m, defaultLimits), nanoClock.getAsLong()));
+    }
+
+    private void evictIdle() {
+        long now = nanoClock.getAsLong();
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) return;
+        limiters.values().removeIf(limiter -> limiter.retireIfIdle(now));
+    }
+
+    private static AdmissionProperties.Limits validated(AdmissionProperties.Limits limits) {
+        if (!(limits.getRate() > 0) || limits.getBurst() < 1 || limits.getMaxConcurrent() < 1) {
+            throw new IllegalArgumentException("rate, burst and maxConcurrent must be positive");
+        }
+        return limits;
+    }
+
+    private static long divideRoundingUp(long nanos) {
+        long perSecond = TimeUnit.SECONDS.toNanos(1);
+        return (nanos + perSecond - 1) / perSecond;
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("psp.admission.rejected")
+                .description("Payments rejected before validation")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
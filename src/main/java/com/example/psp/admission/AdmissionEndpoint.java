@@ -0,0 +1,45 @@
+package com.example.psp.admission;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/admission}: shows admission limits and shedding state. Read-only unless
+ * {@code psp.admission.endpoint-writable=true}, which replaces it with {@link WritableAdmissionEndpoint}.
+ *
+ * <pre>
+ * GET    /actuator/admission               defaults, per-merchant overrides, shedding state
+ * GET    /actuator/admission/{merchantId}  effective limits and payments in progress
+ * </pre>
+ */
+@Component
+@Endpoint(id = "admission")
+@ConditionalOnProperty(prefix = "psp.admission", name = "endpoint-writable", havingValue = "false", matchIfMissing = true)
+public class AdmissionEndpoint {
+
+    protected final AdmissionControl admissionControl;
+
+    public AdmissionEndpoint(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @ReadOperation
+    public Map<String, Object> admission() {
+        LoadShedder shedder = admissionControl.loadShedder();
+        return Map.of(
+                "defaultLimits", admissionControl.defaultLimits(),
+                "merchants", admissionControl.overrides(),
+                "shedding", Map.of("enabled", shedder.isEnabled(), "ratio", shedder.shedRatio()));
+    }
+
+    @ReadOperation
+    public Map<String, Object> merchant(@Selector String merchantId) {
+        return Map.of("limits", admissionControl.limits(merchantId),
+                "inFlight", admissionControl.inFlight(merchantId));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.psp.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-merchant admission control and load shedding settings ({@code psp.admission.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Limits of merchants without an entry in {@link #merchants}.
+     */
+    private Limits defaultLimits = new Limits();
+
+    /**
+     * Per-merchant overrides, keyed by merchantId. Can be changed at runtime through {@code /actuator/admission}.
+     */
+    private Map<String, Limits> merchants = new HashMap<>();
+
+    /**
+     * Distinct merchants tracked individually; idle ones are dropped to make room, and while none is idle further
+     * merchants share one set of default limits.
+     */
+    private int maxMerchants = 100_000;
+
+    /**
+     * Whether {@code /actuator/admission} accepts limit changes; when false it is read-only.
+     */
+    private boolean endpointWritable = false;
+
+    private Shedding shedding = new Shedding();
+
+    public Limits limitsFor(String merchantId) {
+        return merchants.getOrDefault(merchantId, defaultLimits);
+    }
+
+    @Data
+    public static class Limits {
+
+        /**
+         * Sustained payments per second.
+         */
+        private double rate = 500;
+
+        /**
+         * Payments that may arrive at once on top of the sustained rate.
+         */
+        private int burst = 1000;
+
+        /**
+         * Payments of the merchant in progress at the same time.
+         */
+        private int maxConcurrent = 64;
+
+        public Limits copy() {
+            Limits copy = new Limits();
+            copy.setRate(rate);
+            copy.setBurst(burst);
+            copy.setMaxConcurrent(maxConcurrent);
+            return copy;
+        }
+    }
+
+    @Data
+    public static class Shedding {
+
+        /**
+         * Whether payments are shed when the smoothed acquirer latency is above {@link #latencyThreshold}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Smoothed acquirer latency above which shedding starts; at twice the threshold {@link #maxRatio} is shed.
+         */
+        private Duration latencyThreshold = Duration.ofMillis(500);
+
+        /**
+         * Largest fraction of payments shed, so that some keep measuring the acquirers' recovery.
+         */
+        private double maxRatio = 0.9;
+
+        /**
+         * Weight of each new acquirer call in the exponentially weighted moving average of the latency.
+         */
+        private double smoothing = 0.05;
+    }
+}
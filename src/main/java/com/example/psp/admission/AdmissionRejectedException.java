@@ -0,0 +1,29 @@
+package com.example.psp.admission;
+
+import lombok.Getter;
+
+/**
+ * A payment was turned away before validation: the merchant is over its rate or concurrency limit (429),
+ * or payments are being shed because the acquirers are slow (503).
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    public enum Reason {
+        RATE, CONCURRENCY, SHED
+    }
+
+    private final Reason reason;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(Reason reason, String message, long retryAfterSeconds) {
+        // rejections are expected under overload, so skip the stack trace
+        super(message, null, false, false);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean isShed() {
+        return reason == Reason.SHED;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.psp.admission;
+
+import com.example.psp.model.PaymentRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Applies {@link AdmissionControl} to {@link PaymentRequest} bodies.
+ *
+ * <p>The check runs right after the body is read, before Bean Validation and before the controller, so a rejected
+ * payment costs only its JSON parsing. The admitted payment's concurrency slot is kept in a request attribute and
+ * given back when the request completes.
+ */
+@Configuration
+public class AdmissionWebConfig implements WebMvcConfigurer {
+
+    static final String PERMIT_ATTRIBUTE = AdmissionWebConfig.class.getName() + ".permit";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof MerchantLimiter limiter) {
+                    request.removeAttribute(PERMIT_ATTRIBUTE);
+                    limiter.release();
+                }
+            }
+        });
+    }
+
+    @ControllerAdvice
+    static class AdmissionBodyAdvice extends RequestBodyAdviceAdapter {
+
+        private final AdmissionControl admissionControl;
+
+        AdmissionBodyAdvice(AdmissionControl admissionControl) {
+            this.admissionControl = admissionControl;
+        }
+
+        @Override
+        public boolean supports(MethodParameter methodParameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+            return targetType == PaymentRequest.class;
+        }
+
+        @Override
+        public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                    Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+            MerchantLimiter permit = admissionControl.admit(((PaymentRequest) body).getMerchantId());
+            if (permit != null) {
+                RequestContextHolder.currentRequestAttributes()
+                        .setAttribute(PERMIT_ATTRIBUTE, permit, RequestAttributes.SCOPE_REQUEST);
+            }
+            return body;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.psp.admission;
+
+import com.example.psp.service.AcquirerCallListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Global adaptive load shedding driven by acquirer latency.
+ *
+ * <p>{@link com.example.psp.service.AcquirerGateway} reports the duration of every acquirer call, which is folded
+ * into an exponentially weighted moving average. While the average is above {@code latency-threshold}, a growing
+ * fraction of new payments is rejected: none at the threshold, {@code max-ratio} at twice the threshold.
+ */
+@Component
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class LoadShedder implements AcquirerCallListener {
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double maxRatio;
+    private final double smoothing;
+    // updated without a lock: a sample lost to a concurrent update does not matter for a moving average
+    private volatile long latencyNanos;
+
+    public LoadShedder(AdmissionProperties properties, MeterRegistry registry) {
+        AdmissionProperties.Shedding shedding = properties.getShedding();
+        this.enabled = properties.isEnabled() && shedding.isEnabled();
+        this.thresholdNanos = shedding.getLatencyThreshold().toNanos();
+        this.maxRatio = shedding.getMaxRatio();
+        this.smoothing = shedding.getSmoothing();
+
+        Gauge.builder("psp.admission.acquirer.latency", this, s -> s.latencyNanos / 1e9)
+                .description("Smoothed acquirer call latency driving load shedding")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("psp.admission.shed.ratio", this, LoadShedder::shedRatio)
+                .description("Fraction of new payments currently shed")
+                .register(registry);
+    }
+
+    public static LoadShedder disabled() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getShedding().setEnabled(false);
+        return new LoadShedder(properties, new SimpleMeterRegistry());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void onAcquirerCall(String acquirer, long nanos, boolean success) {
+        recordAcquirerLatency(nanos);
+    }
+
+    public void recordAcquirerLatency(long nanos) {
+        if (!enabled) return;
+        long current = latencyNanos;
+        latencyNanos = current + (long) ((nanos - current) * smoothing);
+    }
+
+    public double shedRatio() {
+        long latency = latencyNanos;
+        if (!enabled || latency <= thresholdNanos) return 0;
+        return Math.min(maxRatio, (double) (latency - thresholdNanos) / thresholdNanos);
+    }
+
+    boolean shouldShed() {
+        double ratio = shedRatio();
+        return ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+}
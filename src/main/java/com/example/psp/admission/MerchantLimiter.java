@@ -0,0 +1,107 @@
+package com.example.psp.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate and concurrency limit of one merchant.
+ *
+ * <p>The rate limit is a token bucket in GCRA form: a single {@code long} holds the theoretical arrival time of
+ * the next payment, and admitting one advances it by the emission interval with a compare-and-set. A payment is
+ * admitted while that time is at most {@code burst} intervals ahead of now. The concurrency limit is a counter that
+ * is only incremented below the limit. Limits can be replaced at any time. An idle limiter can be retired, after
+ * which it admits nothing and callers look up its replacement.
+ */
+public final class MerchantLimiter {
+
+    // inFlight of a retired limiter
+    private static final int RETIRED = -1;
+
+    private final AtomicLong theoreticalArrival;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Budget budget;
+
+    MerchantLimiter(AdmissionProperties.Limits limits, long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+        this.budget = budget(limits);
+    }
+
+    /**
+     * Replaces the limits. The bucket keeps its fill level: a merchant that used half its burst has half of the
+     * new burst left.
+     */
+    void setLimits(AdmissionProperties.Limits limits, long now) {
+        Budget previous = budget;
+        Budget next = budget(limits);
+        budget = next;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long ahead = tat - now;
+            if (ahead <= 0) return;
+            double used = Math.min(1.0, (double) ahead / previous.toleranceNanos);
+            if (theoreticalArrival.compareAndSet(tat, now + (long) (used * next.toleranceNanos))) return;
+        }
+    }
+
+    /**
+     * Takes a concurrency slot if one is free and the limiter is not retired.
+     */
+    boolean tryEnter() {
+        int max = budget.maxConcurrent;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max || current == RETIRED) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Gives back the concurrency slot taken by {@link #tryEnter()}.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Takes a token if the rate allows.
+     * @return 0 if admitted, otherwise nanoseconds until a token is available
+     */
+    long tryAcquire(long now) {
+        Budget budget = this.budget;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = (tat - now > 0 ? tat : now) + budget.intervalNanos;
+            long ahead = next - now;
+            if (ahead > budget.toleranceNanos) return ahead - budget.toleranceNanos;
+            if (theoreticalArrival.compareAndSet(tat, next)) return 0;
+        }
+    }
+
+    private static Budget budget(AdmissionProperties.Limits limits) {
+        long interval = Math.max(1, (long) (1_000_000_000d / limits.getRate()));
+        return new Budget(interval, interval * limits.getBurst(), limits.getMaxConcurrent());
+    }
+
+    /**
+     * Retires the limiter if a new one would behave the same: no payment in flight and a full bucket.
+     */
+    boolean retireIfIdle(long now) {
+        if (!inFlight.compareAndSet(0, RETIRED)) return false;
+        if (theoreticalArrival.get() - now > 0) {
+            inFlight.set(0);
+            return false;
+        }
+        return true;
+    }
+
+    boolean isRetired() {
+        return inFlight.get() == RETIRED;
+    }
+
+    public int inFlight() {
+        return Math.max(0, inFlight.get());
+    }
+
+    private record Budget(long intervalNanos, long toleranceNanos, int maxConcurrent) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.psp.admission;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/admission} with runtime limit changes, enabled by {@code psp.admission.endpoint-writable=true}.
+ *
+ * <pre>
+ * POST   /actuator/admission/{merchantId}  {"rate": 50, "burst": 100, "maxConcurrent": 8} (fields optional)
+ * DELETE /actuator/admission/{merchantId}  back to the default limits
+ * </pre>
+ */
+@Component
+@Endpoint(id = "admission")
+@ConditionalOnProperty(prefix = "psp.admission", name = "endpoint-writable", havingValue = "true")
+public class WritableAdmissionEndpoint extends AdmissionEndpoint {
+
+    public WritableAdmissionEndpoint(AdmissionControl admissionControl) {
+        super(admissionControl);
+    }
+
+    @WriteOperation
+    public AdmissionProperties.Limits configure(@Selector String merchantId, @Nullable Double rate,
+                                                @Nullable Integer burst, @Nullable Integer maxConcurrent) {
+        AdmissionProperties.Limits limits = admissionControl.limits(merchantId);
+        if (rate != null) limits.setRate(rate);
+        if (burst != null) limits.setBurst(burst);
+        if (maxConcurrent != null) limits.setMaxConcurrent(maxConcurrent);
+        try {
+            admissionControl.setLimits(merchantId, limits);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return limits;
+    }
+
+    @DeleteOperation
+    public void reset(@Selector String merchantId) {
+        admissionControl.resetLimits(merchantId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.psp.audit;
+
+/**
+ * Payment stage events recorded by {@link AuditLog}.
+ */
+public enum AuditEvent {
+
+    /**
+     * Transaction stored as Pending and routed to an acquirer.
+     */
+    CREATED,
+
+    /**
+     * Acquirer answered, failed or missed its deadline; the transaction has its final status.
+     */
+    COMPLETED
+}
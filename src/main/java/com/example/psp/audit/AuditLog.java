@@ -0,0 +1,343 @@
+package com.example.psp.audit;
+
+import com.example.psp.util.SymbolTable;
+import com.example.psp.util.TransactionIds;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit trail of payment stage events.
+ *
+ * <p>Payment threads write fixed-layout records (timestamp, event, transaction id as two longs, merchant id,
+ * amount, and currency, acquirer and status as {@link SymbolTable} codes) into a preallocated multi-producer ring
+ * buffer, so recording an event does not format or allocate. A single background thread drains the ring in batches of up to
+ * {@code psp.audit.batch-size}, writes each record as one JSON line and flushes once per batch.
+ *
+ * <p>When the ring is full the event is dropped and counted ({@code psp.audit.dropped}), or with
+ * {@code psp.audit.overflow=BLOCK} the payment thread waits for a free slot. {@code psp.audit.backlog} reports
+ * records not yet written.
+ */
+@Component
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final Logger auditLogger = LoggerFactory.getLogger("psp.audit");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int FULL_YIELDS = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final boolean enabled;
+    private final AuditProperties.Overflow overflow;
+    private final int batchSize;
+    private final int mask;
+    private final Writer file;
+
+    // ring buffer, one slot per sequence modulo capacity
+    private final long[] timestamps;
+    private final AuditEvent[] events;
+    private final long[] idHigh;
+    private final long[] idLow;
+    private final String[] merchants;
+    private final double[] amounts;
+    private final int[] currencies;
+    private final int[] acquirers;
+    private final int[] statuses;
+    // published.get(slot) == sequence + 1 once the record for that sequence is complete
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final SymbolTable currencyCodes = new SymbolTable(Short.MAX_VALUE);
+    private final SymbolTable acquirerCodes = new SymbolTable(Byte.MAX_VALUE);
+    private final SymbolTable statusCodes = new SymbolTable(Byte.MAX_VALUE);
+
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+    // "yyyy-MM-ddTHH:mm:ss." of the second last written, reused while records stay in that second
+    private long formattedSecond = Long.MIN_VALUE;
+    private String secondPrefix;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AuditLog(AuditProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this(properties, openFile(properties.getFile()));
+        FunctionCounter.builder("psp.audit.dropped", dropped, AtomicLong::get)
+                .description("Audit events dropped because the ring buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("psp.audit.backlog", this, AuditLog::backlog)
+                .description("Audit events recorded but not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes to {@code file}, or to the {@code psp.audit} logger when it is null.
+     */
+    AuditLog(AuditProperties properties, Writer file) {
+        this.enabled = properties.isEnabled();
+        this.overflow = properties.getOverflow();
+        this.batchSize = properties.getBatchSize();
+        this.file = file;
+        int capacity = enabled ? Integer.highestOneBit(Math.max(1, properties.getCapacity() - 1)) << 1 : 1;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.events = new AuditEvent[capacity];
+        this.idHigh = new long[capacity];
+        this.idLow = new long[capacity];
+        this.merchants = new String[capacity];
+        this.amounts = new double[capacity];
+        this.currencies = new int[capacity];
+        this.acquirers = new int[capacity];
+        this.statuses = new int[capacity];
+        this.published = new AtomicLongArray(capacity);
+        if (enabled) {
+            this.consumer = new Thread(this::run, "audit-writer");
+            this.consumer.setDaemon(true);
+            this.consumer.start();
+        } else {
+            this.consumer = null;
+        }
+    }
+
+    /**
+     * An audit log that records nothing.
+     */
+    public static AuditLog disabled() {
+        AuditProperties properties = new AuditProperties();
+        properties.setEnabled(false);
+        return new AuditLog(properties, (Writer) null);
+    }
+
+    /**
+     * Transaction was created and stored as Pending for the chosen acquirer.
+     */
+    public void created(String transactionId, String merchantId, double amount, String currency, String acquirer) {
+        record(AuditEvent.CREATED, transactionId, merchantId, amount, currency, acquirer, "Pending");
+    }
+
+    /**
+     * Transaction reached its final status.
+     */
+    public void completed(String transactionId, String acquirer, String status) {
+        record(AuditEvent.COMPLETED, transactionId, null, 0, null, acquirer, status);
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public long backlog() {
+        return claimed.get() - consumed;
+    }
+
+    private void record(AuditEvent event, String transactionId, String merchantId, double amount, String currency,
+                        String acquirer, String status) {
+        if (!enabled) return;
+        long sequence = claim();
+        if (sequence < 0) return;
+        int slot = (int) sequence & mask;
+        timestamps[slot] = System.currentTimeMillis();
+        events[slot] = event;
+        boolean canonical = TransactionIds.isCanonical(transactionId);
+        idHigh[slot] = canonical ? TransactionIds.mostSignificantBits(transactionId) : 0;
+        idLow[slot] = canonical ? TransactionIds.leastSignificantBits(transactionId) : 0;
+        // kept by reference: merchant ids come from clients, so a code table would eventually fill up
+        merchants[slot] = merchantId;
+        amounts[slot] = amount;
+        currencies[slot] = currencyCodes.codeOrNone(currency);
+        acquirers[slot] = acquirerCodes.codeOrNone(acquirer);
+        statuses[slot] = statusCodes.codeOrNone(status);
+        published.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * Claims the next sequence, or returns -1 if the ring is full and the event is dropped.
+     */
+    private long claim() {
+        int waits = 0;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed > mask) {
+                if (overflow == AuditProperties.Overflow.DROP) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                // let the writer run; park only if it stays behind
+                if (++waits < FULL_YIELDS) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) return sequence;
+        }
+    }
+
+    private void run() {
+        long next = consumed;
+        while (running || next < claimed.get()) {
+            int written = 0;
+            try {
+                while (written < batchSize && published.get((int) next & mask) == next + 1) {
+                    write((int) next & mask);
+                    next++;
+                    written++;
+                }
+                if (written > 0 && file != null) file.flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot write audit events: {}", e.toString());
+                // skip the records of the failed batch rather than retrying forever
+                while (written < batchSize && published.get((int) next & mask) == next + 1) {
+                    next++;
+                    written++;
+                }
+            }
+            // release the slots only after their records have been read
+            consumed = next;
+            if (written == 0) {
+                if (!running && next >= claimed.get()) break;
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(int slot) throws IOException {
+        line.setLength(0);
+        line.append("{\"ts\":\"");
+        appendTimestamp(timestamps[slot]);
+        line.append("\",\"event\":\"").append(events[slot].name()).append('"');
+        line.append(",\"transactionId\":");
+        if (idHigh[slot] == 0 && idLow[slot] == 0) {
+            line.append("null");
+        } else {
+            line.append('"');
+            appendUuid(idHigh[slot], idLow[slot]);
+            line.append('"');
+        }
+        if (events[slot] == AuditEvent.CREATED) {
+            appendString("merchantId", merchants[slot]);
+            line.append(",\"amount\":").append(amounts[slot]);
+            appendString("currency", currencyCodes.name(currencies[slot]));
+        }
+        appendString("acquirer", acquirerCodes.name(acquirers[slot]));
+        appendString("status", statusCodes.name(statuses[slot]));
+        line.append('}');
+
+        if (file != null) {
+            line.append('\n');
+            int length = line.length();
+            if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+            line.getChars(0, length, chars, 0);
+            file.write(chars, 0, length);
+        } else {
+            auditLogger.info(line.toString());
+        }
+    }
+
+    private void appendTimestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != formattedSecond) {
+            String formatted = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(second));
+            // "...:ss" + "Z" -> "...:ss."
+            secondPrefix = formatted.substring(0, formatted.length() - 1) + '.';
+            formattedSecond = second;
+        }
+        int millis = Math.floorMod(epochMillis, 1000);
+        line.append(secondPrefix)
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10))
+                .append('Z');
+    }
+
+    /**
+     * Canonical 8-4-4-4-12 form, written without creating a {@link java.util.UUID} or String.
+     */
+    private void appendUuid(long msb, long lsb) {
+        appendHex(msb >>> 32, 8);
+        line.append('-');
+        appendHex(msb >>> 16, 4);
+        line.append('-');
+        appendHex(msb, 4);
+        line.append('-');
+        appendHex(lsb >>> 48, 4);
+        line.append('-');
+        appendHex(lsb, 12);
+    }
+
+    private void appendHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            line.append(HEX[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    private void appendString(String field, String value) {
+        line.append(",\"").append(field).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Stops accepting work once every recorded event has been written.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (consumer == null) return;
+        running = false;
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Cannot close audit file: {}", e.toString());
+            }
+        }
+    }
+
+    private static Writer openFile(String file) throws IOException {
+        if (file == null || file.isBlank()) return null;
+        Path path = Path.of(file);
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+}
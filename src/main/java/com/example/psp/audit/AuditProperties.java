@@ -0,0 +1,46 @@
+package com.example.psp.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Audit event pipeline settings ({@code psp.audit.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.audit")
+public class AuditProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Ring buffer slots (rounded up to a power of two).
+     */
+    private int capacity = 65_536;
+
+    /**
+     * What a payment thread does when the ring buffer is full.
+     */
+    private Overflow overflow = Overflow.DROP;
+
+    /**
+     * Maximum number of events written per flush.
+     */
+    private int batchSize = 256;
+
+    /**
+     * File the audit lines are appended to; when empty they go to the {@code psp.audit} logger.
+     */
+    private String file = "";
+
+    public enum Overflow {
+        /**
+         * Drop the event and count it in {@code psp.audit.dropped}.
+         */
+        DROP,
+        /**
+         * Wait until the consumer has freed a slot.
+         */
+        BLOCK
+    }
+}
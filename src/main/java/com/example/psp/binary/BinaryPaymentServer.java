@@ -0,0 +1,272 @@
+package com.example.psp.binary;
+
+import com.example.psp.admission.AdmissionControl;
+import com.example.psp.admission.AdmissionRejectedException;
+import com.example.psp.admission.MerchantLimiter;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.service.PaymentService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * TCP endpoint of the {@link BinaryProtocol}, for high-volume server-to-server merchants
+ * ({@code psp.binary.enabled=true}, port {@code psp.binary.port}).
+ *
+ * <p>Each connection is served by a virtual thread that reads into a direct {@link ByteBuffer} and decodes every
+ * complete frame in place into a {@link PaymentRequest}, which then takes the same path as {@code POST /payments}:
+ * {@link AdmissionControl}, then {@link PaymentService#processPaymentAsync}. Clients may pipeline requests; results
+ * carry the request's correlation id and are written in completion order.
+ *
+ * <p>Completions only queue their result: a second virtual thread per connection owns the socket's write side and
+ * writes everything queued since its last write with one system call, so a slow client never blocks the threads
+ * that complete payments. At most {@code psp.binary.max-in-flight} requests per connection are between being read
+ * and having their result written; beyond that the reader stops reading and TCP pushes back on the client.
+ * A frame with an unknown length, version or type is answered with {@code INVALID}/{@code FIELD_FRAME} and the
+ * connection is closed, since the stream cannot be resynchronised. The connection is closed once the results of
+ * the requests already read have been written.
+ */
+@Component
+@EnableConfigurationProperties(BinaryProperties.class)
+public class BinaryPaymentServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryPaymentServer.class);
+
+    private final PaymentService paymentService;
+    private final AdmissionControl admissionControl;
+    private final int bufferSize;
+    private final int maxInFlight;
+    private final ServerSocketChannel server;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+
+    public BinaryPaymentServer(BinaryProperties properties, PaymentService paymentService,
+                               AdmissionControl admissionControl) {
+        this.paymentService = paymentService;
+        this.admissionControl = admissionControl;
+        this.bufferSize = Math.max(properties.getBufferSize(), BinaryProtocol.REQUEST_FRAME);
+        if (properties.getMaxInFlight() < 1) {
+            throw new IllegalArgumentException("psp.binary.max-in-flight must be at least 1");
+        }
+        this.maxInFlight = properties.getMaxInFlight();
+        if (!properties.isEnabled()) {
+            this.server = null;
+            return;
+        }
+        try {
+            this.server = ServerSocketChannel.open().bind(new InetSocketAddress(properties.getPort()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on binary protocol port " + properties.getPort(), e);
+        }
+        Thread.ofPlatform().daemon().name("binary-acceptor").start(this::accept);
+        log.info("Binary payment protocol listening on port {}", port());
+    }
+
+    /**
+     * Port the server listens on, or -1 when it is disabled.
+     */
+    public int port() {
+        if (server == null) return -1;
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (server == null) return;
+        server.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connections.add(channel);
+                Connection connection = new Connection(channel);
+                Thread.ofVirtual().name("binary-writer").start(connection::write);
+                Thread.ofVirtual().name("binary-connection").start(connection::serve);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Binary protocol accept failed: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Result of one request, encoded by the writer; {@code response} is null for results without a payment.
+     */
+    private record Result(long correlationId, PaymentResponse response, byte status, int detail) {
+    }
+
+    private static final Result END = new Result(0, null, (byte) 0, 0);
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(bufferSize);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(bufferSize);
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        // one slot per permit plus the end marker, so offering a result never fails while the writer runs
+        private final BlockingQueue<Result> results = new ArrayBlockingQueue<>(maxInFlight + 1);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void serve() {
+            try {
+                while (channel.read(in) >= 0) {
+                    in.flip();
+                    boolean valid = decodeFrames();
+                    in.compact();
+                    if (!valid) break;
+                }
+            } catch (IOException e) {
+                log.debug("Binary connection closed: {}", e.toString());
+            } finally {
+                // wait until every result has been written, or the writer gave up
+                inFlight.acquireUninterruptibly(maxInFlight);
+                results.offer(END);
+            }
+        }
+
+        /**
+         * Handles every complete frame in the read buffer.
+         * @return false if the stream is corrupt
+         */
+        private boolean decodeFrames() {
+            while (in.remaining() >= 4) {
+                int offset = in.position();
+                if (in.remaining() < BinaryProtocol.REQUEST_FRAME) {
+                    // wait for the rest, unless the length already shows it is not a payment frame
+                    if (in.getInt(offset) == BinaryProtocol.REQUEST_LENGTH) return true;
+                }
+                inFlight.acquireUninterruptibly();
+                if (!BinaryProtocol.isPaymentFrame(in, offset)) {
+                    respond(0, BinaryProtocol.INVALID, BinaryProtocol.FIELD_FRAME);
+                    return false;
+                }
+                handle(offset);
+                in.position(offset + BinaryProtocol.REQUEST_FRAME);
+            }
+            return true;
+        }
+
+        private void handle(int offset) {
+            long correlationId = BinaryProtocol.correlationId(in, offset);
+            PaymentRequest request = new PaymentRequest();
+            int invalid = BinaryProtocol.decode(in, offset, request);
+            if (invalid != BinaryProtocol.VALID) {
+                respond(correlationId, BinaryProtocol.INVALID, invalid);
+                return;
+            }
+            MerchantLimiter permit;
+            try {
+                permit = admissionControl.admit(request.getMerchantId());
+            } catch (AdmissionRejectedException e) {
+                respond(correlationId, e.isShed() ? BinaryProtocol.OVERLOADED : BinaryProtocol.RATE_LIMITED,
+                        (int) e.getRetryAfterSeconds());
+                return;
+            }
+            CompletableFuture<PaymentResponse> payment;
+            try {
+                payment = paymentService.processPaymentAsync(request);
+            } catch (RuntimeException e) {
+                payment = CompletableFuture.failedFuture(e);
+            }
+            payment.whenComplete((response, error) -> {
+                if (permit != null) permit.release();
+                results.offer(error != null
+                        ? new Result(correlationId, null, BinaryProtocol.FAILED, 0)
+                        : new Result(correlationId, response, (byte) 0, 0));
+            });
+        }
+
+        private void respond(long correlationId, byte status, int detail) {
+            results.offer(new Result(correlationId, null, status, detail));
+        }
+
+        /**
+         * Writer loop: waits for a result, encodes it with everything else queued by then and writes the batch.
+         * Closes the connection at the end marker or when the client stops accepting results.
+         */
+        void write() {
+            try {
+                while (true) {
+                    Result result = results.take();
+                    int written = 0;
+                    while (result != null && result != END) {
+                        if (out.remaining() < BinaryProtocol.RESPONSE_FRAME) writeOut();
+                        encode(result);
+                        written++;
+                        result = results.poll();
+                    }
+                    writeOut();
+                    inFlight.release(written);
+                    if (result == END) return;
+                }
+            } catch (IOException e) {
+                log.debug("Binary result not delivered: {}", e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                // unblock a reader waiting for results that will never be written
+                inFlight.release(maxInFlight);
+            }
+        }
+
+        private void encode(Result result) {
+            if (result.response() != null) {
+                BinaryProtocol.encodeResult(out, result.correlationId(), result.response());
+            } else {
+                BinaryProtocol.encodeResult(out, result.correlationId(), result.status(), result.detail(), 0, 0);
+            }
+        }
+
+        /**
+         * Writes the buffered results. Only called by the writer.
+         */
+        private void writeOut() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+
+        private void close() {
+            connections.remove(channel);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Binary connection close failed: {}", e.toString());
+            }
+        }
+    }
+}
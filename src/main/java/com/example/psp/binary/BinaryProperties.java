@@ -0,0 +1,34 @@
+package com.example.psp.binary;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Binary payment protocol settings ({@code psp.binary.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.binary")
+public class BinaryProperties {
+
+    /**
+     * Whether the binary protocol listens on {@link #port}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * TCP port of the binary protocol; 0 picks a free port.
+     */
+    private int port = 7070;
+
+    /**
+     * Size of each connection's read and write buffer; bounds the frames decoded or written per system call.
+     */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * Requests per connection that may be read before their results are written; pipelining beyond this is
+     * pushed back to the client.
+     */
+    private int maxInFlight = 1024;
+}
@@ -0,0 +1,238 @@
+package com.example.psp.binary;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.util.CardExpiry;
+import com.example.psp.util.Luhn;
+import com.example.psp.util.TransactionIds;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+/**
+ * Fixed-layout, length-prefixed frames of the binary payment protocol. All integers are big-endian.
+ *
+ * <pre>
+ * Payment request (86 bytes)              Payment result (32 bytes)
+ * off size                                off size
+ *  0   4  length of the rest (82)          0   4  length of the rest (28)
+ *  4   1  version (1)                      4   1  version (1)
+ *  5   1  type (1)                         5   1  type (2)
+ *  6   2  reserved (0)                     6   1  status, see below
+ *  8   8  correlation id                   7   1  detail: invalid field, or Retry-After seconds
+ * 16   1  card number length (13..19)      8   8  correlation id of the request
+ * 17  19  card number, ASCII digits       16  16  transaction id (UUID high, low), 0 if none
+ * 36   1  expiry month (1..12)
+ * 37   1  expiry year (0..99, YY)
+ * 38   1  CVV length (3..4)
+ * 39   4  CVV, ASCII digits
+ * 43   8  amount in minor units (e.g. cents)
+ * 51   2  ISO 4217 numeric currency (840 = USD)
+ * 53   1  merchant id length (1..32)
+ * 54  32  merchant id, ASCII
+ * </pre>
+ *
+ * Statuses: {@link #APPROVED}, {@link #DENIED}, {@link #FAILED}, {@link #INVALID} (detail = {@code FIELD_*}),
+ * {@link #RATE_LIMITED} and {@link #OVERLOADED} (detail = seconds to wait). Unused bytes are zero. Requests are
+ * decoded straight from the connection's buffer; only the {@link PaymentRequest} strings are allocated.
+ */
+public final class BinaryProtocol {
+
+    public static final byte VERSION = 1;
+    public static final byte TYPE_PAYMENT = 1;
+    public static final byte TYPE_RESULT = 2;
+    public static final int REQUEST_LENGTH = 82;
+    public static final int RESPONSE_LENGTH = 28;
+    public static final int REQUEST_FRAME = 4 + REQUEST_LENGTH;
+    public static final int RESPONSE_FRAME = 4 + RESPONSE_LENGTH;
+
+    public static final byte APPROVED = 0;
+    public static final byte DENIED = 1;
+    public static final byte FAILED = 2;
+    public static final byte INVALID = 3;
+    public static final byte RATE_LIMITED = 4;
+    public static final byte OVERLOADED = 5;
+
+    public static final byte FIELD_FRAME = 0;
+    public static final byte FIELD_CARD_NUMBER = 1;
+    public static final byte FIELD_EXPIRY_DATE = 2;
+    public static final byte FIELD_CVV = 3;
+    public static final byte FIELD_AMOUNT = 4;
+    public static final byte FIELD_CURRENCY = 5;
+    public static final byte FIELD_MERCHANT_ID = 6;
+
+    /**
+     * Returned by {@link #decode} for a valid request.
+     */
+    public static final int VALID = -1;
+
+    static final int MAX_CARD = 19;
+    static final int MAX_CVV = 4;
+    static final int MAX_MERCHANT = 32;
+
+    private static final int CORRELATION = 8;
+    private static final int CARD_LENGTH = 16;
+    private static final int CARD = 17;
+    private static final int EXPIRY_MONTH = 36;
+    private static final int EXPIRY_YEAR = 37;
+    private static final int CVV_LENGTH = 38;
+    private static final int CVV = 39;
+    private static final int AMOUNT = 43;
+    private static final int CURRENCY = 51;
+    private static final int MERCHANT_LENGTH = 53;
+    private static final int MERCHANT = 54;
+
+    // "MM/YY" for month * 100 + year, so decoding the expiry does not format
+    private static final String[] EXPIRY = new String[1300];
+    // alphabetic code and minor unit factor by ISO 4217 numeric code
+    private static final String[] CURRENCY_CODES = new String[1000];
+    private static final double[] MINOR_UNITS = new double[1000];
+
+    static {
+        for (int month = 1; month <= 12; month++) {
+            for (int year = 0; year < 100; year++) {
+                EXPIRY[month * 100 + year] = String.format("%02d/%02d", month, year);
+            }
+        }
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int numeric = currency.getNumericCode();
+            if (numeric <= 0 || numeric >= CURRENCY_CODES.length) continue;
+            CURRENCY_CODES[numeric] = currency.getCurrencyCode();
+            MINOR_UNITS[numeric] = Math.pow(10, Math.max(0, currency.getDefaultFractionDigits()));
+        }
+    }
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Checks the header of the frame starting at {@code offset} (its length prefix has been read already).
+     */
+    static boolean isPaymentFrame(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) == REQUEST_LENGTH && buffer.get(offset + 4) == VERSION
+                && buffer.get(offset + 5) == TYPE_PAYMENT;
+    }
+
+    static long correlationId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + CORRELATION);
+    }
+
+    /**
+     * Decodes and validates the request frame starting at {@code offset} into {@code request}, with the same rules as
+     * {@code PaymentRequestValidator} uses for the JSON API, including the not-expired check.
+     * @return {@link #VALID}, or the {@code FIELD_*} code of the first invalid field
+     */
+    static int decode(ByteBuffer buffer, int offset, PaymentRequest request) {
+        int cardLength = buffer.get(offset + CARD_LENGTH);
+        if (cardLength < Luhn.MIN_LENGTH || cardLength > MAX_CARD) return FIELD_CARD_NUMBER;
+        String cardNumber = ascii(buffer, offset + CARD, cardLength);
+        if (!Luhn.isValid(cardNumber)) return FIELD_CARD_NUMBER;
+
+        int month = buffer.get(offset + EXPIRY_MONTH);
+        int year = buffer.get(offset + EXPIRY_YEAR);
+        if (month < 1 || month > 12 || year < 0 || year > 99) return FIELD_EXPIRY_DATE;
+        if (CardExpiry.system().isExpired(CardExpiry.monthNumber(2000 + year, month))) return FIELD_EXPIRY_DATE;
+
+        int cvvLength = buffer.get(offset + CVV_LENGTH);
+        if (cvvLength < 3 || cvvLength > MAX_CVV || !digits(buffer, offset + CVV, cvvLength)) return FIELD_CVV;
+
+        long amountMinor = buffer.getLong(offset + AMOUNT);
+        if (amountMinor <= 0) return FIELD_AMOUNT;
+
+        int currency = buffer.getShort(offset + CURRENCY) & 0xFFFF;
+        if (currency >= CURRENCY_CODES.length || CURRENCY_CODES[currency] == null) return FIELD_CURRENCY;
+
+        int merchantLength = buffer.get(offset + MERCHANT_LENGTH);
+        if (merchantLength < 1 || merchantLength > MAX_MERCHANT) return FIELD_MERCHANT_ID;
+        String merchantId = ascii(buffer, offset + MERCHANT, merchantLength);
+        if (merchantId == null || merchantId.isBlank()) return FIELD_MERCHANT_ID;
+
+        request.setCardNumber(cardNumber);
+        request.setExpiryDate(EXPIRY[month * 100 + year]);
+        request.setCvv(ascii(buffer, offset + CVV, cvvLength));
+        request.setAmount(amountMinor / MINOR_UNITS[currency]);
+        request.setCurrency(CURRENCY_CODES[currency]);
+        request.setMerchantId(merchantId);
+        return VALID;
+    }
+
+    /**
+     * Appends a result frame for a processed payment.
+     */
+    static void encodeResult(ByteBuffer out, long correlationId, PaymentResponse response) {
+        byte status = switch (response.getStatus()) {
+            case "Approved" -> APPROVED;
+            case "Denied" -> DENIED;
+            default -> FAILED;
+        };
+        String id = response.getTransactionId();
+        boolean hasId = TransactionIds.isCanonical(id);
+        encodeResult(out, correlationId, status, 0,
+                hasId ? TransactionIds.mostSignificantBits(id) : 0, hasId ? TransactionIds.leastSignificantBits(id) : 0);
+    }
+
+    /**
+     * Appends a result frame.
+     */
+    static void encodeResult(ByteBuffer out, long correlationId, byte status, int detail, long idHigh, long idLow) {
+        out.putInt(RESPONSE_LENGTH)
+                .put(VERSION)
+                .put(TYPE_RESULT)
+                .put(status)
+                .put((byte) Math.min(detail, 0xFF))
+                .putLong(correlationId)
+                .putLong(idHigh)
+                .putLong(idLow);
+    }
+
+    /**
+     * Appends a request frame; for clients of the protocol.
+     * @param amountMinor amount in the currency's minor unit
+     * @param currency ISO 4217 numeric code
+     * @throws IllegalArgumentException if a field does not fit its slot
+     */
+    public static void encodeRequest(ByteBuffer out, long correlationId, String cardNumber, int expiryMonth,
+                                     int expiryYear, String cvv, long amountMinor, int currency, String merchantId) {
+        if (cardNumber.length() > MAX_CARD || cvv.length() > MAX_CVV || merchantId.length() > MAX_MERCHANT) {
+            throw new IllegalArgumentException("card number, CVV or merchant id too long for the frame");
+        }
+        out.putInt(REQUEST_LENGTH).put(VERSION).put(TYPE_PAYMENT).putShort((short) 0).putLong(correlationId);
+        out.put((byte) cardNumber.length());
+        putPadded(out, cardNumber, MAX_CARD);
+        out.put((byte) expiryMonth).put((byte) (expiryYear % 100));
+        out.put((byte) cvv.length());
+        putPadded(out, cvv, MAX_CVV);
+        out.putLong(amountMinor).putShort((short) currency);
+        out.put((byte) merchantId.length());
+        putPadded(out, merchantId, MAX_MERCHANT);
+    }
+
+    private static void putPadded(ByteBuffer out, String value, int width) {
+        out.put(value.getBytes(StandardCharsets.US_ASCII));
+        for (int i = value.length(); i < width; i++) {
+            out.put((byte) 0);
+        }
+    }
+
+    private static boolean digits(ByteBuffer buffer, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(offset + i);
+            if (b < '0' || b > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * ASCII string of the bytes, or null if one of them is not printable ASCII.
+     */
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(offset + i);
+            if (b < 0x20 || b > 0x7E) return null;
+            bytes[i] = b;
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
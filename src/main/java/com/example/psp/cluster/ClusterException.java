@@ -0,0 +1,15 @@
+package com.example.psp.cluster;
+
+/**
+ * Thrown when another node of the cluster cannot be reached or fails a request.
+ */
+public class ClusterException extends RuntimeException {
+
+    public ClusterException(String message) {
+        super(message);
+    }
+
+    public ClusterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
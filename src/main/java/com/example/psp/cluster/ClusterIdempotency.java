@@ -0,0 +1,70 @@
+package com.example.psp.cluster;
+
+import com.example.psp.idempotency.Claim;
+import com.example.psp.idempotency.Fingerprint;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.idempotency.IdempotencyPeers;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.store.TransactionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link IdempotencyPeers} of a cluster: a merchant's key is kept by the node that owns {@code merchantId, key} on
+ * the ring, reached through the {@code CLAIM} and {@code COMPLETE} operations of {@link ClusterProtocol}.
+ *
+ * <p>Remembered keys are not handed over when the ring changes, so a retry that arrives right after its key
+ * moved to another node is not recognized.
+ */
+@Component
+@ConditionalOnProperty(prefix = "psp.cluster", name = "enabled", havingValue = "true")
+public class ClusterIdempotency implements IdempotencyPeers {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterIdempotency.class);
+
+    private final ClusterNode node;
+
+    public ClusterIdempotency(TransactionStore transactionStore) {
+        if (!(transactionStore instanceof ClusteredTransactionStore clustered)) {
+            throw new IllegalStateException("psp.cluster.enabled=true needs the clustered transaction store");
+        }
+        this.node = clustered.node();
+    }
+
+    @Override
+    public String owner(String merchantId, String idempotencyKey) {
+        // header values cannot contain a line break, so the ring key is unambiguous
+        String owner = node.ring().owner(merchantId + '\n' + idempotencyKey);
+        return owner.equals(node.nodeId()) ? null : owner;
+    }
+
+    @Override
+    public CompletableFuture<Claim> claim(String owner, String merchantId, String idempotencyKey, Fingerprint fingerprint) {
+        try {
+            return node.claim(owner, merchantId, idempotencyKey, fingerprint);
+        } catch (ClusterException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void complete(String owner, String merchantId, String idempotencyKey, PaymentResponse response) {
+        try {
+            node.complete(owner, merchantId, idempotencyKey, response).exceptionally(error -> {
+                log.warn("Could not report attempt for idempotency key to node {}: {}", owner, error.getMessage());
+                return null;
+            });
+        } catch (ClusterException e) {
+            log.warn("Could not report attempt for idempotency key to node {}: {}", owner, e.getMessage());
+        }
+    }
+
+    @Override
+    public void serve(IdempotencyGuard guard) {
+        node.serveIdempotency(guard);
+    }
+}
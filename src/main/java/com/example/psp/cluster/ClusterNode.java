@@ -0,0 +1,631 @@
+package com.example.psp.cluster;
+
+import com.example.psp.idempotency.Claim;
+import com.example.psp.idempotency.Fingerprint;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.model.Transaction;
+import com.example.psp.store.TransactionCursor;
+import com.example.psp.store.TransactionQuery;
+import com.example.psp.store.TransactionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * One node of a PSP cluster: serves its share of the transactions to the other nodes, tracks which nodes are alive
+ * and hands transactions over when the ring changes.
+ *
+ * <p>Membership: every {@code heartbeatInterval} the node sends {@code HELLO} with the members it knows to every
+ * known node and to the configured seeds, and merges the members in the answers, so a joining node only needs one
+ * seed. Nodes not heard from within {@code failureTimeout}, and nodes that sent {@code LEAVE}, are taken off the ring.
+ *
+ * <p>Rebalancing: whenever the set of live nodes changes, the node switches to the new ring and, on a background
+ * thread, moves every local transaction it no longer owns to its new owner in batches. A batch is taken out of the
+ * local store before it is sent; status updates that reach this node while it is on the wire are applied to the
+ * copy in transit and forwarded to the owner once it has the batch, and a batch the owner does not accept goes
+ * back into the local store. For {@code 2 x failureTimeout} after a change ({@link #inHandoff()}) lookups that miss on the
+ * owner also ask the other nodes. {@link #close()} hands over all local transactions before leaving. Transactions
+ * are not replicated: those of a node that fails without leaving are unavailable until it rejoins.
+ *
+ * <p>The node listens on {@code psp.cluster.host} only, and serves a connection, in either direction, only after it
+ * passed the shared-secret handshake of {@link ClusterProtocol}; nodes without the secret cannot read, write or join.
+ */
+public class ClusterNode implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterNode.class);
+
+    private static final int HANDOFF_BATCH = 512;
+
+    private final ClusterProperties properties;
+    private final TransactionStore local;
+    private final ServerSocket server;
+    private final byte[] secret;
+    private final String nodeId;
+    private final String address;
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final Map<String, PeerClient> peers = new ConcurrentHashMap<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private final ExecutorService handoff = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cluster-handoff");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean handoffQueued = new AtomicBoolean();
+    private final ReentrantReadWriteLock handoffLock = new ReentrantReadWriteLock();
+    private final Map<String, Transaction> inTransit = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+    private volatile long ringChangedNanos;
+    private volatile boolean leaving;
+    private volatile IdempotencyGuard idempotency;
+    private Thread heartbeat;
+
+    public ClusterNode(ClusterProperties properties, TransactionStore local) {
+        this.properties = properties;
+        this.local = local;
+        this.secret = ClusterProtocol.secret(properties.getSecret());
+        try {
+            this.server = new ServerSocket();
+            server.bind(new InetSocketAddress(properties.getHost(), properties.getPort()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on cluster address " + properties.getHost() + ":"
+                    + properties.getPort(), e);
+        }
+        this.address = properties.getHost() + ":" + server.getLocalPort();
+        this.nodeId = properties.getNodeId() != null ? properties.getNodeId() : address;
+        this.ring = ConsistentHashRing.of(List.of(nodeId), properties.getVirtualNodes());
+    }
+
+    /**
+     * Starts serving, joins through the seeds (waiting at most one request timeout for their answers) and starts
+     * the heartbeats.
+     */
+    public void start() {
+        Thread.ofPlatform().daemon().name("cluster-acceptor").start(this::accept);
+        CompletableFuture<?>[] hellos = greetAll();
+        try {
+            CompletableFuture.allOf(hellos).get(properties.getRequestTimeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // unreachable seeds are retried by the heartbeat
+        }
+        updateRing();
+        heartbeat = Thread.ofPlatform().daemon().name("cluster-heartbeat").start(this::heartbeatLoop);
+        log.info("Cluster node {} listening on {}, ring {}", nodeId, address, ring.nodes());
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public String address() {
+        return address;
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    /**
+     * Whether the ring changed recently enough that transactions may still be on their previous owner.
+     */
+    public boolean inHandoff() {
+        return System.nanoTime() - ringChangedNanos < properties.getFailureTimeout().toNanos() * 2;
+    }
+
+    /**
+     * Hands all local transactions to the remaining nodes and leaves the cluster.
+     */
+    @Override
+    public void close() {
+        if (leaving) return;
+        leaving = true;
+        if (heartbeat != null) heartbeat.interrupt();
+        List<String> others = liveMembers();
+        if (!others.isEmpty()) {
+            ring = ConsistentHashRing.of(others, properties.getVirtualNodes());
+            ringChangedNanos = System.nanoTime();
+            handOver();
+            for (String member : others) {
+                try {
+                    peer(member).await(ClusterProtocol.LEAVE, out -> out.writeUTF(nodeId), in -> null);
+                } catch (ClusterException e) {
+                    log.warn("Could not tell node {} that {} leaves: {}", member, nodeId, e.getMessage());
+                }
+            }
+            // transactions written by nodes that had not seen LEAVE yet
+            handOver();
+        }
+        handoff.shutdownNow();
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        connections.forEach(this::closeQuietly);
+        peers.values().forEach(PeerClient::close);
+        log.info("Cluster node {} left", nodeId);
+    }
+
+    // --- remote store operations, used by ClusteredTransactionStore ---
+
+    void save(String node, Transaction tx) {
+        peer(node).await(ClusterProtocol.PUT, out -> ClusterProtocol.writeTransaction(out, tx), in -> null);
+    }
+
+    Optional<Transaction> findById(String node, String transactionId) {
+        return peer(node).await(ClusterProtocol.GET, out -> out.writeUTF(transactionId),
+                in -> in.readBoolean() ? Optional.of(ClusterProtocol.readTransaction(in)) : Optional.empty());
+    }
+
+    boolean updateStatus(String node, String transactionId, String status) {
+        return peer(node).await(ClusterProtocol.STATUS, out -> {
+            out.writeUTF(transactionId);
+            out.writeUTF(status);
+        }, DataInputStream::readBoolean);
+    }
+
+    /**
+     * Local lookup that also sees transactions being handed over.
+     */
+    Optional<Transaction> findLocal(String transactionId) {
+        Optional<Transaction> found = local.findById(transactionId);
+        // a handover puts the copy in transit before it removes the local one
+        return found.isPresent() ? found : Optional.ofNullable(inTransit.get(transactionId));
+    }
+
+    /**
+     * Local status update that also reaches transactions being handed over.
+     */
+    boolean updateLocalStatus(String transactionId, String status) {
+        handoffLock.readLock().lock();
+        try {
+            return local.updateStatus(transactionId, status)
+                    || inTransit.computeIfPresent(transactionId, (id, tx) -> withStatus(tx, status)) != null;
+        } finally {
+            handoffLock.readLock().unlock();
+        }
+    }
+
+    boolean remove(String node, String transactionId) {
+        return peer(node).await(ClusterProtocol.REMOVE, out -> out.writeUTF(transactionId), DataInputStream::readBoolean);
+    }
+
+    CompletableFuture<Claim> claim(String node, String merchantId, String idempotencyKey, Fingerprint fingerprint) {
+        return peer(node).call(ClusterProtocol.CLAIM, out -> {
+            out.writeUTF(merchantId);
+            out.writeUTF(idempotencyKey);
+            ClusterProtocol.writeFingerprint(out, fingerprint);
+        }, ClusterProtocol::readClaim);
+    }
+
+    CompletableFuture<Void> complete(String node, String merchantId, String idempotencyKey, PaymentResponse response) {
+        return peer(node).call(ClusterProtocol.COMPLETE, out -> {
+            out.writeUTF(merchantId);
+            out.writeUTF(idempotencyKey);
+            ClusterProtocol.writeResponse(out, response);
+        }, in -> null);
+    }
+
+    /**
+     * Answers {@code CLAIM} and {@code COMPLETE} from the idempotency keys this node keeps.
+     */
+    void serveIdempotency(IdempotencyGuard guard) {
+        this.idempotency = guard;
+    }
+
+    /**
+     * A page of the node's own transactions for the query; positions are the node's local ones.
+     */
+    CompletableFuture<Page> query(String node, TransactionQuery query) {
+        if (node.equals(nodeId)) {
+            Page page = new Page(new ArrayList<>(), null);
+            return CompletableFuture.completedFuture(
+                    page.withCursor(queryOwned(query, (tx, position) -> page.entries().add(new Entry(tx, position)))));
+        }
+        return peer(node).call(ClusterProtocol.QUERY, out -> ClusterProtocol.writeQuery(out, query), in -> {
+            int n = in.readInt();
+            List<Entry> entries = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                entries.add(new Entry(ClusterProtocol.readTransaction(in), ClusterProtocol.readCursor(in)));
+            }
+            return new Page(entries, ClusterProtocol.readCursor(in));
+        });
+    }
+
+    /**
+     * Moves local transactions owned by other nodes to them, in the background, once per burst of requests.
+     */
+    void scheduleHandoff() {
+        if (leaving || !handoffQueued.compareAndSet(false, true)) return;
+        handoff.execute(() -> {
+            handoffQueued.set(false);
+            handOver();
+        });
+    }
+
+    record Entry(Transaction transaction, TransactionCursor position) {
+    }
+
+    record Page(List<Entry> entries, TransactionCursor cursor) {
+
+        Page withCursor(TransactionCursor cursor) {
+            return new Page(entries, cursor);
+        }
+    }
+
+    // --- membership ---
+
+    private static final class Member {
+
+        final String id;
+        volatile String address;
+        volatile long lastSeenNanos;
+        volatile boolean left;
+
+        Member(String id, String address) {
+            this.id = id;
+            this.address = address;
+        }
+    }
+
+    List<String> liveMembers() {
+        long now = System.nanoTime();
+        long timeout = properties.getFailureTimeout().toNanos();
+        List<String> live = new ArrayList<>();
+        for (Member member : members.values()) {
+            if (!member.left && member.lastSeenNanos != 0 && now - member.lastSeenNanos < timeout) live.add(member.id);
+        }
+        return live;
+    }
+
+    private void heartbeatLoop() {
+        long interval = properties.getHeartbeatInterval().toMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            greetAll();
+            updateRing();
+        }
+    }
+
+    private CompletableFuture<?>[] greetAll() {
+        Set<String> addresses = new TreeSet<>(properties.getMembers());
+        members.values().forEach(member -> addresses.add(member.address));
+        addresses.remove(address);
+        List<CompletableFuture<?>> hellos = new ArrayList<>();
+        for (String target : addresses) {
+            hellos.add(client(target).call(ClusterProtocol.HELLO, this::writeHello, this::readMembers)
+                    .exceptionally(error -> null));
+        }
+        return hellos.toArray(CompletableFuture[]::new);
+    }
+
+    private void writeHello(DataOutputStream out) throws IOException {
+        out.writeUTF(nodeId);
+        out.writeUTF(address);
+        writeMembers(out);
+    }
+
+    private void writeMembers(DataOutputStream out) throws IOException {
+        List<Member> known = new ArrayList<>(members.values());
+        out.writeInt(known.size() + 1);
+        out.writeUTF(nodeId);
+        out.writeUTF(address);
+        for (Member member : known) {
+            out.writeUTF(member.id);
+            out.writeUTF(member.address);
+        }
+    }
+
+    /**
+     * Reads the member list of an answer to {@code HELLO}; its first entry is the answering node.
+     */
+    private Void readMembers(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            Member member = learn(in.readUTF(), in.readUTF());
+            if (i == 0 && member != null) {
+                member.lastSeenNanos = System.nanoTime();
+                member.left = false;
+            }
+        }
+        return null;
+    }
+
+    private Member learn(String id, String memberAddress) {
+        if (id.equals(nodeId)) return null;
+        Member member = members.computeIfAbsent(id, m -> new Member(m, memberAddress));
+        member.address = memberAddress;
+        return member;
+    }
+
+    private void updateRing() {
+        if (leaving) return;
+        ringLock.lock();
+        try {
+            List<String> nodes = new ArrayList<>(liveMembers());
+            nodes.add(nodeId);
+            if (new TreeSet<>(nodes).equals(new TreeSet<>(ring.nodes()))) return;
+            ConsistentHashRing next = ConsistentHashRing.of(nodes, properties.getVirtualNodes());
+            log.info("Cluster node {}: ring {} -> {}", nodeId, ring.nodes(), next.nodes());
+            ring = next;
+            ringChangedNanos = System.nanoTime();
+        } finally {
+            ringLock.unlock();
+        }
+        scheduleHandoff();
+    }
+
+    // --- rebalancing ---
+
+    private void handOver() {
+        ConsistentHashRing current = ring;
+        Map<String, List<Transaction>> moving = new HashMap<>();
+        int[] moved = {0};
+        local.forEach(tx -> {
+            String owner = current.owner(tx.getTransactionId());
+            if (owner.equals(nodeId)) return;
+            List<Transaction> batch = moving.computeIfAbsent(owner, o -> new ArrayList<>());
+            batch.add(tx);
+            if (batch.size() == HANDOFF_BATCH) {
+                moved[0] += push(owner, batch);
+                batch.clear();
+            }
+        });
+        moving.forEach((owner, batch) -> moved[0] += push(owner, batch));
+        if (moved[0] > 0) log.info("Cluster node {} handed over {} transactions", nodeId, moved[0]);
+    }
+
+    private int push(String owner, List<Transaction> batch) {
+        if (batch.isEmpty()) return 0;
+        List<Transaction> sending = new ArrayList<>(batch.size());
+        handoffLock.writeLock().lock();
+        try {
+            for (Transaction tx : batch) {
+                // the latest version, not the one seen by the scan
+                Optional<Transaction> current = local.findById(tx.getTransactionId());
+                if (current.isEmpty()) continue;
+                inTransit.put(tx.getTransactionId(), current.get());
+                local.remove(tx.getTransactionId());
+                sending.add(current.get());
+            }
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+        if (sending.isEmpty()) return 0;
+        try {
+            peer(owner).await(ClusterProtocol.PUT_BATCH, out -> {
+                out.writeInt(sending.size());
+                for (Transaction tx : sending) {
+                    ClusterProtocol.writeTransaction(out, tx);
+                }
+            }, in -> null);
+        } catch (ClusterException e) {
+            log.warn("Cluster node {} could not hand {} transactions to {}: {}", nodeId, sending.size(), owner, e.getMessage());
+            handoffLock.writeLock().lock();
+            try {
+                sending.forEach(tx -> local.save(inTransit.remove(tx.getTransactionId())));
+            } finally {
+                handoffLock.writeLock().unlock();
+            }
+            return 0;
+        }
+        List<Transaction> updated = new ArrayList<>();
+        handoffLock.writeLock().lock();
+        try {
+            for (Transaction tx : sending) {
+                Transaction latest = inTransit.remove(tx.getTransactionId());
+                if (latest != tx) updated.add(latest);
+            }
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+        for (Transaction tx : updated) {
+            try {
+                updateStatus(owner, tx.getTransactionId(), tx.getStatus());
+            } catch (ClusterException e) {
+                log.warn("Cluster node {} could not forward status of {} to {}: {}", nodeId, tx.getTransactionId(),
+                        owner, e.getMessage());
+            }
+        }
+        return sending.size();
+    }
+
+    private static Transaction withStatus(Transaction tx, String status) {
+        return new Transaction(tx.getTransactionId(), tx.getRequest(), status, tx.getAcquirer(), tx.getCreatedAt(),
+                tx.getCardToken());
+    }
+
+    /**
+     * Local scan that skips transactions this node does not own (copies not handed over yet).
+     */
+    private TransactionCursor queryOwned(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink) {
+        ConsistentHashRing current = ring;
+        int[] delivered = {0};
+        TransactionCursor[] last = {null};
+        TransactionQuery page = query;
+        while (true) {
+            TransactionCursor next = local.scanByMerchant(page, (tx, position) -> {
+                if (!current.owner(tx.getTransactionId()).equals(nodeId)) return;
+                sink.accept(tx, position);
+                last[0] = position;
+                delivered[0]++;
+            });
+            if (delivered[0] == query.limit()) return last[0];
+            if (next == null) return null;
+            page = new TransactionQuery(query.merchantId(), query.fromMillis(), query.toMillis(), query.status(),
+                    next, query.limit() - delivered[0]);
+        }
+    }
+
+    // --- server ---
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().name("cluster-connection").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!server.isClosed()) log.warn("Cluster accept failed: {}", e.toString());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            socket.setSoTimeout((int) properties.getRequestTimeout().toMillis());
+            try {
+                ClusterProtocol.acceptHandshake(in, out, secret);
+            } catch (IOException e) {
+                log.warn("Rejected cluster connection from {}: {}", socket.getRemoteSocketAddress(), e.toString());
+                return;
+            }
+            socket.setSoTimeout(0);
+            while (true) {
+                int length = in.readInt();
+                if (length < 9 || length > ClusterProtocol.MAX_FRAME) throw new IOException("bad frame length " + length);
+                long id = in.readLong();
+                byte op = in.readByte();
+                byte[] body = in.readNBytes(length - 9);
+                ByteArrayOutputStream reply = new ByteArrayOutputStream(64);
+                byte status = handle(op, new DataInputStream(new ByteArrayInputStream(body)), new DataOutputStream(reply));
+                out.writeInt(reply.size() + 9);
+                out.writeLong(id);
+                out.writeByte(status);
+                reply.writeTo(out);
+                // answers to pipelined requests go out together
+                if (in.available() == 0) out.flush();
+            }
+        } catch (EOFException e) {
+            // peer closed the connection
+        } catch (IOException e) {
+            log.debug("Cluster connection closed: {}", e.toString());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private byte handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        try {
+            switch (op) {
+                case ClusterProtocol.PUT -> local.save(ClusterProtocol.readTransaction(in));
+                case ClusterProtocol.PUT_BATCH -> {
+                    int n = in.readInt();
+                    for (int i = 0; i < n; i++) {
+                        local.save(ClusterProtocol.readTransaction(in));
+                    }
+                }
+                case ClusterProtocol.GET -> {
+                    Optional<Transaction> tx = findLocal(in.readUTF());
+                    out.writeBoolean(tx.isPresent());
+                    if (tx.isPresent()) ClusterProtocol.writeTransaction(out, tx.get());
+                }
+                case ClusterProtocol.STATUS -> out.writeBoolean(updateLocalStatus(in.readUTF(), in.readUTF()));
+                case ClusterProtocol.REMOVE -> out.writeBoolean(local.remove(in.readUTF()));
+                case ClusterProtocol.QUERY -> {
+                    List<Entry> entries = new ArrayList<>();
+                    TransactionCursor cursor = queryOwned(ClusterProtocol.readQuery(in),
+                            (tx, position) -> entries.add(new Entry(tx, position)));
+                    out.writeInt(entries.size());
+                    for (Entry entry : entries) {
+                        ClusterProtocol.writeTransaction(out, entry.transaction());
+                        ClusterProtocol.writeCursor(out, entry.position());
+                    }
+                    ClusterProtocol.writeCursor(out, cursor);
+                }
+                case ClusterProtocol.HELLO -> {
+                    // a leaving node must not look alive to the nodes taking over its transactions
+                    if (leaving) throw new ClusterException("Node " + nodeId + " is leaving");
+                    Member sender = learn(in.readUTF(), in.readUTF());
+                    readMembers(in);
+                    boolean joined = sender != null && (sender.left || sender.lastSeenNanos == 0
+                            || System.nanoTime() - sender.lastSeenNanos >= properties.getFailureTimeout().toNanos());
+                    if (sender != null) {
+                        sender.lastSeenNanos = System.nanoTime();
+                        sender.left = false;
+                    }
+                    writeMembers(out);
+                    if (joined) updateRing();
+                }
+                case ClusterProtocol.CLAIM -> ClusterProtocol.writeClaim(out,
+                        idempotency().claim(in.readUTF(), in.readUTF(), ClusterProtocol.readFingerprint(in)));
+                case ClusterProtocol.COMPLETE ->
+                        idempotency().complete(in.readUTF(), in.readUTF(), ClusterProtocol.readResponse(in));
+                case ClusterProtocol.LEAVE -> {
+                    Member member = members.get(in.readUTF());
+                    if (member != null) member.left = true;
+                    updateRing();
+                }
+                default -> throw new IOException("unknown op " + op);
+            }
+            return ClusterProtocol.OK;
+        } catch (RuntimeException e) {
+            out.writeUTF(e.toString());
+            return ClusterProtocol.ERROR;
+        }
+    }
+
+    private IdempotencyGuard idempotency() {
+        IdempotencyGuard guard = idempotency;
+        if (guard == null) throw new ClusterException("Node " + nodeId + " does not keep idempotency keys yet");
+        return guard;
+    }
+
+    // --- peers ---
+
+    private PeerClient peer(String node) {
+        Member member = members.get(node);
+        if (member == null) throw new ClusterException("Unknown node " + node);
+        return client(member.address);
+    }
+
+    private PeerClient client(String target) {
+        PeerClient client = peers.get(target);
+        return client != null ? client : peers.computeIfAbsent(target,
+                a -> new PeerClient(a, properties.getRequestTimeout(), secret));
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.psp.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster mode settings ({@code psp.cluster.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.cluster")
+public class ClusterProperties {
+
+    /**
+     * Whether the transaction store is partitioned across the nodes of a cluster.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Unique, stable name of this node; defaults to {@code host:port}.
+     */
+    private String nodeId;
+
+    /**
+     * Host other nodes reach this node on; the cluster port listens on this address only.
+     */
+    private String host = "localhost";
+
+    /**
+     * Port of the node-to-node protocol; 0 picks a free port.
+     */
+    private int port = 7100;
+
+    /**
+     * Base64 secret shared by all nodes, at least 32 bytes; connections that cannot prove it are refused.
+     * Required in cluster mode.
+     */
+    private String secret;
+
+    /**
+     * {@code host:port} of other nodes to join through. Nodes learn about the rest of the cluster from each other.
+     */
+    private List<String> members = new ArrayList<>();
+
+    /**
+     * Points per node on the hash ring; more points spread transactions more evenly.
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Time after which a call to another node fails.
+     */
+    private Duration requestTimeout = Duration.ofMillis(500);
+
+    private Duration heartbeatInterval = Duration.ofMillis(500);
+
+    /**
+     * A node not heard from for this long is taken off the ring.
+     */
+    private Duration failureTimeout = Duration.ofSeconds(3);
+}
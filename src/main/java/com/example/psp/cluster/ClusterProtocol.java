@@ -0,0 +1,258 @@
+package com.example.psp.cluster;
+
+import com.example.psp.idempotency.Claim;
+import com.example.psp.idempotency.Fingerprint;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.model.Transaction;
+import com.example.psp.store.TransactionCursor;
+import com.example.psp.store.TransactionQuery;
+import com.example.psp.tokenization.CardTokens;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Node-to-node protocol: length-prefixed binary frames over a long-lived TCP connection, pipelined and matched by
+ * correlation id.
+ *
+ * <pre>
+ * request:  [int length][long correlationId][byte op][body]
+ * response: [int length][long correlationId][byte OK|ERROR][body | UTF message]
+ * </pre>
+ *
+ * Before the first frame both sides prove they hold the shared cluster secret ({@code psp.cluster.secret}) with an
+ * HMAC-SHA256 challenge-response over fresh nonces, so the secret never crosses the wire and a recorded handshake
+ * cannot be replayed:
+ *
+ * <pre>
+ * server: [16 byte server nonce]
+ * client: [16 byte client nonce][HMAC(secret, 'C' | server nonce | client nonce)]
+ * server: [HMAC(secret, 'S' | client nonce | server nonce)]
+ * </pre>
+ *
+ * Connections that fail the handshake are closed before any operation is read. Frames are authenticated by the
+ * connection only, not encrypted: run the cluster port on a private network.
+ *
+ * <p>Strings are modified UTF-8 ({@link DataOutputStream#writeUTF}). Transactions travel without card data: id,
+ * merchant, currency, amount, status, acquirer, creation time and the card token if any.
+ */
+final class ClusterProtocol {
+
+    /** Store a transaction: transaction → empty. */
+    static final byte PUT = 1;
+    /** Read a transaction: id → found flag, transaction. */
+    static final byte GET = 2;
+    /** Update a status: id, status → updated flag. */
+    static final byte STATUS = 3;
+    /** Remove a transaction: id → removed flag. */
+    static final byte REMOVE = 4;
+    /** Merchant page of the transactions the node owns: query → count, (transaction, position)*, cursor. */
+    static final byte QUERY = 5;
+    /** Hand over transactions: count, transaction* → empty. */
+    static final byte PUT_BATCH = 6;
+    /** Heartbeat and membership exchange: sender, members → members. */
+    static final byte HELLO = 7;
+    /** The sender leaves the cluster: node id → empty. */
+    static final byte LEAVE = 8;
+    /** Claim an idempotency key on the node keeping it: merchant, key, fingerprint → claim. */
+    static final byte CLAIM = 9;
+    /** Outcome of a claimed attempt: merchant, key, response or none if it failed → empty. */
+    static final byte COMPLETE = 10;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    static final int MAX_FRAME = 16 << 20;
+
+    static final int MIN_SECRET_BYTES = 32;
+    private static final int NONCE = 16;
+    private static final int PROOF = 32;
+    private static final byte CLIENT = 'C';
+    private static final byte SERVER = 'S';
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private ClusterProtocol() {
+    }
+
+    /**
+     * Decodes the base64 cluster secret; fails when it is missing or shorter than {@value #MIN_SECRET_BYTES} bytes.
+     */
+    static byte[] secret(String configured) {
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalArgumentException("psp.cluster.secret is required in cluster mode");
+        }
+        byte[] secret = Base64.getDecoder().decode(configured.trim());
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("psp.cluster.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return secret;
+    }
+
+    /**
+     * Server side of the handshake.
+     * @throws IOException if the client does not hold the secret
+     */
+    static void acceptHandshake(DataInputStream in, DataOutputStream out, byte[] secret) throws IOException {
+        byte[] serverNonce = nonce();
+        out.write(serverNonce);
+        out.flush();
+        byte[] clientNonce = readFully(in, NONCE);
+        byte[] proof = readFully(in, PROOF);
+        if (!MessageDigest.isEqual(proof, proof(secret, CLIENT, serverNonce, clientNonce))) {
+            throw new IOException("cluster authentication failed");
+        }
+        out.write(proof(secret, SERVER, clientNonce, serverNonce));
+        out.flush();
+    }
+
+    /**
+     * Client side of the handshake.
+     * @throws IOException if the server does not hold the secret
+     */
+    static void connectHandshake(DataInputStream in, DataOutputStream out, byte[] secret) throws IOException {
+        byte[] serverNonce = readFully(in, NONCE);
+        byte[] clientNonce = nonce();
+        out.write(clientNonce);
+        out.write(proof(secret, CLIENT, serverNonce, clientNonce));
+        out.flush();
+        if (!MessageDigest.isEqual(readFully(in, PROOF), proof(secret, SERVER, clientNonce, serverNonce))) {
+            throw new IOException("cluster authentication failed");
+        }
+    }
+
+    private static byte[] nonce() {
+        byte[] nonce = new byte[NONCE];
+        NONCES.nextBytes(nonce);
+        return nonce;
+    }
+
+    private static byte[] readFully(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static byte[] proof(byte[] secret, byte side, byte[] first, byte[] second) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            mac.update(side);
+            mac.update(first);
+            return mac.doFinal(second);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute cluster handshake", e);
+        }
+    }
+
+    static void writeTransaction(DataOutputStream out, Transaction tx) throws IOException {
+        PaymentRequest request = tx.getRequest();
+        out.writeUTF(tx.getTransactionId());
+        out.writeUTF(request.getMerchantId());
+        out.writeUTF(request.getCurrency());
+        out.writeDouble(request.getAmount());
+        out.writeUTF(tx.getStatus());
+        out.writeUTF(tx.getAcquirer());
+        out.writeLong(tx.getCreatedAt());
+        boolean tokenized = CardTokens.isToken(tx.getCardToken());
+        out.writeBoolean(tokenized);
+        if (tokenized) {
+            out.writeLong(CardTokens.high(tx.getCardToken()));
+            out.writeLong(CardTokens.low(tx.getCardToken()));
+        }
+    }
+
+    static Transaction readTransaction(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(in.readUTF());
+        request.setCurrency(in.readUTF());
+        request.setAmount(in.readDouble());
+        String status = in.readUTF();
+        String acquirer = in.readUTF();
+        long createdAt = in.readLong();
+        String token = in.readBoolean() ? CardTokens.format(in.readLong(), in.readLong()) : null;
+        return new Transaction(id, request, status, acquirer, createdAt, token);
+    }
+
+    static void writeClaim(DataOutputStream out, Claim claim) throws IOException {
+        out.writeByte(claim.outcome().ordinal());
+        if (claim.outcome() == Claim.Outcome.DONE) writeResponse(out, claim.response());
+    }
+
+    static Claim readClaim(DataInputStream in) throws IOException {
+        return switch (Claim.Outcome.values()[in.readByte()]) {
+            case CLAIMED -> Claim.CLAIMED;
+            case IN_FLIGHT -> Claim.IN_FLIGHT;
+            case REUSED -> Claim.REUSED;
+            case DONE -> Claim.done(readResponse(in));
+        };
+    }
+
+    static void writeFingerprint(DataOutputStream out, Fingerprint fingerprint) throws IOException {
+        out.writeLong(fingerprint.high());
+        out.writeLong(fingerprint.low());
+    }
+
+    static Fingerprint readFingerprint(DataInputStream in) throws IOException {
+        return new Fingerprint(in.readLong(), in.readLong());
+    }
+
+    static void writeResponse(DataOutputStream out, PaymentResponse response) throws IOException {
+        out.writeBoolean(response != null);
+        if (response == null) return;
+        writeOptional(out, response.getTransactionId());
+        writeOptional(out, response.getStatus());
+        writeOptional(out, response.getMessage());
+    }
+
+    static PaymentResponse readResponse(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new PaymentResponse(readOptional(in), readOptional(in), readOptional(in)) : null;
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeCursor(DataOutputStream out, TransactionCursor cursor) throws IOException {
+        out.writeBoolean(cursor != null);
+        if (cursor == null) return;
+        out.writeLong(cursor.createdAt());
+        out.writeLong(cursor.sequence());
+    }
+
+    static TransactionCursor readCursor(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new TransactionCursor(in.readLong(), in.readLong()) : null;
+    }
+
+    static void writeQuery(DataOutputStream out, TransactionQuery query) throws IOException {
+        out.writeUTF(query.merchantId());
+        out.writeLong(query.fromMillis());
+        out.writeLong(query.toMillis());
+        out.writeBoolean(query.status() != null);
+        if (query.status() != null) out.writeUTF(query.status());
+        writeCursor(out, query.after());
+        out.writeInt(query.limit());
+    }
+
+    static TransactionQuery readQuery(DataInputStream in) throws IOException {
+        String merchantId = in.readUTF();
+        long from = in.readLong();
+        long to = in.readLong();
+        String status = in.readBoolean() ? in.readUTF() : null;
+        TransactionCursor after = readCursor(in);
+        return new TransactionQuery(merchantId, from, to, status, after, in.readInt());
+    }
+}
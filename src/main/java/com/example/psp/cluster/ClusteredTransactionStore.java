@@ -0,0 +1,212 @@
+package com.example.psp.cluster;
+
+import com.example.psp.model.Transaction;
+import com.example.psp.store.TransactionCursor;
+import com.example.psp.store.TransactionQuery;
+import com.example.psp.store.TransactionStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * {@link TransactionStore} partitioned across the nodes of a cluster by consistent hashing of the transaction id.
+ * Each operation goes to the owning node, locally or through {@link ClusterNode}; merchant queries ask all nodes
+ * in parallel and merge their pages by time.
+ *
+ * <p>A save that cannot reach its owner is kept locally and handed over later, so payments keep working while a
+ * node is down. {@link #size()} and {@link #forEach} only cover this node's share.
+ *
+ * <p>Merchant cursors combine the creation time with the answering node's rank and its local sequence, so paging
+ * continues where it stopped on every node; they stay valid as long as the membership does not change.
+ */
+public class ClusteredTransactionStore implements TransactionStore, AutoCloseable {
+
+    private static final int RANK_SHIFT = 48;
+    private static final long SEQUENCE_MASK = (1L << RANK_SHIFT) - 1;
+
+    private final TransactionStore local;
+    private final ClusterNode node;
+
+    public ClusteredTransactionStore(TransactionStore local, ClusterNode node) {
+        this.local = local;
+        this.node = node;
+    }
+
+    @Override
+    public void save(Transaction transaction) {
+        String owner = node.ring().owner(transaction.getTransactionId());
+        if (owner.equals(node.nodeId())) {
+            local.save(transaction);
+            return;
+        }
+        try {
+            node.save(owner, transaction);
+        } catch (ClusterException e) {
+            local.save(transaction);
+            node.scheduleHandoff();
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(String transactionId) {
+        String owner = node.ring().owner(transactionId);
+        if (owner.equals(node.nodeId())) {
+            Optional<Transaction> found = node.findLocal(transactionId);
+            return found.isPresent() || !node.inHandoff() ? found : findElsewhere(transactionId, owner);
+        }
+        try {
+            Optional<Transaction> found = node.findById(owner, transactionId);
+            return found.isPresent() || !node.inHandoff() ? found : findElsewhere(transactionId, owner);
+        } catch (ClusterException e) {
+            // saved here while the owner was unreachable
+            Optional<Transaction> found = node.findLocal(transactionId);
+            if (found.isPresent()) return found;
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateStatus(String transactionId, String status) {
+        String owner = node.ring().owner(transactionId);
+        if (owner.equals(node.nodeId())) {
+            return node.updateLocalStatus(transactionId, status)
+                    || node.inHandoff() && updateElsewhere(transactionId, status, owner);
+        }
+        try {
+            return node.updateStatus(owner, transactionId, status)
+                    || node.inHandoff() && updateElsewhere(transactionId, status, owner);
+        } catch (ClusterException e) {
+            if (node.updateLocalStatus(transactionId, status)) return true;
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean remove(String transactionId) {
+        String owner = node.ring().owner(transactionId);
+        return owner.equals(node.nodeId()) ? local.remove(transactionId) : node.remove(owner, transactionId);
+    }
+
+    /**
+     * Transactions held by this node.
+     */
+    @Override
+    public int size() {
+        return local.size();
+    }
+
+    /**
+     * Transactions held by this node.
+     */
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        local.forEach(action);
+    }
+
+    @Override
+    public TransactionCursor scanByMerchant(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink) {
+        List<String> nodes = node.ring().nodes();
+        List<CompletableFuture<ClusterNode.Page>> pages = new ArrayList<>(nodes.size());
+        for (int rank = 0; rank < nodes.size(); rank++) {
+            TransactionQuery nodeQuery = new TransactionQuery(query.merchantId(), query.fromMillis(), query.toMillis(),
+                    query.status(), localCursor(query.after(), rank), query.limit());
+            pages.add(node.query(nodes.get(rank), nodeQuery));
+        }
+
+        List<Merged> merged = new ArrayList<>();
+        boolean truncated = false;
+        for (int rank = 0; rank < pages.size(); rank++) {
+            ClusterNode.Page page;
+            try {
+                page = pages.get(rank).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof ClusterException cluster ? cluster
+                        : new ClusterException("Query failed", e.getCause());
+            }
+            for (ClusterNode.Entry entry : page.entries()) {
+                merged.add(new Merged(entry.transaction(), globalCursor(entry.position(), rank)));
+            }
+            truncated |= page.cursor() != null;
+        }
+        merged.sort(Comparator.comparing(Merged::position));
+
+        int delivered = Math.min(merged.size(), query.limit());
+        for (int i = 0; i < delivered; i++) {
+            sink.accept(merged.get(i).transaction(), merged.get(i).position());
+        }
+        // a node that filled its page may have more after the merged limit
+        return delivered == query.limit() && (truncated || merged.size() > delivered)
+                ? merged.get(delivered - 1).position() : null;
+    }
+
+    ClusterNode node() {
+        return node;
+    }
+
+    /**
+     * Leaves the cluster, handing this node's transactions to the others, then closes the local store.
+     */
+    @Override
+    public void close() throws Exception {
+        node.close();
+        if (local instanceof AutoCloseable closeable) closeable.close();
+    }
+
+    static TransactionCursor globalCursor(TransactionCursor local, int rank) {
+        return new TransactionCursor(local.createdAt(), (long) rank << RANK_SHIFT | local.sequence());
+    }
+
+    /**
+     * Where node {@code rank} continues after a global cursor: the same time, after the cursor's own sequence on
+     * the node that produced it, after everything at that time on nodes ranked before it, and from the start of
+     * that time on nodes ranked after it.
+     */
+    static TransactionCursor localCursor(TransactionCursor global, int rank) {
+        if (global == null || global.sequence() == Long.MIN_VALUE) return global;
+        int cursorRank = (int) (global.sequence() >>> RANK_SHIFT);
+        if (cursorRank == rank) return new TransactionCursor(global.createdAt(), global.sequence() & SEQUENCE_MASK);
+        return new TransactionCursor(global.createdAt(), rank < cursorRank ? Long.MAX_VALUE : Long.MIN_VALUE);
+    }
+
+    private Optional<Transaction> findElsewhere(String transactionId, String owner) {
+        if (!owner.equals(node.nodeId())) {
+            Optional<Transaction> found = node.findLocal(transactionId);
+            if (found.isPresent()) return found;
+        }
+        for (String other : node.liveMembers()) {
+            if (other.equals(owner)) continue;
+            try {
+                Optional<Transaction> found = node.findById(other, transactionId);
+                if (found.isPresent()) return found;
+            } catch (ClusterException ignored) {
+                // not there either
+            }
+        }
+        // a handover that had it in transit while we asked has delivered it by now
+        return owner.equals(node.nodeId()) ? node.findLocal(transactionId) : node.findById(owner, transactionId);
+    }
+
+    private boolean updateElsewhere(String transactionId, String status, String owner) {
+        if (!owner.equals(node.nodeId()) && node.updateLocalStatus(transactionId, status)) return true;
+        for (String other : node.liveMembers()) {
+            if (other.equals(owner)) continue;
+            try {
+                if (node.updateStatus(other, transactionId, status)) return true;
+            } catch (ClusterException ignored) {
+                // not there either
+            }
+        }
+        // a handover that had it in transit while we asked has delivered it by now
+        return owner.equals(node.nodeId()) ? node.updateLocalStatus(transactionId, status)
+                : node.updateStatus(owner, transactionId, status);
+    }
+
+    private record Merged(Transaction transaction, TransactionCursor position) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.psp.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring: each node owns {@code virtualNodes} points, a key belongs to the node owning the
+ * first point at or after the key's hash. Adding or removing a node only moves the keys between its points and
+ * their predecessors, about {@code 1/N} of all keys.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> nodes, long[] points, String[] owners) {
+        this.nodes = nodes;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing of(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) throw new IllegalArgumentException("a ring needs at least one node");
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be positive");
+        List<String> nodes = nodeIds.stream().distinct().sorted().toList();
+        int n = nodes.size() * virtualNodes;
+        long[] entries = new long[n];
+        String[] byEntry = new String[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int e = i * virtualNodes + v;
+                entries[e] = hash(nodes.get(i) + "#" + v);
+                byEntry[e] = nodes.get(i);
+                order[e] = e;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+        long[] points = new long[n];
+        String[] owners = new String[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = entries[order[i]];
+            owners[i] = byEntry[order[i]];
+        }
+        return new ConsistentHashRing(nodes, points, owners);
+    }
+
+    public String owner(CharSequence key) {
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /**
+     * Node ids, sorted.
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Position of the node in {@link #nodes()}, or -1.
+     */
+    public int rank(String nodeId) {
+        return nodes.indexOf(nodeId);
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer, so that similar keys land far apart.
+     */
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.psp.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client side of the {@link ClusterProtocol} towards one node: a single connection shared by all callers.
+ * Requests are written under a lock and pipelined; a reader thread completes each caller's future from the response
+ * with the same correlation id. A broken connection fails its pending calls and is reopened by the next call.
+ * Every new connection first passes the {@link ClusterProtocol} secret handshake.
+ */
+final class PeerClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerClient.class);
+
+    interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    interface Reply<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private record Pending<T>(Reply<T> reply, CompletableFuture<T> result) {
+
+        void complete(DataInputStream in) {
+            try {
+                result.complete(reply.read(in));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    final String address;
+    private final String host;
+    private final int port;
+    private final long timeoutNanos;
+    private final byte[] secret;
+    private final AtomicLong correlationIds = new AtomicLong();
+    private final Map<Long, Pending<?>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Socket socket;
+    private DataOutputStream out;
+    private volatile boolean closed;
+
+    PeerClient(String address, Duration timeout, byte[] secret) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) throw new IllegalArgumentException("Node address must be host:port: " + address);
+        this.address = address;
+        this.host = address.substring(0, colon);
+        this.port = Integer.parseInt(address.substring(colon + 1));
+        this.timeoutNanos = timeout.toNanos();
+        this.secret = secret;
+    }
+
+    /**
+     * Sends a request; the future fails with {@link ClusterException} on connection errors, remote errors and
+     * after the request timeout.
+     */
+    <T> CompletableFuture<T> call(byte op, Body body, Reply<T> reply) {
+        long id = correlationIds.incrementAndGet();
+        Pending<T> call = new Pending<>(reply, new CompletableFuture<>());
+        pending.put(id, call);
+        call.result().orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .whenComplete((value, error) -> pending.remove(id));
+        try {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(64);
+            DataOutputStream data = new DataOutputStream(frame);
+            data.writeInt(0);
+            data.writeLong(id);
+            data.writeByte(op);
+            body.write(data);
+            byte[] bytes = frame.toByteArray();
+            int length = bytes.length - 4;
+            bytes[0] = (byte) (length >>> 24);
+            bytes[1] = (byte) (length >>> 16);
+            bytes[2] = (byte) (length >>> 8);
+            bytes[3] = (byte) length;
+            write(bytes);
+        } catch (IOException e) {
+            call.result().completeExceptionally(e);
+        }
+        return call.result().handle((value, error) -> {
+            if (error == null) return value;
+            if (error instanceof ClusterException cluster) throw cluster;
+            String reason = error instanceof TimeoutException ? "timed out" : error.toString();
+            throw new ClusterException("Request to node " + address + " failed: " + reason, error);
+        });
+    }
+
+    /**
+     * {@link #call} that waits for the answer.
+     */
+    <T> T await(byte op, Body body, Reply<T> reply) {
+        try {
+            return call(op, body, reply).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof ClusterException cluster ? cluster
+                    : new ClusterException("Request to node " + address + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterException("Interrupted waiting for node " + address);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writeLock.lock();
+        try {
+            disconnect(socket);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(byte[] frame) throws IOException {
+        writeLock.lock();
+        try {
+            if (closed) throw new IOException("client closed");
+            if (socket == null) connect();
+            try {
+                out.write(frame);
+                out.flush();
+            } catch (IOException e) {
+                disconnect(socket);
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket connection = new Socket();
+        connection.setTcpNoDelay(true);
+        int timeoutMillis = (int) TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+        connection.connect(new InetSocketAddress(host, port), timeoutMillis);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        try {
+            connection.setSoTimeout(timeoutMillis);
+            ClusterProtocol.connectHandshake(in, output, secret);
+            connection.setSoTimeout(0);
+        } catch (IOException e) {
+            disconnect(connection);
+            throw e;
+        }
+        socket = connection;
+        out = output;
+        Thread.ofVirtual().name("cluster-peer-" + address).start(() -> read(connection, in));
+    }
+
+    private void read(Socket connection, DataInputStream in) {
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length < 9 || length > ClusterProtocol.MAX_FRAME) throw new IOException("bad frame length " + length);
+                long id = in.readLong();
+                byte status = in.readByte();
+                byte[] body = in.readNBytes(length - 9);
+                Pending<?> call = pending.remove(id);
+                if (call == null) continue;
+                DataInputStream reply = new DataInputStream(new ByteArrayInputStream(body));
+                if (status == ClusterProtocol.OK) {
+                    call.complete(reply);
+                } else {
+                    call.result().completeExceptionally(new ClusterException("Node " + address + ": " + reply.readUTF()));
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) log.debug("Connection to node {} closed: {}", address, e.toString());
+        } finally {
+            writeLock.lock();
+            try {
+                disconnect(connection);
+            } finally {
+                writeLock.unlock();
+            }
+            IOException broken = new IOException("connection to " + address + " closed");
+            pending.values().forEach(call -> call.result().completeExceptionally(broken));
+        }
+    }
+
+    private void disconnect(Socket connection) {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            // already broken
+        }
+        if (socket == connection) {
+            socket = null;
+            out = null;
+        }
+    }
+}
@@ -2,17 +2,33 @@ package com.example.psp.controller;
 
 import com.example.psp.model.PaymentRequest;
 import com.example.psp.model.PaymentResponse;
+import com.example.psp.service.BatchPaymentProcessor;
 import com.example.psp.service.PaymentService;
-import jakarta.validation.Valid;
+import com.example.psp.service.TransactionQueryService;
+import com.example.psp.store.TransactionQuery;
+import com.example.psp.validation.PaymentRequestValidator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for managing payments.
- * Provides API for creating and recording transactions.
+ * Provides API for creating, recording and reading back transactions.
  */
 
 @RestController
@@ -20,14 +36,66 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final BatchPaymentProcessor batchPaymentProcessor;
+    private final TransactionQueryService transactionQueryService;
+    private final PaymentRequestValidator validator;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, BatchPaymentProcessor batchPaymentProcessor,
+                             TransactionQueryService transactionQueryService, PaymentRequestValidator validator) {
         this.paymentService = paymentService;
+        this.batchPaymentProcessor = batchPaymentProcessor;
+        this.transactionQueryService = transactionQueryService;
+        this.validator = validator;
     }
 
+    /**
+     * Processes a payment. Retries carrying the same {@code Idempotency-Key} header for the same merchant
+     * return the original response instead of charging again. Invalid requests are answered with 400 by
+     * {@link PaymentRequestValidator#requireValid}.
+     */
     @PostMapping
-    public ResponseEntity<PaymentResponse> processPayment(@Valid @RequestBody PaymentRequest request) {
-        PaymentResponse response = paymentService.processPayment(request);
+    public ResponseEntity<PaymentResponse> processPayment(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody PaymentRequest request) {
+        validator.requireValid(request);
+        PaymentResponse response = paymentService.processPayment(request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Processes a batch of payments sent as NDJSON (one {@link PaymentRequest} per line).
+     * Results are streamed back as NDJSON lines in completion order while the request is still being read.
+     */
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> processBatch(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> batchPaymentProcessor.process(body, output));
+    }
+
+    @GetMapping("/{transactionId}")
+    public ResponseEntity<?> getPayment(@PathVariable String transactionId) {
+        return transactionQueryService.findById(transactionId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("errors",
+                        List.of(Map.of("field", "transactionId", "message", "Transaction not found")))));
+    }
+
+    /**
+     * Lists a merchant's transactions created in {@code [from, to)}, oldest first, one page at a time.
+     * The page is streamed; pass the returned {@code nextCursor} as {@code cursor} to get the next one.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listPayments(@RequestParam(required = false) String merchantId,
+                                                              @RequestParam(required = false) String from,
+                                                              @RequestParam(required = false) String to,
+                                                              @RequestParam(required = false) String status,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) String limit) {
+        TransactionQuery query = transactionQueryService.query(merchantId, from, to, status, cursor, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> transactionQueryService.writePage(query, output));
+    }
 }
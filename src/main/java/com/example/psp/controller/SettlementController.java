@@ -0,0 +1,74 @@
+package com.example.psp.controller;
+
+import com.example.psp.service.InvalidQueryException;
+import com.example.psp.settlement.SettlementLedger;
+import com.example.psp.settlement.SettlementTotal;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for reconciliation: running settlement totals and the end-of-day settlement file.
+ * Both read the {@link SettlementLedger}'s per-group totals, not the stored transactions.
+ */
+
+@RestController
+@RequestMapping("/settlement")
+public class SettlementController {
+
+    private final SettlementLedger ledger;
+
+    public SettlementController(SettlementLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Totals of a day (UTC, default today) per merchant, currency, acquirer and status, optionally for one merchant.
+     */
+    @GetMapping("/totals")
+    public Map<String, Object> totals(@RequestParam(required = false) String date,
+                                      @RequestParam(required = false) String merchantId) {
+        LocalDate day = date(date);
+        List<SettlementTotal> totals = ledger.totals(day, merchantId);
+        return Map.of("date", day.toString(), "totals", totals);
+    }
+
+    /**
+     * The day's settlement file as CSV, streamed as it is written.
+     */
+    @GetMapping(path = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String date) {
+        LocalDate day = date(date);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"settlement-" + day + ".csv\"")
+                .body(output -> {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                    ledger.writeCsv(day, writer);
+                    writer.flush();
+                });
+    }
+
+    private LocalDate date(String date) {
+        if (date == null) return ledger.today();
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new InvalidQueryException("date", "date must be an ISO-8601 date, e.g. 2024-01-31");
+        }
+    }
+}
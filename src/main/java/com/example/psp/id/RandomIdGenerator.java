@@ -0,0 +1,15 @@
+package com.example.psp.id;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs from the JDK's shared {@link java.security.SecureRandom}: unguessable, but unordered,
+ * and all threads contend on the one generator.
+ */
+public final class RandomIdGenerator implements TransactionIdGenerator {
+
+    @Override
+    public String next() {
+        return UUID.randomUUID().toString();
+    }
+}
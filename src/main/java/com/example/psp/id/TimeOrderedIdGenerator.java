@@ -0,0 +1,106 @@
+package com.example.psp.id;
+
+import com.example.psp.util.TransactionIds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered (version 7, RFC 9562) UUIDs: 48 bits of Unix milliseconds, a 12-bit sequence and 62 random bits.
+ *
+ * <p>Millisecond and sequence come from one counter shared by all threads and advanced with a compare-and-set, so
+ * ids are strictly increasing in the order they are handed out, whichever (virtual) thread asks: the sequence counts
+ * ids within a millisecond, and when it runs out, or the clock goes back, the counter carries on with the next
+ * millisecond. The creation time can be read back with {@link TransactionIds#timestamp(String)}.
+ *
+ * <p>The random bits come from a small set of {@code DRBG} {@link SecureRandom}s, each seeded from the system's
+ * entropy and picked by thread id, so ids are unguessable without every thread contending on one generator. Each
+ * generator is drawn from {@value #BUFFER} bytes at a time, which spreads the cost of a DRBG call over many ids.
+ */
+public final class TimeOrderedIdGenerator implements TransactionIdGenerator {
+
+    static final int MAX_SEQUENCE = 0xFFF;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 1L << 63;
+    private static final long RANDOM_MASK = -1L >>> 2;
+    private static final int BUFFER = 256;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final LongSupplier clock;
+    // millis << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+    private final Entropy[] randoms;
+    private final int mask;
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    TimeOrderedIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1);
+        this.randoms = new Entropy[stripes];
+        this.mask = stripes - 1;
+        try {
+            for (int i = 0; i < stripes; i++) {
+                randoms[i] = new Entropy(SecureRandom.getInstance("DRBG"));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No DRBG SecureRandom available", e);
+        }
+    }
+
+    @Override
+    public String next() {
+        long stamp = nextStamp();
+        long msb = (stamp >>> SEQUENCE_BITS) << 16 | VERSION | stamp & MAX_SEQUENCE;
+        long lsb = VARIANT | randoms[(int) Thread.currentThread().threadId() & mask].nextLong() & RANDOM_MASK;
+        return TransactionIds.format(msb, lsb);
+    }
+
+    private long nextStamp() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() << SEQUENCE_BITS;
+            long next = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, next)) return next;
+        }
+    }
+
+    private static final class Entropy {
+
+        final SecureRandom random;
+        final byte[] buffer = new byte[BUFFER];
+        final ReentrantLock lock = new ReentrantLock();
+        int position = BUFFER;
+
+        Entropy(SecureRandom random) {
+            this.random = random;
+        }
+
+        long nextLong() {
+            lock.lock();
+            try {
+                if (position == BUFFER) {
+                    random.nextBytes(buffer);
+                    position = 0;
+                }
+                long value = (long) LONGS.get(buffer, position);
+                // drawn bits are not kept around once used
+                LONGS.set(buffer, position, 0L);
+                position += Long.BYTES;
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
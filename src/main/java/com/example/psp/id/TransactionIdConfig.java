@@ -0,0 +1,23 @@
+package com.example.psp.id;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link TransactionIdGenerator} from {@code psp.transaction-id.type}.
+ */
+
+@Configuration
+@EnableConfigurationProperties(TransactionIdProperties.class)
+public class TransactionIdConfig {
+
+    @Bean
+    public TransactionIdGenerator transactionIdGenerator(TransactionIdProperties properties) {
+        return switch (properties.getType()) {
+            case "time-ordered" -> new TimeOrderedIdGenerator();
+            case "random" -> new RandomIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown psp.transaction-id.type: " + properties.getType());
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.psp.id;
+
+/**
+ * Source of new transaction ids in the canonical 36-character UUID form, so they can be stored as two longs
+ * (see {@link com.example.psp.util.TransactionIds}).
+ */
+public interface TransactionIdGenerator {
+
+    String next();
+}
@@ -0,0 +1,18 @@
+package com.example.psp.id;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Transaction id settings ({@code psp.transaction-id.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.transaction-id")
+public class TransactionIdProperties {
+
+    /**
+     * {@code time-ordered} (UUIDv7, see {@link TimeOrderedIdGenerator}) or {@code random} (UUIDv4).
+     */
+    private String type = "time-ordered";
+}
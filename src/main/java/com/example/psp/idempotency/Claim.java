@@ -0,0 +1,22 @@
+package com.example.psp.idempotency;
+
+import com.example.psp.model.PaymentResponse;
+
+/**
+ * Answer of the node that keeps an Idempotency-Key to an attempt another node wants to run: run it, wait for the
+ * attempt in flight, return the earlier response, or reject the key as reused.
+ */
+public record Claim(Outcome outcome, PaymentResponse response) {
+
+    public static final Claim CLAIMED = new Claim(Outcome.CLAIMED, null);
+    public static final Claim IN_FLIGHT = new Claim(Outcome.IN_FLIGHT, null);
+    public static final Claim REUSED = new Claim(Outcome.REUSED, null);
+
+    public static Claim done(PaymentResponse response) {
+        return new Claim(Outcome.DONE, response);
+    }
+
+    public enum Outcome {
+        CLAIMED, IN_FLIGHT, DONE, REUSED
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.psp.idempotency;
+
+import com.example.psp.model.PaymentRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest of a payment request's content, compared when an Idempotency-Key is used again: the first 128 bits of a
+ * SHA-256 over the length-prefixed merchant id, amount, currency, card token and expiry date. The card enters by its
+ * token, so no digest of the card number is kept; the CVV does not change what is paid and is left out.
+ */
+public record Fingerprint(long high, long low) {
+
+    public static Fingerprint of(PaymentRequest request, String cardToken) {
+        MessageDigest digest = sha256();
+        update(digest, request.getMerchantId());
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(Double.doubleToLongBits(request.getAmount())).array());
+        update(digest, request.getCurrency());
+        update(digest, cardToken);
+        update(digest, request.getExpiryDate());
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Fingerprint(hash.getLong(), hash.getLong());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        // -1 tells null from empty
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes == null ? -1 : bytes.length).array());
+        if (bytes != null) digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.psp.idempotency;
+
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.util.StripedLruCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates payment attempts by {@code Idempotency-Key}, scoped per merchant.
+ *
+ * <p>The first attempt for a key registers a future in a {@link StripedLruCache} and runs the payment. Duplicates
+ * that arrive while it is in flight wait on that future, and later ones get the completed {@link PaymentResponse}
+ * without reaching the acquirer. An attempt that fails with an exception is forgotten so the merchant can retry it.
+ * Reusing a key for a request with different content is rejected.
+ *
+ * <p>In a cluster ({@link IdempotencyPeers}) each key is kept by the node that owns it: other nodes claim the key
+ * there before they run the payment and report the outcome afterwards, and duplicates poll the owner until the
+ * first attempt ended. While the owner cannot be reached keys are deduplicated on the receiving node only.
+ */
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyGuard {
+
+    private static final long POLL_MILLIS = 20;
+
+    private final StripedLruCache<Key, Attempt> attempts;
+    private final int maxKeyLength;
+    private final long claimTimeoutNanos;
+    private final IdempotencyPeers peers;
+    // claims are answered on the cluster connection's reader thread, which the payment must not block
+    private final Executor claimed = Executors.newVirtualThreadPerTaskExecutor();
+
+    public IdempotencyGuard(IdempotencyProperties properties) {
+        this(properties, (IdempotencyPeers) null);
+    }
+
+    @Autowired
+    public IdempotencyGuard(IdempotencyProperties properties, ObjectProvider<IdempotencyPeers> peers) {
+        this(properties, peers.getIfAvailable());
+    }
+
+    public IdempotencyGuard(IdempotencyProperties properties, IdempotencyPeers peers) {
+        this.attempts = new StripedLruCache<>(properties.getMaxKeys(), properties.getStripes(), properties.getTtl());
+        this.maxKeyLength = properties.getMaxKeyLength();
+        this.claimTimeoutNanos = properties.getClaimTimeout().toNanos();
+        this.peers = peers;
+        if (peers != null) peers.serve(this);
+    }
+
+    /**
+     * Runs {@code payment} once per merchant and key.
+     * @param fingerprint digest of the request content, compared on duplicates
+     * @throws IdempotencyKeyException if the key is too long or was used for a different request
+     */
+    public CompletableFuture<PaymentResponse> execute(String merchantId, String idempotencyKey, Fingerprint fingerprint,
+                                                      Supplier<CompletableFuture<PaymentResponse>> payment) {
+        if (idempotencyKey.length() > maxKeyLength) throw IdempotencyKeyException.tooLong(maxKeyLength);
+
+        String owner = peers != null ? peers.owner(merchantId, idempotencyKey) : null;
+        if (owner != null) return executeOn(owner, merchantId, idempotencyKey, fingerprint, payment);
+        return executeHere(new Key(merchantId, idempotencyKey), fingerprint, payment);
+    }
+
+    private CompletableFuture<PaymentResponse> executeHere(Key key, Fingerprint fingerprint,
+                                                           Supplier<CompletableFuture<PaymentResponse>> payment) {
+        Attempt attempt = new Attempt(fingerprint, new CompletableFuture<>(), false);
+        Attempt existing = attempts.putIfAbsent(key, attempt);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) throw IdempotencyKeyException.reused();
+            return existing.response().copy();
+        }
+
+        start(payment).whenComplete((response, error) -> {
+            if (error != null) {
+                attempts.remove(key, attempt);
+                attempt.response().completeExceptionally(error);
+            } else {
+                attempt.response().complete(response);
+            }
+        });
+        return attempt.response().copy();
+    }
+
+    private CompletableFuture<PaymentResponse> executeOn(String owner, String merchantId, String idempotencyKey,
+                                                         Fingerprint fingerprint,
+                                                         Supplier<CompletableFuture<PaymentResponse>> payment) {
+        return peers.claim(owner, merchantId, idempotencyKey, fingerprint).handleAsync((claim, error) -> {
+            if (error != null) {
+                // owner unreachable: deduplicate on this node meanwhile
+                return executeHere(new Key(merchantId, idempotencyKey), fingerprint, payment);
+            }
+            return switch (claim.outcome()) {
+                case REUSED -> throw IdempotencyKeyException.reused();
+                case DONE -> CompletableFuture.completedFuture(claim.response());
+                case IN_FLIGHT -> CompletableFuture.runAsync(() -> { },
+                                CompletableFuture.delayedExecutor(POLL_MILLIS, TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> executeOn(owner, merchantId, idempotencyKey, fingerprint, payment));
+                case CLAIMED -> {
+                    CompletableFuture<PaymentResponse> call = start(payment);
+                    call.whenComplete((response, failure) ->
+                            peers.complete(owner, merchantId, idempotencyKey, failure == null ? response : null));
+                    yield call;
+                }
+            };
+        }, claimed).thenCompose(Function.identity());
+    }
+
+    private static CompletableFuture<PaymentResponse> start(Supplier<CompletableFuture<PaymentResponse>> payment) {
+        try {
+            return payment.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Owner side of {@link IdempotencyPeers#claim}: grants the key to another node's attempt if it is new, and
+     * otherwise tells how the existing attempt stands. A granted attempt whose outcome is not reported within
+     * {@code psp.idempotency.claim-timeout} is forgotten.
+     */
+    public Claim claim(String merchantId, String idempotencyKey, Fingerprint fingerprint) {
+        Key key = new Key(merchantId, idempotencyKey);
+        Attempt attempt = new Attempt(fingerprint, new CompletableFuture<>(), true);
+        Attempt existing = attempts.putIfAbsent(key, attempt);
+        if (existing == null) {
+            attempt.response().orTimeout(claimTimeoutNanos, TimeUnit.NANOSECONDS).whenComplete((response, error) -> {
+                if (error != null) attempts.remove(key, attempt);
+            });
+            return Claim.CLAIMED;
+        }
+        if (!existing.fingerprint().equals(fingerprint)) return Claim.REUSED;
+        CompletableFuture<PaymentResponse> response = existing.response();
+        return response.isDone() && !response.isCompletedExceptionally() ? Claim.done(response.join()) : Claim.IN_FLIGHT;
+    }
+
+    /**
+     * Owner side of {@link IdempotencyPeers#complete}: records the outcome of an attempt granted by {@link #claim};
+     * a null response forgets the key.
+     */
+    public void complete(String merchantId, String idempotencyKey, PaymentResponse response) {
+        Attempt attempt = attempts.get(new Key(merchantId, idempotencyKey));
+        if (attempt == null || !attempt.remote()) return;
+        if (response != null) {
+            attempt.response().complete(response);
+        } else {
+            attempt.response().completeExceptionally(new IllegalStateException("Attempt failed on another node"));
+        }
+    }
+
+    /**
+     * Number of remembered keys.
+     */
+    public int size() {
+        return attempts.size();
+    }
+
+    private record Key(String merchantId, String idempotencyKey) {
+    }
+
+    private record Attempt(Fingerprint fingerprint, CompletableFuture<PaymentResponse> response, boolean remote) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.psp.idempotency;
+
+/**
+ * Thrown when an Idempotency-Key cannot be used: it is too long, or it was already used by the same merchant
+ * for a different request.
+ */
+public class IdempotencyKeyException extends RuntimeException {
+
+    private final boolean reused;
+
+    private IdempotencyKeyException(String message, boolean reused) {
+        super(message);
+        this.reused = reused;
+    }
+
+    public static IdempotencyKeyException tooLong(int maxLength) {
+        return new IdempotencyKeyException("Idempotency-Key must be at most " + maxLength + " characters", false);
+    }
+
+    public static IdempotencyKeyException reused() {
+        return new IdempotencyKeyException("Idempotency-Key was already used for a different request", true);
+    }
+
+    public boolean isReused() {
+        return reused;
+    }
+}
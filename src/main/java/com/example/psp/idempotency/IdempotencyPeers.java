@@ -0,0 +1,33 @@
+package com.example.psp.idempotency;
+
+import com.example.psp.model.PaymentResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The other nodes of a cluster, as seen by {@link IdempotencyGuard}: every merchant's key is kept by one node, so a
+ * retry that reaches another node than the first attempt is still recognized.
+ */
+public interface IdempotencyPeers {
+
+    /**
+     * The node that keeps the merchant's key, or null if it is this one.
+     */
+    String owner(String merchantId, String idempotencyKey);
+
+    /**
+     * Registers an attempt with the owner, which answers as {@link IdempotencyGuard#claim} does. The future fails
+     * if the owner cannot be reached.
+     */
+    CompletableFuture<Claim> claim(String owner, String merchantId, String idempotencyKey, Fingerprint fingerprint);
+
+    /**
+     * Tells the owner how an attempt it granted ended; {@code response} is null if the attempt failed.
+     */
+    void complete(String owner, String merchantId, String idempotencyKey, PaymentResponse response);
+
+    /**
+     * Answers the claims of the other nodes from {@code guard}.
+     */
+    void serve(IdempotencyGuard guard);
+}
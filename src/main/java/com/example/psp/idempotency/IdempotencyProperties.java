@@ -0,0 +1,41 @@
+package com.example.psp.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key settings ({@code psp.idempotency.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Maximum number of remembered keys; the least recently used key is dropped beyond it.
+     */
+    private int maxKeys = 100_000;
+
+    /**
+     * Number of independently locked cache stripes (power of two).
+     */
+    private int stripes = 64;
+
+    /**
+     * How long a key is remembered after its first use.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Longest accepted Idempotency-Key header value.
+     */
+    private int maxKeyLength = 255;
+
+    /**
+     * In a cluster, how long the node keeping a key waits for the outcome of an attempt another node runs before it
+     * forgets the key.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(1);
+}
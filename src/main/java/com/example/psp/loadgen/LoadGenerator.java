@@ -0,0 +1,157 @@
+package com.example.psp.loadgen;
+
+import com.example.psp.model.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command-line load generator for {@code POST /payments}, for offline capacity testing against the acquirer
+ * simulator ({@code psp.acquirer.mock.*}).
+ *
+ * <p>{@code concurrency} virtual threads send requests from a {@link PaymentMix}. Without {@code rate} each sends
+ * back to back (closed loop). With {@code rate}, requests are scheduled at fixed intervals and latency is measured
+ * from the scheduled start, so time spent waiting for a free client counts (no coordinated omission). Only requests
+ * started after the warm-up are reported.
+ *
+ * <pre>
+ * mvn -Ploadgen compile exec:exec -Dloadgen.args="--url=http://localhost:8080 --merchants=200 --concurrency=128 --rate=500 --duration=60s"
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    public record Options(URI url, int merchants, int concurrency, double rate, Duration warmup, Duration duration,
+                          double invalidRate, long seed) {
+
+        static final Options DEFAULTS = new Options(URI.create("http://localhost:8080"), 100, 64, 0,
+                Duration.ofSeconds(5), Duration.ofSeconds(30), 0.01, 42);
+
+        /**
+         * Parses {@code --name=value} arguments; durations are written like {@code 30s} or {@code 500ms}.
+         */
+        public static Options parse(String... args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("expected --name=value: " + arg);
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+            Options d = DEFAULTS;
+            Options options = new Options(
+                    URI.create(values.getOrDefault("url", d.url().toString())),
+                    Integer.parseInt(values.getOrDefault("merchants", Integer.toString(d.merchants()))),
+                    Integer.parseInt(values.getOrDefault("concurrency", Integer.toString(d.concurrency()))),
+                    Double.parseDouble(values.getOrDefault("rate", Double.toString(d.rate()))),
+                    duration(values.get("warmup"), d.warmup()),
+                    duration(values.get("duration"), d.duration()),
+                    Double.parseDouble(values.getOrDefault("invalid-rate", Double.toString(d.invalidRate()))),
+                    Long.parseLong(values.getOrDefault("seed", Long.toString(d.seed()))));
+            values.keySet().removeAll(List.of("url", "merchants", "concurrency", "rate", "warmup", "duration",
+                    "invalid-rate", "seed"));
+            if (!values.isEmpty()) throw new IllegalArgumentException("unknown options: " + values.keySet());
+            if (options.concurrency() <= 0) throw new IllegalArgumentException("concurrency must be positive");
+            return options;
+        }
+
+        private static Duration duration(String value, Duration defaultValue) {
+            if (value == null) return defaultValue;
+            return Duration.parse("PT" + (value.endsWith("ms")
+                    ? Double.parseDouble(value.substring(0, value.length() - 2)) / 1000 + "S"
+                    : value.toUpperCase()));
+        }
+    }
+
+    private final Options options;
+    private final PaymentMix mix;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadGenerator(Options options, PaymentMix mix) {
+        this.options = options;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = Options.parse(args);
+        System.out.printf("%s: %d merchants, %d clients, %s, warm-up %s, measuring %s%n", options.url(),
+                options.merchants(), options.concurrency(),
+                options.rate() > 0 ? String.format("%.0f payments/s", options.rate()) : "closed loop",
+                options.warmup(), options.duration());
+        LoadReport report = new LoadGenerator(options, PaymentMix.defaults(options.merchants(), options.invalidRate())).run();
+        System.out.print(report.format(options.duration()));
+    }
+
+    public LoadReport run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI payments = options.url().resolve("/payments");
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        long intervalNanos = options.rate() > 0 ? Math.round(1e9 / options.rate()) : 0;
+        AtomicLong tickets = new AtomicLong();
+        SplittableRandom seeds = new SplittableRandom(options.seed());
+
+        List<Thread> clients = new ArrayList<>(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            SplittableRandom random = seeds.split();
+            clients.add(Thread.ofVirtual().name("loadgen-" + i).start(() -> {
+                while (true) {
+                    long scheduled;
+                    if (intervalNanos > 0) {
+                        scheduled = start + tickets.getAndIncrement() * intervalNanos;
+                        if (scheduled >= end) return;
+                        long wait = scheduled - System.nanoTime();
+                        if (wait > 0) LockSupport.parkNanos(wait);
+                    } else {
+                        scheduled = System.nanoTime();
+                        if (scheduled >= end) return;
+                    }
+                    LoadReport.Outcome outcome = send(client, payments, mix.next(random));
+                    if (scheduled >= measureFrom) report.record(outcome, System.nanoTime() - scheduled);
+                }
+            }));
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        client.close();
+        return report;
+    }
+
+    private LoadReport.Outcome send(HttpClient client, URI payments, PaymentRequest payment) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(payments)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payment)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return switch (response.statusCode()) {
+                case 200 -> response.body().contains("\"status\":\"Approved\"") ? LoadReport.Outcome.APPROVED
+                        : response.body().contains("\"status\":\"Denied\"") ? LoadReport.Outcome.DENIED
+                        : LoadReport.Outcome.FAILED;
+                case 400 -> LoadReport.Outcome.INVALID;
+                case 429 -> LoadReport.Outcome.RATE_LIMITED;
+                case 503 -> LoadReport.Outcome.SHED;
+                default -> LoadReport.Outcome.HTTP_ERROR;
+            };
+        } catch (IOException e) {
+            return LoadReport.Outcome.TRANSPORT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return LoadReport.Outcome.TRANSPORT_ERROR;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.psp.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counts and the latency histogram of a load run. Recording is thread-safe and wait-free.
+ */
+public final class LoadReport {
+
+    public enum Outcome {
+        APPROVED("approved"),
+        DENIED("denied"),
+        FAILED("failed (acquirer error or timeout)"),
+        INVALID("invalid (400)"),
+        RATE_LIMITED("rate limited (429)"),
+        SHED("shed (503)"),
+        HTTP_ERROR("other HTTP errors"),
+        TRANSPORT_ERROR("transport errors");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Whether the outcome counts towards the error rate. Declines and 400s for deliberately invalid requests do not.
+         */
+        public boolean isError() {
+            return this != APPROVED && this != DENIED && this != INVALID;
+        }
+    }
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder[] counts = new LongAdder[Outcome.values().length];
+
+    public LoadReport() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(Outcome outcome, long latencyNanos) {
+        counts[outcome.ordinal()].increment();
+        latency.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+    }
+
+    public long count(Outcome outcome) {
+        return counts[outcome.ordinal()].sum();
+    }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public double errorRate() {
+        long total = total();
+        if (total == 0) return 0;
+        long errors = 0;
+        for (Outcome outcome : Outcome.values()) {
+            if (outcome.isError()) errors += count(outcome);
+        }
+        return (double) errors / total;
+    }
+
+    public double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    public String format(Duration window) {
+        long total = total();
+        StringBuilder report = new StringBuilder()
+                .append(String.format("requests:     %,d in %s (%,.1f/s)%n", total, window, total * 1e9 / window.toNanos()))
+                .append(String.format("latency (ms): p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                        percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                        latency.getMaxValue() / 1e6))
+                .append(String.format("error rate:   %.3f%%%n", errorRate() * 100));
+        for (Outcome outcome : Outcome.values()) {
+            long count = count(outcome);
+            if (count > 0) {
+                report.append(String.format("  %-36s %,12d  %6.2f%%%n", outcome.label, count, count * 100.0 / total));
+            }
+        }
+        return report.toString();
+    }
+}
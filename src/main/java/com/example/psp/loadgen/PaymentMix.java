@@ -0,0 +1,169 @@
+package com.example.psp.loadgen;
+
+import com.example.psp.model.PaymentRequest;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates payment requests resembling production traffic: merchants with Zipf-distributed volume (a few large
+ * merchants, a long tail of small ones), a weighted mix of card BINs and currencies, log-normal amounts and a share
+ * of invalid requests (bad check digit or expired card).
+ */
+public final class PaymentMix {
+
+    /**
+     * Card numbers starting with {@code prefix}, {@code length} digits long, drawn with relative {@code weight}.
+     */
+    public record Bin(String prefix, int length, double weight) {
+    }
+
+    public record Currency(String code, double weight) {
+    }
+
+    /**
+     * Mirrors the shipped routing table (primary/secondary pairs, a BIN range) plus cards that fall back to
+     * digit-sum routing.
+     */
+    public static final List<Bin> DEFAULT_BINS = List.of(
+            new Bin("424242", 16, 30),  // Visa, A/B
+            new Bin("555555", 16, 25),  // Mastercard, A/B
+            new Bin("411111", 16, 15),  // Visa, B/A
+            new Bin("400001", 16, 10),  // Visa range 400000-400099, B
+            new Bin("4", 16, 8),        // other Visa
+            new Bin("51", 16, 7),       // other Mastercard
+            new Bin("37", 15, 5));      // Amex
+
+    public static final List<Currency> DEFAULT_CURRENCIES = List.of(
+            new Currency("USD", 60), new Currency("EUR", 25), new Currency("GBP", 10), new Currency("JPY", 5));
+
+    private static final double MEDIAN_AMOUNT = 40.0;
+    private static final double AMOUNT_SIGMA = 1.0;
+
+    private final String[] merchants;
+    private final double[] merchantCumulative;
+    private final List<Bin> bins;
+    private final double[] binCumulative;
+    private final List<Currency> currencies;
+    private final double[] currencyCumulative;
+    private final double invalidRate;
+    private final YearMonth currentMonth;
+
+    public PaymentMix(int merchants, double zipfExponent, List<Bin> bins, List<Currency> currencies, double invalidRate) {
+        if (merchants <= 0) throw new IllegalArgumentException("merchants must be positive");
+        if (!(invalidRate >= 0 && invalidRate <= 1)) throw new IllegalArgumentException("invalid rate must be in 0..1");
+        this.merchants = new String[merchants];
+        double[] merchantWeights = new double[merchants];
+        for (int i = 0; i < merchants; i++) {
+            this.merchants[i] = String.format("M-%05d", i + 1);
+            merchantWeights[i] = 1 / Math.pow(i + 1, zipfExponent);
+        }
+        this.merchantCumulative = cumulative(merchantWeights);
+        this.bins = List.copyOf(bins);
+        this.binCumulative = cumulative(bins.stream().mapToDouble(Bin::weight).toArray());
+        this.currencies = List.copyOf(currencies);
+        this.currencyCumulative = cumulative(currencies.stream().mapToDouble(Currency::weight).toArray());
+        this.invalidRate = invalidRate;
+        this.currentMonth = YearMonth.now(ZoneOffset.UTC);
+    }
+
+    public static PaymentMix defaults(int merchants, double invalidRate) {
+        return new PaymentMix(merchants, 1.0, DEFAULT_BINS, DEFAULT_CURRENCIES, invalidRate);
+    }
+
+    public PaymentRequest next(RandomGenerator random) {
+        Bin bin = bins.get(pick(binCumulative, random));
+        String cardNumber = cardNumber(bin, random);
+        String expiry = expiry(currentMonth.plusMonths(1 + random.nextInt(48)));
+        if (invalidRate > 0 && random.nextDouble() < invalidRate) {
+            if (random.nextBoolean()) {
+                cardNumber = withWrongCheckDigit(cardNumber);
+            } else {
+                expiry = expiry(currentMonth.minusMonths(1 + random.nextInt(24)));
+            }
+        }
+        String cvv = bin.prefix().startsWith("3") ? digits(random, 4) : digits(random, 3);
+        Currency currency = currencies.get(pick(currencyCumulative, random));
+        double amount = MEDIAN_AMOUNT * Math.exp(AMOUNT_SIGMA * random.nextGaussian());
+        amount = currency.code().equals("JPY") ? Math.max(1, Math.round(amount * 150)) : Math.max(0.01, Math.round(amount * 100) / 100.0);
+        return new PaymentRequest(cardNumber, expiry, cvv, amount, currency.code(),
+                merchants[pick(merchantCumulative, random)]);
+    }
+
+    public String merchant(int rank) {
+        return merchants[rank];
+    }
+
+    static String cardNumber(Bin bin, RandomGenerator random) {
+        StringBuilder card = new StringBuilder(bin.length()).append(bin.prefix());
+        while (card.length() < bin.length() - 1) {
+            card.append((char) ('0' + random.nextInt(10)));
+        }
+        return card.append((char) ('0' + checkDigit(card))).toString();
+    }
+
+    /**
+     * Luhn check digit to append to {@code payload}.
+     */
+    static int checkDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) digit -= 9;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static String withWrongCheckDigit(String cardNumber) {
+        int last = cardNumber.length() - 1;
+        char wrong = (char) ('0' + (cardNumber.charAt(last) - '0' + 1) % 10);
+        return cardNumber.substring(0, last) + wrong;
+    }
+
+    private static String expiry(YearMonth month) {
+        return String.format("%02d/%02d", month.getMonthValue(), month.getYear() % 100);
+    }
+
+    private static String digits(RandomGenerator random, int count) {
+        char[] digits = new char[count];
+        for (int i = 0; i < count; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        if (weights.length == 0) throw new IllegalArgumentException("at least one weight is needed");
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0)) throw new IllegalArgumentException("weights must not be negative");
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, RandomGenerator random) {
+        double draw = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= draw) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.psp.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency histogram with a wait-free write path.
+ *
+ * <p>Writers record into an HdrHistogram {@link Recorder} (two atomic increments, no locks, no allocation). Readers
+ * drain the recorder into the current window; windows rotate every {@code windowNanos}, and percentiles are computed
+ * over the current and the previous window. Values are nanoseconds, kept with 2 significant digits up to 60 s.
+ */
+final class LatencyHistogram {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = 60_000_000_000L;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final long windowNanos;
+    private Histogram interval;
+    private Histogram current = newHistogram();
+    private Histogram previous = newHistogram();
+    private final Histogram merged = newHistogram();
+    private long rotatedAt = System.nanoTime();
+    private long totalCount;
+
+    LatencyHistogram(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    void record(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    synchronized double valueAtPercentile(double percentile) {
+        drain();
+        merged.reset();
+        merged.add(previous);
+        merged.add(current);
+        return merged.getTotalCount() == 0 ? 0 : merged.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Number of values recorded since creation.
+     */
+    synchronized long totalCount() {
+        drain();
+        return totalCount;
+    }
+
+    private void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        long now = System.nanoTime();
+        if (now - rotatedAt >= windowNanos) {
+            Histogram expired = previous;
+            previous = current;
+            current = expired;
+            current.reset();
+            // nothing was read for more than a whole window: the previous one is stale too
+            if (now - rotatedAt >= 2 * windowNanos) previous.reset();
+            rotatedAt = now;
+        }
+        current.add(interval);
+        totalCount += interval.getTotalCount();
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.psp.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-stage latency of a payment.
+ *
+ * <p>Each stage (routing, store, acquirer, response) is recorded per acquirer and final status into a
+ * {@link LatencyHistogram}: a wait-free HdrHistogram recorder on the payment path, read only when metrics are
+ * polled. Request validation is recorded per outcome (valid, invalid), card tokenization per token cache outcome
+ * (hit, miss). Histograms are created once per key and looked
+ * up without allocating.
+ *
+ * <p>Published through Micrometer ({@code /actuator/metrics}): {@code psp.payment.stage.percentile} (seconds, tags
+ * {@code stage}, {@code acquirer}, {@code status}, {@code phi} = 0.5/0.9/0.99/0.999) and {@code psp.payment.stage.count},
+ * and likewise {@code psp.payment.validation.*} tagged by {@code outcome} and {@code psp.payment.tokenization.*} tagged by
+ * {@code cache}. Percentiles cover the last one to two
+ * {@code psp.metrics.stages.window}s.
+ */
+@Component
+public class PaymentMetrics {
+
+    static final String STAGE = "psp.payment.stage";
+    static final String VALIDATION = "psp.payment.validation";
+    static final String TOKENIZATION = "psp.payment.tokenization";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final Map<String, Map<String, StageHistograms>> stages = new ConcurrentHashMap<>();
+    private final LatencyHistogram validationPassed;
+    private final LatencyHistogram validationFailed;
+    private final LatencyHistogram tokenizationHit;
+    private final LatencyHistogram tokenizationMiss;
+
+    public PaymentMetrics(MeterRegistry registry, boolean enabled) {
+        this(registry, enabled, Duration.ofMinutes(1));
+    }
+
+    @Autowired
+    public PaymentMetrics(MeterRegistry registry,
+                          @Value("${psp.metrics.stages.enabled:true}") boolean enabled,
+                          @Value("${psp.metrics.stages.window:PT1M}") Duration window) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.validationPassed = histogram(VALIDATION, Tags.of("outcome", "valid"));
+        this.validationFailed = histogram(VALIDATION, Tags.of("outcome", "invalid"));
+        this.tokenizationHit = histogram(TOKENIZATION, Tags.of("cache", "hit"));
+        this.tokenizationMiss = histogram(TOKENIZATION, Tags.of("cache", "miss"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Timestamp for stage boundaries; 0 when metrics are disabled, so disabled instrumentation costs nothing.
+     */
+    public long now() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordValidation(long nanos, boolean valid) {
+        if (!enabled) return;
+        (valid ? validationPassed : validationFailed).record(nanos);
+    }
+
+    public void recordTokenization(long nanos, boolean cached) {
+        if (!enabled) return;
+        (cached ? tokenizationHit : tokenizationMiss).record(nanos);
+    }
+
+    public void recordStages(String acquirer, String status,
+                             long routingNanos, long storeNanos, long acquirerNanos, long responseNanos) {
+        if (!enabled) return;
+        StageHistograms histograms = histograms(acquirer, status);
+        histograms.routing.record(routingNanos);
+        histograms.store.record(storeNanos);
+        histograms.acquirer.record(acquirerNanos);
+        histograms.response.record(responseNanos);
+    }
+
+    private StageHistograms histograms(String acquirer, String status) {
+        Map<String, StageHistograms> byStatus = stages.get(acquirer);
+        if (byStatus == null) {
+            byStatus = stages.computeIfAbsent(acquirer, a -> new ConcurrentHashMap<>());
+        }
+        StageHistograms histograms = byStatus.get(status);
+        if (histograms == null) {
+            histograms = byStatus.computeIfAbsent(status, s -> new StageHistograms(acquirer, s));
+        }
+        return histograms;
+    }
+
+    private LatencyHistogram histogram(String name, Tags tags) {
+        LatencyHistogram histogram = new LatencyHistogram(windowNanos);
+        if (!enabled) return histogram;
+        for (double phi : PERCENTILES) {
+            Gauge.builder(name + ".percentile", histogram, h -> h.valueAtPercentile(phi * 100) / 1e9)
+                    .tags(tags)
+                    .tag("phi", String.valueOf(phi))
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+        FunctionCounter.builder(name + ".count", histogram, LatencyHistogram::totalCount)
+                .tags(tags)
+                .register(registry);
+        return histogram;
+    }
+
+    private final class StageHistograms {
+
+        final LatencyHistogram routing;
+        final LatencyHistogram store;
+        final LatencyHistogram acquirer;
+        final LatencyHistogram response;
+
+        StageHistograms(String acquirer, String status) {
+            this.routing = histogram(STAGE, Tags.of("stage", "routing", "acquirer", acquirer, "status", status));
+            this.store = histogram(STAGE, Tags.of("stage", "store", "acquirer", acquirer, "status", status));
+            this.acquirer = histogram(STAGE, Tags.of("stage", "acquirer", "acquirer", acquirer, "status", status));
+            this.response = histogram(STAGE, Tags.of("stage", "response", "acquirer", acquirer, "status", status));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.psp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One NDJSON output line of a batch payment request.
+ * Carries the 1-based input line number and either the {@link PaymentResponse} fields or the line's errors.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResult {
+
+    private long line;
+    private String transactionId;
+    private String status;
+    private String message;
+    private List<Map<String, String>> errors;
+
+    public static BatchPaymentResult of(long line, PaymentResponse response) {
+        return new BatchPaymentResult(line, response.getTransactionId(), response.getStatus(), response.getMessage(), null);
+    }
+
+    public static BatchPaymentResult failed(long line, List<Map<String, String>> errors) {
+        return new BatchPaymentResult(line, null, null, null, errors);
+    }
+}
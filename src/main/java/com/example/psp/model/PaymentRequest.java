@@ -1,5 +1,7 @@
 package com.example.psp.model;
 
+import com.example.psp.util.IsoCurrency;
+import com.example.psp.util.NotExpired;
 import com.example.psp.util.ValidCardNumber;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +11,8 @@ import jakarta.validation.constraints.*;
 /**
  * DTO for incoming payment request.
  * Contains card data, amount, currency, and merchantId.
+ * The constraints are checked by Bean Validation in {@code psp.validation.mode=bean}; the default fast mode applies
+ * the same rules in {@code PaymentRequestValidator}, which must be kept in step with them.
  */
 
 @Data
@@ -19,10 +23,13 @@ public class PaymentRequest {
     @ValidCardNumber
     private String cardNumber;
 
+    @NotNull(message = "expiryDate must be in MM/YY or MM/YYYY format and month between 01 and 12")
     @Pattern(regexp = "^(0[1-9]|1[0-2])/(?:\\d{2}|\\d{4})$",
             message = "expiryDate must be in MM/YY or MM/YYYY format and month between 01 and 12")
+    @NotExpired
     private String expiryDate;
 
+    @NotNull(message = "CVV must be 3 or 4 digits")
     @Pattern(regexp = "^\\d{3,4}$", message = "CVV must be 3 or 4 digits")
     private String cvv;
 
@@ -30,6 +37,7 @@ public class PaymentRequest {
     private double amount;
 
     @NotBlank(message = "Currency is required")
+    @IsoCurrency
     private String currency;
 
     @NotBlank(message = "Merchant ID is required")
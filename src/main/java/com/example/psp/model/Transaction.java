@@ -6,7 +6,8 @@ import lombok.NoArgsConstructor;
 
 /**
  * Transaction entity in the system.
- * Stores identifier, original request, and processing status.
+ * Stores identifier, original request, processing status, chosen acquirer, creation time and the card token.
+ * The stored request carries no card data; the card is only known by its token.
  */
 
 @Data
@@ -17,5 +18,12 @@ public class Transaction {
     private String transactionId;
     private PaymentRequest request;
     private String status;
+    private String acquirer;
+    private long createdAt;
+    private String cardToken;
+
+    public Transaction(String transactionId, PaymentRequest request, String status, String acquirer, long createdAt) {
+        this(transactionId, request, status, acquirer, createdAt, null);
+    }
 
 }
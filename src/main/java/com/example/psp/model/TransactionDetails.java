@@ -0,0 +1,33 @@
+package com.example.psp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO for reading a transaction back.
+ * Carries no card data (card number, expiry date, CVV), only the card token.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDetails {
+
+    private String transactionId;
+    private String merchantId;
+    private double amount;
+    private String currency;
+    private String status;
+    private String acquirer;
+    private Instant createdAt;
+    private String cardToken;
+
+    public static TransactionDetails of(Transaction transaction) {
+        PaymentRequest request = transaction.getRequest();
+        return new TransactionDetails(transaction.getTransactionId(), request.getMerchantId(), request.getAmount(),
+                request.getCurrency(), transaction.getStatus(), transaction.getAcquirer(),
+                Instant.ofEpochMilli(transaction.getCreatedAt()), transaction.getCardToken());
+    }
+}
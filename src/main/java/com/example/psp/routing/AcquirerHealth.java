@@ -0,0 +1,178 @@
+package com.example.psp.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling call statistics and circuit breaker of one acquirer.
+ *
+ * <p>Outcomes go into a ring of time buckets (calls, failures, slow calls, total latency), updated with atomic
+ * increments; a bucket is reset when the ring comes round to it again. While the circuit is {@link State#CLOSED}
+ * a failed or slow call re-evaluates the window, and once it holds {@code minimum-calls} with a failure or slow-call
+ * rate at its threshold, the circuit opens. After {@code open-duration} it becomes {@link State#HALF_OPEN} and lets
+ * {@code half-open-probes} payments through: a failed or slow call opens it again, that many successes close it.
+ * Probes that do not all answer within {@code probe-timeout} open it again too, so a lost probe cannot leave the
+ * circuit half-open with no permits.
+ */
+final class AcquirerHealth {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    private static final State[] STATES = State.values();
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // per bucket: epoch, calls, failures, slow calls, latency sum
+    private static final int STRIDE = 5;
+
+    private final RoutingProperties.Health settings;
+    private final long bucketNanos;
+    private final int buckets;
+    private final long slowNanos;
+    private final long openNanos;
+    private final long probeNanos;
+    private final AtomicLongArray window;
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private final AtomicInteger probePermits = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private volatile long openedAt;
+    private volatile long halfOpenedAt;
+
+    AcquirerHealth(RoutingProperties.Health settings) {
+        this.settings = settings;
+        this.buckets = settings.getWindowBuckets();
+        this.bucketNanos = Math.max(1, settings.getWindow().toNanos() / buckets);
+        this.slowNanos = settings.getSlowCallThreshold().toNanos();
+        this.openNanos = settings.getOpenDuration().toNanos();
+        this.probeNanos = settings.getProbeTimeout().toNanos();
+        this.window = new AtomicLongArray(buckets * STRIDE);
+        for (int b = 0; b < buckets; b++) {
+            window.set(b * STRIDE, EMPTY);
+        }
+    }
+
+    boolean isClosed() {
+        return state.get() == CLOSED;
+    }
+
+    State state() {
+        return STATES[state.get()];
+    }
+
+    /**
+     * Whether a payment may be sent to the acquirer now; in half-open state this takes one of the probe permits.
+     */
+    boolean tryAcquire(long now) {
+        int current = state.get();
+        if (current == CLOSED) return true;
+        if (current == OPEN) {
+            if (now - openedAt < openNanos) return false;
+            halfOpen(now);
+        }
+        while (true) {
+            int permits = probePermits.get();
+            if (permits <= 0) {
+                if (state.get() == CLOSED) return true;
+                if (now - halfOpenedAt >= probeNanos) open(now, HALF_OPEN);
+                return false;
+            }
+            if (probePermits.compareAndSet(permits, permits - 1)) return true;
+        }
+    }
+
+    void record(long now, long nanos, boolean success) {
+        boolean slow = nanos >= slowNanos;
+        add(now, !success, slow, nanos);
+        boolean bad = !success || slow;
+        switch (state.get()) {
+            case CLOSED -> {
+                if (bad && shouldOpen(now)) open(now, CLOSED);
+            }
+            case OPEN -> {
+                // calls of payments without a secondary acquirer are not probes
+            }
+            default -> {
+                if (bad) {
+                    open(now, HALF_OPEN);
+                } else if (probeSuccesses.incrementAndGet() >= settings.getHalfOpenProbes()
+                        && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                    clearWindow();
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls, failures, slow calls and latency sum in the window ending at {@code now}.
+     */
+    long[] snapshot(long now) {
+        long epoch = now / bucketNanos;
+        long[] totals = new long[STRIDE - 1];
+        for (int b = 0; b < buckets; b++) {
+            int base = b * STRIDE;
+            if (!live(window.get(base), epoch)) continue;
+            for (int i = 1; i < STRIDE; i++) {
+                totals[i - 1] += window.get(base + i);
+            }
+        }
+        return totals;
+    }
+
+    private boolean shouldOpen(long now) {
+        long epoch = now / bucketNanos;
+        long calls = 0, failures = 0, slow = 0;
+        for (int b = 0; b < buckets; b++) {
+            int base = b * STRIDE;
+            if (!live(window.get(base), epoch)) continue;
+            calls += window.get(base + 1);
+            failures += window.get(base + 2);
+            slow += window.get(base + 3);
+        }
+        return calls >= settings.getMinimumCalls()
+                && (failures >= calls * settings.getFailureRateThreshold()
+                || slow >= calls * settings.getSlowCallRateThreshold());
+    }
+
+    private boolean live(long bucketEpoch, long epoch) {
+        return bucketEpoch != EMPTY && epoch - bucketEpoch < buckets;
+    }
+
+    private void add(long now, boolean failed, boolean slow, long nanos) {
+        long epoch = now / bucketNanos;
+        int base = (int) Math.floorMod(epoch, (long) buckets) * STRIDE;
+        long seen = window.get(base);
+        if (seen != epoch && window.compareAndSet(base, seen, epoch)) {
+            // increments racing with the reset of a stale bucket may be lost; the window is statistical anyway
+            for (int i = 1; i < STRIDE; i++) {
+                window.set(base + i, 0);
+            }
+        }
+        window.incrementAndGet(base + 1);
+        if (failed) window.incrementAndGet(base + 2);
+        if (slow) window.incrementAndGet(base + 3);
+        window.addAndGet(base + 4, nanos);
+    }
+
+    private void open(long now, int from) {
+        openedAt = now;
+        state.compareAndSet(from, OPEN);
+    }
+
+    private void halfOpen(long now) {
+        halfOpenedAt = now;
+        if (state.compareAndSet(OPEN, HALF_OPEN)) {
+            probeSuccesses.set(0);
+            probePermits.set(settings.getHalfOpenProbes());
+        }
+    }
+
+    private void clearWindow() {
+        for (int b = 0; b < buckets; b++) {
+            window.set(b * STRIDE, EMPTY);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.psp.routing;
+
+import com.example.psp.service.AcquirerCallListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks rolling latency and error rates per acquirer and steers payments away from degraded ones.
+ *
+ * <p>Every acquirer call reported by the gateway updates the acquirer's {@link AcquirerHealth}. {@link #choose}
+ * keeps a payment on its primary acquirer while that acquirer's circuit is closed (or it is one of the half-open
+ * probes), and otherwise sends it to the secondary acquirer of its BIN rule. Payments without a usable secondary
+ * stay on the primary, still bounded by its bulkhead and deadline. The decision does not allocate and, while the
+ * circuit is closed, does not read the clock.
+ *
+ * <p>Metrics, tagged by acquirer: {@code psp.routing.acquirer.state} (0 closed, 1 open, 2 half-open),
+ * {@code psp.routing.acquirer.failure.rate}, {@code .slow.rate}, {@code .latency} (mean over the window),
+ * and {@code psp.routing.failover} (payments moved away from the acquirer).
+ */
+@Component
+@EnableConfigurationProperties(RoutingProperties.class)
+public class AcquirerHealthMonitor implements AcquirerCallListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AcquirerHealthMonitor.class);
+
+    private final boolean enabled;
+    private final RoutingProperties.Health settings;
+    private final MeterRegistry registry;
+    private final LongSupplier nanoClock;
+    private final Map<String, Tracked> acquirers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AcquirerHealthMonitor(RoutingProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    AcquirerHealthMonitor(RoutingProperties properties, MeterRegistry registry, LongSupplier nanoClock) {
+        this.settings = properties.getHealth();
+        this.enabled = settings.isEnabled();
+        this.registry = registry;
+        this.nanoClock = nanoClock;
+    }
+
+    public static AcquirerHealthMonitor disabled() {
+        RoutingProperties properties = new RoutingProperties();
+        properties.getHealth().setEnabled(false);
+        return new AcquirerHealthMonitor(properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Acquirer for a payment whose BIN routes to {@code primary}.
+     * @param secondary failover acquirer of the BIN rule, or null
+     */
+    public String choose(String primary, String secondary) {
+        if (!enabled) return primary;
+        Tracked first = tracked(primary);
+        if (first.health.isClosed()) return primary;
+        long now = nanoClock.getAsLong();
+        if (first.health.tryAcquire(now)) return primary;
+        if (secondary != null && tracked(secondary).health.tryAcquire(now)) {
+            first.failovers.increment();
+            return secondary;
+        }
+        return primary;
+    }
+
+    @Override
+    public void onAcquirerCall(String acquirer, long nanos, boolean success) {
+        if (!enabled) return;
+        Tracked tracked = tracked(acquirer);
+        AcquirerHealth.State before = tracked.health.state();
+        tracked.health.record(nanoClock.getAsLong(), nanos, success);
+        AcquirerHealth.State after = tracked.health.state();
+        if (after != before) {
+            log.warn("Acquirer {} circuit {} -> {}", acquirer, before, after);
+        }
+    }
+
+    /**
+     * Current circuit state of the acquirer: CLOSED, OPEN or HALF_OPEN.
+     */
+    public String state(String acquirer) {
+        return tracked(acquirer).health.state().name();
+    }
+
+    private Tracked tracked(String acquirer) {
+        Tracked tracked = acquirers.get(acquirer);
+        return tracked != null ? tracked : acquirers.computeIfAbsent(acquirer, this::register);
+    }
+
+    private Tracked register(String acquirer) {
+        AcquirerHealth health = new AcquirerHealth(settings);
+        Gauge.builder("psp.routing.acquirer.state", health, h -> switch (h.state()) {
+                    case CLOSED -> 0;
+                    case OPEN -> 1;
+                    case HALF_OPEN -> 2;
+                })
+                .description("Circuit state: 0 closed, 1 open, 2 half-open")
+                .tag("acquirer", acquirer)
+                .register(registry);
+        Gauge.builder("psp.routing.acquirer.failure.rate", health, h -> rate(h, 1))
+                .description("Share of failed calls in the rolling window")
+                .tag("acquirer", acquirer)
+                .register(registry);
+        Gauge.builder("psp.routing.acquirer.slow.rate", health, h -> rate(h, 2))
+                .description("Share of slow calls in the rolling window")
+                .tag("acquirer", acquirer)
+                .register(registry);
+        Gauge.builder("psp.routing.acquirer.latency", health, h -> rate(h, 3) / 1e9)
+                .description("Mean call latency in the rolling window")
+                .baseUnit("seconds")
+                .tag("acquirer", acquirer)
+                .register(registry);
+        Counter failovers = Counter.builder("psp.routing.failover")
+                .description("Payments sent to the secondary acquirer because this acquirer's circuit was open")
+                .tag("acquirer", acquirer)
+                .register(registry);
+        return new Tracked(health, failovers);
+    }
+
+    /**
+     * Window total at {@code index} divided by the number of calls.
+     */
+    private double rate(AcquirerHealth health, int index) {
+        long[] totals = health.snapshot(nanoClock.getAsLong());
+        return totals[0] == 0 ? 0 : (double) totals[index] / totals[0];
+    }
+
+    private record Tracked(AcquirerHealth health, Counter failovers) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.psp.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Chooses the acquirer for a card number.
+ *
+ * <p>Looks the card up in the current {@link BinRoutingTable}; cards without a matching rule fall back to the
+ * original digit-sum rule (even sum of the 6-digit BIN goes to "A", odd to "B").
+ * The table is replaced atomically when its file changes, so in-flight payments keep using the table
+ * they started with and are never blocked by a reload. Rules naming a secondary acquirer ({@code 411111,B/A}) fail over
+ * to it while the primary's circuit is open in the {@link AcquirerHealthMonitor}.
+ */
+@Component
+@EnableConfigurationProperties(RoutingProperties.class)
+public class BinRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(BinRouter.class);
+
+    private final Resource resource;
+    private final AcquirerHealthMonitor healthMonitor;
+    private volatile BinRoutingTable table = BinRoutingTable.EMPTY;
+    private volatile long lastModified = -1;
+
+    public BinRouter(ResourceLoader resourceLoader, RoutingProperties properties) {
+        this(resourceLoader, properties, AcquirerHealthMonitor.disabled());
+    }
+
+    @Autowired
+    public BinRouter(ResourceLoader resourceLoader, RoutingProperties properties, AcquirerHealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+        this.resource = resourceLoader.getResource(properties.getTable());
+        if (resource.exists()) {
+            reload();
+        } else {
+            log.warn("BIN table {} not found, using digit-sum routing only", properties.getTable());
+        }
+    }
+
+    public String route(String cardNumber) {
+        BinRoutingTable table = this.table;
+        int range = table.find(cardNumber);
+        if (range < 0) return healthMonitor.choose(defaultAcquirer(cardNumber), null);
+        return healthMonitor.choose(table.acquirer(range), table.secondary(range));
+    }
+
+    public BinRoutingTable table() {
+        return table;
+    }
+
+    /**
+     * Reloads the table if its file has changed since the last load.
+     */
+    @Scheduled(initialDelayString = "${psp.routing.reload-interval:PT10S}",
+            fixedDelayString = "${psp.routing.reload-interval:PT10S}")
+    public void reloadIfChanged() {
+        if (!resource.isFile()) return;
+        try {
+            if (resource.lastModified() != lastModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot check BIN table {}: {}", resource, e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles the table from its source and swaps it in. On a parse error the current table stays active.
+     * @return true if the new table was installed
+     */
+    public boolean reload() {
+        try {
+            long modified = resource.isFile() ? resource.lastModified() : 0;
+            // remember the attempt so that a broken file is reported once, not on every check
+            lastModified = modified;
+            BinRoutingTable compiled;
+            try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+                compiled = BinRoutingTable.parse(reader);
+            }
+            table = compiled;
+            log.info("Loaded BIN table {}: {} rules compiled into {} ranges", resource, compiled.rules(), compiled.ranges());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Cannot load BIN table {}, keeping the current one: {}", resource, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Digit-sum rule over the 6-digit BIN, computed without allocating.
+     */
+    static String defaultAcquirer(String cardNumber) {
+        int sum = 0;
+        for (int i = 0; i < 6; i++) {
+            sum += Character.getNumericValue(cardNumber.charAt(i));
+        }
+        return (sum % 2 == 0) ? "A" : "B";
+    }
+}
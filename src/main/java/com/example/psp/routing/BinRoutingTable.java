@@ -0,0 +1,236 @@
+package com.example.psp.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable, precompiled BIN range table.
+ *
+ * <p>Source format, one rule per line ({@code #} starts a comment):
+ * <pre>
+ * 424242,A                 single 6- or 8-digit BIN
+ * 51000000,55999999,B      inclusive range of 6- or 8-digit BINs
+ * 411111,B/A               primary acquirer B, failing over to A while B's circuit is open
+ * </pre>
+ * All rules are normalised to 8-digit ranges (a 6-digit BIN covers its 100 8-digit BINs). Rules may nest,
+ * and the narrowest rule wins; partially overlapping rules are rejected. The nesting is flattened at compile time
+ * into disjoint sorted {@code int} ranges, so a lookup is a short binary search over primitive arrays (narrowed by a
+ * 4-digit prefix index) and does not allocate.
+ */
+public final class BinRoutingTable {
+
+    public static final BinRoutingTable EMPTY = new BinRoutingTable(new int[0], new int[0], new String[0], new String[0], 0);
+
+    private static final int BIN_DIGITS = 8;
+    private static final int BUCKET_SIZE = 10_000;
+    private static final int BUCKETS = 100_000_000 / BUCKET_SIZE;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] acquirers;
+    private final String[] secondaries;
+    private final int rules;
+    // bucketStart[p] = index of the first range starting at or after p * BUCKET_SIZE (4-digit prefix)
+    private final int[] bucketStart;
+
+    private BinRoutingTable(int[] starts, int[] ends, String[] acquirers, String[] secondaries, int rules) {
+        this.starts = starts;
+        this.ends = ends;
+        this.acquirers = acquirers;
+        this.secondaries = secondaries;
+        this.rules = rules;
+        this.bucketStart = new int[BUCKETS + 1];
+        int range = 0;
+        for (int p = 0; p <= BUCKETS; p++) {
+            while (range < starts.length && starts[range] < p * BUCKET_SIZE) range++;
+            bucketStart[p] = range;
+        }
+    }
+
+    /**
+     * Returns the acquirer for the card number, or null if no rule matches or the first 8 characters are not digits.
+     */
+    public String lookup(CharSequence cardNumber) {
+        int range = find(cardNumber);
+        return range >= 0 ? acquirers[range] : null;
+    }
+
+    /**
+     * Returns the index of the range matching the card number, or -1 if no rule matches or the first 8 characters
+     * are not digits. Use {@link #acquirer(int)} and {@link #secondary(int)} to read the range.
+     */
+    public int find(CharSequence cardNumber) {
+        int bin = bin8(cardNumber);
+        if (bin < 0) return -1;
+        // the 4-digit prefix narrows the binary search to the ranges of one bucket plus its predecessor
+        int prefix = bin / BUCKET_SIZE;
+        int low = Math.max(0, bucketStart[prefix] - 1);
+        int high = bucketStart[prefix + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= bin) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && bin <= ends[high] ? high : -1;
+    }
+
+    public String acquirer(int range) {
+        return acquirers[range];
+    }
+
+    /**
+     * Acquirer that payments of the range fail over to, or null if the rule names none.
+     */
+    public String secondary(int range) {
+        return secondaries[range];
+    }
+
+    /**
+     * Number of rules the table was compiled from.
+     */
+    public int rules() {
+        return rules;
+    }
+
+    /**
+     * Number of disjoint ranges after flattening.
+     */
+    public int ranges() {
+        return starts.length;
+    }
+
+    static int bin8(CharSequence cardNumber) {
+        if (cardNumber == null || cardNumber.length() < BIN_DIGITS) return -1;
+        int bin = 0;
+        for (int i = 0; i < BIN_DIGITS; i++) {
+            int digit = cardNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            bin = bin * 10 + digit;
+        }
+        return bin;
+    }
+
+    public static BinRoutingTable parse(Reader source) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.strip();
+            if (line.isEmpty()) continue;
+            String[] parts = line.split("\\s*,\\s*");
+            if (parts.length != 2 && parts.length != 3) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'bin,acquirer' or 'from,to,acquirer'");
+            }
+            String from = parts[0];
+            String to = parts.length == 3 ? parts[1] : parts[0];
+            String[] acquirers = parts[parts.length - 1].split("\\s*/\\s*", -1);
+            if (acquirers.length > 2 || Arrays.stream(acquirers).anyMatch(String::isEmpty)) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'acquirer' or 'acquirer/secondary'");
+            }
+            String acquirer = acquirers[0].intern();
+            String secondary = acquirers.length == 2 ? acquirers[1].intern() : null;
+            if (acquirer.equals(secondary)) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": secondary acquirer equals the primary");
+            }
+            rules.add(new Rule(normalise(from, false, lineNumber), normalise(to, true, lineNumber), acquirer, secondary,
+                    lineNumber));
+        }
+        return compile(rules);
+    }
+
+    private static int normalise(String bin, boolean upper, int lineNumber) {
+        if (!bin.chars().allMatch(c -> c >= '0' && c <= '9') || (bin.length() != 6 && bin.length() != BIN_DIGITS)) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": BIN must have 6 or 8 digits: " + bin);
+        }
+        int value = Integer.parseInt(bin);
+        return bin.length() == BIN_DIGITS ? value : value * 100 + (upper ? 99 : 0);
+    }
+
+    static BinRoutingTable compile(List<Rule> rules) {
+        List<Rule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt(Rule::start).thenComparing(Comparator.comparingInt(Rule::end).reversed()));
+        validateNesting(sorted);
+
+        int[] boundaries = new int[sorted.size() * 2];
+        for (int i = 0; i < sorted.size(); i++) {
+            boundaries[2 * i] = sorted.get(i).start();
+            boundaries[2 * i + 1] = sorted.get(i).end() + 1;
+        }
+        Arrays.sort(boundaries);
+
+        int[] starts = new int[boundaries.length];
+        int[] ends = new int[boundaries.length];
+        String[] acquirers = new String[boundaries.length];
+        String[] secondaries = new String[boundaries.length];
+        int size = 0;
+
+        // sweep over elementary intervals; the narrowest active rule owns each of them
+        PriorityQueue<Rule> active = new PriorityQueue<>(Comparator.comparingInt(Rule::width));
+        int next = 0;
+        for (int b = 0; b < boundaries.length - 1; b++) {
+            int from = boundaries[b];
+            int to = boundaries[b + 1] - 1;
+            if (to < from) continue;
+            while (next < sorted.size() && sorted.get(next).start() <= from) {
+                active.add(sorted.get(next++));
+            }
+            while (!active.isEmpty() && active.peek().end() < from) {
+                active.poll();
+            }
+            Rule owner = active.peek();
+            if (owner == null) continue;
+            if (size > 0 && ends[size - 1] == from - 1 && acquirers[size - 1].equals(owner.acquirer())
+                    && Objects.equals(secondaries[size - 1], owner.secondary())) {
+                ends[size - 1] = to;
+            } else {
+                starts[size] = from;
+                ends[size] = to;
+                acquirers[size] = owner.acquirer();
+                secondaries[size] = owner.secondary();
+                size++;
+            }
+        }
+        return new BinRoutingTable(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+                Arrays.copyOf(acquirers, size), Arrays.copyOf(secondaries, size), rules.size());
+    }
+
+    private static void validateNesting(List<Rule> sorted) {
+        List<Rule> open = new ArrayList<>();
+        for (Rule rule : sorted) {
+            if (rule.end() < rule.start()) {
+                throw new IllegalArgumentException("Line " + rule.line() + ": range end is before its start");
+            }
+            while (!open.isEmpty() && open.get(open.size() - 1).end() < rule.start()) {
+                open.remove(open.size() - 1);
+            }
+            if (!open.isEmpty()) {
+                Rule parent = open.get(open.size() - 1);
+                if (rule.end() > parent.end() || (rule.start() == parent.start() && rule.end() == parent.end())) {
+                    throw new IllegalArgumentException("Line " + rule.line() + ": range overlaps line " + parent.line());
+                }
+            }
+            open.add(rule);
+        }
+    }
+
+    record Rule(int start, int end, String acquirer, String secondary, int line) {
+
+        int width() {
+            return end - start;
+        }
+    }
+}
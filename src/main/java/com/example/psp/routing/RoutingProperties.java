@@ -0,0 +1,82 @@
+package com.example.psp.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * BIN routing settings ({@code psp.routing.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.routing")
+public class RoutingProperties {
+
+    /**
+     * Location of the BIN table (Spring resource syntax, e.g. {@code file:/etc/psp/bin-routes.csv}).
+     */
+    private String table = "classpath:bin-routes.csv";
+
+    /**
+     * How often the table file is checked for changes. Only file-system resources are reloaded.
+     */
+    private Duration reloadInterval = Duration.ofSeconds(10);
+
+    private Health health = new Health();
+
+    @Data
+    public static class Health {
+
+        /**
+         * Whether acquirer health is tracked and payments fail over while an acquirer's circuit is open.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Length of the rolling window of call outcomes per acquirer.
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * Number of buckets the window is divided into; one bucket is dropped at a time.
+         */
+        private int windowBuckets = 10;
+
+        /**
+         * Calls the window must hold before the error and slow-call rates are acted upon.
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * Share of failed calls (errors, missed deadlines) that opens the circuit.
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * Calls at least this slow count as slow.
+         */
+        private Duration slowCallThreshold = Duration.ofSeconds(1);
+
+        /**
+         * Share of slow calls that opens the circuit.
+         */
+        private double slowCallRateThreshold = 0.5;
+
+        /**
+         * How long an open circuit diverts payments before probing the acquirer again.
+         */
+        private Duration openDuration = Duration.ofSeconds(5);
+
+        /**
+         * Payments sent to a half-open acquirer as probes; this many successes close the circuit.
+         */
+        private int halfOpenProbes = 5;
+
+        /**
+         * How long a half-open circuit waits for its probes; if they have not all answered by then (a probe turned
+         * away by the bulkhead, or lost), the circuit opens again. Longer than the acquirer deadline.
+         */
+        private Duration probeTimeout = Duration.ofSeconds(5);
+    }
+}
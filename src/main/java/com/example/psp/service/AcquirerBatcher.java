@@ -0,0 +1,153 @@
+package com.example.psp.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching stage between routing and the acquirer.
+ *
+ * <p>Authorizations are queued per acquirer. A dispatcher thread per acquirer sends a batch through
+ * {@link AcquirerService#processBatch(List, String)} as soon as {@code maxSize} authorizations are queued or the
+ * oldest one has waited {@code maxDelay}, then goes back to collecting while the batch is in flight.
+ * Each caller's future completes with its own status.
+ *
+ * <p>Metrics, tagged by acquirer: {@code psp.acquirer.batch.fill} (batch size / max size) and
+ * {@code psp.acquirer.batch.queue.latency} (time an authorization waited before dispatch).
+ */
+@Component
+public class AcquirerBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AcquirerBatcher.class);
+
+    private final AcquirerService acquirerService;
+    private final MeterRegistry meterRegistry;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    public AcquirerBatcher(AcquirerService acquirerService, AcquirerProperties properties, MeterRegistry meterRegistry) {
+        this.acquirerService = acquirerService;
+        this.meterRegistry = meterRegistry;
+        this.maxSize = properties.getBatch().getMaxSize();
+        this.maxDelayNanos = properties.getBatch().getMaxDelay().toNanos();
+    }
+
+    public CompletableFuture<String> submit(String cardNumber, String acquirer) {
+        Lane lane = lanes.get(acquirer);
+        if (lane == null) {
+            lane = lanes.computeIfAbsent(acquirer, Lane::new);
+        }
+        Pending pending = new Pending(cardNumber, System.nanoTime());
+        lane.queue.add(pending);
+        return pending.result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(lane -> lane.dispatcher.interrupt());
+    }
+
+    private record Pending(String cardNumber, long enqueuedNanos, CompletableFuture<String> result) {
+
+        Pending(String cardNumber, long enqueuedNanos) {
+            this(cardNumber, enqueuedNanos, new CompletableFuture<>());
+        }
+    }
+
+    private final class Lane {
+
+        final String acquirer;
+        final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        final DistributionSummary fill;
+        final Timer queueLatency;
+        final Thread dispatcher;
+
+        Lane(String acquirer) {
+            this.acquirer = acquirer;
+            this.fill = DistributionSummary.builder("psp.acquirer.batch.fill")
+                    .description("Batch size relative to the maximum batch size")
+                    .tag("acquirer", acquirer)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.queueLatency = Timer.builder("psp.acquirer.batch.queue.latency")
+                    .description("Time an authorization waited for its batch to be dispatched")
+                    .tag("acquirer", acquirer)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.dispatcher = new Thread(this::run, "acquirer-batcher-" + acquirer);
+            this.dispatcher.setDaemon(true);
+            this.dispatcher.start();
+        }
+
+        private void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<Pending> batch = collect();
+                    dispatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private List<Pending> collect() throws InterruptedException {
+            Pending first = queue.take();
+            List<Pending> batch = new ArrayList<>(maxSize);
+            batch.add(first);
+            long deadline = first.enqueuedNanos() + maxDelayNanos;
+            while (batch.size() < maxSize) {
+                long remaining = deadline - System.nanoTime();
+                Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) break;
+                batch.add(next);
+            }
+            return batch;
+        }
+
+        private void dispatch(List<Pending> batch) {
+            long now = System.nanoTime();
+            List<String> cardNumbers = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                cardNumbers.add(pending.cardNumber());
+                queueLatency.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+            fill.record((double) batch.size() / maxSize);
+
+            CompletableFuture<List<String>> call;
+            try {
+                call = acquirerService.processBatch(cardNumbers, acquirer);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((statuses, error) -> {
+                if (error == null && statuses.size() != batch.size()) {
+                    error = new IllegalStateException("Acquirer " + acquirer + " answered " + statuses.size()
+                            + " of " + batch.size() + " authorizations");
+                }
+                if (error != null) {
+                    log.warn("Batch of {} authorizations for acquirer {} failed: {}", batch.size(), acquirer, error.toString());
+                    for (Pending pending : batch) {
+                        pending.result().completeExceptionally(error);
+                    }
+                    return;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(statuses.get(i));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.psp.service;
+
+/**
+ * Observes the outcome of every acquirer call made by {@link AcquirerGateway}.
+ * Called on the completing thread, so implementations must be cheap and non-blocking.
+ */
+public interface AcquirerCallListener {
+
+    /**
+     * @param nanos time from the call being started to its completion
+     * @param success false if the call failed or missed its deadline; a "Denied" answer is a success
+     */
+    void onAcquirerCall(String acquirer, long nanos, boolean success);
+}
@@ -0,0 +1,118 @@
+package com.example.psp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls {@link AcquirerService#processAsync(String, String)} behind a per-acquirer bulkhead and deadline.
+ *
+ * <p>Each acquirer has its own concurrency limit: when it is exhausted, further calls fail fast with
+ * {@link AcquirerUnavailableException} instead of queueing, so a degraded acquirer cannot take capacity from the
+ * others. Callers get a {@code TimeoutException} once the acquirer's deadline has passed; the underlying call is
+ * then cancelled, and its permit is released only when the call itself has finished or been cancelled, so the
+ * bulkhead always counts the calls that are really in flight. With {@code psp.acquirer.batch.enabled=true} calls go through the {@link AcquirerBatcher}.
+ * The outcome and duration of every started call, including one that fails before it returns, is reported to the
+ * {@link AcquirerCallListener}s (load shedding, acquirer health); calls turned away by the bulkhead are not.
+ */
+@Component
+@EnableConfigurationProperties(AcquirerProperties.class)
+public class AcquirerGateway {
+
+    private final AcquirerService acquirerService;
+    private final AcquirerProperties properties;
+    private final AcquirerBatcher batcher;
+    private final AcquirerCallListener[] listeners;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public AcquirerGateway(AcquirerService acquirerService, AcquirerProperties properties) {
+        this(acquirerService, properties, null);
+    }
+
+    public AcquirerGateway(AcquirerService acquirerService, AcquirerProperties properties, AcquirerBatcher batcher) {
+        this(acquirerService, properties, batcher, List.of());
+    }
+
+    @Autowired
+    public AcquirerGateway(AcquirerService acquirerService, AcquirerProperties properties, AcquirerBatcher batcher,
+                           List<AcquirerCallListener> listeners) {
+        this.acquirerService = acquirerService;
+        this.properties = properties;
+        this.batcher = properties.getBatch().isEnabled() ? batcher : null;
+        this.listeners = listeners.toArray(AcquirerCallListener[]::new);
+    }
+
+    public CompletableFuture<String> authorize(String cardNumber, String acquirer) {
+        Bulkhead bulkhead = bulkhead(acquirer);
+        if (!bulkhead.permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new AcquirerUnavailableException(acquirer, "too many concurrent calls"));
+        }
+        long started = listeners.length > 0 ? System.nanoTime() : 0;
+        CompletableFuture<String> call;
+        try {
+            call = batcher != null
+                    ? batcher.submit(cardNumber, acquirer)
+                    : acquirerService.processAsync(cardNumber, acquirer);
+        } catch (RuntimeException e) {
+            bulkhead.permits.release();
+            if (listeners.length > 0) report(acquirer, System.nanoTime() - started, false);
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<String> answer = new CompletableFuture<>();
+        CompletableFuture<Void> deadline = new CompletableFuture<Void>()
+                .orTimeout(bulkhead.deadlineNanos, TimeUnit.NANOSECONDS);
+        deadline.whenComplete((ignored, timeout) -> {
+            if (timeout == null) return;
+            call.cancel(true);
+            answer.completeExceptionally(timeout);
+        });
+        call.whenComplete((status, error) -> {
+            deadline.complete(null);
+            bulkhead.permits.release();
+            if (listeners.length > 0) report(acquirer, System.nanoTime() - started, error == null);
+            if (error == null) {
+                answer.complete(status);
+            } else if (!(error instanceof CancellationException && deadline.isCompletedExceptionally())) {
+                answer.completeExceptionally(error);
+            }
+        });
+        return answer;
+    }
+
+    /**
+     * Number of calls that can currently be started for the acquirer.
+     */
+    public int availablePermits(String acquirer) {
+        return bulkhead(acquirer).permits.availablePermits();
+    }
+
+    private void report(String acquirer, long nanos, boolean success) {
+        for (AcquirerCallListener listener : listeners) {
+            listener.onAcquirerCall(acquirer, nanos, success);
+        }
+    }
+
+    private Bulkhead bulkhead(String acquirer) {
+        Bulkhead bulkhead = bulkheads.get(acquirer);
+        return bulkhead != null ? bulkhead : bulkheads.computeIfAbsent(acquirer, a -> new Bulkhead(properties.limitsFor(a)));
+    }
+
+    private static final class Bulkhead {
+
+        final Semaphore permits;
+        final long deadlineNanos;
+
+        Bulkhead(AcquirerProperties.Limits limits) {
+            this.permits = new Semaphore(limits.getMaxConcurrent());
+            this.deadlineNanos = limits.getDeadline().toNanos();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.psp.service;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Acquirer call settings ({@code psp.acquirer.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.acquirer")
+public class AcquirerProperties {
+
+    /**
+     * {@code mock} (in-process {@link AcquirerServiceMockImpl}) or {@code http} ({@link HttpAcquirerService}).
+     */
+    private String type = "mock";
+
+    /**
+     * Bulkhead and deadline used for acquirers without an entry in {@link #limits}.
+     */
+    private Limits defaultLimits = new Limits();
+
+    /**
+     * Per-acquirer overrides, keyed by acquirer name ("A", "B", ...).
+     */
+    private Map<String, Limits> limits = new HashMap<>();
+
+    private Mock mock = new Mock();
+
+    private Http http = new Http();
+
+    private Batch batch = new Batch();
+
+    public Limits limitsFor(String acquirer) {
+        return limits.getOrDefault(acquirer, defaultLimits);
+    }
+
+    @Data
+    public static class Limits {
+
+        /**
+         * Maximum number of concurrent calls to the acquirer; further calls fail fast.
+         */
+        private int maxConcurrent = 256;
+
+        /**
+         * Time after which an acquirer call is abandoned.
+         */
+        private Duration deadline = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Network acquirers of {@link HttpAcquirerService}.
+     */
+    @Data
+    public static class Http {
+
+        /**
+         * Authorization endpoint per acquirer name, e.g. {@code psp.acquirer.http.endpoints.A=http://acquirer-a/authorize}.
+         */
+        private Map<String, URI> endpoints = new HashMap<>();
+
+        /**
+         * HTTP/2 multiplexes concurrent calls over each connection; with HTTP/1.1 each connection carries one call
+         * at a time.
+         */
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+        /**
+         * Connections opened to each acquirer at startup.
+         */
+        private int connections = 2;
+
+        /**
+         * Concurrent calls per HTTP/2 connection. When every connection is full, further calls fail fast instead of
+         * opening a new connection.
+         */
+        private int maxStreamsPerConnection = 100;
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Interval of the requests that keep idle connections open; must be below the acquirer's idle timeout.
+         */
+        private Duration keepAliveInterval = Duration.ofSeconds(15);
+
+        /**
+         * Path of the keep-alive and startup requests, resolved against each endpoint, so they never reach the
+         * authorization handler.
+         */
+        private String healthPath = "/health";
+
+        private Retry retry = new Retry();
+    }
+
+    /**
+     * Retries of calls the acquirer did not process: connection failures and {@code 503} answers. Retries stay within
+     * the call's deadline and are limited to a share of the acquirer's calls.
+     */
+    @Data
+    public static class Retry {
+
+        /**
+         * Attempts per call, including the first.
+         */
+        private int maxAttempts = 2;
+
+        /**
+         * Retries allowed per call made, e.g. 0.1: at most one retry for every ten calls over time.
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * Retries that can be spent at once when the budget is full.
+         */
+        private int maxBudget = 10;
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Whether authorizations are collected per acquirer and sent with {@link AcquirerService#processBatch}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * A batch is dispatched as soon as it holds this many authorizations...
+         */
+        private int maxSize = 32;
+
+        /**
+         * ...or when its oldest authorization has waited this long.
+         */
+        private Duration maxDelay = Duration.ofNanos(200_000);
+    }
+
+    /**
+     * Simulated acquirer behaviour of {@link AcquirerServiceMockImpl}. The top-level settings apply to every acquirer
+     * without an entry in {@link #acquirers}.
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @ToString(callSuper = true)
+    public static class Mock extends Simulation {
+
+        /**
+         * Per-acquirer behaviour, e.g. {@code psp.acquirer.mock.acquirers.B.distribution=long-tail}; an entry replaces
+         * the top-level settings for that acquirer.
+         */
+        private Map<String, Simulation> acquirers = new HashMap<>();
+
+        /**
+         * Simulated degradation per acquirer name, e.g. {@code psp.acquirer.mock.faults.A.failure-rate=0.5},
+         * applied on top of the acquirer's simulation.
+         */
+        private Map<String, Fault> faults = new HashMap<>();
+
+        public Simulation simulationFor(String acquirer) {
+            return acquirers.getOrDefault(acquirer, this);
+        }
+    }
+
+    public enum LatencyDistribution {
+        /** Always {@code latency}. */
+        FIXED,
+        /** Normal around {@code latency} with {@code stddev}, never below zero. */
+        NORMAL,
+        /** Log-normal with median {@code latency} and 99th percentile {@code p99}. */
+        LONG_TAIL
+    }
+
+    @Data
+    public static class Simulation {
+
+        private LatencyDistribution distribution = LatencyDistribution.FIXED;
+
+        /**
+         * Fixed latency, mean of the normal distribution, or median of the long-tail distribution.
+         */
+        private Duration latency = Duration.ZERO;
+
+        /**
+         * Standard deviation of the normal distribution.
+         */
+        private Duration stddev = Duration.ZERO;
+
+        /**
+         * 99th percentile of the long-tail distribution; must be above {@link #latency}.
+         */
+        private Duration p99 = Duration.ZERO;
+
+        /**
+         * Share of authorizations declined at random (0..1). When not set, cards ending in an odd digit are declined.
+         */
+        private Double declineRate;
+
+        /**
+         * Share of calls that fail with an acquirer error after the latency (0..1).
+         */
+        private double errorRate = 0;
+
+        /**
+         * Share of calls that never answer (0..1), left to the acquirer deadline.
+         */
+        private double timeoutRate = 0;
+    }
+
+    @Data
+    public static class Fault {
+
+        /**
+         * Latency added to the acquirer's calls.
+         */
+        private Duration latency = Duration.ZERO;
+
+        /**
+         * Share of the acquirer's calls that fail (0..1).
+         */
+        private double failureRate = 0;
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.psp.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for interacting with acquirers.
  * Defines the method for processing a transaction on the acquirer side.
@@ -9,4 +13,42 @@ public interface AcquirerService {
 
     String process(String cardNumber, String acquirer);
 
+    /**
+     * Non-blocking variant of {@link #process(String, String)}.
+     * The default implementation runs the blocking call on a new virtual thread; implementations with a
+     * natively asynchronous transport should override it.
+     */
+    default CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread.startVirtualThread(() -> {
+            try {
+                result.complete(process(cardNumber, acquirer));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Authorizes several cards with the same acquirer in one round trip.
+     * The returned statuses are in the order of {@code cardNumbers}. The default implementation issues one
+     * {@link #processAsync(String, String)} call per card; implementations with a multi-message transport should override it.
+     */
+    default CompletableFuture<List<String>> processBatch(List<String> cardNumbers, String acquirer) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<String>[] calls = (CompletableFuture<String>[]) new CompletableFuture<?>[cardNumbers.size()];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = processAsync(cardNumbers.get(i), acquirer);
+        }
+        return CompletableFuture.allOf(calls)
+                .thenApply(ignored -> {
+                    List<String> statuses = new ArrayList<>(calls.length);
+                    for (CompletableFuture<String> call : calls) {
+                        statuses.add(call.join());
+                    }
+                    return statuses;
+                });
+    }
+
 }
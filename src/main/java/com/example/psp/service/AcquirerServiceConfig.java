@@ -0,0 +1,30 @@
+package com.example.psp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link AcquirerService} implementation from {@code psp.acquirer.type}.
+ */
+
+@Configuration
+@EnableConfigurationProperties(AcquirerProperties.class)
+public class AcquirerServiceConfig {
+
+    @Bean
+    public AcquirerService acquirerService(AcquirerProperties properties, ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) {
+        return switch (properties.getType()) {
+            case "mock" -> new AcquirerServiceMockImpl(properties);
+            case "http" -> {
+                HttpAcquirerService service = new HttpAcquirerService(properties, objectMapper, meterRegistry);
+                service.start();
+                yield service;
+            }
+            default -> throw new IllegalArgumentException("Unknown psp.acquirer.type: " + properties.getType());
+        };
+    }
+}
@@ -2,28 +2,152 @@ package com.example.psp.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Mock implementation of the acquirer service.
- * Simulates the payment provider: decides Approved/Denied based on the card number.
+ * Mock implementation of the acquirer service, usable as an offline acquirer simulator.
+ *
+ * <p>By default it decides Approved/Denied based on the card number, optionally after a fixed simulated latency
+ * ({@code psp.acquirer.mock.latency}). Each acquirer can be given its own behaviour
+ * ({@code psp.acquirer.mock.acquirers.<name>.*}): a fixed, normal or long-tail latency distribution, a random
+ * decline rate, and shares of calls that fail with an acquirer error or never answer (left to the gateway deadline).
+ * Individual acquirers can also be degraded with extra latency and random failures ({@code psp.acquirer.mock.faults.*}
+ * or {@link #injectFault} at runtime) to exercise failover.
  */
-@Service
 public class AcquirerServiceMockImpl implements AcquirerService {
 
     private static final Logger log = LoggerFactory.getLogger(AcquirerServiceMockImpl.class);
 
+    private final AcquirerProperties properties;
+    private final Map<String, AcquirerProperties.Fault> faults = new ConcurrentHashMap<>();
+    private final Map<String, AcquirerSimulator> simulators = new ConcurrentHashMap<>();
+
+    public AcquirerServiceMockImpl(AcquirerProperties properties) {
+        this.properties = properties;
+        AcquirerProperties.Mock mock = properties.getMock();
+        faults.putAll(mock.getFaults());
+        // fail at startup on invalid settings
+        AcquirerSimulator.of(mock, null);
+        mock.getAcquirers().forEach((acquirer, simulation) -> simulator(acquirer));
+        faults.keySet().forEach(this::simulator);
+    }
+
+    /**
+     * Makes the acquirer's calls slower by {@code latency} and fail with probability {@code failureRate}.
+     */
+    public void injectFault(String acquirer, Duration latency, double failureRate) {
+        AcquirerProperties.Fault fault = new AcquirerProperties.Fault();
+        fault.setLatency(latency);
+        fault.setFailureRate(failureRate);
+        AcquirerSimulator simulator = AcquirerSimulator.of(properties.getMock().simulationFor(acquirer), fault);
+        faults.put(acquirer, fault);
+        simulators.put(acquirer, simulator);
+    }
+
+    public void clearFaults() {
+        faults.clear();
+        simulators.clear();
+    }
+
     /**
-     * Decides to approve (even last digit of card number) or deny (odd last digit) the transaction.
-     * @param cardNumber
-     * @param acquirer
-     * @return
+     * Decides to approve or deny the transaction (see {@link AcquirerProperties.Simulation#getDeclineRate()}).
+     * Blocks the calling thread for the simulated latency; a simulated timeout blocks for the acquirer's deadline.
      */
     @Override
     public String process(String cardNumber, String acquirer) {
-        int lastDigit = Character.getNumericValue(cardNumber.charAt(cardNumber.length() - 1));
-        String r = (lastDigit % 2 == 0) ? "Approved" : "Denied";
-        log.debug("Card number (masked): ****{}, with acquirer {} is {}",
-                cardNumber.substring(cardNumber.length() - 4), acquirer, r);
+        AcquirerSimulator simulator = simulator(acquirer);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AcquirerSimulator.Outcome outcome = simulator.drawOutcome(random);
+        long nanos = outcome == AcquirerSimulator.Outcome.TIMEOUT
+                ? properties.limitsFor(acquirer).getDeadline().toNanos()
+                : simulator.sampleLatencyNanos(random);
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return switch (outcome) {
+            case ERROR -> throw new AcquirerUnavailableException(acquirer, "simulated failure");
+            case TIMEOUT -> throw new AcquirerUnavailableException(acquirer, "simulated timeout");
+            case ANSWER -> decide(cardNumber, acquirer, simulator);
+        };
+    }
+
+    /**
+     * Completes after the simulated latency without holding a thread while waiting.
+     * A simulated timeout returns a future that never completes.
+     */
+    @Override
+    public CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+        AcquirerSimulator simulator = simulator(acquirer);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AcquirerSimulator.Outcome outcome = simulator.drawOutcome(random);
+        if (outcome == AcquirerSimulator.Outcome.TIMEOUT) return new CompletableFuture<>();
+        long nanos = simulator.sampleLatencyNanos(random);
+        if (nanos == 0) {
+            return outcome == AcquirerSimulator.Outcome.ERROR
+                    ? CompletableFuture.failedFuture(new AcquirerUnavailableException(acquirer, "simulated failure"))
+                    : CompletableFuture.completedFuture(decide(cardNumber, acquirer, simulator));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            if (outcome == AcquirerSimulator.Outcome.ERROR) {
+                throw new AcquirerUnavailableException(acquirer, "simulated failure");
+            }
+            return decide(cardNumber, acquirer, simulator);
+        }, CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Answers the whole batch after a single simulated round trip; an error or timeout applies to the whole batch.
+     */
+    @Override
+    public CompletableFuture<List<String>> processBatch(List<String> cardNumbers, String acquirer) {
+        AcquirerSimulator simulator = simulator(acquirer);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AcquirerSimulator.Outcome outcome = simulator.drawOutcome(random);
+        if (outcome == AcquirerSimulator.Outcome.TIMEOUT) return new CompletableFuture<>();
+        long nanos = simulator.sampleLatencyNanos(random);
+        if (nanos == 0 && outcome == AcquirerSimulator.Outcome.ANSWER) {
+            return CompletableFuture.completedFuture(decideAll(cardNumbers, acquirer, simulator));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            if (outcome == AcquirerSimulator.Outcome.ERROR) {
+                throw new AcquirerUnavailableException(acquirer, "simulated failure");
+            }
+            return decideAll(cardNumbers, acquirer, simulator);
+        }, CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    private AcquirerSimulator simulator(String acquirer) {
+        AcquirerSimulator simulator = simulators.get(acquirer);
+        return simulator != null ? simulator : simulators.computeIfAbsent(acquirer,
+                a -> AcquirerSimulator.of(properties.getMock().simulationFor(a), faults.get(a)));
+    }
+
+    private List<String> decideAll(List<String> cardNumbers, String acquirer, AcquirerSimulator simulator) {
+        List<String> statuses = new ArrayList<>(cardNumbers.size());
+        for (String cardNumber : cardNumbers) {
+            statuses.add(decide(cardNumber, acquirer, simulator));
+        }
+        return statuses;
+    }
+
+    private String decide(String cardNumber, String acquirer, AcquirerSimulator simulator) {
+        String r = simulator.declines(cardNumber, ThreadLocalRandom.current()) ? "Denied" : "Approved";
+        if (log.isDebugEnabled()) {
+            log.debug("Card number (masked): ****{}, with acquirer {} is {}",
+                    cardNumber.substring(cardNumber.length() - 4), acquirer, r);
+        }
         return r;
     }
 }
@@ -0,0 +1,82 @@
+package com.example.psp.service;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * One acquirer's simulated behaviour, compiled from {@link AcquirerProperties.Simulation} and an optional
+ * {@link AcquirerProperties.Fault}: latency sampling and the per-call outcome.
+ */
+final class AcquirerSimulator {
+
+    enum Outcome {
+        ANSWER, ERROR, TIMEOUT
+    }
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263478740408408;
+    // sampled latencies are capped so that the long tail cannot overflow
+    private static final double MAX_LATENCY_NANOS = 3_600e9;
+
+    private final AcquirerProperties.LatencyDistribution distribution;
+    private final long latencyNanos;
+    private final long stddevNanos;
+    private final double sigma;
+    private final long extraNanos;
+    private final double declineRate;
+    private final double errorRate;
+    private final double timeoutRate;
+
+    private AcquirerSimulator(AcquirerProperties.Simulation simulation, AcquirerProperties.Fault fault) {
+        this.distribution = simulation.getDistribution();
+        this.latencyNanos = simulation.getLatency().toNanos();
+        this.stddevNanos = simulation.getStddev().toNanos();
+        long p99Nanos = simulation.getP99().toNanos();
+        if (distribution == AcquirerProperties.LatencyDistribution.LONG_TAIL && (latencyNanos <= 0 || p99Nanos <= latencyNanos)) {
+            throw new IllegalArgumentException("long-tail latency needs 0 < latency < p99");
+        }
+        this.sigma = distribution == AcquirerProperties.LatencyDistribution.LONG_TAIL
+                ? Math.log((double) p99Nanos / latencyNanos) / Z_99
+                : 0;
+        this.extraNanos = fault != null ? fault.getLatency().toNanos() : 0;
+        this.declineRate = simulation.getDeclineRate() != null ? rate("decline-rate", simulation.getDeclineRate()) : Double.NaN;
+        double faultRate = fault != null ? rate("failure-rate", fault.getFailureRate()) : 0;
+        // an error from either source
+        this.errorRate = 1 - (1 - rate("error-rate", simulation.getErrorRate())) * (1 - faultRate);
+        this.timeoutRate = rate("timeout-rate", simulation.getTimeoutRate());
+    }
+
+    static AcquirerSimulator of(AcquirerProperties.Simulation simulation, AcquirerProperties.Fault fault) {
+        return new AcquirerSimulator(simulation, fault);
+    }
+
+    long sampleLatencyNanos(RandomGenerator random) {
+        long nanos = switch (distribution) {
+            case FIXED -> latencyNanos;
+            case NORMAL -> Math.max(0, Math.round(latencyNanos + stddevNanos * random.nextGaussian()));
+            case LONG_TAIL -> Math.round(Math.min(latencyNanos * Math.exp(sigma * random.nextGaussian()), MAX_LATENCY_NANOS));
+        };
+        return nanos + extraNanos;
+    }
+
+    Outcome drawOutcome(RandomGenerator random) {
+        if (timeoutRate == 0 && errorRate == 0) return Outcome.ANSWER;
+        double draw = random.nextDouble();
+        if (draw < timeoutRate) return Outcome.TIMEOUT;
+        return draw - timeoutRate < errorRate * (1 - timeoutRate) ? Outcome.ERROR : Outcome.ANSWER;
+    }
+
+    /**
+     * Declines at random with the configured rate, or cards ending in an odd digit when no rate is set.
+     */
+    boolean declines(String cardNumber, RandomGenerator random) {
+        if (Double.isNaN(declineRate)) {
+            return Character.getNumericValue(cardNumber.charAt(cardNumber.length() - 1)) % 2 != 0;
+        }
+        return declineRate > 0 && random.nextDouble() < declineRate;
+    }
+
+    private static double rate(String name, double value) {
+        if (!(value >= 0 && value <= 1)) throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        return value;
+    }
+}
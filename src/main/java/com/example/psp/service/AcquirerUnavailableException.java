@@ -0,0 +1,11 @@
+package com.example.psp.service;
+
+/**
+ * Thrown when an acquirer call is rejected before reaching the acquirer (e.g. its bulkhead is full).
+ */
+public class AcquirerUnavailableException extends RuntimeException {
+
+    public AcquirerUnavailableException(String acquirer, String reason) {
+        super("Acquirer " + acquirer + " unavailable: " + reason, null, false, false);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.psp.service;
+
+import com.example.psp.model.BatchPaymentResult;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.validation.PaymentRequestValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Processes NDJSON payment batches.
+ *
+ * <p>Input lines are read one at a time, validated with the same rules as {@code POST /payments}
+ * and processed asynchronously with at most {@code psp.batch.parallelism} payments in flight per batch.
+ * Each result is written as one NDJSON line as soon as its payment completes, so output order follows completion
+ * order and the batch is never buffered in memory. Invalid lines produce an error line and do not stop the batch.
+ */
+@Service
+public class BatchPaymentProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPaymentProcessor.class);
+
+    private final PaymentService paymentService;
+    private final PaymentRequestValidator validator;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final int parallelism;
+
+    public BatchPaymentProcessor(PaymentService paymentService, PaymentRequestValidator validator,
+                                 ObjectMapper objectMapper, @Value("${psp.batch.parallelism:32}") int parallelism) {
+        this.paymentService = paymentService;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(PaymentRequest.class);
+        this.resultWriter = objectMapper.writerFor(BatchPaymentResult.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.parallelism = parallelism;
+    }
+
+    public void process(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ResultSink sink = new ResultSink(output);
+        Semaphore inFlight = new Semaphore(parallelism);
+        long lineNumber = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                PaymentRequest request;
+                try {
+                    request = requestReader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    sink.write(BatchPaymentResult.failed(lineNumber,
+                            List.of(Map.of("field", "request", "message", "Malformed JSON"))));
+                    continue;
+                }
+                List<Map<String, String>> errors = validator.validate(request);
+                if (!errors.isEmpty()) {
+                    sink.write(BatchPaymentResult.failed(lineNumber, errors));
+                    continue;
+                }
+                inFlight.acquireUninterruptibly();
+                long current = lineNumber;
+                CompletableFuture<PaymentResponse> payment;
+                try {
+                    payment = paymentService.processPaymentAsync(request);
+                } catch (RuntimeException e) {
+                    // e.g. the store rejecting the record: report the line instead of leaking its permit
+                    payment = CompletableFuture.failedFuture(e);
+                }
+                payment.whenComplete((response, error) -> {
+                    try {
+                        sink.write(result(current, response, error));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            // wait for every submitted payment before the response is completed
+            inFlight.acquireUninterruptibly(parallelism);
+        }
+        sink.rethrow();
+    }
+
+    private BatchPaymentResult result(long lineNumber, PaymentResponse response, Throwable error) {
+        if (error == null) return BatchPaymentResult.of(lineNumber, response);
+        log.error("Batch line {} failed", lineNumber, error);
+        return BatchPaymentResult.failed(lineNumber, List.of(Map.of("field", "request", "message", "Processing failed")));
+    }
+
+    /**
+     * Serializes result lines from concurrent payments onto the response stream.
+     * Remembers the first write failure (e.g. client disconnect) and drops the remaining results.
+     */
+    private final class ResultSink {
+
+        private final OutputStream output;
+        private final ReentrantLock lock = new ReentrantLock();
+        private IOException failure;
+
+        ResultSink(OutputStream output) {
+            this.output = output;
+        }
+
+        void write(BatchPaymentResult result) {
+            lock.lock();
+            try {
+                if (failure != null) return;
+                resultWriter.writeValue(output, result);
+                output.write('\n');
+                output.flush();
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void rethrow() throws IOException {
+            if (failure != null) throw failure;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.psp.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acquirer service calling real acquirers over HTTP ({@code psp.acquirer.type=http}).
+ *
+ * <p>An authorization is a {@code POST} of {@code {"cardNumber":"..."}} to the acquirer's endpoint, answered with
+ * {@code 200 {"status":"Approved"|"Denied"}}. Each acquirer has a fixed pool of {@code connections}, all opened by
+ * {@link #start()} and kept open by periodic {@code GET}s of its {@code healthPath}, so connection setup stays off
+ * the payment path. With HTTP/2 a connection carries up to {@code maxStreamsPerConnection} concurrent calls; a call
+ * goes to the least loaded connection and fails fast with {@link AcquirerUnavailableException} when all are full.
+ *
+ * <p>A call is abandoned at the acquirer's deadline ({@code psp.acquirer.limits.*}). Calls the acquirer did not
+ * process (connection failure, {@code 503}) are retried within the deadline and the acquirer's {@link RetryBudget};
+ * attempts carry the same {@code X-Request-Id}.
+ *
+ * <p>Metrics, tagged by acquirer: {@code psp.acquirer.http.rtt} (per attempt, by {@code outcome}),
+ * {@code psp.acquirer.http.pool.in-flight}, {@code psp.acquirer.http.pool.saturation} (in-flight calls / pool
+ * capacity), {@code psp.acquirer.http.pool.rejected} and {@code psp.acquirer.http.retries}.
+ */
+public class HttpAcquirerService implements AcquirerService, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpAcquirerService.class);
+
+    private final AcquirerProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService keepAlive = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "acquirer-keep-alive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Pool> pools;
+
+    public HttpAcquirerService(AcquirerProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        AcquirerProperties.Http http = properties.getHttp();
+        if (http.getConnections() <= 0 || http.getMaxStreamsPerConnection() <= 0) {
+            throw new IllegalArgumentException("psp.acquirer.http.connections and max-streams-per-connection must be positive");
+        }
+        if (http.getRetry().getMaxAttempts() <= 0) {
+            throw new IllegalArgumentException("psp.acquirer.http.retry.max-attempts must be positive");
+        }
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        Map<String, Pool> pools = new HashMap<>();
+        http.getEndpoints().forEach((acquirer, endpoint) -> pools.put(acquirer, new Pool(acquirer, endpoint, meterRegistry)));
+        this.pools = Map.copyOf(pools);
+    }
+
+    /**
+     * Opens every connection, waiting at most the connect timeout, and starts the keep-alive requests.
+     * Acquirers that cannot be reached are logged and connected on their first call.
+     */
+    public void start() {
+        List<CompletableFuture<?>> warmUps = new ArrayList<>();
+        for (Pool pool : pools.values()) {
+            for (Connection connection : pool.connections) {
+                warmUps.add(ping(pool, connection));
+            }
+        }
+        try {
+            CompletableFuture.allOf(warmUps.toArray(CompletableFuture[]::new))
+                    .get(properties.getHttp().getConnectTimeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // failures are logged per connection
+        }
+        long interval = properties.getHttp().getKeepAliveInterval().toMillis();
+        keepAlive.scheduleWithFixedDelay(this::keepAlive, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String process(String cardNumber, String acquirer) {
+        try {
+            return processAsync(cardNumber, acquirer).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new AcquirerUnavailableException(acquirer, String.valueOf(e.getCause()));
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+        Pool pool = pools.get(acquirer);
+        if (pool == null) {
+            return CompletableFuture.failedFuture(new AcquirerUnavailableException(acquirer, "no endpoint configured"));
+        }
+        Connection connection = pool.acquire();
+        if (connection == null) {
+            pool.rejected.increment();
+            return CompletableFuture.failedFuture(new AcquirerUnavailableException(acquirer, "connection pool saturated"));
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new Authorization(cardNumber));
+        } catch (JsonProcessingException e) {
+            connection.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        pool.retryBudget.onCall();
+        Call call = new Call(pool, connection, body,
+                Long.toHexString(ThreadLocalRandom.current().nextLong()),
+                System.nanoTime() + properties.limitsFor(acquirer).getDeadline().toNanos());
+        call.attempt(1);
+        return call.result;
+    }
+
+    @Override
+    public void close() {
+        keepAlive.shutdownNow();
+        for (Pool pool : pools.values()) {
+            for (Connection connection : pool.connections) {
+                connection.client.shutdownNow();
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void keepAlive() {
+        for (Pool pool : pools.values()) {
+            for (Connection connection : pool.connections) {
+                // a busy HTTP/1.1 connection is kept open by its call; pinging it would open another one
+                if (connection.tryAcquire(pool.streamsPerConnection)) {
+                    ping(pool, connection).whenComplete((ignored, error) -> connection.release());
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<?> ping(Pool pool, Connection connection) {
+        HttpRequest request = HttpRequest.newBuilder(pool.health)
+                .timeout(properties.getHttp().getConnectTimeout())
+                .GET()
+                .build();
+        return connection.client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.warn("Acquirer {} connection to {} failed: {}", pool.acquirer, pool.endpoint, unwrap(error).toString());
+                    } else if (!connection.connected) {
+                        connection.connected = true;
+                        log.info("Acquirer {} connected to {} over {}", pool.acquirer, pool.endpoint, response.version());
+                    }
+                });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Whether the request cannot have reached the acquirer.
+     */
+    private static boolean notSent(Throwable error) {
+        return error instanceof ConnectException || error instanceof HttpConnectTimeoutException;
+    }
+
+    record Authorization(String cardNumber) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Reply(String status) {
+    }
+
+    private final class Call {
+
+        final Pool pool;
+        final Connection connection;
+        final byte[] body;
+        final String requestId;
+        final long deadlineNanos;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        volatile CompletableFuture<?> exchange;
+
+        Call(Pool pool, Connection connection, byte[] body, String requestId, long deadlineNanos) {
+            this.pool = pool;
+            this.connection = connection;
+            this.body = body;
+            this.requestId = requestId;
+            this.deadlineNanos = deadlineNanos;
+            // cancelling the result aborts the request in flight, which frees the connection slot
+            result.whenComplete((status, error) -> {
+                CompletableFuture<?> current = exchange;
+                if (result.isCancelled() && current != null) current.cancel(true);
+            });
+        }
+
+        void attempt(int attempt) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                fail(new HttpTimeoutException("deadline exceeded before attempt " + attempt));
+                return;
+            }
+            HttpRequest request = HttpRequest.newBuilder(pool.endpoint)
+                    .timeout(Duration.ofNanos(remaining))
+                    .header("Content-Type", "application/json")
+                    .header("X-Request-Id", requestId)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            long started = System.nanoTime();
+            CompletableFuture<HttpResponse<byte[]>> exchange;
+            try {
+                exchange = connection.client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            this.exchange = exchange;
+            if (result.isCancelled()) exchange.cancel(true);
+            exchange.whenComplete((response, error) -> {
+                long rtt = System.nanoTime() - started;
+                if (error == null && response.statusCode() == 200) {
+                    pool.rttSuccess.record(rtt, TimeUnit.NANOSECONDS);
+                    complete(response.body());
+                    return;
+                }
+                pool.rttError.record(rtt, TimeUnit.NANOSECONDS);
+                Throwable cause = error != null ? unwrap(error) : null;
+                boolean retryable = cause != null ? notSent(cause) : response.statusCode() == 503;
+                if (retryable && attempt < properties.getHttp().getRetry().getMaxAttempts()
+                        && pool.retryBudget.tryRetry()) {
+                    pool.retries.increment();
+                    attempt(attempt + 1);
+                    return;
+                }
+                fail(cause != null ? cause
+                        : new AcquirerUnavailableException(pool.acquirer, "HTTP " + response.statusCode()));
+            });
+        }
+
+        private void complete(byte[] body) {
+            connection.release();
+            String status;
+            try {
+                status = objectMapper.readValue(body, Reply.class).status();
+            } catch (IOException e) {
+                result.completeExceptionally(new AcquirerUnavailableException(pool.acquirer, "malformed reply"));
+                return;
+            }
+            if ("Approved".equals(status)) {
+                result.complete("Approved");
+            } else if ("Denied".equals(status)) {
+                result.complete("Denied");
+            } else {
+                result.completeExceptionally(new AcquirerUnavailableException(pool.acquirer, "unexpected status " + status));
+            }
+        }
+
+        private void fail(Throwable error) {
+            connection.release();
+            result.completeExceptionally(error);
+        }
+    }
+
+    private final class Pool {
+
+        final String acquirer;
+        final URI endpoint;
+        final URI health;
+        final Connection[] connections;
+        final int streamsPerConnection;
+        final RetryBudget retryBudget;
+        final Timer rttSuccess;
+        final Timer rttError;
+        final Counter retries;
+        final Counter rejected;
+
+        Pool(String acquirer, URI endpoint, MeterRegistry meterRegistry) {
+            AcquirerProperties.Http http = properties.getHttp();
+            this.acquirer = acquirer;
+            this.endpoint = endpoint;
+            this.health = endpoint.resolve(http.getHealthPath());
+            this.streamsPerConnection = http.getVersion() == HttpClient.Version.HTTP_2 ? http.getMaxStreamsPerConnection() : 1;
+            this.connections = new Connection[http.getConnections()];
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = new Connection(HttpClient.newBuilder()
+                        .version(http.getVersion())
+                        .connectTimeout(http.getConnectTimeout())
+                        .executor(executor)
+                        .build());
+            }
+            this.retryBudget = new RetryBudget(http.getRetry().getBudgetRatio(), http.getRetry().getMaxBudget());
+
+            this.rttSuccess = rtt(meterRegistry, "success");
+            this.rttError = rtt(meterRegistry, "error");
+            this.retries = Counter.builder("psp.acquirer.http.retries")
+                    .description("Acquirer calls retried after a connection failure or 503")
+                    .tag("acquirer", acquirer)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("psp.acquirer.http.pool.rejected")
+                    .description("Acquirer calls rejected because every connection was full")
+                    .tag("acquirer", acquirer)
+                    .register(meterRegistry);
+            Gauge.builder("psp.acquirer.http.pool.in-flight", this, Pool::inFlight)
+                    .description("Acquirer calls in flight")
+                    .tag("acquirer", acquirer)
+                    .register(meterRegistry);
+            Gauge.builder("psp.acquirer.http.pool.saturation", this,
+                            p -> (double) p.inFlight() / (p.connections.length * p.streamsPerConnection))
+                    .description("Acquirer calls in flight relative to the connection pool capacity")
+                    .tag("acquirer", acquirer)
+                    .register(meterRegistry);
+        }
+
+        private Timer rtt(MeterRegistry meterRegistry, String outcome) {
+            return Timer.builder("psp.acquirer.http.rtt")
+                    .description("Round trip of one acquirer request")
+                    .tags("acquirer", acquirer, "outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Takes a call slot on the least loaded connection, or returns null when all are full.
+         */
+        Connection acquire() {
+            while (true) {
+                Connection least = null;
+                int min = Integer.MAX_VALUE;
+                for (Connection connection : connections) {
+                    int inFlight = connection.inFlight.get();
+                    if (inFlight < min) {
+                        least = connection;
+                        min = inFlight;
+                    }
+                }
+                if (min >= streamsPerConnection) return null;
+                if (least.inFlight.compareAndSet(min, min + 1)) return least;
+            }
+        }
+
+        int inFlight() {
+            int inFlight = 0;
+            for (Connection connection : connections) {
+                inFlight += connection.inFlight.get();
+            }
+            return inFlight;
+        }
+    }
+
+    private static final class Connection {
+
+        final HttpClient client;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile boolean connected;
+
+        Connection(HttpClient client) {
+            this.client = client;
+        }
+
+        boolean tryAcquire(int max) {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= max) return false;
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
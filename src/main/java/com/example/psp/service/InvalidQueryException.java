@@ -0,0 +1,17 @@
+package com.example.psp.service;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a query parameter is missing or malformed.
+ */
+@Getter
+public class InvalidQueryException extends RuntimeException {
+
+    private final String field;
+
+    public InvalidQueryException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+}
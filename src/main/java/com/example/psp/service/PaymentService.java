@@ -3,6 +3,8 @@ package com.example.psp.service;
 import com.example.psp.model.PaymentRequest;
 import com.example.psp.model.PaymentResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service interface for processing payments.
  * Defines methods for creating transactions.
@@ -12,4 +14,17 @@ public interface PaymentService {
 
     PaymentResponse processPayment(PaymentRequest request);
 
+    /**
+     * Non-blocking variant: completes when the acquirer has answered, failed or missed its deadline.
+     */
+    CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request);
+
+    PaymentResponse processPayment(PaymentRequest request, String idempotencyKey);
+
+    /**
+     * Idempotent variant: calls with the same merchant and key get the response of the first attempt,
+     * waiting for it if it is still in flight. A null key processes the payment as usual.
+     */
+    CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request, String idempotencyKey);
+
 }
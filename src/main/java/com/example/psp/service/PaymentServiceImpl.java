@@ -1,18 +1,40 @@
 package com.example.psp.service;
 
+import com.example.psp.audit.AuditLog;
+import com.example.psp.id.TransactionIdGenerator;
+import com.example.psp.idempotency.Fingerprint;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.metrics.PaymentMetrics;
 import com.example.psp.model.PaymentRequest;
 import com.example.psp.model.PaymentResponse;
 import com.example.psp.model.Transaction;
-import org.springframework.stereotype.Service;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.UUID;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.settlement.SettlementLedger;
+import com.example.psp.store.TransactionStore;
+import com.example.psp.tokenization.CardTokenizer;
+import com.example.psp.velocity.VelocityEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Implementation of the payment service.
  * Performs BIN-based routing, and acquirer processing.
+ * Acquirer calls go through {@link AcquirerGateway}; rejected or timed-out calls leave the transaction "Failed".
+ * Payments with an Idempotency-Key are deduplicated by {@link IdempotencyGuard}, which compares their
+ * {@link Fingerprint}.
+ * Stage latencies (routing, store, acquirer, response) are recorded in {@link PaymentMetrics}, and stage events
+ * in the asynchronous {@link AuditLog} instead of being logged on the request thread.
+ * Final statuses are added to the running {@link SettlementLedger} totals.
+ * Transaction ids come from a {@link TransactionIdGenerator}, time-ordered by default.
+ * Payments breaking a {@link VelocityEngine} rule are stored and answered as "Denied" without calling the acquirer.
+ * Transactions are stored with the {@link CardTokenizer} token instead of card data; the caller's request is never
+ * modified, and no copy of the CVV is kept.
  */
 
 @Service
@@ -20,47 +42,125 @@ public class PaymentServiceImpl implements PaymentService {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentServiceImpl.class);
 
-    private final Map<String, Transaction> storage = new ConcurrentHashMap<>();
-    private final AcquirerService acquirerService;
-
-    public PaymentServiceImpl(AcquirerService acquirerService) {
-        this.acquirerService = acquirerService;
+    private final TransactionStore storage;
+    private final AcquirerGateway acquirerGateway;
+    private final BinRouter binRouter;
+    private final IdempotencyGuard idempotencyGuard;
+    private final PaymentMetrics metrics;
+    private final AuditLog auditLog;
+    private final SettlementLedger settlementLedger;
+    private final TransactionIdGenerator idGenerator;
+    private final VelocityEngine velocityEngine;
+    private final CardTokenizer cardTokenizer;
+
+    @Autowired
+    public PaymentServiceImpl(TransactionStore storage, AcquirerGateway acquirerGateway, BinRouter binRouter,
+                              IdempotencyGuard idempotencyGuard, PaymentMetrics metrics, AuditLog auditLog,
+                              SettlementLedger settlementLedger, TransactionIdGenerator idGenerator,
+                              VelocityEngine velocityEngine, CardTokenizer cardTokenizer) {
+        this.storage = storage;
+        this.acquirerGateway = acquirerGateway;
+        this.binRouter = binRouter;
+        this.idempotencyGuard = idempotencyGuard;
+        this.metrics = metrics;
+        this.auditLog = auditLog;
+        this.settlementLedger = settlementLedger;
+        this.idGenerator = idGenerator;
+        this.velocityEngine = velocityEngine;
+        this.cardTokenizer = cardTokenizer;
     }
 
     @Override
     public PaymentResponse processPayment(PaymentRequest request) {
+        return processPaymentAsync(request).join();
+    }
 
-        log.info("Processing payment for merchant: {}, amount: {} {}",
-                request.getMerchantId(), request.getAmount(), request.getCurrency());
-        log.debug("Card number (masked): ****{}", request.getCardNumber().substring(request.getCardNumber().length() - 4));
+    @Override
+    public PaymentResponse processPayment(PaymentRequest request, String idempotencyKey) {
+        return processPaymentAsync(request, idempotencyKey).join();
+    }
 
-        String transactionId = UUID.randomUUID().toString();
-        Transaction tx = new Transaction(transactionId, request, "Pending");
-        // Store transaction with status "Pending"
-        storage.put(transactionId, tx);
+    @Override
+    public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) return processPaymentAsync(request);
+        String cardToken = cardTokenizer.tokenize(request.getCardNumber());
+        return idempotencyGuard.execute(request.getMerchantId(), idempotencyKey, Fingerprint.of(request, cardToken),
+                () -> process(request, cardToken));
+    }
 
-        log.info("For merchant: {}, created and stored transaction with id: {} and status: {}",
-                request.getMerchantId(), transactionId, tx.getStatus());
+    @Override
+    public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request) {
+        return process(request, null);
+    }
 
+    /**
+     * @param cardToken token of the card if it is already known, otherwise null
+     */
+    private CompletableFuture<PaymentResponse> process(PaymentRequest request, String cardToken) {
+        long started = metrics.now();
 
         // BIN routing
-        String bin = request.getCardNumber().substring(0, 6);
-        int sum = bin.chars().map(Character::getNumericValue).sum();
-        String acquirer = (sum % 2 == 0) ? "A" : "B";
-
-        log.info("For transaction: {}, has been chosen acquirer : {}",
-                transactionId, acquirer);
-
-        // Acquirer service mock returns transaction status
-        String status = acquirerService.process(request.getCardNumber(), acquirer);
-
+        String acquirer = binRouter.route(request.getCardNumber());
+        long routed = metrics.now();
+
+        String transactionId = idGenerator.next();
+        if (cardToken == null) cardToken = cardTokenizer.tokenize(request.getCardNumber());
+        PaymentRequest withoutCard = new PaymentRequest();
+        withoutCard.setAmount(request.getAmount());
+        withoutCard.setCurrency(request.getCurrency());
+        withoutCard.setMerchantId(request.getMerchantId());
+        Transaction tx = new Transaction(transactionId, withoutCard, "Pending", acquirer, System.currentTimeMillis(),
+                cardToken);
+        // Store transaction with status "Pending", card data replaced by the token
+        storage.save(tx);
+        long stored = metrics.now();
+
+        auditLog.created(transactionId, request.getMerchantId(), request.getAmount(), request.getCurrency(), acquirer);
+
+        // Velocity checks before the card reaches the acquirer
+        VelocityEngine.Rule rule = velocityEngine.check(request);
+        if (rule != null) {
+            PaymentResponse response = finish(transactionId, request, acquirer, "Denied",
+                    "Declined by velocity rule " + rule.label());
+            metrics.recordStages(acquirer, response.getStatus(), routed - started, stored - routed, 0,
+                    metrics.now() - stored);
+            return CompletableFuture.completedFuture(response);
+        }
+
+        // Acquirer returns transaction status
+        return acquirerGateway.authorize(request.getCardNumber(), acquirer)
+                .handle((status, error) -> {
+                    long answered = metrics.now();
+                    PaymentResponse response = complete(transactionId, request, acquirer, status, error);
+                    metrics.recordStages(acquirer, response.getStatus(), routed - started, stored - routed,
+                            answered - stored, metrics.now() - answered);
+                    return response;
+                });
+    }
 
-        tx.setStatus(status);
+    private PaymentResponse complete(String transactionId, PaymentRequest request, String acquirer, String status,
+                                     Throwable error) {
+        String message = "Processed by Acquirer " + acquirer;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            status = "Failed";
+            message = cause instanceof TimeoutException
+                    ? "Acquirer " + acquirer + " did not respond in time"
+                    : "Acquirer " + acquirer + " is unavailable";
+            log.warn("Transaction: {}, acquirer {} call failed: {}", transactionId, acquirer, cause.toString());
+        } else if ("Denied".equals(status)) {
+            velocityEngine.recordDecline(request.getMerchantId());
+        }
+        return finish(transactionId, request, acquirer, status, message);
+    }
 
-        log.info("Transaction: {}, has status : {} and persisted in database",
-                transactionId, status);
+    private PaymentResponse finish(String transactionId, PaymentRequest request, String acquirer, String status,
+                                   String message) {
+        storage.updateStatus(transactionId, status);
+        auditLog.completed(transactionId, acquirer, status);
+        settlementLedger.record(request.getMerchantId(), request.getCurrency(), acquirer, status, request.getAmount());
 
-        return new PaymentResponse(transactionId, status, "Processed by Acquirer " + acquirer);
+        return new PaymentResponse(transactionId, status, message);
     }
 
 }
@@ -0,0 +1,44 @@
+package com.example.psp.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting retries to a share of the calls made: every call deposits {@code ratio} tokens, every retry
+ * withdraws one. When an acquirer fails every call, retries stop once the budget is spent instead of multiplying
+ * the load on it. Starts full.
+ */
+final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(double ratio, int maxBudget) {
+        if (ratio < 0 || maxBudget < 0) {
+            throw new IllegalArgumentException("retry budget must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxBudget * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void onCall() {
+        if (deposit == 0) return;
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) return;
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) return false;
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.psp.service;
+
+import com.example.psp.model.TransactionDetails;
+import com.example.psp.store.TransactionCursor;
+import com.example.psp.store.TransactionQuery;
+import com.example.psp.store.TransactionStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Reads transactions back from the {@link TransactionStore}.
+ *
+ * <p>Merchant queries use the store's per-merchant time index and are written to the response as they are read,
+ * so a page of any size is never buffered: {@code {"transactions":[...],"nextCursor":"..."}}, where
+ * {@code nextCursor} is present when more transactions may follow.
+ */
+@Service
+public class TransactionQueryService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final TransactionStore storage;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter detailsWriter;
+
+    public TransactionQueryService(TransactionStore storage, ObjectMapper objectMapper) {
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+        this.detailsWriter = objectMapper.writerFor(TransactionDetails.class);
+    }
+
+    public Optional<TransactionDetails> findById(String transactionId) {
+        return storage.findById(transactionId).map(TransactionDetails::of);
+    }
+
+    /**
+     * Builds a merchant query from request parameters.
+     * @throws InvalidQueryException if a parameter is missing or malformed
+     */
+    public TransactionQuery query(String merchantId, String from, String to, String status, String cursor,
+                                  String limit) {
+        if (merchantId == null || merchantId.isBlank()) {
+            throw new InvalidQueryException("merchantId", "Merchant ID is required");
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : instant("from", from);
+        long toMillis = to == null ? Long.MAX_VALUE : instant("to", to);
+        if (toMillis < fromMillis) throw new InvalidQueryException("to", "to must not be before from");
+        int pageSize;
+        try {
+            pageSize = limit == null ? DEFAULT_LIMIT : Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            pageSize = -1;
+        }
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new InvalidQueryException("limit", "limit must be between 1 and " + MAX_LIMIT);
+        }
+        TransactionCursor after;
+        try {
+            after = cursor == null ? null : TransactionCursor.parse(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("cursor", "Malformed cursor");
+        }
+        return new TransactionQuery(merchantId, fromMillis, toMillis, status, after, pageSize);
+    }
+
+    public void writePage(TransactionQuery query, OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("transactions");
+            TransactionCursor next;
+            try {
+                next = storage.findByMerchant(query, tx -> {
+                    try {
+                        detailsWriter.writeValue(generator, TransactionDetails.of(tx));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            if (next != null) generator.writeStringField("nextCursor", next.encode());
+            generator.writeEndObject();
+        }
+    }
+
+    private static long instant(String field, String value) {
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new InvalidQueryException(field, field + " must be an ISO-8601 instant, e.g. 2024-01-31T00:00:00Z");
+        }
+    }
+}
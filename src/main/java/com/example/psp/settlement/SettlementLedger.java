@@ -0,0 +1,170 @@
+package com.example.psp.settlement;
+
+import com.example.psp.util.CurrencyCodes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Running settlement totals: count and amount of completed transactions per day (UTC, by completion time), merchant,
+ * currency, acquirer and final status.
+ *
+ * <p>{@link #record} is called once per transaction as it reaches its final status. Each group keeps its count and
+ * amount in {@link LongAdder}s, so payments of the same group do not contend on one counter; amounts are summed in
+ * minor units of the currency (cents, yen) and are exact. Reading a day visits its groups, never its transactions.
+ * A group read while a payment is being recorded may already show its count but not yet its amount; export a day
+ * after it has closed for final figures. Days before {@code psp.settlement.retention-days} are dropped.
+ */
+@Component
+@EnableConfigurationProperties(SettlementProperties.class)
+public class SettlementLedger {
+
+    static final String CSV_HEADER = "date,merchantId,currency,acquirer,status,count,amount";
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final int retentionDays;
+    private final LongSupplier clock;
+    private final Map<Long, Day> days = new ConcurrentHashMap<>();
+    private volatile Day today;
+
+    @Autowired
+    public SettlementLedger(SettlementProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    SettlementLedger(SettlementProperties properties, LongSupplier clock) {
+        if (properties.getRetentionDays() <= 0) {
+            throw new IllegalArgumentException("psp.settlement.retention-days must be positive");
+        }
+        this.retentionDays = properties.getRetentionDays();
+        this.clock = clock;
+    }
+
+    /**
+     * Adds a transaction that reached its final status to today's totals.
+     */
+    public void record(String merchantId, String currency, String acquirer, String status, double amount) {
+        long epochDay = Math.floorDiv(clock.getAsLong(), MILLIS_PER_DAY);
+        Day day = today;
+        if (day == null || day.epochDay != epochDay) day = day(epochDay);
+
+        Group key = new Group(merchantId, currency, acquirer, status);
+        Totals totals = day.groups.get(key);
+        if (totals == null) totals = day.groups.computeIfAbsent(key, k -> new Totals());
+        totals.count.increment();
+        totals.minorUnits.add(Math.round(amount * POWERS_OF_TEN[fractionDigits(currency)]));
+    }
+
+    /**
+     * Today's date (UTC).
+     */
+    public LocalDate today() {
+        return LocalDate.ofEpochDay(Math.floorDiv(clock.getAsLong(), MILLIS_PER_DAY));
+    }
+
+    /**
+     * The day's totals, optionally for one merchant, in no particular order; empty for days not kept.
+     */
+    public List<SettlementTotal> totals(LocalDate date, String merchantId) {
+        Day day = days.get(date.toEpochDay());
+        if (day == null) return List.of();
+        List<SettlementTotal> totals = new ArrayList<>(day.groups.size());
+        day.groups.forEach((group, sums) -> {
+            if (merchantId == null || merchantId.equals(group.merchantId)) totals.add(total(group, sums));
+        });
+        return totals;
+    }
+
+    /**
+     * Writes the day's settlement file: {@value #CSV_HEADER} and one line per group, in no particular order.
+     */
+    public void writeCsv(LocalDate date, Writer out) throws IOException {
+        out.write(CSV_HEADER);
+        out.write('\n');
+        Day day = days.get(date.toEpochDay());
+        if (day == null) return;
+        String dateColumn = date.toString();
+        for (Map.Entry<Group, Totals> entry : day.groups.entrySet()) {
+            SettlementTotal total = total(entry.getKey(), entry.getValue());
+            out.write(dateColumn);
+            out.write(',');
+            writeCsvField(out, total.merchantId());
+            out.write(',');
+            writeCsvField(out, total.currency());
+            out.write(',');
+            writeCsvField(out, total.acquirer());
+            out.write(',');
+            writeCsvField(out, total.status());
+            out.write(',');
+            out.write(Long.toString(total.count()));
+            out.write(',');
+            out.write(total.amount().toPlainString());
+            out.write('\n');
+        }
+    }
+
+    private synchronized Day day(long epochDay) {
+        Day day = days.computeIfAbsent(epochDay, Day::new);
+        Day current = today;
+        if (current == null || epochDay > current.epochDay) {
+            today = day;
+            days.keySet().removeIf(d -> d <= epochDay - retentionDays);
+        }
+        return day;
+    }
+
+    private static SettlementTotal total(Group group, Totals totals) {
+        return new SettlementTotal(group.merchantId, group.currency, group.acquirer, group.status,
+                totals.count.sum(), BigDecimal.valueOf(totals.minorUnits.sum(), fractionDigits(group.currency)));
+    }
+
+    /**
+     * Minor unit digits of the currency (2 for USD, 0 for JPY); 2 for codes unknown to the JDK.
+     */
+    static int fractionDigits(String currency) {
+        int digits = CurrencyCodes.fractionDigits(currency);
+        return digits < POWERS_OF_TEN.length ? digits : 2;
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private record Group(String merchantId, String currency, String acquirer, String status) {
+    }
+
+    private static final class Totals {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder minorUnits = new LongAdder();
+    }
+
+    private static final class Day {
+
+        final long epochDay;
+        final Map<Group, Totals> groups = new ConcurrentHashMap<>();
+
+        Day(long epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+}
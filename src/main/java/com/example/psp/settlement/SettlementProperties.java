@@ -0,0 +1,18 @@
+package com.example.psp.settlement;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settlement totals settings ({@code psp.settlement.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.settlement")
+public class SettlementProperties {
+
+    /**
+     * Days (UTC) whose totals are kept, including today.
+     */
+    private int retentionDays = 7;
+}
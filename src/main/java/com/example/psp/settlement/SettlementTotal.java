@@ -0,0 +1,10 @@
+package com.example.psp.settlement;
+
+import java.math.BigDecimal;
+
+/**
+ * Count and amount of one day's completed transactions with the same merchant, currency, acquirer and final status.
+ */
+public record SettlementTotal(String merchantId, String currency, String acquirer, String status, long count,
+                              BigDecimal amount) {
+}
@@ -0,0 +1,650 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import com.example.psp.tokenization.CardTokens;
+import com.example.psp.util.SymbolTable;
+import com.example.psp.util.TransactionIds;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Bounded transaction store with a primitive, fixed-width record layout.
+ *
+ * <p>Each record keeps the id as two longs, the amount, the creation time, the card token as two longs, interned
+ * merchant/currency codes and one-byte status/acquirer codes in parallel primitive arrays. Card data is not retained:
+ * transactions read back from this store carry their card token and a request with amount, currency and merchantId
+ * only.
+ *
+ * <p>The store is split into segments, each a preallocated ring of records with an open-addressing index.
+ * When a segment is full the oldest record is evicted; records older than the TTL are evicted lazily on write
+ * and are never returned on read. Reads are optimistic and do not block writers.
+ *
+ * <p>Each merchant has a {@link MerchantIndex}: its records' creation times and slot references, kept sorted by
+ * time and maintained on insert and eviction, so merchant queries seek with a binary search instead of scanning.
+ * When a merchant's last record leaves the store, its index is dropped and its merchant code is released for reuse,
+ * so {@code maxMerchants} bounds the merchants with stored records, not all merchants ever seen.
+ *
+ * <p>A removed record leaves a hole in its segment's ring that is reclaimed when the ring wraps around to it.
+ */
+public class CompactTransactionStore implements TransactionStore {
+
+    private static final int MAX_SEGMENTS = 1 << 10;
+    private static final int QUERY_CHUNK = 256;
+    // status code of a removed record
+    private static final byte REMOVED = -1;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int segmentCapacity;
+    private final long ttlMillis;
+    private final SymbolTable merchants;
+    private final SymbolTable currencies = new SymbolTable(Short.MAX_VALUE);
+    private final SymbolTable statuses = new SymbolTable(Byte.MAX_VALUE);
+    private final SymbolTable acquirers = new SymbolTable(Byte.MAX_VALUE);
+    private final LongAdder evictions = new LongAdder();
+    // indexed by merchant code; grown, and emptied indexes dropped, under indexesLock
+    private volatile MerchantIndex[] merchantIndexes = new MerchantIndex[16];
+    private final ReentrantLock indexesLock = new ReentrantLock();
+
+    /**
+     * @param capacity     total number of records kept across all segments
+     * @param segmentCount number of independently locked segments, rounded up to a power of two
+     * @param ttl          maximum age of a record, or {@code Duration.ZERO} to evict on capacity only
+     * @param maxMerchants upper bound for distinct merchant ids with stored records
+     */
+    public CompactTransactionStore(int capacity, int segmentCount, Duration ttl, int maxMerchants) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, segmentCount) * 2 - 1));
+        count = Math.min(count, Integer.highestOneBit(capacity));
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        int perSegment = (capacity + count - 1) / count;
+        this.segmentCapacity = perSegment;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(i, perSegment);
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.merchants = new SymbolTable(maxMerchants);
+    }
+
+    @Override
+    public void save(Transaction transaction) {
+        String id = transaction.getTransactionId();
+        long hi = TransactionIds.mostSignificantBits(id);
+        long lo = TransactionIds.leastSignificantBits(id);
+        long h = hash(hi, lo);
+        PaymentRequest request = transaction.getRequest();
+        String token = transaction.getCardToken();
+        boolean tokenized = CardTokens.isToken(token);
+        segmentFor(h).put(hi, lo, h,
+                Double.doubleToRawLongBits(request.getAmount()),
+                transaction.getCreatedAt(),
+                tokenized ? CardTokens.high(token) : 0,
+                tokenized ? CardTokens.low(token) : 0,
+                request.getMerchantId(),
+                currencies.code(request.getCurrency()),
+                (byte) statuses.code(transaction.getStatus()),
+                (byte) acquirers.code(transaction.getAcquirer()),
+                System.currentTimeMillis());
+    }
+
+    @Override
+    public Optional<Transaction> findById(String transactionId) {
+        if (!TransactionIds.isCanonical(transactionId)) return Optional.empty();
+        long hi = TransactionIds.mostSignificantBits(transactionId);
+        long lo = TransactionIds.leastSignificantBits(transactionId);
+        long h = hash(hi, lo);
+        return Optional.ofNullable(segmentFor(h).get(transactionId, hi, lo, h, System.currentTimeMillis()));
+    }
+
+    @Override
+    public boolean updateStatus(String transactionId, String status) {
+        if (!TransactionIds.isCanonical(transactionId)) return false;
+        long hi = TransactionIds.mostSignificantBits(transactionId);
+        long lo = TransactionIds.leastSignificantBits(transactionId);
+        long h = hash(hi, lo);
+        return segmentFor(h).updateStatus(hi, lo, h, (byte) statuses.code(status), System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean remove(String transactionId) {
+        if (!TransactionIds.isCanonical(transactionId)) return false;
+        long hi = TransactionIds.mostSignificantBits(transactionId);
+        long lo = TransactionIds.leastSignificantBits(transactionId);
+        long h = hash(hi, lo);
+        return segmentFor(h).remove(hi, lo, h);
+    }
+
+    /**
+     * Number of records currently held, including expired records that have not been swept yet.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count - segment.holes;
+        }
+        return size;
+    }
+
+    /**
+     * Copies one segment at a time under its read lock and passes the copies on after releasing it.
+     */
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        for (Segment segment : segments) {
+            segment.live(System.currentTimeMillis()).forEach(action);
+        }
+    }
+
+    @Override
+    public TransactionCursor scanByMerchant(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink) {
+        int merchantCode = merchants.find(query.merchantId());
+        MerchantIndex index = merchantCode == SymbolTable.NONE ? null : merchantIndex(merchantCode);
+        // the code may have been released and given to another merchant since the lookup
+        if (index == null || !index.merchantId.equals(query.merchantId())) return null;
+        int statusCode = query.status() == null ? SymbolTable.NONE : statuses.find(query.status());
+        if (query.status() != null && statusCode == SymbolTable.NONE) return null;
+
+        long[] created = new long[QUERY_CHUNK];
+        long[] sequences = new long[QUERY_CHUNK];
+        int[] refs = new int[QUERY_CHUNK];
+        TransactionCursor position = query.start();
+        int delivered = 0;
+        while (true) {
+            // copy a chunk of the index, then read the records without holding the index lock
+            int n = index.copyAfter(position, query.toMillis(), created, sequences, refs);
+            if (n == 0) return null;
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < n; i++) {
+                position = new TransactionCursor(created[i], sequences[i]);
+                Segment segment = segments[refs[i] / segmentCapacity];
+                Transaction tx = segment.getSlot(refs[i] % segmentCapacity, merchantCode, created[i], statusCode, now);
+                if (tx == null) continue;
+                sink.accept(tx, position);
+                if (++delivered == query.limit()) return position;
+            }
+        }
+    }
+
+    private MerchantIndex merchantIndex(int merchantCode) {
+        MerchantIndex[] indexes = merchantIndexes;
+        return merchantCode < indexes.length ? indexes[merchantCode] : null;
+    }
+
+    /**
+     * Adds the index entry of a record and returns the merchant's code. Looks the code up again if it was released
+     * (the merchant's last record left the store) between the lookup and the insert.
+     * @throws MerchantLimitExceededException if all merchant codes are taken by merchants with stored records
+     */
+    private int attach(String merchantId, long created, int ref) {
+        while (true) {
+            int merchantCode = merchants.codeOrNone(merchantId);
+            if (merchantCode == SymbolTable.NONE) {
+                throw new MerchantLimitExceededException("Transaction store holds records of too many merchants");
+            }
+            MerchantIndex index = merchantIndex(merchantCode);
+            if (index == null) index = createMerchantIndex(merchantCode, merchantId);
+            if (index != null && index.add(merchantId, created, ref)) return merchantCode;
+        }
+    }
+
+    /**
+     * Removes the index entry of a record, releasing the merchant's code if it was the merchant's last record.
+     */
+    private void detach(int merchantCode, long created, int ref) {
+        MerchantIndex index = merchantIndex(merchantCode);
+        if (index == null || !index.remove(created, ref)) return;
+        indexesLock.lock();
+        try {
+            if (!index.retire()) return;
+            merchantIndexes[merchantCode] = null;
+            merchants.release(merchantCode);
+        } finally {
+            indexesLock.unlock();
+        }
+    }
+
+    /**
+     * Creates the index of a code, or returns null if the code no longer belongs to the merchant.
+     */
+    private MerchantIndex createMerchantIndex(int merchantCode, String merchantId) {
+        indexesLock.lock();
+        try {
+            // codes are released under indexesLock, so the owner cannot change until it is unlocked
+            if (!merchantId.equals(merchants.name(merchantCode))) return null;
+            MerchantIndex[] indexes = merchantIndexes;
+            if (merchantCode >= indexes.length) {
+                indexes = Arrays.copyOf(indexes, Math.max(indexes.length * 2, merchantCode + 1));
+            }
+            MerchantIndex index = indexes[merchantCode];
+            if (index == null) {
+                index = new MerchantIndex(merchantId);
+                indexes[merchantCode] = index;
+            }
+            merchantIndexes = indexes;
+            return index;
+        } finally {
+            indexesLock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return segments.length * segments[0].capacity;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 48) & segmentMask];
+    }
+
+    private boolean expired(long createdAt, long now) {
+        return ttlMillis > 0 && now - createdAt >= ttlMillis;
+    }
+
+    static long hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29);
+    }
+
+    private final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final int number;
+        private final int capacity;
+
+        private final long[] idHi;
+        private final long[] idLo;
+        private final long[] amount;
+        private final long[] createdAt;
+        // card token, 0/0 for none
+        private final long[] tokenHi;
+        private final long[] tokenLo;
+        private final int[] merchant;
+        private final int[] currency;
+        private final byte[] status;
+        private final byte[] acquirer;
+
+        // slot + 1, 0 marks an empty bucket; load factor stays at or below 0.5
+        private final int[] index;
+        private final int indexMask;
+
+        private int head;
+        private volatile int count;
+        // removed slots among the count, reclaimed when the ring wraps over them
+        private volatile int holes;
+
+        Segment(int number, int capacity) {
+            this.number = number;
+            this.capacity = capacity;
+            this.idHi = new long[capacity];
+            this.idLo = new long[capacity];
+            this.amount = new long[capacity];
+            this.createdAt = new long[capacity];
+            this.tokenHi = new long[capacity];
+            this.tokenLo = new long[capacity];
+            this.merchant = new int[capacity];
+            this.currency = new int[capacity];
+            this.status = new byte[capacity];
+            this.acquirer = new byte[capacity];
+            this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.indexMask = index.length - 1;
+        }
+
+        void put(long hi, long lo, long h, long amountBits, long created, long tokenHigh, long tokenLow,
+                 String merchantId, int currencyCode,
+                 byte statusCode, byte acquirerCode, long now) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(hi, lo, h);
+                int merchantCode;
+                if (slot < 0) {
+                    evictExpired(now);
+                    if (count == capacity) {
+                        evictOldest();
+                    }
+                    slot = (head + count) % capacity;
+                    merchantCode = attach(merchantId, created, ref(slot));
+                    idHi[slot] = hi;
+                    idLo[slot] = lo;
+                    insert(slot, h);
+                    count++;
+                } else if (createdAt[slot] == created && merchantId.equals(merchants.name(merchant[slot]))) {
+                    merchantCode = merchant[slot];
+                } else {
+                    // attach first, so that moving a merchant's only record does not release its code
+                    merchantCode = attach(merchantId, created, ref(slot));
+                    detach(merchant[slot], createdAt[slot], ref(slot));
+                }
+                amount[slot] = amountBits;
+                createdAt[slot] = created;
+                tokenHi[slot] = tokenHigh;
+                tokenLo[slot] = tokenLow;
+                merchant[slot] = merchantCode;
+                currency[slot] = currencyCode;
+                status[slot] = statusCode;
+                acquirer[slot] = acquirerCode;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Transaction get(String id, long hi, long lo, long h, long now) {
+            long stamp = lock.tryOptimisticRead();
+            Transaction tx = read(id, hi, lo, h, now);
+            if (lock.validate(stamp)) return tx;
+            stamp = lock.readLock();
+            try {
+                return read(id, hi, lo, h, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean updateStatus(long hi, long lo, long h, byte statusCode, long now) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(hi, lo, h);
+                if (slot < 0 || expired(createdAt[slot], now)) return false;
+                status[slot] = statusCode;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long hi, long lo, long h) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(hi, lo, h);
+                if (slot < 0) return false;
+                detach(merchant[slot], createdAt[slot], ref(slot));
+                remove(slot);
+                status[slot] = REMOVED;
+                holes++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        List<Transaction> live(long now) {
+            long stamp = lock.readLock();
+            try {
+                List<Transaction> transactions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int slot = (head + i) % capacity;
+                    if (status[slot] == REMOVED || expired(createdAt[slot], now)) continue;
+                    transactions.add(toTransaction(TransactionIds.format(idHi[slot], idLo[slot]), slot));
+                }
+                return transactions;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Reads the record in {@code slot} if it still belongs to the merchant and creation time the index entry
+         * was made for (the slot may have been evicted and reused since), and has the status, if one is given.
+         */
+        Transaction getSlot(int slot, int merchantCode, long created, int statusCode, long now) {
+            long stamp = lock.tryOptimisticRead();
+            Transaction tx = readSlot(slot, merchantCode, created, statusCode, now);
+            if (lock.validate(stamp)) return tx;
+            stamp = lock.readLock();
+            try {
+                return readSlot(slot, merchantCode, created, statusCode, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private Transaction readSlot(int slot, int merchantCode, long created, int statusCode, long now) {
+            boolean live = Math.floorMod(slot - head, capacity) < count;
+            if (!live || merchant[slot] != merchantCode || createdAt[slot] != created || expired(created, now)) {
+                return null;
+            }
+            if (statusCode != SymbolTable.NONE && status[slot] != statusCode) return null;
+            return toTransaction(TransactionIds.format(idHi[slot], idLo[slot]), slot);
+        }
+
+        private int ref(int slot) {
+            return number * segmentCapacity + slot;
+        }
+
+        private Transaction read(String id, long hi, long lo, long h, long now) {
+            int slot = find(hi, lo, h);
+            if (slot < 0) return null;
+            if (expired(createdAt[slot], now)) return null;
+            return toTransaction(id, slot);
+        }
+
+        private Transaction toTransaction(String id, int slot) {
+            long created = createdAt[slot];
+            PaymentRequest request = new PaymentRequest();
+            request.setAmount(Double.longBitsToDouble(amount[slot]));
+            request.setCurrency(currencies.name(currency[slot]));
+            request.setMerchantId(merchants.name(merchant[slot]));
+            long high = tokenHi[slot];
+            long low = tokenLo[slot];
+            return new Transaction(id, request, statuses.name(status[slot]), acquirers.name(acquirer[slot]), created,
+                    high == 0 && low == 0 ? null : CardTokens.format(high, low));
+        }
+
+        private int find(long hi, long lo, long h) {
+            // bounded probe so that a torn optimistic read can never spin
+            for (int i = (int) h & indexMask, probes = 0; probes <= indexMask; i = (i + 1) & indexMask, probes++) {
+                int ref = index[i];
+                if (ref == 0) return -1;
+                int slot = ref - 1;
+                if (idHi[slot] == hi && idLo[slot] == lo) return slot;
+            }
+            return -1;
+        }
+
+        private void insert(int slot, long h) {
+            int i = (int) h & indexMask;
+            while (index[i] != 0) {
+                i = (i + 1) & indexMask;
+            }
+            index[i] = slot + 1;
+        }
+
+        private void evictExpired(long now) {
+            while (count > 0 && expired(createdAt[head], now)) {
+                evictOldest();
+            }
+        }
+
+        private void evictOldest() {
+            if (status[head] == REMOVED) {
+                holes--;
+            } else {
+                detach(merchant[head], createdAt[head], ref(head));
+                remove(head);
+                evictions.increment();
+            }
+            head = (head + 1) % capacity;
+            count--;
+        }
+
+        /**
+         * Removes the index entry of a slot using backward-shift deletion, so no tombstones are needed.
+         */
+        private void remove(int slot) {
+            int i = (int) hash(idHi[slot], idLo[slot]) & indexMask;
+            while (index[i] != slot + 1) {
+                i = (i + 1) & indexMask;
+            }
+            int j = i;
+            while (true) {
+                j = (j + 1) & indexMask;
+                int ref = index[j];
+                if (ref == 0) break;
+                int home = (int) hash(idHi[ref - 1], idLo[ref - 1]) & indexMask;
+                boolean stays = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+                if (!stays) {
+                    index[i] = ref;
+                    i = j;
+                }
+            }
+            index[i] = 0;
+        }
+    }
+
+    /**
+     * One merchant's records as (creation time, insertion sequence, slot reference) entries, sorted by time.
+     * Entries live in {@code [start, end)} of parallel arrays: inserts append at the end (shifting only the few
+     * entries created later), evictions remove near the start, so both are cheap for time-ordered traffic.
+     * Writers call it while holding a segment write lock; readers copy entries out and read the segments afterwards.
+     * Once emptied and retired it takes no more entries; its merchant gets a new code and index.
+     */
+    private static final class MerchantIndex {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String merchantId;
+        private long[] created = new long[8];
+        private long[] sequences = new long[8];
+        private int[] refs = new int[8];
+        private int start;
+        private int end;
+        private long nextSequence;
+        private boolean retired;
+
+        MerchantIndex(String merchantId) {
+            this.merchantId = merchantId;
+        }
+
+        /**
+         * Adds an entry, unless the index was retired or belongs to another merchant.
+         */
+        boolean add(String merchantId, long createdAt, int ref) {
+            lock.lock();
+            try {
+                if (retired || !this.merchantId.equals(merchantId)) return false;
+                if (end == created.length) makeRoom();
+                int position = end;
+                while (position > start && created[position - 1] > createdAt) {
+                    position--;
+                }
+                int moved = end - position;
+                System.arraycopy(created, position, created, position + 1, moved);
+                System.arraycopy(sequences, position, sequences, position + 1, moved);
+                System.arraycopy(refs, position, refs, position + 1, moved);
+                created[position] = createdAt;
+                sequences[position] = nextSequence++;
+                refs[position] = ref;
+                end++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes an entry and returns true if that left the index empty.
+         */
+        boolean remove(long createdAt, int ref) {
+            lock.lock();
+            try {
+                int position = lowerBound(createdAt, Long.MIN_VALUE);
+                while (position < end && created[position] == createdAt && refs[position] != ref) {
+                    position++;
+                }
+                if (position == end || created[position] != createdAt) return false;
+                int moved = position - start;
+                System.arraycopy(created, start, created, start + 1, moved);
+                System.arraycopy(sequences, start, sequences, start + 1, moved);
+                System.arraycopy(refs, start, refs, start + 1, moved);
+                start++;
+                return start == end;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stops taking entries if the index is (still) empty; returns true if it did.
+         */
+        boolean retire() {
+            lock.lock();
+            try {
+                if (retired || start != end) return false;
+                retired = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Copies up to {@code out.length} entries positioned after {@code after} and created before {@code toMillis}.
+         */
+        int copyAfter(TransactionCursor after, long toMillis, long[] outCreated, long[] outSequences, int[] outRefs) {
+            lock.lock();
+            try {
+                int position = after.sequence() == Long.MAX_VALUE
+                        ? lowerBound(after.createdAt() + 1, Long.MIN_VALUE)
+                        : lowerBound(after.createdAt(), after.sequence() + 1);
+                int n = 0;
+                while (position < end && n < outCreated.length && created[position] < toMillis) {
+                    outCreated[n] = created[position];
+                    outSequences[n] = sequences[position];
+                    outRefs[n] = refs[position];
+                    position++;
+                    n++;
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * First position whose (created, sequence) is at or after the given key.
+         */
+        private int lowerBound(long createdAt, long sequence) {
+            int low = start;
+            int high = end;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (created[mid] < createdAt || (created[mid] == createdAt && sequences[mid] < sequence)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void makeRoom() {
+            int size = end - start;
+            if (start > 0 && size <= created.length / 2) {
+                // reuse the space freed by evictions
+                System.arraycopy(created, start, created, 0, size);
+                System.arraycopy(sequences, start, sequences, 0, size);
+                System.arraycopy(refs, start, refs, 0, size);
+            } else {
+                created = Arrays.copyOfRange(created, start, created.length * 2 + start);
+                sequences = Arrays.copyOfRange(sequences, start, sequences.length * 2 + start);
+                refs = Arrays.copyOfRange(refs, start, refs.length * 2 + start);
+            }
+            start = 0;
+            end = size;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.psp.store;
+
+import com.example.psp.model.Transaction;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Unbounded store backed by a {@link ConcurrentHashMap}.
+ * Keeps the whole {@link Transaction} object graph, including the original request. Never evicts.
+ * Each merchant has a {@link ConcurrentSkipListMap} of its transactions ordered by creation time.
+ */
+
+public class InMemoryTransactionStore implements TransactionStore {
+
+    private final Map<String, Transaction> storage = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<TransactionCursor, Transaction>> byMerchant = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public void save(Transaction transaction) {
+        Transaction previous = storage.put(transaction.getTransactionId(), transaction);
+        if (previous != null) {
+            unindex(previous);
+        }
+        byMerchant.computeIfAbsent(transaction.getRequest().getMerchantId(), m -> new ConcurrentSkipListMap<>())
+                .put(new TransactionCursor(transaction.getCreatedAt(), sequence.incrementAndGet()), transaction);
+    }
+
+    @Override
+    public Optional<Transaction> findById(String transactionId) {
+        return Optional.ofNullable(storage.get(transactionId));
+    }
+
+    @Override
+    public boolean updateStatus(String transactionId, String status) {
+        Transaction tx = storage.get(transactionId);
+        if (tx == null) return false;
+        tx.setStatus(status);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String transactionId) {
+        Transaction tx = storage.remove(transactionId);
+        if (tx == null) return false;
+        unindex(tx);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        storage.values().forEach(action);
+    }
+
+    @Override
+    public TransactionCursor scanByMerchant(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink) {
+        NavigableMap<TransactionCursor, Transaction> index = byMerchant.get(query.merchantId());
+        if (index == null) return null;
+        int delivered = 0;
+        for (Map.Entry<TransactionCursor, Transaction> entry
+                : index.subMap(query.start(), false, TransactionCursor.before(query.toMillis()), false).entrySet()) {
+            Transaction tx = entry.getValue();
+            if (!query.matchesStatus(tx.getStatus())) continue;
+            sink.accept(tx, entry.getKey());
+            if (++delivered == query.limit()) return entry.getKey();
+        }
+        return null;
+    }
+
+    private void unindex(Transaction transaction) {
+        NavigableMap<TransactionCursor, Transaction> index = byMerchant.get(transaction.getRequest().getMerchantId());
+        if (index == null) return;
+        index.subMap(TransactionCursor.before(transaction.getCreatedAt()), TransactionCursor.before(transaction.getCreatedAt() + 1))
+                .values().removeIf(tx -> tx == transaction);
+    }
+}
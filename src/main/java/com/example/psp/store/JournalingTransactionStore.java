@@ -0,0 +1,74 @@
+package com.example.psp.store;
+
+import com.example.psp.model.Transaction;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * {@link TransactionStore} decorator that appends every state change to a {@link TransactionJournal}
+ * before applying it to the delegate store.
+ * With {@code waitForSync} the caller returns only after the change has been forced to disk by a group commit.
+ */
+
+public class JournalingTransactionStore implements TransactionStore, AutoCloseable {
+
+    private final TransactionStore delegate;
+    private final TransactionJournal journal;
+    private final boolean waitForSync;
+
+    public JournalingTransactionStore(TransactionStore delegate, TransactionJournal journal, boolean waitForSync) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.waitForSync = waitForSync;
+    }
+
+    @Override
+    public void save(Transaction transaction) {
+        long seq = journal.appendCreated(transaction);
+        delegate.save(transaction);
+        if (waitForSync) journal.awaitDurable(seq);
+    }
+
+    @Override
+    public Optional<Transaction> findById(String transactionId) {
+        return delegate.findById(transactionId);
+    }
+
+    @Override
+    public boolean updateStatus(String transactionId, String status) {
+        long seq = journal.appendStatus(transactionId, status);
+        boolean updated = delegate.updateStatus(transactionId, status);
+        if (waitForSync) journal.awaitDurable(seq);
+        return updated;
+    }
+
+    @Override
+    public boolean remove(String transactionId) {
+        long seq = journal.appendRemoved(transactionId);
+        boolean removed = delegate.remove(transactionId);
+        if (waitForSync) journal.awaitDurable(seq);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Transaction> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public TransactionCursor scanByMerchant(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink) {
+        return delegate.scanByMerchant(query, sink);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
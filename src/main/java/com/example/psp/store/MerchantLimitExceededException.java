@@ -0,0 +1,12 @@
+package com.example.psp.store;
+
+/**
+ * Thrown when a transaction cannot be stored because the store already holds transactions of
+ * {@code psp.store.max-merchants} other merchants.
+ */
+public class MerchantLimitExceededException extends RuntimeException {
+
+    public MerchantLimitExceededException(String message) {
+        super(message);
+    }
+}
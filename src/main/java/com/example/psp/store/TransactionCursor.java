@@ -0,0 +1,43 @@
+package com.example.psp.store;
+
+/**
+ * Position in a merchant's time-ordered transactions: creation time, then per-merchant insertion sequence.
+ * Encoded for clients as an opaque token.
+ */
+public record TransactionCursor(long createdAt, long sequence) implements Comparable<TransactionCursor> {
+
+    /**
+     * Position just before the first transaction created at or after {@code createdAt}.
+     */
+    public static TransactionCursor before(long createdAt) {
+        return new TransactionCursor(createdAt, Long.MIN_VALUE);
+    }
+
+    public boolean isBefore(long otherCreatedAt, long otherSequence) {
+        return createdAt < otherCreatedAt || (createdAt == otherCreatedAt && sequence < otherSequence);
+    }
+
+    @Override
+    public int compareTo(TransactionCursor other) {
+        int byTime = Long.compare(createdAt, other.createdAt);
+        return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+    }
+
+    public String encode() {
+        return Long.toHexString(createdAt) + "-" + Long.toHexString(sequence);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static TransactionCursor parse(String token) {
+        int dash = token.indexOf('-');
+        if (dash <= 0 || dash == token.length() - 1) throw new IllegalArgumentException("Malformed cursor");
+        try {
+            return new TransactionCursor(Long.parseUnsignedLong(token, 0, dash, 16),
+                    Long.parseUnsignedLong(token, dash + 1, token.length(), 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import com.example.psp.tokenization.CardTokens;
+import com.example.psp.util.TransactionIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of transaction state changes.
+ *
+ * <p>The journal is a directory of fixed-size segment files ({@code journal-<n>.log}). Each record is
+ * {@code [int length][int crc32][payload]}; a zero length marks the end of the written part of a segment.
+ * Appends copy the record into the mapped segment and return a sequence number. A background flusher forces
+ * dirty pages to disk every {@code flushInterval} or as soon as {@code flushBatchSize} records are pending
+ * (group commit); callers that need durability wait with {@link #awaitDurable(long)}.
+ *
+ * <p>On open, a new segment is started; existing segments are only read by {@link #replay(TransactionStore)}.
+ * Replay of a segment stops at the first torn or corrupt record. Segments other than the active one, including
+ * those from earlier runs, are deleted once their last write is older than {@code retention}; segments in which
+ * nothing was ever written are deleted after replay. Mappings are released as soon as a segment is no longer
+ * needed instead of waiting for the garbage collector.
+ */
+public class TransactionJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    static final byte CREATED = 1;
+    static final byte STATUS = 2;
+    static final byte REMOVED = 3;
+
+    private static final int HEADER = 8;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long flushIntervalNanos;
+    private final int flushBatchSize;
+    private final Duration retention;
+    private final List<Path> existingSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private final ArrayDeque<MappedByteBuffer> sealed = new ArrayDeque<>();
+    private final Thread flusher;
+
+    private long nextSegment;
+    private FileChannel channel;
+    private Path activeSegment;
+    private MappedByteBuffer active;
+    private int dirtyFrom;
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean closed;
+
+    public TransactionJournal(Path directory, long segmentSize, Duration flushInterval, int flushBatchSize,
+                              Duration retention) {
+        if (segmentSize <= HEADER || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between " + HEADER + " and 2GB");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flushBatchSize = flushBatchSize;
+        this.retention = retention;
+        try {
+            Files.createDirectories(directory);
+            this.existingSegments = listSegments();
+            this.nextSegment = existingSegments.isEmpty() ? 1 : segmentNumber(existingSegments.get(existingSegments.size() - 1)) + 1;
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction journal in " + directory, e);
+        }
+        this.flusher = new Thread(this::flushLoop, "transaction-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends the creation of a transaction and returns its sequence number.
+     */
+    public long appendCreated(Transaction tx) {
+        PaymentRequest request = tx.getRequest();
+        String token = tx.getCardToken();
+        boolean tokenized = CardTokens.isToken(token);
+        lock.lock();
+        try {
+            MappedByteBuffer buffer = reserve(1 + 16 + 16
+                    + encodedLength(tx.getAcquirer()) + encodedLength(tx.getStatus())
+                    + encodedLength(request.getCurrency()) + encodedLength(request.getMerchantId())
+                    + (tokenized ? 16 : 0));
+            int start = buffer.position();
+            buffer.position(start + HEADER);
+            buffer.put(CREATED);
+            putId(buffer, tx.getTransactionId());
+            buffer.putLong(Double.doubleToRawLongBits(request.getAmount()));
+            buffer.putLong(tx.getCreatedAt());
+            putString(buffer, tx.getAcquirer());
+            putString(buffer, tx.getStatus());
+            putString(buffer, request.getCurrency());
+            putString(buffer, request.getMerchantId());
+            if (tokenized) {
+                // optional trailing field, absent in records written before tokenization
+                buffer.putLong(CardTokens.high(token));
+                buffer.putLong(CardTokens.low(token));
+            }
+            return seal(buffer, start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a status change of a transaction and returns its sequence number.
+     */
+    public long appendStatus(String transactionId, String status) {
+        lock.lock();
+        try {
+            MappedByteBuffer buffer = reserve(1 + 16 + encodedLength(status));
+            int start = buffer.position();
+            buffer.position(start + HEADER);
+            buffer.put(STATUS);
+            putId(buffer, transactionId);
+            putString(buffer, status);
+            return seal(buffer, start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the removal of a transaction and returns its sequence number.
+     */
+    public long appendRemoved(String transactionId) {
+        lock.lock();
+        try {
+            MappedByteBuffer buffer = reserve(1 + 16);
+            int start = buffer.position();
+            buffer.position(start + HEADER);
+            buffer.put(REMOVED);
+            putId(buffer, transactionId);
+            return seal(buffer, start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     */
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq && !closed) {
+                flushNeeded.signal();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-applies all records of the segments that existed when the journal was opened, then deletes the segments
+     * that were never written to or have expired.
+     * @return number of records applied
+     */
+    public long replay(TransactionStore target) {
+        long records = 0;
+        for (Path segment : existingSegments) {
+            boolean empty;
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                if (in.size() < HEADER) continue;
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                try {
+                    empty = buffer.getInt(0) == 0;
+                    records += replaySegment(buffer, target, segment);
+                } finally {
+                    unmap(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot replay journal segment " + segment, e);
+            }
+            if (empty) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    log.warn("Failed to delete empty journal segment {}", segment, e);
+                }
+            }
+        }
+        lock.lock();
+        try {
+            deleteExpiredSegments();
+        } catch (IOException e) {
+            log.warn("Failed to delete expired journal segments", e);
+        } finally {
+            lock.unlock();
+        }
+        return records;
+    }
+
+    public long appendedSequence() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flusher.isAlive()) {
+            unmap(active);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment", e);
+        }
+    }
+
+    private long replaySegment(MappedByteBuffer buffer, TransactionStore target, Path segment) {
+        long records = 0;
+        CRC32 check = new CRC32();
+        while (buffer.remaining() >= HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) break;
+            check.reset();
+            check.update(buffer.slice(start + HEADER, length));
+            if ((int) check.getValue() != expectedCrc) {
+                log.warn("Corrupt record at offset {} of {}, skipping rest of segment", start, segment);
+                break;
+            }
+            byte type = buffer.get();
+            String id = TransactionIds.format(buffer.getLong(), buffer.getLong());
+            if (type == CREATED) {
+                double amount = Double.longBitsToDouble(buffer.getLong());
+                long createdAt = buffer.getLong();
+                String acquirer = getString(buffer);
+                String status = getString(buffer);
+                PaymentRequest request = new PaymentRequest();
+                request.setAmount(amount);
+                request.setCurrency(getString(buffer));
+                request.setMerchantId(getString(buffer));
+                String token = start + HEADER + length - buffer.position() >= 16
+                        ? CardTokens.format(buffer.getLong(), buffer.getLong())
+                        : null;
+                target.save(new Transaction(id, request, status, acquirer, createdAt, token));
+            } else if (type == STATUS) {
+                target.updateStatus(id, getString(buffer));
+            } else if (type == REMOVED) {
+                target.remove(id);
+            }
+            buffer.position(start + HEADER + length);
+            records++;
+        }
+        return records;
+    }
+
+    private MappedByteBuffer reserve(int payload) {
+        if (closed) throw new IllegalStateException("Transaction journal is closed");
+        int required = HEADER + payload;
+        if (required + HEADER > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + required + " bytes exceeds segment size");
+        }
+        // keep room for the zero-length terminator of the segment
+        if (active.remaining() < required + HEADER) {
+            roll();
+        }
+        return active;
+    }
+
+    private long seal(MappedByteBuffer buffer, int start) {
+        int end = buffer.position();
+        int length = end - start - HEADER;
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER, length));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // length last: a record is visible to replay only once it is complete
+        buffer.putInt(start, length);
+        long seq = ++appendedSeq;
+        if (seq - durableSeq >= flushBatchSize) {
+            flushNeeded.signal();
+        }
+        return seq;
+    }
+
+    private void roll() {
+        sealed.add(active);
+        try {
+            channel.close();
+            openSegment();
+            deleteExpiredSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll transaction journal segment", e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        activeSegment = directory.resolve(String.format("%s%020d%s", PREFIX, nextSegment++, SUFFIX));
+        channel = FileChannel.open(activeSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        dirtyFrom = 0;
+    }
+
+    /**
+     * Deletes every sealed segment, from this run or an earlier one, last written before the retention window.
+     * A sealed segment is never written again, so its modification time is that of its newest record.
+     */
+    private void deleteExpiredSegments() throws IOException {
+        if (retention.isZero()) return;
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        for (Path segment : listSegments()) {
+            if (segment.equals(activeSegment)) continue;
+            if (Files.getLastModifiedTime(segment).toMillis() < cutoff) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<MappedByteBuffer> toForce = new ArrayList<>();
+            MappedByteBuffer current;
+            int from;
+            int to;
+            long seq;
+            boolean stop;
+            lock.lock();
+            try {
+                if (!closed && appendedSeq - durableSeq < flushBatchSize) {
+                    flushNeeded.awaitNanos(flushIntervalNanos);
+                }
+                stop = closed;
+                toForce.addAll(sealed);
+                sealed.clear();
+                current = active;
+                from = dirtyFrom;
+                to = active.position();
+                dirtyFrom = to;
+                seq = appendedSeq;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            for (MappedByteBuffer buffer : toForce) {
+                buffer.force();
+                // sealed segments are never written again; only the flusher still holds them
+                unmap(buffer);
+            }
+            if (to > from) {
+                current.force(from, to - from);
+            }
+            lock.lock();
+            try {
+                durableSeq = Math.max(durableSeq, seq);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (stop) return;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Releases the mapping of a buffer that is no longer used; falls back to the garbage collector when
+     * {@code sun.misc.Unsafe} is not available.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            log.warn("Failed to unmap journal segment", e);
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("sun.misc.Unsafe not available, journal segments are unmapped by the garbage collector", e);
+            return null;
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void putId(MappedByteBuffer buffer, String transactionId) {
+        buffer.putLong(TransactionIds.mostSignificantBits(transactionId));
+        buffer.putLong(TransactionIds.leastSignificantBits(transactionId));
+    }
+
+    private static int encodedLength(String value) {
+        if (value == null) return 2;
+        int length = isAscii(value) ? value.length() : value.getBytes(StandardCharsets.UTF_8).length;
+        if (length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal string field exceeds " + Short.MAX_VALUE + " bytes");
+        }
+        return 2 + length;
+    }
+
+    /**
+     * Writes {@code [short length][UTF-8 bytes]}; ASCII values are copied char by char without allocating.
+     * A length of -1 encodes null.
+     */
+    private static void putString(MappedByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else if (isAscii(value)) {
+            buffer.putShort((short) value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(MappedByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.psp.store;
+
+/**
+ * Query over one merchant's transactions created in {@code [fromMillis, toMillis)}, optionally with a given status,
+ * returning at most {@code limit} transactions after {@code after} (null for the first page).
+ */
+public record TransactionQuery(String merchantId, long fromMillis, long toMillis, String status,
+                               TransactionCursor after, int limit) {
+
+    /**
+     * Where the scan starts: after the cursor, but never before {@code fromMillis}.
+     */
+    public TransactionCursor start() {
+        TransactionCursor from = TransactionCursor.before(fromMillis);
+        return after == null || after.isBefore(from.createdAt(), from.sequence()) ? from : after;
+    }
+
+    public boolean matchesStatus(String transactionStatus) {
+        return status == null || status.equals(transactionStatus);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.psp.store;
+
+import com.example.psp.model.Transaction;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Storage abstraction for transactions.
+ * Implementations decide the memory layout, capacity and eviction policy.
+ */
+
+public interface TransactionStore {
+
+    void save(Transaction transaction);
+
+    Optional<Transaction> findById(String transactionId);
+
+    /**
+     * Updates the status of a stored transaction.
+     * @return false if the transaction is unknown or has already been evicted
+     */
+    boolean updateStatus(String transactionId, String status);
+
+    /**
+     * Removes a transaction, e.g. after handing it over to another node.
+     * @return false if the transaction is unknown
+     */
+    boolean remove(String transactionId);
+
+    int size();
+
+    /**
+     * Passes every live transaction to {@code action}, without store locks held. Transactions saved or removed
+     * during the iteration may or may not be seen.
+     */
+    void forEach(Consumer<Transaction> action);
+
+    /**
+     * Passes the merchant's transactions matching the query to {@code sink}, oldest first, using a per-merchant
+     * time-ordered index. The sink is called without store locks held, so it may write to a slow client.
+     * @return cursor after the last delivered transaction if the limit was reached, otherwise null
+     */
+    default TransactionCursor findByMerchant(TransactionQuery query, Consumer<Transaction> sink) {
+        return scanByMerchant(query, (tx, position) -> sink.accept(tx));
+    }
+
+    /**
+     * {@link #findByMerchant} that also passes each transaction's position in the merchant's index.
+     */
+    TransactionCursor scanByMerchant(TransactionQuery query, BiConsumer<Transaction, TransactionCursor> sink);
+
+}
@@ -0,0 +1,56 @@
+package com.example.psp.store;
+
+import com.example.psp.cluster.ClusterNode;
+import com.example.psp.cluster.ClusterProperties;
+import com.example.psp.cluster.ClusteredTransactionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Selects the {@link TransactionStore} implementation from {@code psp.store.type}
+ * and, when {@code psp.store.journal.enabled=true}, wraps it with the journal after replaying it.
+ * With {@code psp.cluster.enabled=true} the result holds this node's share of a {@link ClusteredTransactionStore}.
+ */
+
+@Configuration
+@EnableConfigurationProperties({TransactionStoreProperties.class, ClusterProperties.class})
+public class TransactionStoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionStoreConfig.class);
+
+    @Bean
+    public TransactionStore transactionStore(TransactionStoreProperties properties, ClusterProperties cluster) {
+        TransactionStore store = localStore(properties);
+        if (!cluster.isEnabled()) return store;
+
+        ClusterNode node = new ClusterNode(cluster, store);
+        node.start();
+        return new ClusteredTransactionStore(store, node);
+    }
+
+    private TransactionStore localStore(TransactionStoreProperties properties) {
+        TransactionStore store = switch (properties.getType()) {
+            case "compact" -> new CompactTransactionStore(properties.getCapacity(), properties.getSegments(),
+                    properties.getTtl(), properties.getMaxMerchants());
+            case "map" -> new InMemoryTransactionStore();
+            default -> throw new IllegalArgumentException("Unknown psp.store.type: " + properties.getType());
+        };
+
+        TransactionStoreProperties.Journal settings = properties.getJournal();
+        if (!settings.isEnabled()) return store;
+
+        TransactionJournal journal = new TransactionJournal(Path.of(settings.getDirectory()),
+                settings.getSegmentSize().toBytes(), settings.getFlushInterval(), settings.getFlushBatchSize(),
+                settings.getRetention());
+        long started = System.nanoTime();
+        long records = journal.replay(store);
+        log.info("Replayed {} journal records into {} transactions in {} ms",
+                records, store.size(), (System.nanoTime() - started) / 1_000_000);
+        return new JournalingTransactionStore(store, journal, settings.isWaitForSync());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.psp.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Transaction store settings ({@code psp.store.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.store")
+public class TransactionStoreProperties {
+
+    /**
+     * "compact" for the bounded primitive store, "map" for the unbounded ConcurrentHashMap store.
+     */
+    private String type = "compact";
+
+    private int capacity = 1 << 20;
+
+    private int segments = 64;
+
+    private Duration ttl = Duration.ofHours(24);
+
+    private int maxMerchants = 1 << 20;
+
+    private Journal journal = new Journal();
+
+    /**
+     * Optional durability mode ({@code psp.store.journal.*}).
+     */
+    @Data
+    public static class Journal {
+
+        private boolean enabled = false;
+
+        private String directory = "data/journal";
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Maximum time between group commits.
+         */
+        private Duration flushInterval = Duration.ofMillis(5);
+
+        /**
+         * Number of pending records that triggers a group commit before the interval elapses.
+         */
+        private int flushBatchSize = 256;
+
+        /**
+         * Whether save/updateStatus wait for the group commit that covers their record.
+         */
+        private boolean waitForSync = false;
+
+        /**
+         * Age after which sealed segments, including those of earlier runs, are deleted; zero keeps them forever.
+         */
+        private Duration retention = Duration.ofHours(48);
+    }
+}
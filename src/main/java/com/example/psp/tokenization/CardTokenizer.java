@@ -0,0 +1,218 @@
+package com.example.psp.tokenization;
+
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.util.StripedLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces card numbers with tokens, so stores, the journal and cluster peers never see a PAN.
+ *
+ * <p>A token is the first 128 bits of HMAC-SHA256(key, PAN) ({@link CardTokens}): the same card always gets the
+ * same token, and without the key a token cannot be traced back to the card. {@link Mac} instances are pooled,
+ * since they are not thread-safe and a thread-local would be created once per virtual thread.
+ *
+ * <p>Hot cards skip the HMAC: tokens are cached in a {@link StripedLruCache} keyed by a 128-bit hash of the PAN
+ * seeded per process, so the cache holds no card numbers either. {@code psp.tokenization.cache.hits}, {@code .misses}
+ * and {@code .evictions} count cache lookups, {@code psp.tokenization.cache.hit.ratio} is the share of hits so far;
+ * the cost per payment is timed in {@link PaymentMetrics} ({@code psp.payment.tokenization.*}).
+ *
+ * <p>Startup fails without {@code psp.tokenization.key} when the journal or cluster mode is enabled, since their
+ * tokens must be the same after a restart and on every node; a random key needs {@code psp.tokenization.random-key}.
+ */
+@Component
+@EnableConfigurationProperties(TokenizationProperties.class)
+public class CardTokenizer {
+
+    private static final Logger log = LoggerFactory.getLogger(CardTokenizer.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final SecretKeySpec key;
+    private final PaymentMetrics metrics;
+    private final StripedLruCache<PanHash, String> cache;
+    private final ConcurrentLinkedQueue<Hmac> pool = new ConcurrentLinkedQueue<>();
+    private final long seed1;
+    private final long seed2;
+
+    public CardTokenizer(TokenizationProperties properties) {
+        this(properties, new PaymentMetrics(new SimpleMeterRegistry(), false), new SimpleMeterRegistry());
+    }
+
+    public CardTokenizer(TokenizationProperties properties, PaymentMetrics metrics, MeterRegistry registry) {
+        this(properties, false, false, metrics, registry);
+    }
+
+    @Autowired
+    public CardTokenizer(TokenizationProperties properties,
+                         @Value("${psp.store.journal.enabled:false}") boolean journal,
+                         @Value("${psp.cluster.enabled:false}") boolean cluster,
+                         PaymentMetrics metrics, MeterRegistry registry) {
+        this.key = new SecretKeySpec(key(properties, journal || cluster), ALGORITHM);
+        this.metrics = metrics;
+        this.cache = new StripedLruCache<>(properties.getCacheSize(), properties.getCacheStripes(),
+                properties.getCacheTtl());
+        this.seed1 = ThreadLocalRandom.current().nextLong();
+        this.seed2 = ThreadLocalRandom.current().nextLong();
+        pool.offer(newHmac());
+
+        FunctionCounter.builder("psp.tokenization.cache.hits", cache, StripedLruCache::hits)
+                .description("Card tokens served from the hot-token cache")
+                .register(registry);
+        FunctionCounter.builder("psp.tokenization.cache.misses", cache, StripedLruCache::misses)
+                .description("Card tokens computed with the HMAC")
+                .register(registry);
+        FunctionCounter.builder("psp.tokenization.cache.evictions", cache, StripedLruCache::evictions)
+                .description("Cached card tokens dropped to make room")
+                .register(registry);
+        Gauge.builder("psp.tokenization.cache.hit.ratio", this, CardTokenizer::hitRatio)
+                .description("Share of tokenizations served from the cache")
+                .register(registry);
+    }
+
+    /**
+     * Tokenizer with a random key, for tests and benchmarks.
+     */
+    public static CardTokenizer withRandomKey() {
+        TokenizationProperties properties = new TokenizationProperties();
+        properties.setRandomKey(true);
+        return new CardTokenizer(properties);
+    }
+
+    /**
+     * Token of the card number.
+     */
+    public String tokenize(String cardNumber) {
+        long started = metrics.now();
+        PanHash hash = panHash(cardNumber);
+        String token = cache.get(hash);
+        boolean cached = token != null;
+        if (!cached) {
+            token = hmac(cardNumber);
+            cache.put(hash, token);
+        }
+        metrics.recordTokenization(metrics.now() - started, cached);
+        return token;
+    }
+
+    /**
+     * Share of {@link #tokenize} calls answered from the cache; 0 before the first call.
+     */
+    public double hitRatio() {
+        long hits = cache.hits();
+        long total = hits + cache.misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    String hmac(String cardNumber) {
+        Hmac hmac = pool.poll();
+        if (hmac == null) hmac = newHmac();
+        try {
+            int length = cardNumber.length();
+            byte[] input = length <= hmac.input.length ? hmac.input : new byte[length];
+            for (int i = 0; i < length; i++) {
+                input[i] = (byte) cardNumber.charAt(i);
+            }
+            hmac.mac.update(input, 0, length);
+            hmac.mac.doFinal(hmac.output, 0);
+            return CardTokens.format((long) LONGS.get(hmac.output, 0), (long) LONGS.get(hmac.output, 8));
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            pool.offer(hmac);
+        }
+    }
+
+    private PanHash panHash(String cardNumber) {
+        long h1 = seed1;
+        long h2 = seed2;
+        for (int i = 0, length = cardNumber.length(); i < length; i++) {
+            char c = cardNumber.charAt(i);
+            h1 = (h1 ^ c) * 0x100000001b3L;
+            h2 = (h2 ^ c) * 0x9e3779b97f4a7c15L;
+        }
+        return new PanHash(mix(h1), mix(h2 ^ h1));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
+    }
+
+    private Hmac newHmac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return new Hmac(mac);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] key(TokenizationProperties properties, boolean persistent) {
+        String configured = properties.getKey();
+        if (configured == null || configured.isBlank()) {
+            if (persistent) {
+                throw new IllegalArgumentException("psp.tokenization.key is required with the journal or cluster mode: "
+                        + "tokens must stay the same across restarts and nodes");
+            }
+            if (!properties.isRandomKey()) {
+                throw new IllegalArgumentException(
+                        "psp.tokenization.key is required (psp.tokenization.random-key=true for development only)");
+            }
+            log.warn("No psp.tokenization.key configured, using a random key: card tokens change on restart");
+            byte[] key = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+        byte[] key = Base64.getDecoder().decode(configured.trim());
+        if (key.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("psp.tokenization.key must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+        return key;
+    }
+
+    private record PanHash(long high, long low) {
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ high >>> 32);
+        }
+    }
+
+    private static final class Hmac {
+
+        final Mac mac;
+        final byte[] input = new byte[19];
+        final byte[] output = new byte[32];
+
+        Hmac(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.psp.tokenization;
+
+/**
+ * Conversions between the textual card token ({@code tok_} followed by 32 lowercase hex digits) and its two-long
+ * encoding, so stores can keep a token in 16 bytes.
+ */
+public final class CardTokens {
+
+    public static final String PREFIX = "tok_";
+    public static final int LENGTH = 36;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CardTokens() {
+    }
+
+    public static boolean isToken(String token) {
+        if (token == null || token.length() != LENGTH || !token.startsWith(PREFIX)) return false;
+        for (int i = PREFIX.length(); i < LENGTH; i++) {
+            if (hex(token.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * High 64 bits of a token. Call {@link #isToken(String)} first for untrusted input.
+     */
+    public static long high(String token) {
+        return parse(token, PREFIX.length());
+    }
+
+    public static long low(String token) {
+        return parse(token, PREFIX.length() + 16);
+    }
+
+    public static String format(long high, long low) {
+        char[] chars = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = 0; i < 16; i++) {
+            chars[PREFIX.length() + i] = HEX[(int) (high >>> (60 - 4 * i)) & 0xF];
+            chars[PREFIX.length() + 16 + i] = HEX[(int) (low >>> (60 - 4 * i)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static long parse(String token, int from) {
+        long value = 0;
+        for (int i = from; i < from + 16; i++) {
+            value = value << 4 | hex(token.charAt(i));
+        }
+        return value;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.psp.tokenization;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Card tokenization settings ({@code psp.tokenization.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.tokenization")
+public class TokenizationProperties {
+
+    /**
+     * Base64 HMAC-SHA256 key the tokens are derived from, at least 32 bytes. Required with the journal or cluster
+     * mode, and otherwise unless {@link #randomKey} is set.
+     */
+    private String key = "";
+
+    /**
+     * For development and tests: without a key, generate a random one at startup, so tokens change with every
+     * restart. Not allowed with the journal or cluster mode, whose tokens must outlive the process.
+     */
+    private boolean randomKey = false;
+
+    /**
+     * Hot cards whose token is kept in memory, so repeat payments skip the HMAC.
+     */
+    private int cacheSize = 100_000;
+
+    /**
+     * Lock stripes of the token cache (power of two).
+     */
+    private int cacheStripes = 64;
+
+    /**
+     * How long a cached token is kept after it was computed (zero keeps it until evicted).
+     */
+    private Duration cacheTtl = Duration.ofHours(1);
+}
@@ -0,0 +1,94 @@
+package com.example.psp.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Card expiry dates as month numbers ({@code year * 12 + month - 1}) and the not-expired check.
+ *
+ * <p>A card is valid through the last day of its expiry month (UTC). The current month is cached together with the
+ * instant it ends, so a check is one clock read and two comparisons; the cache is rebuilt once a month.
+ */
+public final class CardExpiry {
+
+    /** Returned by {@link #parse} for input that is not {@code MM/YY} or {@code MM/YYYY}. */
+    public static final int MALFORMED = -1;
+
+    private static final CardExpiry SYSTEM = new CardExpiry(Clock.systemUTC());
+
+    private final Clock clock;
+    private volatile CurrentMonth current = new CurrentMonth(0, Long.MAX_VALUE, Long.MIN_VALUE);
+
+    public CardExpiry(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Expiry check against the system clock.
+     */
+    public static CardExpiry system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Parses {@code MM/YY} (20YY) or {@code MM/YYYY} without allocating.
+     * @return the month number, or {@link #MALFORMED}
+     */
+    public static int parse(CharSequence expiry) {
+        if (expiry == null) return MALFORMED;
+        int length = expiry.length();
+        if ((length != 5 && length != 7) || expiry.charAt(2) != '/') return MALFORMED;
+        int month = twoDigits(expiry, 0);
+        if (month < 1 || month > 12) return MALFORMED;
+        int year = twoDigits(expiry, 3);
+        if (year < 0) return MALFORMED;
+        if (length == 7) {
+            int low = twoDigits(expiry, 5);
+            if (low < 0) return MALFORMED;
+            year = year * 100 + low;
+        } else {
+            year += 2000;
+        }
+        return monthNumber(year, month);
+    }
+
+    public static int monthNumber(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    /**
+     * Whether a card expiring in the given month (see {@link #parse}) is past its expiry.
+     */
+    public boolean isExpired(int expiryMonth) {
+        return expiryMonth < currentMonth();
+    }
+
+    int currentMonth() {
+        long now = clock.millis();
+        CurrentMonth month = current;
+        if (now < month.startMillis || now >= month.endMillis) {
+            month = CurrentMonth.of(now);
+            current = month;
+        }
+        return month.number;
+    }
+
+    private static int twoDigits(CharSequence s, int offset) {
+        int tens = s.charAt(offset) - '0';
+        int ones = s.charAt(offset + 1) - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) return -1;
+        return tens * 10 + ones;
+    }
+
+    private record CurrentMonth(int number, long startMillis, long endMillis) {
+
+        static CurrentMonth of(long millis) {
+            LocalDate first = Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+            return new CurrentMonth(monthNumber(first.getYear(), first.getMonthValue()),
+                    first.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(),
+                    first.plusMonths(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+        }
+    }
+}
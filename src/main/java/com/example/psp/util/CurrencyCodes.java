@@ -0,0 +1,39 @@
+package com.example.psp.util;
+
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ISO 4217 alphabetic currency codes known to the JDK, with their minor unit digits. The table is built once, so
+ * lookups of unknown codes neither throw nor grow it.
+ */
+public final class CurrencyCodes {
+
+    // digits of codes without a minor unit (XAU, XXX) and of unknown codes
+    private static final int DEFAULT_FRACTION_DIGITS = 2;
+    private static final Map<String, Integer> FRACTION_DIGITS = fractionDigits();
+
+    private CurrencyCodes() {
+    }
+
+    public static boolean isKnown(String code) {
+        return code != null && FRACTION_DIGITS.containsKey(code);
+    }
+
+    /**
+     * Minor unit digits of the currency (2 for USD, 0 for JPY, 3 for KWD); 2 for codes unknown to the JDK.
+     */
+    public static int fractionDigits(String code) {
+        return code == null ? DEFAULT_FRACTION_DIGITS : FRACTION_DIGITS.getOrDefault(code, DEFAULT_FRACTION_DIGITS);
+    }
+
+    private static Map<String, Integer> fractionDigits() {
+        Map<String, Integer> digits = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int d = currency.getDefaultFractionDigits();
+            digits.put(currency.getCurrencyCode(), d >= 0 ? d : DEFAULT_FRACTION_DIGITS);
+        }
+        return Map.copyOf(digits);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.psp.util;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+/**
+ * ISO 4217 alphabetic currency code known to the JDK. Blank values are left to {@code @NotBlank}.
+ */
+
+@Documented
+@Constraint(validatedBy = IsoCurrencyValidator.class)
+@Target({ ElementType.FIELD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IsoCurrency {
+    String message() default "Currency must be an ISO 4217 code";
+    Class<?>[] groups() default {};
+    Class<? extends Payload>[] payload() default {};
+}
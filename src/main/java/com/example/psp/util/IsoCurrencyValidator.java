@@ -0,0 +1,15 @@
+package com.example.psp.util;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator for the {@link IsoCurrency} constraint, using {@link CurrencyCodes}.
+ */
+public class IsoCurrencyValidator implements ConstraintValidator<IsoCurrency, String> {
+
+    @Override
+    public boolean isValid(String currency, ConstraintValidatorContext context) {
+        return currency == null || currency.isBlank() || CurrencyCodes.isKnown(currency);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.psp.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Allocation-free Luhn checks for card numbers of 13–19 digits.
+ *
+ * <p>{@link #isValid(CharSequence)} is the scalar check used per request. The byte-buffer bulk variant validates
+ * ASCII card numbers with SWAR (SIMD within a register): eight digits are loaded as one {@code long}, range-checked,
+ * doubled and summed with a handful of word-wide operations instead of a branch per digit.
+ */
+public final class Luhn {
+
+    public static final int MIN_LENGTH = 13;
+    public static final int MAX_LENGTH = 19;
+
+    // Luhn doubling of a digit: 2d, minus 9 when that is above 9
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ZEROS = 0x3030303030303030L;
+    // byte lanes 0, 2, 4, 6 hold the digits at odd positions counted from the right end (see push())
+    private static final long DOUBLED_LANES = 0x00FF00FF00FF00FFL;
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Luhn() {
+    }
+
+    public static boolean isValid(CharSequence cardNumber) {
+        if (cardNumber == null) return false;
+        int length = cardNumber.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) return false;
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = cardNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += alternate ? DOUBLED[digit] : digit;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Validates every card number of the array into {@code results}.
+     * Uses the scalar check: packing {@code char}s into words costs more than the word-wide arithmetic saves.
+     * @return number of valid card numbers
+     */
+    public static int validateAll(CharSequence[] cardNumbers, boolean[] results) {
+        if (results.length < cardNumbers.length) throw new IllegalArgumentException("results array is too small");
+        int valid = 0;
+        for (int i = 0; i < cardNumbers.length; i++) {
+            boolean ok = isValid(cardNumbers[i]);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+
+    /**
+     * Validates ASCII card numbers stored back to back in a byte buffer (e.g. a raw import file), without
+     * decoding them into strings. Card {@code i} occupies {@code data[offsets[i] .. offsets[i] + lengths[i])}.
+     * @return number of valid card numbers
+     */
+    public static int validateAll(byte[] data, int[] offsets, int[] lengths, boolean[] results) {
+        if (offsets.length != lengths.length || results.length < offsets.length) {
+            throw new IllegalArgumentException("offsets, lengths and results must describe the same cards");
+        }
+        int valid = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            boolean ok = isValidAscii(data, offsets[i], lengths[i]);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+
+    static boolean isValidAscii(byte[] data, int offset, int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) return false;
+        int sum = 0;
+        int end = offset + length;
+        while (end > offset) {
+            long word;
+            if (end - 8 >= offset) {
+                word = (long) LONG_LE.get(data, end - 8);
+            } else {
+                word = ZEROS;
+                for (int i = offset; i < end; i++) {
+                    word = push(word, data[i] & 0xFF);
+                }
+            }
+            int digits = wordSum(word);
+            if (digits < 0) return false;
+            sum += digits;
+            end -= 8;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Appends a byte as lane 7 (the most significant), shifting earlier bytes down one lane.
+     * After a short word's bytes are pushed onto {@link #ZEROS}, lane 7 holds its rightmost character, lane parity
+     * matches digit position parity, and the lanes left over stay {@code '0'}.
+     */
+    private static long push(long word, int c) {
+        return (word >>> 8) | ((long) c << 56);
+    }
+
+    /**
+     * Luhn contribution of eight ASCII characters packed little-endian into a long,
+     * where lane 7 is the digit at an even position from the right end.
+     * @return the digit sum, or -1 if a lane is not an ASCII digit
+     */
+    private static int wordSum(long word) {
+        // every lane must be in '0'..'9': >= 0x30 sets the high bit of (lane + 0x50), >= 0x3A that of (lane + 0x46)
+        long geZero = word + 0x5050505050505050L;
+        long geColon = word + 0x4646464646464646L;
+        if (((word & HIGH_BITS) | (~geZero & HIGH_BITS) | (geColon & HIGH_BITS)) != 0) return -1;
+
+        long digits = word - ZEROS;
+        long doubledLanes = digits & DOUBLED_LANES;
+        // digits >= 5 become 2d - 9; (d + 3) has bit 3 set exactly for d in 5..9
+        long carry = ((doubledLanes + 0x0003000300030003L) >>> 3) & 0x0001000100010001L;
+        long doubled = (doubledLanes << 1) - carry * 9;
+        long lanes = (digits & ~DOUBLED_LANES) + doubled;
+        return (int) ((lanes * ONES) >>> 56);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.psp.util;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+/**
+ * Card expiry date ({@code MM/YY} or {@code MM/YYYY}) not in the past. Malformed dates are left to {@code @Pattern}.
+ */
+
+@Documented
+@Constraint(validatedBy = NotExpiredValidator.class)
+@Target({ ElementType.FIELD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NotExpired {
+    String message() default "Card has expired";
+    Class<?>[] groups() default {};
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,16 @@
+package com.example.psp.util;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator for the {@link NotExpired} constraint, using the cached current month of {@link CardExpiry#system()}.
+ */
+public class NotExpiredValidator implements ConstraintValidator<NotExpired, String> {
+
+    @Override
+    public boolean isValid(String expiryDate, ConstraintValidatorContext context) {
+        int month = CardExpiry.parse(expiryDate);
+        return month == CardExpiry.MALFORMED || !CardExpiry.system().isExpired(month);
+    }
+}
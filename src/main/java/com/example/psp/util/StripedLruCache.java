@@ -0,0 +1,214 @@
+package com.example.psp.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, lock-striped LRU cache with time-to-live.
+ *
+ * <p>Keys are spread over a power-of-two number of stripes, each an access-ordered {@link LinkedHashMap} behind its
+ * own lock, so concurrent callers only contend when their keys share a stripe. Each stripe holds at most
+ * {@code maxSize / stripes} entries and drops its least recently used entry when full. Entries expire {@code ttl}
+ * after they were written; expired entries are treated as absent and removed lazily on access and on writes.
+ */
+public final class StripedLruCache<K, V> {
+
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    public StripedLruCache(int maxSize, int stripes, Duration ttl) {
+        this(maxSize, stripes, ttl, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    StripedLruCache(int maxSize, int stripes, Duration ttl, LongSupplier nanoClock) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two: " + stripes);
+        }
+        if (maxSize < stripes) {
+            throw new IllegalArgumentException("maxSize must be at least the number of stripes");
+        }
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe<>(maxSize / stripes);
+        }
+        this.mask = stripes - 1;
+        this.ttlNanos = ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the live value for the key, or null.
+     */
+    public V get(K key) {
+        Stripe<K, V> stripe = stripe(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Node<V> node = stripe.map.get(key);
+            if (node == null) {
+                stripe.misses++;
+                return null;
+            }
+            if (node.expired(now)) {
+                stripe.map.remove(key);
+                stripe.misses++;
+                return null;
+            }
+            stripe.hits++;
+            return node.value;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value unless the key already has a live value.
+     * @return the existing live value, or null if {@code value} was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        Stripe<K, V> stripe = stripe(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Node<V> node = stripe.map.get(key);
+            if (node != null && !node.expired(now)) {
+                stripe.hits++;
+                return node.value;
+            }
+            stripe.misses++;
+            stripe.write(key, new Node<>(value, saturatedAdd(now, ttlNanos)), now);
+            return null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripe(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            stripe.write(key, new Node<>(value, saturatedAdd(now, ttlNanos)), now);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry only if it still maps to {@code value}.
+     */
+    public boolean remove(K key, V value) {
+        Stripe<K, V> stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            Node<V> node = stripe.map.get(key);
+            if (node == null || node.value != value) return false;
+            stripe.map.remove(key);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of entries, including expired ones not yet removed.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of live entries dropped because their stripe was full.
+     */
+    public long evictions() {
+        long evictions = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            evictions += stripe.evictions;
+        }
+        return evictions;
+    }
+
+    /**
+     * Lookups ({@link #get} and {@link #putIfAbsent}) that found a live value.
+     */
+    public long hits() {
+        long hits = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            hits += stripe.hits;
+        }
+        return hits;
+    }
+
+    /**
+     * Lookups ({@link #get} and {@link #putIfAbsent}) that found no live value.
+     */
+    public long misses() {
+        long misses = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            misses += stripe.misses;
+        }
+        return misses;
+    }
+
+    private Stripe<K, V> stripe(K key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static long saturatedAdd(long now, long ttlNanos) {
+        long expiresAt = now + ttlNanos;
+        return ((now ^ expiresAt) & (ttlNanos ^ expiresAt)) < 0 ? Long.MAX_VALUE : expiresAt;
+    }
+
+    private record Node<V>(V value, long expiresAtNanos) {
+
+        boolean expired(long now) {
+            return expiresAtNanos != Long.MAX_VALUE && now - expiresAtNanos >= 0;
+        }
+    }
+
+    private static final class Stripe<K, V> {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<K, Node<V>> map;
+        final int capacity;
+        // written under the lock, read without it for statistics
+        volatile long evictions;
+        volatile long hits;
+        volatile long misses;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        void write(K key, Node<V> node, long now) {
+            map.put(key, node);
+            // drop the least recently used entry if it expired, or if the stripe is over capacity
+            Iterator<Map.Entry<K, Node<V>>> eldest = map.entrySet().iterator();
+            Map.Entry<K, Node<V>> entry = eldest.next();
+            if (entry.getValue().expired(now)) {
+                eldest.remove();
+            } else if (map.size() > capacity) {
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+}
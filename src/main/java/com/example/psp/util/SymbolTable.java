@@ -0,0 +1,98 @@
+package com.example.psp.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns low-cardinality strings (currencies, merchant ids, statuses, acquirers) into dense int codes.
+ * Lookups of already known values do not allocate. The table holds at most {@code maxSize} values; a code is only
+ * reused after its value has been {@linkplain #release released}.
+ */
+public class SymbolTable {
+
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private volatile String[] names = new String[16];
+    private int size;
+    private int[] free = new int[0];
+    private int freeCount;
+
+    public SymbolTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the code of the value, registering it on first use.
+     * @throws IllegalStateException if the table is full
+     */
+    public int code(String value) {
+        if (value == null) return NONE;
+        Integer code = codes.get(value);
+        return code != null ? code : register(value, true);
+    }
+
+    /**
+     * Like {@link #code}, but returns {@link #NONE} instead of throwing when the table is full.
+     */
+    public int codeOrNone(String value) {
+        if (value == null) return NONE;
+        Integer code = codes.get(value);
+        return code != null ? code : register(value, false);
+    }
+
+    /**
+     * Returns the code of an already registered value, or {@link #NONE}.
+     */
+    public int find(String value) {
+        if (value == null) return NONE;
+        Integer code = codes.get(value);
+        return code != null ? code : NONE;
+    }
+
+    public String name(int code) {
+        if (code < 0) return null;
+        String[] snapshot = names;
+        return code < snapshot.length ? snapshot[code] : null;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Forgets the value of a code, so the code can be given to another value. The caller must make sure the code is
+     * no longer in use.
+     */
+    public synchronized void release(int code) {
+        String value = name(code);
+        if (value == null) return;
+        codes.remove(value);
+        names[code] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, Math.max(16, free.length * 2));
+        }
+        free[freeCount++] = code;
+    }
+
+    private synchronized int register(String value, boolean failWhenFull) {
+        Integer existing = codes.get(value);
+        if (existing != null) return existing;
+        if (freeCount == 0 && size >= maxSize) {
+            if (!failWhenFull) return NONE;
+            throw new IllegalStateException("Symbol table is full (" + maxSize + " entries)");
+        }
+        int code = freeCount > 0 ? free[--freeCount] : size++;
+        String[] current = names;
+        if (code >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[code] = value;
+        // publish the name before the code becomes visible to readers
+        names = current;
+        codes.put(value, code);
+        return code;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.psp.util;
+
+import java.util.UUID;
+
+/**
+ * Conversions between the textual transaction id (canonical 36-char UUID form) and its two-long encoding.
+ * Parsing works directly on the characters and does not allocate.
+ */
+public final class TransactionIds {
+
+    public static final int LENGTH = 36;
+
+    private TransactionIds() {
+    }
+
+    public static boolean isCanonical(String id) {
+        if (id == null || id.length() != LENGTH) return false;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (hex(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Most significant 64 bits of a canonical id. Call {@link #isCanonical(String)} first for untrusted input.
+     */
+    public static long mostSignificantBits(String id) {
+        return parse(id, 0, 8) << 32 | parse(id, 9, 13) << 16 | parse(id, 14, 18);
+    }
+
+    public static long leastSignificantBits(String id) {
+        return parse(id, 19, 23) << 48 | parse(id, 24, 36);
+    }
+
+    /**
+     * Creation time in epoch milliseconds of a time-ordered (version 7) id, or -1 for any other id.
+     */
+    public static long timestamp(String id) {
+        if (!isCanonical(id)) return -1;
+        long msb = mostSignificantBits(id);
+        return (msb >>> 12 & 0xF) == 7 ? msb >>> 16 : -1;
+    }
+
+    public static String format(long msb, long lsb) {
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static long parse(String id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | hex(id.charAt(i));
+        }
+        return value;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.psp.validation;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A payment request failed validation; {@link #getErrors()} is the body of the 400 response.
+ */
+@Getter
+public class InvalidPaymentException extends RuntimeException {
+
+    private final List<Map<String, String>> errors;
+
+    public InvalidPaymentException(List<Map<String, String>> errors) {
+        // client errors are routine, so skip the stack trace
+        super("Invalid payment request", null, false, false);
+        this.errors = errors;
+    }
+}
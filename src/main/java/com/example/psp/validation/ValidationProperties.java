@@ -0,0 +1,22 @@
+package com.example.psp.validation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Payment request validation settings ({@code psp.validation.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.validation")
+public class ValidationProperties {
+
+    public enum Mode {
+        /** Hand-written single-pass checks in {@link PaymentRequestValidator}. */
+        FAST,
+        /** Bean Validation of the constraints declared on {@code PaymentRequest}. */
+        BEAN
+    }
+
+    private Mode mode = Mode.FAST;
+}
@@ -0,0 +1,90 @@
+package com.example.psp.velocity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate occurrences per key within a sliding window, in fixed memory however many keys there are.
+ *
+ * <p>Each bucket is a count-min sketch of {@code depth} rows of {@code width} counters. A key's count in the window
+ * is the smallest of its row sums over all buckets. Updates are conservative: only the rows at that minimum are
+ * incremented, since the others already overcount. A single writer never undercounts (concurrent updates of the same
+ * key may miss an increment); the overcount stays below {@code e / width} of all additions in the window with
+ * probability {@code 1 - e^-depth}, and well below it in practice thanks to the conservative update.
+ */
+final class SlidingCountMinSketch extends SlidingWindow {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    SlidingCountMinSketch(Duration window, int buckets, int depth, int width, LongSupplier nanoClock) {
+        super(window, buckets, nanoClock);
+        if (depth < 1 || width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("depth must be positive and width a power of two");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(buckets * depth * width);
+    }
+
+    /**
+     * Counts one occurrence of the key (a 64-bit hash) and returns its estimated count in the window.
+     */
+    int addAndEstimate(long hash) {
+        int bucket = bucket();
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sum(row, (h1 + row * h2) & mask));
+        }
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & mask;
+            if (sum(row, column) <= estimate) counters.incrementAndGet(index(bucket, row, column));
+        }
+        return estimate + 1;
+    }
+
+    /**
+     * Smallest power-of-two width whose error bound keeps the overcount at or below {@code tolerance} when the window
+     * holds {@code additions} additions.
+     */
+    static int widthFor(long additions, double tolerance) {
+        double required = Math.ceil(Math.E * additions / tolerance);
+        if (required > 1 << 30) {
+            throw new IllegalArgumentException("A count-min sketch for " + additions + " additions with an overcount of "
+                    + tolerance + " needs more than 2^30 counters per row");
+        }
+        int width = (int) Math.max(1, required);
+        return width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+    }
+
+    @Override
+    void clear(int bucket) {
+        int from = index(bucket, 0, 0);
+        for (int i = from; i < from + depth * width; i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    @Override
+    long memoryBytes() {
+        return 4L * counters.length();
+    }
+
+    private int sum(int row, int column) {
+        int sum = 0;
+        for (int b = 0; b < buckets; b++) {
+            sum += counters.get(index(b, row, column));
+        }
+        return sum;
+    }
+
+    private int index(int bucket, int row, int column) {
+        return (bucket * depth + row) * width + column;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.psp.velocity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Events within a sliding window: one {@link LongAdder} per bucket, so concurrent increments do not contend.
+ */
+final class SlidingCounter extends SlidingWindow {
+
+    private final LongAdder[] counts;
+
+    SlidingCounter(Duration window, int buckets, LongSupplier nanoClock) {
+        super(window, buckets, nanoClock);
+        this.counts = new LongAdder[buckets];
+        for (int i = 0; i < buckets; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void increment() {
+        counts[bucket()].increment();
+    }
+
+    long sum() {
+        bucket();
+        long sum = 0;
+        for (LongAdder count : counts) {
+            sum += count.sum();
+        }
+        return sum;
+    }
+
+    @Override
+    void clear(int bucket) {
+        counts[bucket].reset();
+    }
+
+    @Override
+    long memoryBytes() {
+        // array plus adders, without the cells a contended adder adds
+        return 16 + 4L * buckets + 32L * buckets;
+    }
+}
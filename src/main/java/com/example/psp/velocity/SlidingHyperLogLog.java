@@ -0,0 +1,104 @@
+package com.example.psp.velocity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate number of distinct keys within a sliding window, in {@code buckets x 2^precision} bytes.
+ *
+ * <p>Each bucket is a HyperLogLog: a key's 64-bit hash selects a register by its top {@code precision} bits, and the
+ * register keeps the highest rank (position of the first one bit) seen among the rest. The window's registers are
+ * the maxima over all buckets. The standard error is about {@code 1.04 / sqrt(2^precision)}. Registers are raised
+ * with compare-and-set; the estimate is cached until a register grows or a bucket is cleared, so repeated keys cost
+ * one read.
+ */
+final class SlidingHyperLogLog extends SlidingWindow {
+
+    private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final int registerCount;
+    private final byte[] registers;
+    private final double alpha;
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile Estimate cached = new Estimate(-1, -1, 0);
+
+    private record Estimate(int version, long period, long value) {
+    }
+
+    SlidingHyperLogLog(Duration window, int buckets, int precision, LongSupplier nanoClock) {
+        super(window, buckets, nanoClock);
+        if (precision < 4 || precision > 16) throw new IllegalArgumentException("precision must be 4 to 16");
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new byte[buckets * registerCount];
+        this.alpha = switch (registerCount) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registerCount);
+        };
+    }
+
+    /**
+     * Adds a key (a 64-bit hash) and returns the estimated number of distinct keys in the window.
+     */
+    long addAndEstimate(long hash) {
+        int index = bucket() * registerCount + (int) (hash >>> (64 - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros(hash << precision | 1L << (precision - 1)) + 1);
+        while (true) {
+            byte current = (byte) REGISTERS.getVolatile(registers, index);
+            if (current >= rank) break;
+            if (REGISTERS.compareAndSet(registers, index, current, rank)) {
+                version.incrementAndGet();
+                break;
+            }
+        }
+        return estimate();
+    }
+
+    long estimate() {
+        bucket();
+        int v = version.get();
+        long period = period();
+        Estimate estimate = cached;
+        if (estimate.version() == v && estimate.period() == period) return estimate.value();
+        estimate = new Estimate(v, period, compute());
+        cached = estimate;
+        return estimate.value();
+    }
+
+    @Override
+    void clear(int bucket) {
+        for (int i = bucket * registerCount; i < (bucket + 1) * registerCount; i++) {
+            REGISTERS.setVolatile(registers, i, (byte) 0);
+        }
+    }
+
+    @Override
+    long memoryBytes() {
+        return registers.length;
+    }
+
+    private long compute() {
+        double sum = 0;
+        int zeros = 0;
+        for (int r = 0; r < registerCount; r++) {
+            int max = 0;
+            for (int b = 0; b < buckets; b++) {
+                max = Math.max(max, (byte) REGISTERS.getOpaque(registers, b * registerCount + r));
+            }
+            sum += 1.0 / (1L << max);
+            if (max == 0) zeros++;
+        }
+        double estimate = alpha * registerCount * registerCount / sum;
+        // small range: linear counting is more accurate while registers are still empty
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.psp.velocity;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A time window split into a ring of equal buckets, the base of the sliding-window sketches.
+ *
+ * <p>Writers add to the bucket of the current time and readers combine all buckets, so the window slides one
+ * bucket at a time. The first caller that sees a new bucket period clears the buckets that fell out of the window
+ * under a lock before the period is published; every other call only reads the volatile current period.
+ */
+abstract class SlidingWindow {
+
+    final int buckets;
+    private final long bucketNanos;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock rotation = new ReentrantLock();
+    private volatile long currentPeriod;
+
+    SlidingWindow(Duration window, int buckets, LongSupplier nanoClock) {
+        if (buckets < 1) throw new IllegalArgumentException("buckets must be positive");
+        this.buckets = buckets;
+        this.bucketNanos = Math.max(1, window.toNanos() / buckets);
+        this.nanoClock = nanoClock;
+        this.currentPeriod = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+    }
+
+    /**
+     * The bucket to write to now, after clearing buckets that left the window.
+     */
+    final int bucket() {
+        long period = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+        if (period > currentPeriod) rotate(period);
+        return Math.floorMod(period, buckets);
+    }
+
+    /**
+     * Changes whenever buckets are cleared; lets subclasses cache values derived from all buckets.
+     */
+    final long period() {
+        return currentPeriod;
+    }
+
+    /**
+     * Resets one bucket; called under the rotation lock.
+     */
+    abstract void clear(int bucket);
+
+    abstract long memoryBytes();
+
+    private void rotate(long period) {
+        rotation.lock();
+        try {
+            long current = currentPeriod;
+            if (period <= current) return;
+            for (long p = Math.max(current + 1, period - buckets + 1); p <= period; p++) {
+                clear(Math.floorMod(p, buckets));
+            }
+            currentPeriod = period;
+        } finally {
+            rotation.unlock();
+        }
+    }
+}
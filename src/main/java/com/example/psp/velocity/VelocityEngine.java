@@ -0,0 +1,203 @@
+package com.example.psp.velocity;
+
+import com.example.psp.model.PaymentRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pre-authorization velocity checks over a sliding window: attempts per card, acquirer declines per merchant and
+ * distinct cards per merchant.
+ *
+ * <p>Cards are only kept as a 64-bit hash of the number. Attempts per card are counted in one
+ * {@link SlidingCountMinSketch} shared by all cards, sized for {@code expectedAttemptsPerWindow} so that other cards
+ * cannot push a card over {@code maxCardAttempts} on their own; distinct cards per merchant in a {@link SlidingHyperLogLog}
+ * and declines in a {@link SlidingCounter} per merchant, so memory is fixed by the settings and the number of
+ * merchants (at most {@code maxMerchants}), not by the number of cards. Checks take no locks. Blocked payments are
+ * counted in {@code psp.velocity.blocked} tagged by rule; {@code psp.velocity.memory} reports the bytes in use.
+ *
+ * <p>When a new merchant finds {@code maxMerchants} taken, merchants without payments for a whole window, whose
+ * counters are empty anyway, are dropped, at most once per bucket; only if none is idle does the merchant share the
+ * overflow counters.
+ */
+@Component
+@EnableConfigurationProperties(VelocityProperties.class)
+public class VelocityEngine {
+
+    public enum Rule {
+        CARD_ATTEMPTS("card-attempts"),
+        MERCHANT_DECLINES("merchant-declines"),
+        DISTINCT_CARDS("distinct-cards");
+
+        private final String label;
+
+        Rule(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final VelocityProperties properties;
+    private final boolean enabled;
+    private final LongSupplier nanoClock;
+    private final long windowNanos;
+    private final AtomicLong nextSweep;
+    private final SlidingCountMinSketch cardAttempts;
+    private final Map<String, MerchantWindows> merchants = new ConcurrentHashMap<>();
+    private final MerchantWindows overflow;
+    private final Map<Rule, Counter> blocked = new EnumMap<>(Rule.class);
+
+    @Autowired
+    public VelocityEngine(VelocityProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    VelocityEngine(VelocityProperties properties, MeterRegistry registry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        this.nanoClock = nanoClock;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong());
+        this.cardAttempts = enabled
+                ? new SlidingCountMinSketch(properties.getWindow(), properties.getBuckets(),
+                        properties.getSketchDepth(), sketchWidth(properties), nanoClock)
+                : null;
+        this.overflow = enabled ? new MerchantWindows() : null;
+        for (Rule rule : Rule.values()) {
+            blocked.put(rule, Counter.builder("psp.velocity.blocked")
+                    .description("Payments declined by a velocity rule before reaching the acquirer")
+                    .tag("rule", rule.label())
+                    .register(registry));
+        }
+        Gauge.builder("psp.velocity.memory", this, VelocityEngine::memoryBytes)
+                .description("Bytes held by the velocity sketches and counters")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Velocity checks that let every payment through.
+     */
+    public static VelocityEngine disabled() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setEnabled(false);
+        return new VelocityEngine(properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Counts the payment attempt and checks the limits.
+     * @return the rule the payment breaks, or null if it may go to the acquirer
+     */
+    public Rule check(PaymentRequest request) {
+        if (!enabled) return null;
+        long card = hash(request.getCardNumber());
+        MerchantWindows merchant = merchant(request.getMerchantId());
+        int attempts = cardAttempts.addAndEstimate(card);
+        long distinctCards = merchant.distinctCards.addAndEstimate(card);
+        Rule rule = attempts > properties.getMaxCardAttempts() ? Rule.CARD_ATTEMPTS
+                : distinctCards > properties.getMaxDistinctCards() ? Rule.DISTINCT_CARDS
+                : merchant.declines.sum() >= properties.getMaxMerchantDeclines() ? Rule.MERCHANT_DECLINES
+                : null;
+        if (rule != null) blocked.get(rule).increment();
+        return rule;
+    }
+
+    /**
+     * Counts a decline by the acquirer for the merchant.
+     */
+    public void recordDecline(String merchantId) {
+        if (enabled) merchant(merchantId).declines.increment();
+    }
+
+    /**
+     * Bytes held by the sketches and counters; grows with merchants up to {@code maxMerchants}, not with cards.
+     */
+    public long memoryBytes() {
+        if (!enabled) return 0;
+        return cardAttempts.memoryBytes() + (merchants.size() + 1L) * overflow.memoryBytes();
+    }
+
+    private MerchantWindows merchant(String merchantId) {
+        if (merchantId == null) return overflow;
+        long now = nanoClock.getAsLong();
+        MerchantWindows windows = merchants.get(merchantId);
+        if (windows == null) {
+            if (merchants.size() >= properties.getMaxMerchants()) {
+                evictIdle(now);
+                if (merchants.size() >= properties.getMaxMerchants()) return overflow;
+            }
+            windows = merchants.computeIfAbsent(merchantId, m -> new MerchantWindows());
+        }
+        windows.lastUsed = now;
+        return windows;
+    }
+
+    /**
+     * Drops merchants whose counters have been empty for a window. A payment racing with the drop of its merchant
+     * may be counted in the dropped counters only.
+     */
+    private void evictIdle(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + windowNanos / properties.getBuckets())) return;
+        merchants.values().removeIf(windows -> now - windows.lastUsed >= windowNanos);
+    }
+
+    /**
+     * Width of the card attempts sketch: overcounts stay at or below half of {@code maxCardAttempts} at the expected
+     * volume, so a card with a few real attempts is not blocked because of other cards.
+     */
+    static int sketchWidth(VelocityProperties properties) {
+        double tolerance = Math.max(1, properties.getMaxCardAttempts() / 2.0);
+        int required = SlidingCountMinSketch.widthFor(properties.getExpectedAttemptsPerWindow(), tolerance);
+        if (properties.getSketchWidth() == 0) return required;
+        if (properties.getSketchWidth() < required) {
+            throw new IllegalArgumentException("psp.velocity.sketch-width=" + properties.getSketchWidth()
+                    + " overcounts cards by more than " + tolerance + " at " + properties.getExpectedAttemptsPerWindow()
+                    + " attempts per window; use at least " + required + " or 0 to size it automatically");
+        }
+        return properties.getSketchWidth();
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer.
+     */
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        if (key != null) {
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private final class MerchantWindows {
+
+        final SlidingHyperLogLog distinctCards = new SlidingHyperLogLog(properties.getWindow(),
+                properties.getBuckets(), properties.getPrecision(), nanoClock);
+        final SlidingCounter declines = new SlidingCounter(properties.getWindow(), properties.getBuckets(), nanoClock);
+        volatile long lastUsed = nanoClock.getAsLong();
+
+        long memoryBytes() {
+            return distinctCards.memoryBytes() + declines.memoryBytes();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.psp.velocity;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Velocity check settings ({@code psp.velocity.*}).
+ */
+
+@Data
+@ConfigurationProperties(prefix = "psp.velocity")
+public class VelocityProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Sliding window all limits apply to.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Buckets the window slides by; with 6 buckets a one-minute window moves every 10 seconds.
+     */
+    private int buckets = 6;
+
+    /**
+     * Payment attempts with the same card, across all merchants, per window.
+     */
+    private int maxCardAttempts = 20;
+
+    /**
+     * Acquirer declines of one merchant per window.
+     */
+    private int maxMerchantDeclines = 1000;
+
+    /**
+     * Distinct cards paying at one merchant per window; a burst of new cards is the sign of card testing.
+     */
+    private int maxDistinctCards = 10_000;
+
+    /**
+     * Payment attempts across all cards expected per window at peak; sizes the card attempts sketch.
+     */
+    private long expectedAttemptsPerWindow = 300_000;
+
+    /**
+     * Counters per row of the card attempts count-min sketch (power of two); 0 sizes it from
+     * {@link #expectedAttemptsPerWindow} so that a card is overcounted by at most half of {@link #maxCardAttempts}.
+     * An explicit width too small for that bound fails startup.
+     */
+    private int sketchWidth = 0;
+
+    /**
+     * Rows of the card attempts count-min sketch.
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * Distinct cards per merchant are counted with {@code 2^precision} HyperLogLog registers per bucket.
+     */
+    private int precision = 8;
+
+    /**
+     * Distinct merchants tracked individually; merchants without payments for a whole window are dropped to make
+     * room, and while none is idle further merchants share one set of counters.
+     */
+    private int maxMerchants = 10_000;
+}
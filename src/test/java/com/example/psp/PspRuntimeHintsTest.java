@@ -0,0 +1,53 @@
+package com.example.psp;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.TransactionDetails;
+import com.example.psp.util.LuhnValidator;
+import com.example.psp.util.NotExpiredValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PspRuntimeHints}: the types the native image reaches only through reflection are registered.
+ */
+class PspRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    PspRuntimeHintsTest() {
+        new PspRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void jsonTypes_canBeBoundByJackson() throws ReflectiveOperationException {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(PaymentRequest.class.getMethod("setCardNumber", String.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(TransactionDetails.class.getMethod("getCardToken")).test(hints));
+        // acquirer request and reply records are bound through their accessors
+        Class<?> authorization = Class.forName("com.example.psp.service.HttpAcquirerService$Authorization");
+        Class<?> reply = Class.forName("com.example.psp.service.HttpAcquirerService$Reply");
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(authorization.getMethod("cardNumber")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(reply.getMethod("status")).test(hints));
+    }
+
+    @Test
+    void validatorsAndExceptionHandler_areReflective() throws NoSuchMethodException {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(LuhnValidator.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(NotExpiredValidator.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(GlobalExceptionHandler.class
+                .getMethod("handleValidationExceptions", MethodArgumentNotValidException.class)).test(hints));
+    }
+
+    @Test
+    void binRoutingTable_isIncluded() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("bin-routes.csv").test(hints));
+    }
+}
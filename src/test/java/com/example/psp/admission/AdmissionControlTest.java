@@ -0,0 +1,161 @@
+package com.example.psp.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AdmissionControl} and {@link LoadShedder} with a manual clock.
+ */
+class AdmissionControlTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AdmissionControl admission(AdmissionProperties properties, LoadShedder shedder) {
+        return new AdmissionControl(properties, shedder, registry, clock::get);
+    }
+
+    private static AdmissionProperties properties(double rate, int burst, int maxConcurrent) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getDefaultLimits().setRate(rate);
+        properties.getDefaultLimits().setBurst(burst);
+        properties.getDefaultLimits().setMaxConcurrent(maxConcurrent);
+        return properties;
+    }
+
+    private static AdmissionRejectedException.Reason rejection(AdmissionControl admission, String merchantId) {
+        return assertThrows(AdmissionRejectedException.class, () -> admission.admit(merchantId)).getReason();
+    }
+
+    @Test
+    void burstIsAdmitted_thenRateRefillsTokens() {
+        AdmissionControl admission = admission(properties(10, 3, 100), LoadShedder.disabled());
+
+        for (int i = 0; i < 3; i++) {
+            admission.admit("M1").release();
+        }
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> admission.admit("M1"));
+        assertEquals(AdmissionRejectedException.Reason.RATE, rejected.getReason());
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        // other merchants have their own bucket
+        admission.admit("M2").release();
+
+        clock.addAndGet(Duration.ofMillis(100).toNanos());
+        admission.admit("M1").release();
+        assertEquals(AdmissionRejectedException.Reason.RATE, rejection(admission, "M1"));
+        assertEquals(2.0, registry.get("psp.admission.rejected").tag("reason", "rate").counter().count());
+    }
+
+    @Test
+    void concurrencyLimit_isReleasedWithThePermit() {
+        AdmissionControl admission = admission(properties(1000, 1000, 2), LoadShedder.disabled());
+
+        MerchantLimiter first = admission.admit("M1");
+        admission.admit("M1");
+        assertEquals(2, admission.inFlight("M1"));
+        assertEquals(AdmissionRejectedException.Reason.CONCURRENCY, rejection(admission, "M1"));
+
+        first.release();
+        assertNotNull(admission.admit("M1"));
+    }
+
+    @Test
+    void limitsChangedAtRuntime_applyToTheExistingBucket() {
+        AdmissionProperties properties = properties(1000, 1000, 100);
+        AdmissionProperties.Limits strict = new AdmissionProperties.Limits();
+        strict.setRate(1);
+        strict.setBurst(1);
+        properties.getMerchants().put("M1", strict);
+        AdmissionControl admission = admission(properties, LoadShedder.disabled());
+
+        admission.admit("M1").release();
+        assertEquals(AdmissionRejectedException.Reason.RATE, rejection(admission, "M1"));
+
+        // the exhausted bucket stays exhausted, but refills at the default rate
+        admission.resetLimits("M1");
+        assertEquals(AdmissionRejectedException.Reason.RATE, rejection(admission, "M1"));
+        clock.addAndGet(Duration.ofMillis(2).toNanos());
+        admission.admit("M1").release();
+
+        AdmissionProperties.Limits serial = admission.limits("M1");
+        serial.setMaxConcurrent(1);
+        admission.setLimits("M1", serial);
+        admission.admit("M1");
+        assertEquals(AdmissionRejectedException.Reason.CONCURRENCY, rejection(admission, "M1"));
+        assertEquals(1, admission.overrides().get("M1").getMaxConcurrent());
+
+        serial.setBurst(0);
+        assertThrows(IllegalArgumentException.class, () -> admission.setLimits("M1", serial));
+    }
+
+    @Test
+    void merchantsBeyondTheLimit_shareTheDefaultLimits() {
+        AdmissionProperties properties = properties(1000, 1000, 1);
+        properties.setMaxMerchants(1);
+        AdmissionControl admission = admission(properties, LoadShedder.disabled());
+
+        admission.admit("M1");
+        admission.admit("M2");
+        assertEquals(AdmissionRejectedException.Reason.CONCURRENCY, rejection(admission, "M3"));
+        assertEquals(AdmissionRejectedException.Reason.CONCURRENCY, rejection(admission, "M1"));
+    }
+
+    @Test
+    void idleMerchant_isDroppedToMakeRoom() {
+        AdmissionProperties properties = properties(1000, 1000, 1);
+        properties.setMaxMerchants(1);
+        AdmissionControl admission = admission(properties, LoadShedder.disabled());
+
+        admission.admit("M1").release();
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        MerchantLimiter m2 = admission.admit("M2");
+        assertEquals(1, admission.inFlight("M2"));
+        assertEquals(AdmissionRejectedException.Reason.CONCURRENCY, rejection(admission, "M2"));
+
+        // M2 is busy, so M1 now shares the overflow limiter
+        admission.admit("M1");
+        assertEquals(0, admission.inFlight("M1"));
+        m2.release();
+    }
+
+    @Test
+    void slowAcquirers_shedAGrowingShareOfPayments() {
+        AdmissionProperties properties = properties(1_000_000, 1_000_000, 1_000_000);
+        properties.getShedding().setLatencyThreshold(Duration.ofMillis(100));
+        properties.getShedding().setSmoothing(0.5);
+        LoadShedder shedder = new LoadShedder(properties, registry);
+        AdmissionControl admission = admission(properties, shedder);
+
+        for (int i = 0; i < 20; i++) {
+            shedder.recordAcquirerLatency(Duration.ofMillis(50).toNanos());
+        }
+        assertEquals(0.0, shedder.shedRatio());
+
+        for (int i = 0; i < 20; i++) {
+            shedder.recordAcquirerLatency(Duration.ofMillis(150).toNanos());
+        }
+        assertEquals(0.5, shedder.shedRatio(), 0.01);
+
+        for (int i = 0; i < 20; i++) {
+            shedder.recordAcquirerLatency(Duration.ofSeconds(1).toNanos());
+        }
+        assertEquals(0.9, shedder.shedRatio(), 1e-9);
+
+        int shed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            try {
+                admission.admit("M1").release();
+            } catch (AdmissionRejectedException e) {
+                assertTrue(e.isShed());
+                shed++;
+            }
+        }
+        assertEquals(9000, shed, 300);
+        assertEquals(0.9, registry.get("psp.admission.shed.ratio").gauge().value(), 1e-9);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.psp.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests the default exposure of the actuator: only on the management port, with a read-only
+ * {@code /actuator/admission}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class AdmissionEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private int managementStatus(HttpMethod method, String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.exchange("http://127.0.0.1:" + managementPort + "/actuator" + path, method,
+                new HttpEntity<>(method == HttpMethod.POST ? "{\"rate\": 0.01}" : null, headers), String.class)
+                .getStatusCode().value();
+    }
+
+    @Test
+    void actuator_isNotServedOnTheApplicationPort() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isNotFound());
+        assertEquals(200, managementStatus(HttpMethod.GET, "/health"));
+    }
+
+    @Test
+    void limitChanges_areNotExposedByDefault() {
+        assertEquals(200, managementStatus(HttpMethod.GET, "/admission/M-READONLY"));
+        assertEquals(405, managementStatus(HttpMethod.POST, "/admission/M-READONLY"));
+        assertEquals(405, managementStatus(HttpMethod.DELETE, "/admission/M-READONLY"));
+    }
+}
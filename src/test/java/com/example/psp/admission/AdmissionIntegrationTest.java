@@ -0,0 +1,107 @@
+package com.example.psp.admission;
+
+import com.example.psp.model.PaymentRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for admission control on {@code POST /payments} and the {@code /actuator/admission} endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "psp.admission.endpoint-writable=true",
+        "psp.admission.merchants.M-LIMITED.rate=0.01",
+        "psp.admission.merchants.M-LIMITED.burst=2"
+})
+@AutoConfigureMockMvc
+class AdmissionIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private String payment(String cardNumber, String merchantId) throws Exception {
+        return objectMapper.writeValueAsString(
+                new PaymentRequest(cardNumber, "12/30", "123", 10.0, "USD", merchantId));
+    }
+
+    private ResponseEntity<String> actuator(HttpMethod method, String path, String json) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.exchange("http://127.0.0.1:" + managementPort + "/actuator" + path, method,
+                new HttpEntity<>(json, headers), String.class);
+    }
+
+    @Test
+    void merchantOverItsRate_getsTooManyRequestsBeforeValidation() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                            .content(payment("4242424242424242", "M-LIMITED")))
+                    .andExpect(status().isOk());
+        }
+
+        // an invalid card is not validated once the merchant is over its limit
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(payment("4111111111111112", "M-LIMITED")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.errors[0].field").value("merchantId"))
+                .andExpect(jsonPath("$.errors[0].message").value("Rate limit exceeded for merchant"));
+
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(payment("4242424242424242", "M-OTHER")))
+                .andExpect(status().isOk());
+        assertEquals(0, admissionControl.inFlight("M-OTHER"));
+    }
+
+    @Test
+    void limitsChangedThroughActuator_takeEffectImmediately() throws Exception {
+        ResponseEntity<String> configured = actuator(HttpMethod.POST, "/admission/M-RUNTIME",
+                "{\"rate\": 0.01, \"burst\": 1}");
+        assertEquals(200, configured.getStatusCode().value());
+        assertEquals(1, objectMapper.readTree(configured.getBody()).path("burst").asInt());
+        JsonNode current = objectMapper.readTree(actuator(HttpMethod.GET, "/admission/M-RUNTIME", null).getBody());
+        assertEquals(0.01, current.path("limits").path("rate").asDouble(), 1e-9);
+
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(payment("4242424242424242", "M-RUNTIME")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(payment("4242424242424242", "M-RUNTIME")))
+                .andExpect(status().isTooManyRequests());
+
+        assertTrue(actuator(HttpMethod.DELETE, "/admission/M-RUNTIME", null).getStatusCode().is2xxSuccessful());
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(payment("4242424242424242", "M-RUNTIME")))
+                .andExpect(status().isOk());
+
+        assertEquals(400, actuator(HttpMethod.POST, "/admission/M-RUNTIME", "{\"maxConcurrent\": 0}")
+                .getStatusCode().value());
+    }
+}
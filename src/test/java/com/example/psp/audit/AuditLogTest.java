@@ -0,0 +1,163 @@
+package com.example.psp.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AuditLog}: records are written as JSON lines in order, and a full ring buffer either drops
+ * and counts events or blocks the producer, depending on the overflow policy.
+ */
+class AuditLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void events_areWrittenAsJsonLines() throws Exception {
+        StringWriter output = new StringWriter();
+        AuditLog auditLog = new AuditLog(new AuditProperties(), output);
+        String transactionId = UUID.randomUUID().toString();
+
+        auditLog.created(transactionId, "M\"1", 12.5, "EUR", "A");
+        auditLog.completed(transactionId, "A", "Approved");
+        auditLog.shutdown();
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        JsonNode created = objectMapper.readTree(lines[0]);
+        assertEquals("CREATED", created.get("event").asText());
+        assertEquals(transactionId, created.get("transactionId").asText());
+        assertEquals("M\"1", created.get("merchantId").asText());
+        assertEquals(12.5, created.get("amount").asDouble());
+        assertEquals("EUR", created.get("currency").asText());
+        assertEquals("Pending", created.get("status").asText());
+        assertTrue(created.has("ts"));
+
+        JsonNode completed = objectMapper.readTree(lines[1]);
+        assertEquals("COMPLETED", completed.get("event").asText());
+        assertEquals("Approved", completed.get("status").asText());
+        assertFalse(completed.has("merchantId"));
+    }
+
+    @Test
+    void merchantIds_areWrittenHoweverManyMerchantsThereAre() throws Exception {
+        AtomicLong lines = new AtomicLong();
+        AtomicLong withoutMerchant = new AtomicLong();
+        // the consumer writes one whole line per call
+        Writer output = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                lines.incrementAndGet();
+                if (new String(buffer, offset, length).contains("\"merchantId\":null")) {
+                    withoutMerchant.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AuditProperties properties = new AuditProperties();
+        properties.setOverflow(AuditProperties.Overflow.BLOCK);
+        AuditLog auditLog = new AuditLog(properties, output);
+
+        int merchants = 200_000;
+        for (int i = 0; i < merchants; i++) {
+            auditLog.created(UUID.randomUUID().toString(), "M" + i, 1.0, "EUR", "A");
+        }
+        auditLog.shutdown();
+
+        assertEquals(merchants, lines.get());
+        assertEquals(0, withoutMerchant.get());
+    }
+
+    @Test
+    void fullRing_dropsAndCountsEvents() throws Exception {
+        BlockingWriter output = new BlockingWriter();
+        AuditLog auditLog = new AuditLog(properties(AuditProperties.Overflow.DROP), output);
+
+        for (int i = 0; i < 20; i++) {
+            auditLog.completed(UUID.randomUUID().toString(), "A", "Approved");
+        }
+        assertTrue(auditLog.dropped() > 0);
+
+        output.release.countDown();
+        auditLog.shutdown();
+        assertEquals(20, output.lines() + auditLog.dropped());
+    }
+
+    @Test
+    void fullRing_blocksProducerWithBlockPolicy() throws Exception {
+        BlockingWriter output = new BlockingWriter();
+        AuditLog auditLog = new AuditLog(properties(AuditProperties.Overflow.BLOCK), output);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                auditLog.completed(UUID.randomUUID().toString(), "A", "Approved");
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive(), "producer should wait for free slots");
+
+        output.release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive());
+        auditLog.shutdown();
+        assertEquals(20, output.lines());
+        assertEquals(0, auditLog.dropped());
+    }
+
+    private static AuditProperties properties(AuditProperties.Overflow overflow) {
+        AuditProperties properties = new AuditProperties();
+        properties.setCapacity(4);
+        properties.setBatchSize(1);
+        properties.setOverflow(overflow);
+        return properties;
+    }
+
+    /**
+     * Holds the consumer in its first flush until released.
+     */
+    private static final class BlockingWriter extends Writer {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final StringBuilder written = new StringBuilder();
+
+        @Override
+        public synchronized void write(char[] buffer, int offset, int length) {
+            written.append(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        synchronized long lines() {
+            return written.chars().filter(c -> c == '\n').count();
+        }
+    }
+}
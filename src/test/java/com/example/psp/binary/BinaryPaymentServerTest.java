@@ -0,0 +1,199 @@
+package com.example.psp.binary;
+
+import com.example.psp.admission.AdmissionControl;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.service.PaymentService;
+import com.example.psp.service.TransactionQueryService;
+import com.example.psp.util.TransactionIds;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the binary payment protocol over a real socket: approved, denied and invalid payments,
+ * pipelined requests and the per-connection in-flight cap, and a corrupt frame closing the connection.
+ */
+@SpringBootTest(properties = {"psp.binary.enabled=true", "psp.binary.port=0", "psp.velocity.enabled=false"})
+class BinaryPaymentServerTest {
+
+    @Autowired
+    private BinaryPaymentServer server;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(new InetSocketAddress("localhost", server.port()));
+    }
+
+    private static void send(SocketChannel channel, ByteBuffer frames) throws IOException {
+        frames.flip();
+        while (frames.hasRemaining()) {
+            channel.write(frames);
+        }
+    }
+
+    private static ByteBuffer receive(SocketChannel channel, int results) throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(results * BinaryProtocol.RESPONSE_FRAME);
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) throw new IOException("connection closed");
+        }
+        return in.flip();
+    }
+
+    private static ByteBuffer request(long correlationId, String cardNumber, long amountMinor, String merchantId) {
+        ByteBuffer out = ByteBuffer.allocate(BinaryProtocol.REQUEST_FRAME);
+        BinaryProtocol.encodeRequest(out, correlationId, cardNumber, 12, 30, "123", amountMinor, 978, merchantId);
+        return out;
+    }
+
+    @Test
+    void payments_areProcessedAndStoredLikeJsonPayments() throws IOException {
+        try (SocketChannel channel = connect()) {
+            send(channel, request(7, "4242424242424242", 12_345, "M-BINARY"));
+            ByteBuffer result = receive(channel, 1);
+
+            assertEquals(BinaryProtocol.RESPONSE_LENGTH, result.getInt(0));
+            assertEquals(BinaryProtocol.TYPE_RESULT, result.get(5));
+            assertEquals(BinaryProtocol.APPROVED, result.get(6));
+            assertEquals(7, result.getLong(8));
+            String transactionId = TransactionIds.format(result.getLong(16), result.getLong(24));
+
+            var details = transactionQueryService.findById(transactionId).orElseThrow();
+            assertEquals("M-BINARY", details.getMerchantId());
+            assertEquals(123.45, details.getAmount(), 1e-9);
+            assertEquals("EUR", details.getCurrency());
+            assertEquals("Approved", details.getStatus());
+
+            send(channel, request(8, "4111111111111111", 100, "M-BINARY"));
+            assertEquals(BinaryProtocol.DENIED, receive(channel, 1).get(6));
+        }
+    }
+
+    @Test
+    void invalidFields_areReportedByFieldCode() throws IOException {
+        try (SocketChannel channel = connect()) {
+            send(channel, request(1, "4111111111111112", 100, "M-BINARY"));
+            ByteBuffer result = receive(channel, 1);
+            assertEquals(BinaryProtocol.INVALID, result.get(6));
+            assertEquals(BinaryProtocol.FIELD_CARD_NUMBER, result.get(7));
+            assertEquals(0, result.getLong(16));
+
+            send(channel, request(2, "4242424242424242", 0, "M-BINARY"));
+            assertEquals(BinaryProtocol.FIELD_AMOUNT, receive(channel, 1).get(7));
+
+            ByteBuffer badCurrency = ByteBuffer.allocate(BinaryProtocol.REQUEST_FRAME);
+            BinaryProtocol.encodeRequest(badCurrency, 3, "4242424242424242", 12, 30, "123", 100, 1, "M-BINARY");
+            send(channel, badCurrency);
+            assertEquals(BinaryProtocol.FIELD_CURRENCY, receive(channel, 1).get(7));
+        }
+    }
+
+    @Test
+    void pipelinedRequests_getOneResultEach() throws IOException {
+        int count = 500;
+        ByteBuffer frames = ByteBuffer.allocate(count * BinaryProtocol.REQUEST_FRAME);
+        for (int i = 0; i < count; i++) {
+            BinaryProtocol.encodeRequest(frames, i, "4242424242424242", 1, 31, "1234", 100 + i, 840, "M-PIPELINE");
+        }
+        try (SocketChannel channel = connect()) {
+            send(channel, frames);
+            ByteBuffer results = receive(channel, count);
+
+            Set<Long> correlationIds = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                int offset = i * BinaryProtocol.RESPONSE_FRAME;
+                assertEquals(BinaryProtocol.APPROVED, results.get(offset + 6));
+                correlationIds.add(results.getLong(offset + 8));
+            }
+            assertEquals(count, correlationIds.size());
+        }
+    }
+
+    @Test
+    void pipelining_stopsReadingAtMaxInFlight() throws Exception {
+        BlockingQueue<CompletableFuture<PaymentResponse>> calls = new LinkedBlockingQueue<>();
+        PaymentService pending = new PaymentService() {
+            @Override
+            public PaymentResponse processPayment(PaymentRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PaymentResponse processPayment(PaymentRequest request, String idempotencyKey) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request) {
+                CompletableFuture<PaymentResponse> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+
+            @Override
+            public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request, String idempotencyKey) {
+                return processPaymentAsync(request);
+            }
+        };
+        BinaryProperties properties = new BinaryProperties();
+        properties.setEnabled(true);
+        properties.setPort(0);
+        properties.setMaxInFlight(2);
+        BinaryPaymentServer limited = new BinaryPaymentServer(properties, pending, admissionControl);
+        ByteBuffer frames = ByteBuffer.allocate(5 * BinaryProtocol.REQUEST_FRAME);
+        for (int i = 0; i < 5; i++) {
+            BinaryProtocol.encodeRequest(frames, i, "4242424242424242", 1, 31, "1234", 100, 840, "M-PIPELINE");
+        }
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", limited.port()))) {
+            send(channel, frames);
+            List<CompletableFuture<PaymentResponse>> started = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                started.add(calls.poll(5, TimeUnit.SECONDS));
+            }
+            assertNull(calls.poll(200, TimeUnit.MILLISECONDS));
+
+            started.forEach(call -> call.complete(new PaymentResponse(null, "Approved", null)));
+            assertEquals(BinaryProtocol.APPROVED, receive(channel, 2).get(6));
+            for (int i = 0; i < 3; i++) {
+                CompletableFuture<PaymentResponse> call = calls.poll(5, TimeUnit.SECONDS);
+                assertNotNull(call);
+                call.complete(new PaymentResponse(null, "Denied", null));
+            }
+            assertEquals(BinaryProtocol.DENIED, receive(channel, 3).get(6));
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void corruptFrame_isRejectedAndClosesTheConnection() throws IOException {
+        try (SocketChannel channel = connect()) {
+            ByteBuffer garbage = ByteBuffer.allocate(8).putInt(3).putInt(0);
+            send(channel, garbage);
+            ByteBuffer result = receive(channel, 1);
+            assertEquals(BinaryProtocol.INVALID, result.get(6));
+            assertEquals(BinaryProtocol.FIELD_FRAME, result.get(7));
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.psp.cluster;
+
+import com.example.psp.idempotency.Fingerprint;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.idempotency.IdempotencyKeyException;
+import com.example.psp.idempotency.IdempotencyProperties;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.store.InMemoryTransactionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ClusterIdempotency}: a key is kept by its owner node, so a retry sent to another node of the
+ * cluster finds the first attempt.
+ */
+class ClusterIdempotencyTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Fingerprint REQUEST = new Fingerprint(0, 1);
+    private static final Fingerprint OTHER_REQUEST = new Fingerprint(0, 2);
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+    private final List<IdempotencyGuard> guards = new ArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void startCluster() {
+        for (int i = 0; i < 2; i++) {
+            ClusterProperties properties = new ClusterProperties();
+            properties.setPort(0);
+            properties.setSecret(SECRET);
+            properties.setHeartbeatInterval(Duration.ofMillis(50));
+            properties.setFailureTimeout(Duration.ofMillis(1000));
+            if (!nodes.isEmpty()) properties.setMembers(List.of(nodes.get(0).address()));
+            InMemoryTransactionStore local = new InMemoryTransactionStore();
+            ClusterNode node = new ClusterNode(properties, local);
+            node.start();
+            nodes.add(node);
+            guards.add(new IdempotencyGuard(new IdempotencyProperties(),
+                    new ClusterIdempotency(new ClusteredTransactionStore(local, node))));
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!nodes.stream().allMatch(n -> n.ring().nodes().size() == 2)) {
+            assertTrue(System.nanoTime() < deadline, "ring not formed in time");
+            Thread.onSpinWait();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ClusterNode::close);
+    }
+
+    /**
+     * A key kept by the second node.
+     */
+    private String remoteKey() {
+        String owner = nodes.get(1).nodeId();
+        return IntStream.range(0, 1_000).mapToObj(i -> "key-" + i)
+                .filter(key -> owner.equals(nodes.get(0).ring().owner("M1\n" + key)))
+                .findFirst().orElseThrow();
+    }
+
+    private CompletableFuture<PaymentResponse> count(CompletableFuture<PaymentResponse> response) {
+        calls.incrementAndGet();
+        return response;
+    }
+
+    @Test
+    void retryOnOtherNode_getsTheFirstResponse() {
+        String key = remoteKey();
+        PaymentResponse first = guards.get(0).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-1", "Approved", "")))).join();
+
+        PaymentResponse onOwner = guards.get(1).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-2", "Approved", "")))).join();
+        PaymentResponse again = guards.get(0).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-3", "Approved", "")))).join();
+
+        assertEquals("tx-1", first.getTransactionId());
+        assertEquals("tx-1", onOwner.getTransactionId());
+        assertEquals("tx-1", again.getTransactionId());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void duplicateOnOwner_waitsForAttemptRunningOnOtherNode() {
+        String key = remoteKey();
+        CompletableFuture<PaymentResponse> acquirer = new CompletableFuture<>();
+        CompletableFuture<PaymentResponse> first = guards.get(0).execute("M1", key, REQUEST, () -> count(acquirer));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (calls.get() == 0) {
+            assertTrue(System.nanoTime() < deadline, "attempt not started in time");
+            Thread.onSpinWait();
+        }
+
+        CompletableFuture<PaymentResponse> duplicate = guards.get(1).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-2", "Approved", ""))));
+        assertFalse(duplicate.isDone());
+        acquirer.complete(new PaymentResponse("tx-1", "Approved", ""));
+
+        assertEquals("tx-1", first.join().getTransactionId());
+        assertEquals("tx-1", duplicate.join().getTransactionId());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedAttemptOnOtherNode_canBeRetried() {
+        String key = remoteKey();
+        CompletableFuture<PaymentResponse> failed = guards.get(0).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.failedFuture(new IllegalStateException("boom"))));
+        assertThrows(CompletionException.class, failed::join);
+
+        // waits on the owner until the failure is reported there, then runs again
+        PaymentResponse retried = guards.get(0).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-2", "Approved", "")))).join();
+
+        assertEquals("tx-2", retried.getTransactionId());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reusedKeyOnOtherNode_isRejected() {
+        String key = remoteKey();
+        guards.get(1).execute("M1", key, REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-1", "Approved", "")))).join();
+
+        CompletionException error = assertThrows(CompletionException.class, () -> guards.get(0).execute("M1", key, OTHER_REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse()))).join());
+        assertInstanceOf(IdempotencyKeyException.class, error.getCause());
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.psp.cluster;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import com.example.psp.store.InMemoryTransactionStore;
+import com.example.psp.store.TransactionCursor;
+import com.example.psp.store.TransactionQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ClusteredTransactionStore} with several in-process nodes talking over loopback:
+ * routing by owner, merchant paging across nodes, handover when nodes join and leave, and the secret handshake.
+ */
+class ClusteredTransactionStoreTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private record Node(InMemoryTransactionStore local, ClusterNode cluster, ClusteredTransactionStore store) {
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Node node : nodes) {
+            node.cluster().close();
+        }
+    }
+
+    private Node startNode() {
+        return startNode(new InMemoryTransactionStore());
+    }
+
+    private Node startNode(InMemoryTransactionStore local) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setPort(0);
+        properties.setSecret(SECRET);
+        properties.setHeartbeatInterval(Duration.ofMillis(50));
+        properties.setFailureTimeout(Duration.ofMillis(1000));
+        properties.setRequestTimeout(Duration.ofSeconds(2));
+        if (!nodes.isEmpty()) properties.setMembers(List.of(nodes.get(0).cluster().address()));
+        ClusterNode cluster = new ClusterNode(properties, local);
+        cluster.start();
+        Node node = new Node(local, cluster, new ClusteredTransactionStore(local, cluster));
+        nodes.add(node);
+        return node;
+    }
+
+    private List<Node> startCluster(int size) {
+        for (int i = 0; i < size; i++) {
+            startNode();
+        }
+        awaitRing();
+        return nodes;
+    }
+
+    private void awaitRing() {
+        await(() -> nodes.stream().allMatch(n -> n.cluster().ring().nodes().size() == nodes.size()));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static Transaction transaction(String merchantId, long createdAt) {
+        PaymentRequest request = new PaymentRequest(null, null, null, 10.0, "EUR", merchantId);
+        return new Transaction(UUID.randomUUID().toString(), request, "Pending", "A", createdAt);
+    }
+
+    private List<Transaction> saveAll(int count, String merchantId) {
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction tx = transaction(merchantId, 1_000 + i / 3);
+            nodes.get(i % nodes.size()).store().save(tx);
+            saved.add(tx);
+        }
+        return saved;
+    }
+
+    private int totalLocal() {
+        return nodes.stream().mapToInt(n -> n.local().size()).sum();
+    }
+
+    @Test
+    void transactions_areStoredOnTheirOwnerAndReadableFromAnyNode() {
+        startCluster(3);
+        List<Transaction> saved = saveAll(300, "M1");
+
+        assertEquals(300, totalLocal());
+        for (Node node : nodes) {
+            assertTrue(node.local().size() > 50, "every node holds a share");
+            node.local().forEach(tx -> assertEquals(node.cluster().nodeId(),
+                    node.cluster().ring().owner(tx.getTransactionId())));
+        }
+        for (Transaction tx : saved) {
+            for (Node node : nodes) {
+                assertEquals("M1", node.store().findById(tx.getTransactionId()).orElseThrow()
+                        .getRequest().getMerchantId());
+            }
+        }
+
+        Transaction first = saved.get(0);
+        assertTrue(nodes.get(1).store().updateStatus(first.getTransactionId(), "Approved"));
+        assertEquals("Approved", nodes.get(2).store().findById(first.getTransactionId()).orElseThrow().getStatus());
+        assertTrue(nodes.get(2).store().remove(first.getTransactionId()));
+        assertTrue(nodes.get(0).store().findById(first.getTransactionId()).isEmpty());
+        assertFalse(nodes.get(0).store().updateStatus(UUID.randomUUID().toString(), "Approved"));
+    }
+
+    @Test
+    void merchantPages_coverAllNodesInTimeOrderWithoutDuplicates() {
+        startCluster(3);
+        List<Transaction> saved = saveAll(250, "M1");
+        saveAll(40, "M2");
+
+        Set<String> seen = new HashSet<>();
+        List<Long> times = new ArrayList<>();
+        TransactionCursor cursor = null;
+        int pages = 0;
+        do {
+            TransactionQuery query = new TransactionQuery("M1", 0, Long.MAX_VALUE, null, cursor, 30);
+            cursor = nodes.get(pages % 3).store().findByMerchant(query, tx -> {
+                assertTrue(seen.add(tx.getTransactionId()), "duplicate " + tx.getTransactionId());
+                times.add(tx.getCreatedAt());
+            });
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(250, seen.size());
+        assertEquals(9, pages);
+        for (int i = 1; i < times.size(); i++) {
+            assertTrue(times.get(i - 1) <= times.get(i), "oldest first");
+        }
+        saved.forEach(tx -> assertTrue(seen.contains(tx.getTransactionId())));
+    }
+
+    @Test
+    void joiningNode_receivesItsShare() {
+        startCluster(3);
+        List<Transaction> saved = saveAll(400, "M1");
+
+        Node joined = startNode();
+        awaitRing();
+        await(() -> nodes.stream().allMatch(n -> {
+            boolean[] owned = {true};
+            n.local().forEach(tx -> owned[0] &= n.cluster().ring().owner(tx.getTransactionId())
+                    .equals(n.cluster().nodeId()));
+            return owned[0];
+        }));
+
+        assertEquals(400, totalLocal());
+        assertTrue(joined.local().size() > 50, "new node took over a share: " + joined.local().size());
+        for (Transaction tx : saved) {
+            assertTrue(joined.store().findById(tx.getTransactionId()).isPresent());
+        }
+    }
+
+    @Test
+    void statusUpdatedDuringHandover_reachesTheNewOwner() throws Exception {
+        Node first = startCluster(1).get(0);
+        List<Transaction> saved = saveAll(100, "M1");
+
+        // the joining node holds the handed-over batch at the door until the update went through
+        CountDownLatch arrived = new CountDownLatch(1);
+        CountDownLatch admit = new CountDownLatch(1);
+        Node joined = startNode(new InMemoryTransactionStore() {
+            @Override
+            public void save(Transaction transaction) {
+                arrived.countDown();
+                try {
+                    assertTrue(admit.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                super.save(transaction);
+            }
+        });
+        assertTrue(arrived.await(10, TimeUnit.SECONDS));
+        String moving = saved.stream().map(Transaction::getTransactionId)
+                .filter(id -> joined.cluster().ring().owner(id).equals(joined.cluster().nodeId()))
+                .findFirst().orElseThrow();
+
+        assertTrue(joined.store().updateStatus(moving, "Approved"));
+        admit.countDown();
+
+        await(() -> joined.local().findById(moving).map(tx -> "Approved".equals(tx.getStatus())).orElse(false));
+        assertTrue(first.local().findById(moving).isEmpty());
+        assertEquals(100, totalLocal());
+    }
+
+    @Test
+    void leavingNode_handsOverItsTransactions() {
+        startCluster(3);
+        List<Transaction> saved = saveAll(300, "M1");
+
+        Node leaving = nodes.remove(2);
+        assertTrue(leaving.local().size() > 0);
+        leaving.cluster().close();
+        assertEquals(0, leaving.local().size());
+        awaitRing();
+
+        assertEquals(300, totalLocal());
+        for (Transaction tx : saved) {
+            assertTrue(nodes.get(0).store().findById(tx.getTransactionId()).isPresent());
+        }
+    }
+
+    @Test
+    void connectionsWithoutTheSecret_areRefused() throws Exception {
+        Node node = startCluster(1).get(0);
+        Transaction tx = transaction("M1", 1_000);
+
+        byte[] wrongSecret = new byte[32];
+        Arrays.fill(wrongSecret, (byte) 1);
+        try (PeerClient intruder = new PeerClient(node.cluster().address(), Duration.ofSeconds(1), wrongSecret)) {
+            assertThrows(ClusterException.class, () -> intruder.await(ClusterProtocol.PUT,
+                    out -> ClusterProtocol.writeTransaction(out, tx), in -> null));
+        }
+        // a raw frame instead of the handshake is dropped unanswered
+        String address = node.cluster().address();
+        try (Socket socket = new Socket(address.substring(0, address.lastIndexOf(':')),
+                Integer.parseInt(address.substring(address.lastIndexOf(':') + 1)))) {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(frame);
+            out.writeInt(0);
+            out.writeLong(1);
+            out.writeByte(ClusterProtocol.PUT);
+            ClusterProtocol.writeTransaction(out, tx);
+            socket.getOutputStream().write(frame.toByteArray());
+            socket.setSoTimeout(5_000);
+            InputStream in = socket.getInputStream();
+            in.readNBytes(16);
+            assertEquals(-1, in.read());
+        }
+        assertEquals(0, node.local().size());
+    }
+
+    @Test
+    void cursors_mapToEachNodesLocalPosition() {
+        TransactionCursor global = ClusteredTransactionStore.globalCursor(new TransactionCursor(5, 42), 1);
+        assertEquals(new TransactionCursor(5, Long.MAX_VALUE), ClusteredTransactionStore.localCursor(global, 0));
+        assertEquals(new TransactionCursor(5, 42), ClusteredTransactionStore.localCursor(global, 1));
+        assertEquals(new TransactionCursor(5, Long.MIN_VALUE), ClusteredTransactionStore.localCursor(global, 2));
+        assertEquals(TransactionCursor.before(7), ClusteredTransactionStore.localCursor(TransactionCursor.before(7), 2));
+        assertEquals(global, TransactionCursor.parse(global.encode()));
+    }
+}
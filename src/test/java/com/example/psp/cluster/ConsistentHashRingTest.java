@@ -0,0 +1,59 @@
+package com.example.psp.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConsistentHashRing}: stable ownership, even spread and minimal movement when a node joins.
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 40_000;
+
+    @Test
+    void ownership_doesNotDependOnMemberOrder() {
+        ConsistentHashRing a = ConsistentHashRing.of(List.of("n1", "n2", "n3"), 128);
+        ConsistentHashRing b = ConsistentHashRing.of(List.of("n3", "n1", "n2"), 128);
+        for (int i = 0; i < 1000; i++) {
+            String key = UUID.randomUUID().toString();
+            assertEquals(a.owner(key), b.owner(key));
+        }
+        assertEquals(List.of("n1", "n2", "n3"), a.nodes());
+        assertEquals(1, a.rank("n2"));
+        assertEquals(-1, a.rank("n4"));
+    }
+
+    @Test
+    void keys_areSpreadEvenly() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("n1", "n2", "n3", "n4"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner(UUID.randomUUID().toString()), 1, Integer::sum);
+        }
+        for (int count : counts.values()) {
+            assertEquals(KEYS / 4.0, count, KEYS / 4.0 * 0.2, counts.toString());
+        }
+    }
+
+    @Test
+    void joiningNode_takesOnlyItsShare() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of("n1", "n2", "n3"), 128);
+        ConsistentHashRing after = ConsistentHashRing.of(List.of("n1", "n2", "n3", "n4"), 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = UUID.randomUUID().toString();
+            String owner = after.owner(key);
+            if (!owner.equals(before.owner(key))) {
+                assertEquals("n4", owner, "keys only move to the new node");
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 4.0, moved, KEYS / 4.0 * 0.2);
+    }
+}
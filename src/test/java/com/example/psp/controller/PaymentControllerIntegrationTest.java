@@ -1,6 +1,7 @@
 package com.example.psp.controller;
 
 import com.example.psp.model.PaymentRequest;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,7 +43,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentApproved() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4242424242424242", // If the sum is even -> Approved
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "USD",
@@ -59,7 +67,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentDenied() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4111111111111111", // If the sum is odd -> Denied
-                "12/25",
+                "12/30",
                 "123",
                 50.0,
                 "USD",
@@ -84,7 +92,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentMissingCardNumber() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "", // cardNumber is empty
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "USD",
@@ -108,7 +116,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectCardNumber() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4111111111111112",
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "USD",
@@ -132,7 +140,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectCardNumberWithLetters() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "41111111111111BB",
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "USD",
@@ -171,6 +179,30 @@ class PaymentControllerIntegrationTest {
                 .andExpect(jsonPath("$.errors[0].message").value("expiryDate must be in MM/YY or MM/YYYY format and month between 01 and 12"));
     }
 
+    /**
+     * Expired card
+     * @throws Exception
+     */
+
+    @Test
+    void testCreatePaymentExpiredCard() throws Exception {
+        PaymentRequest request = new PaymentRequest(
+                "4242424242424242",
+                "01/20",
+                "123",
+                100.0,
+                "USD",
+                "M123"
+        );
+
+        mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("expiryDate"))
+                .andExpect(jsonPath("$.errors[0].message").value("Card has expired"));
+    }
+
     /**
      * Incorrect CVV
      * @throws Exception
@@ -180,7 +212,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectCVV() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4242424242424242",
-                "12/25",
+                "12/30",
                 "",
                 100.0,
                 "USD",
@@ -204,7 +236,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectAmount() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4242424242424242",
-                "12/25",
+                "12/30",
                 "123",
                 -100.0,
                 "USD",
@@ -228,7 +260,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectCurrency() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4242424242424242",
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "",
@@ -252,7 +284,7 @@ class PaymentControllerIntegrationTest {
     void testCreatePaymentIncorrectMerchantId() throws Exception {
         PaymentRequest request = new PaymentRequest(
                 "4242424242424242",
-                "12/25",
+                "12/30",
                 "123",
                 100.0,
                 "USD",
@@ -267,4 +299,179 @@ class PaymentControllerIntegrationTest {
                 .andExpect(jsonPath("$.errors[0].message").value("Merchant ID is required"));
     }
 
-}
\ No newline at end of file
+    /**
+     * Batch with a valid, an invalid and a malformed line returns one result line per input line
+     * @throws Exception
+     */
+
+    @Test
+    void testBatchPaymentsReportPerLineResults() throws Exception {
+        String approved = objectMapper.writeValueAsString(new PaymentRequest(
+                "4242424242424242", "12/30", "123", 100.0, "USD", "M123"));
+        String invalidCard = objectMapper.writeValueAsString(new PaymentRequest(
+                "4111111111111112", "12/30", "123", 100.0, "USD", "M123"));
+        String body = approved + "\n" + invalidCard + "\n" + "{not json\n";
+
+        MvcResult started = mockMvc.perform(post("/payments/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String output = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        lines.sort((a, b) -> Long.compare(a.get("line").asLong(), b.get("line").asLong()));
+
+        assertEquals(3, lines.size());
+        assertEquals("Approved", lines.get(0).get("status").asText());
+        assertEquals("Processed by Acquirer A", lines.get(0).get("message").asText());
+        assertTrue(lines.get(0).has("transactionId"));
+        assertEquals("cardNumber", lines.get(1).get("errors").get(0).get("field").asText());
+        assertEquals("Invalid card number", lines.get(1).get("errors").get(0).get("message").asText());
+        assertEquals("Malformed JSON", lines.get(2).get("errors").get(0).get("message").asText());
+    }
+
+    /**
+     * A retry with the same Idempotency-Key returns the original transaction;
+     * reusing the key for a different request is rejected with 422
+     * @throws Exception
+     */
+    @Test
+    void testIdempotencyKeyReturnsOriginalResponse() throws Exception {
+        String body = objectMapper.writeValueAsString(new PaymentRequest(
+                "4242424242424242", "12/30", "123", 75.0, "USD", "M-IDEMPOTENT"));
+
+        String first = mockMvc.perform(post("/payments")
+                        .header("Idempotency-Key", "order-1001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String transactionId = objectMapper.readTree(first).get("transactionId").asText();
+
+        mockMvc.perform(post("/payments")
+                        .header("Idempotency-Key", "order-1001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value(transactionId))
+                .andExpect(jsonPath("$.status").value("Approved"));
+
+        String otherAmount = objectMapper.writeValueAsString(new PaymentRequest(
+                "4242424242424242", "12/30", "123", 80.0, "USD", "M-IDEMPOTENT"));
+        mockMvc.perform(post("/payments")
+                        .header("Idempotency-Key", "order-1001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherAmount))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errors[0].field").value("Idempotency-Key"));
+    }
+
+    /**
+     * A created transaction can be read back by id without card data; an unknown id returns 404
+     * @throws Exception
+     */
+    @Test
+    void testGetPaymentById() throws Exception {
+        String created = mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PaymentRequest(
+                                "4242424242424242", "12/30", "123", 42.5, "EUR", "M-LOOKUP"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String transactionId = objectMapper.readTree(created).get("transactionId").asText();
+
+        mockMvc.perform(get("/payments/{id}", transactionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value(transactionId))
+                .andExpect(jsonPath("$.merchantId").value("M-LOOKUP"))
+                .andExpect(jsonPath("$.amount").value(42.5))
+                .andExpect(jsonPath("$.currency").value("EUR"))
+                .andExpect(jsonPath("$.status").value("Approved"))
+                .andExpect(jsonPath("$.createdAt").exists())
+                .andExpect(jsonPath("$.cardToken").value(startsWith("tok_")))
+                .andExpect(jsonPath("$.cardNumber").doesNotExist())
+                .andExpect(jsonPath("$.cvv").doesNotExist());
+
+        mockMvc.perform(get("/payments/{id}", "no-such-transaction"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errors[0].field").value("transactionId"));
+    }
+
+    /**
+     * Merchant transactions are listed oldest first in pages linked by nextCursor;
+     * a missing merchantId returns 400
+     * @throws Exception
+     */
+    @Test
+    void testListPaymentsByMerchantWithCursor() throws Exception {
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String response = mockMvc.perform(post("/payments")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new PaymentRequest(
+                                    "4242424242424242", "12/30", "123", 10.0 + i, "USD", "M-LIST"))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            created.add(objectMapper.readTree(response).get("transactionId").asText());
+        }
+
+        JsonNode first = listPayments("merchantId", "M-LIST", "limit", "2");
+        assertEquals(2, first.get("transactions").size());
+        assertEquals(created.get(0), first.get("transactions").get(0).get("transactionId").asText());
+        assertEquals(created.get(1), first.get("transactions").get(1).get("transactionId").asText());
+        assertTrue(first.get("nextCursor").isTextual());
+
+        JsonNode second = listPayments("merchantId", "M-LIST", "limit", "2",
+                "cursor", first.get("nextCursor").asText());
+        assertEquals(1, second.get("transactions").size());
+        assertEquals(created.get(2), second.get("transactions").get(0).get("transactionId").asText());
+        assertFalse(second.has("nextCursor"));
+
+        mockMvc.perform(get("/payments").param("status", "Approved"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("merchantId"));
+    }
+
+    /**
+     * A card retried more than 20 times a minute is declined by the velocity check without reaching the acquirer
+     * @throws Exception
+     */
+    @Test
+    void testRepeatedCardIsDeclinedByVelocityCheck() throws Exception {
+        String payment = objectMapper.writeValueAsString(new PaymentRequest(
+                "5555555555554444", "12/30", "123", 1.0, "USD", "M-VELOCITY"));
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(payment))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.message").value(startsWith("Processed by Acquirer")));
+        }
+
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(payment))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("Denied"))
+                .andExpect(jsonPath("$.message").value("Declined by velocity rule card-attempts"))
+                .andExpect(jsonPath("$.transactionId").exists());
+    }
+
+    private JsonNode listPayments(String... params) throws Exception {
+        var request = get("/payments");
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String output = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(output);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.psp.controller;
+
+import com.example.psp.model.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for {@link SettlementController}: totals and the settlement file follow completed payments.
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SettlementControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private void pay(String cardNumber, double amount) throws Exception {
+        PaymentRequest request = new PaymentRequest(cardNumber, "12/30", "123", amount, "GBP", "M-SETTLE");
+        mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void totalsAndExportFollowCompletedPayments() throws Exception {
+        pay("4242424242424242", 10.10);
+        pay("4242424242424242", 0.20);
+        pay("4111111111111111", 5.00);
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+
+        mockMvc.perform(get("/settlement/totals").param("merchantId", "M-SETTLE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value(today))
+                .andExpect(jsonPath("$.totals.length()").value(2))
+                .andExpect(jsonPath("$.totals[?(@.status == 'Approved')].count").value(2))
+                .andExpect(jsonPath("$.totals[?(@.status == 'Approved')].amount").value(10.30))
+                .andExpect(jsonPath("$.totals[?(@.status == 'Denied')].amount").value(5.0));
+
+        MvcResult export = mockMvc.perform(get("/settlement/export").param("date", today))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("settlement-" + today + ".csv")))
+                .andExpect(content().string(containsString(today + ",M-SETTLE,GBP,A,Approved,2,10.30\n")));
+    }
+
+    @Test
+    void malformedDateIsRejected() throws Exception {
+        mockMvc.perform(get("/settlement/totals").param("date", "14/03/2026"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("date"));
+        mockMvc.perform(get("/settlement/totals").param("date", "2001-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totals").isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.psp.id;
+
+import com.example.psp.util.TransactionIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TimeOrderedIdGenerator}: UUIDv7 layout, creation time read back from the id, ordering
+ * across sequence overflow and clock steps back, and uniqueness of time and sequence across (virtual) threads.
+ */
+class TimeOrderedIdGeneratorTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void ids_areVersion7WithCreationTime() {
+        String id = new TimeOrderedIdGenerator(() -> NOW).next();
+
+        assertTrue(TransactionIds.isCanonical(id));
+        UUID uuid = UUID.fromString(id);
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(NOW, TransactionIds.timestamp(id));
+        assertEquals(id, TransactionIds.format(TransactionIds.mostSignificantBits(id),
+                TransactionIds.leastSignificantBits(id)));
+    }
+
+    @Test
+    void timestamp_isUnknownForOtherIds() {
+        assertEquals(-1, TransactionIds.timestamp(UUID.randomUUID().toString()));
+        assertEquals(-1, TransactionIds.timestamp(new RandomIdGenerator().next()));
+        assertEquals(-1, TransactionIds.timestamp("not-an-id"));
+    }
+
+    @Test
+    void idsOfOneThread_increaseAcrossSequenceOverflowAndClockSteppingBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < TimeOrderedIdGenerator.MAX_SEQUENCE * 3; i++) {
+            ids.add(generator.next());
+        }
+        clock.set(NOW - 1_000);
+        ids.add(generator.next());
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, ids.get(i - 1) + " < " + ids.get(i));
+        }
+        // the thread borrowed from the following milliseconds instead of repeating
+        assertEquals(NOW + 2, TransactionIds.timestamp(ids.get(ids.size() - 1)));
+    }
+
+    @Test
+    void idsOfManyThreads_areUnique() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(generator.next());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8 * 20_000, ids.size());
+    }
+
+    @Test
+    void idsOfManyVirtualThreads_neverShareTimeAndSequence() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW);
+        Set<Long> stamps = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 1_000; t++) {
+            // a fresh virtual thread per payment, as the server runs them
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 10; i++) {
+                    stamps.add(TransactionIds.mostSignificantBits(generator.next()));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // ordered and unique without relying on the random bits
+        assertEquals(10_000, stamps.size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.psp.idempotency;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link IdempotencyGuard}: duplicates share the first attempt, failures can be retried,
+ * keys are scoped per merchant; and for the {@link Fingerprint} of a request.
+ */
+class IdempotencyGuardTest {
+
+    private static final Fingerprint REQUEST = new Fingerprint(0, 1);
+    private static final Fingerprint OTHER_REQUEST = new Fingerprint(0, 2);
+
+    private final IdempotencyGuard guard = new IdempotencyGuard(new IdempotencyProperties());
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void concurrentDuplicate_waitsForInFlightAttempt() {
+        CompletableFuture<PaymentResponse> acquirer = new CompletableFuture<>();
+
+        CompletableFuture<PaymentResponse> first = guard.execute("M1", "key", REQUEST, () -> count(acquirer));
+        CompletableFuture<PaymentResponse> duplicate = guard.execute("M1", "key", REQUEST, () -> count(acquirer));
+        assertFalse(duplicate.isDone());
+
+        acquirer.complete(new PaymentResponse("tx-1", "Approved", "Processed by Acquirer A"));
+
+        assertEquals("tx-1", first.join().getTransactionId());
+        assertEquals("tx-1", duplicate.join().getTransactionId());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedAttempt_isForgotten() {
+        CompletableFuture<PaymentResponse> failed = guard.execute("M1", "key", REQUEST,
+                () -> count(CompletableFuture.failedFuture(new IllegalStateException("boom"))));
+        assertTrue(failed.isCompletedExceptionally());
+
+        PaymentResponse retried = guard.execute("M1", "key", REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-2", "Approved", "")))).join();
+
+        assertEquals("tx-2", retried.getTransactionId());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void keysAreScopedPerMerchant() {
+        guard.execute("M1", "key", REQUEST, () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-1", "Approved", ""))));
+        PaymentResponse other = guard.execute("M2", "key", REQUEST,
+                () -> count(CompletableFuture.completedFuture(new PaymentResponse("tx-2", "Approved", "")))).join();
+
+        assertEquals("tx-2", other.getTransactionId());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reusedKeyWithDifferentRequest_isRejected() {
+        guard.execute("M1", "key", REQUEST, () -> count(CompletableFuture.completedFuture(new PaymentResponse())));
+
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> guard.execute("M1", "key", OTHER_REQUEST, () -> count(new CompletableFuture<>())));
+        assertTrue(e.isReused());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void fingerprint_coversWhatIsPaidButNotTheCvv() {
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 10.0, "USD", "M1");
+        Fingerprint fingerprint = Fingerprint.of(request, "tok_1");
+
+        request.setCvv("456");
+        assertEquals(fingerprint, Fingerprint.of(request, "tok_1"));
+        assertNotEquals(fingerprint, Fingerprint.of(request, "tok_2"));
+        request.setAmount(10.01);
+        assertNotEquals(fingerprint, Fingerprint.of(request, "tok_1"));
+        request.setAmount(10.0);
+        request.setCurrency("EUR");
+        assertNotEquals(fingerprint, Fingerprint.of(request, "tok_1"));
+        // fields are length-prefixed, so moving characters between them changes the digest
+        request.setCurrency("USD");
+        request.setMerchantId("M");
+        request.setExpiryDate("112/30");
+        assertNotEquals(fingerprint, Fingerprint.of(request, "tok_1"));
+    }
+
+    private CompletableFuture<PaymentResponse> count(CompletableFuture<PaymentResponse> response) {
+        calls.incrementAndGet();
+        return response;
+    }
+}
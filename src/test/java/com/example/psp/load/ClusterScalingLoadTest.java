@@ -0,0 +1,125 @@
+package com.example.psp.load;
+
+import com.example.psp.PspApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of {@code POST /payments} against clusters of 1 to {@code load.nodes} (4) nodes, each its own JVM with
+ * {@code psp.cluster.enabled=true}, joined through the first node. The users are spread evenly over the nodes, so
+ * about {@code (N - 1) / N} of the store writes go to another node. Prints one line per cluster size.
+ *
+ * <p>Excluded from the default build; run with {@code mvn test -Pload -Dtest=ClusterScalingLoadTest}. The nodes and
+ * the client share the machine, so the curve only shows scaling when it has a core per node to spare.
+ */
+@Tag("load")
+class ClusterScalingLoadTest {
+
+    private static final int MAX_NODES = Integer.getInteger("load.nodes", 4);
+    private static final int USERS = Integer.getInteger("load.users", 64);
+    private static final Duration WINDOW = Duration.parse("PT" + System.getProperty("load.duration", "10s"));
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    @Test
+    void throughputByClusterSize() throws Exception {
+        List<String> curve = new ArrayList<>();
+        for (int size = 1; size <= MAX_NODES; size++) {
+            List<Process> processes = new ArrayList<>();
+            try {
+                List<Integer> httpPorts = new ArrayList<>();
+                List<Integer> managementPorts = new ArrayList<>();
+                String seed = null;
+                for (int i = 0; i < size; i++) {
+                    int httpPort = freePort();
+                    int managementPort = freePort();
+                    int clusterPort = freePort();
+                    processes.add(startNode(httpPort, managementPort, clusterPort, seed));
+                    if (seed == null) seed = "localhost:" + clusterPort;
+                    httpPorts.add(httpPort);
+                    managementPorts.add(managementPort);
+                }
+                for (int port : managementPorts) {
+                    awaitUp(port);
+                }
+                // a few heartbeats for every node to see the whole ring
+                Thread.sleep(2_000);
+
+                LoadDriver.Result result = LoadDriver.run(httpPorts, USERS, WARMUP, WINDOW);
+                curve.add(String.format("%d node(s): %s", size, result));
+                assertEquals(0, result.errors(), result.toString());
+            } finally {
+                // one at a time, so each node hands its transactions to nodes that stay
+                for (Process process : processes.reversed()) {
+                    process.destroy();
+                    if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly();
+                }
+            }
+        }
+        System.out.printf("%d users, cluster of 1..%d JVMs%n  %s%n", USERS, MAX_NODES, String.join("\n  ", curve));
+    }
+
+    private static Process startNode(int httpPort, int managementPort, int clusterPort, String seed) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx384m",
+                "-cp", System.getProperty("java.class.path"),
+                PspApplication.class.getName(),
+                "--server.port=" + httpPort,
+                "--management.server.port=" + managementPort,
+                "--psp.cluster.enabled=true",
+                "--psp.cluster.port=" + clusterPort,
+                "--psp.cluster.secret=" + Base64.getEncoder().encodeToString(new byte[32]),
+                "--psp.tokenization.key=" + Base64.getEncoder().encodeToString(new byte[32]),
+                "--psp.cluster.heartbeat-interval=100ms",
+                // nodes and client compete for the same cores: no false failure detection under full load
+                "--psp.cluster.request-timeout=5s",
+                "--psp.cluster.failure-timeout=15s",
+                "--psp.store.capacity=262144",
+                "--psp.admission.enabled=false",
+                "--psp.velocity.enabled=false",
+                "--psp.audit.enabled=false",
+                "--logging.level.root=WARN"));
+        if (seed != null) command.add("--psp.cluster.members=" + seed);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/cluster-node-" + httpPort + ".log")))
+                .start();
+    }
+
+    private static void awaitUp(int port) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/actuator/health")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(90);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(200);
+        }
+        fail("node on port " + port + " did not start");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.psp.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load: {@code users} virtual threads each send {@code POST /payments} back to back over their own
+ * keep-alive connection. Latencies are recorded wait-free (no monitor is held while a client thread blocks), and only
+ * requests started in the measurement window after the warm-up count, so connection setup is not measured.
+ */
+final class LoadDriver {
+
+    static final String PAYMENT = """
+            {"cardNumber":"4242424242424242","expiryDate":"12/30","cvv":"123","amount":100.0,"currency":"USD","merchantId":"M-LOAD"}""";
+
+    record Result(long requests, long errors, Duration window, Histogram latency) {
+
+        double throughput() {
+            return requests * 1e9 / window.toNanos();
+        }
+
+        double percentileMillis(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f payments/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d errors",
+                    throughput(), percentileMillis(50), percentileMillis(99), latency.getMaxValue() / 1e6, errors);
+        }
+    }
+
+    private LoadDriver() {
+    }
+
+    static Result run(int port, int users, Duration warmup, Duration window) throws InterruptedException {
+        return run(List.of(port), users, warmup, window);
+    }
+
+    /**
+     * Spreads the users round-robin over several instances.
+     */
+    static Result run(List<Integer> ports, int users, Duration warmup, Duration window) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<HttpRequest> requests = new ArrayList<>(ports.size());
+        for (int port : ports) {
+            requests.add(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/payments"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+                    .build());
+        }
+        Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + window.toNanos();
+
+        List<Thread> threads = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            HttpRequest request = requests.get(i % requests.size());
+            threads.add(Thread.ofVirtual().name("load-user-" + i).start(() -> {
+                while (System.nanoTime() < end) {
+                    long started = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        ok = response.statusCode() == 200 && response.body().contains("\"Approved\"");
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    if (started - measureFrom < 0) continue;
+                    latency.recordValue(Math.min(System.nanoTime() - started, TimeUnit.MINUTES.toNanos(1)));
+                    if (!ok) errors.increment();
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        client.close();
+        return new Result(latency.getTotalCount(), errors.sum(), window, latency);
+    }
+}
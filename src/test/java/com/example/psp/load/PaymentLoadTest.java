@@ -0,0 +1,74 @@
+package com.example.psp.load;
+
+import com.example.psp.PspApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test of {@code POST /payments} on platform threads (Tomcat's pool of
+ * {@code server.tomcat.threads.max}, 200) and on virtual threads, with the mock acquirer answering after
+ * {@code load.latency}. Each mode runs {@code load.users} closed-loop clients; throughput and p99 are printed for
+ * both, and on virtual threads no request may park while pinned in application code.
+ *
+ * <p>Excluded from the default build; run with {@code mvn test -Pload}. The defaults (250 users, 1 s) put the offered
+ * load above what 200 platform threads can carry but below the CPU limit of a single core, where client and server
+ * share the machine; on larger machines use e.g. {@code -Dload.users=1000 -Dload.latency=200ms -Dload.duration=10s}.
+ */
+@Tag("load")
+class PaymentLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 250);
+    private static final String LATENCY = System.getProperty("load.latency", "1s");
+    private static final Duration WINDOW = Duration.parse("PT" + System.getProperty("load.duration", "10s"));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+
+    @Test
+    void virtualThreadsOutperformThePlatformThreadPoolUnderAcquirerLatency() throws InterruptedException {
+        LoadDriver.Result platform = run(false);
+        List<String> pins;
+        LoadDriver.Result virtual;
+        try (PinnedThreads pinned = new PinnedThreads()) {
+            virtual = run(true);
+            pins = pinned.stopAndGetApplicationPins();
+            System.out.printf("virtual threads: %d pinned parks in total, %d in application code%n",
+                    pinned.totalPins(), pins.size());
+        }
+        System.out.printf("%d users, acquirer latency %s%n  platform: %s%n  virtual:  %s%n",
+                USERS, LATENCY, platform, virtual);
+
+        assertEquals(0, platform.errors(), "platform: " + platform);
+        assertEquals(0, virtual.errors(), "virtual: " + virtual);
+        assertTrue(pins.isEmpty(), () -> "pinned in application code:\n  at " + pins.get(0));
+        assertTrue(virtual.throughput() > platform.throughput(), "virtual threads should not be slower");
+        assertTrue(virtual.percentileMillis(99) < platform.percentileMillis(99), "virtual threads should cut p99");
+    }
+
+    private static LoadDriver.Result run(boolean virtualThreads) throws InterruptedException {
+        // command-line arguments, so they take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PspApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--psp.acquirer.mock.latency=" + LATENCY,
+                // isolate the thread model: no bulkhead, admission, velocity or shedding limits below the offered load
+                "--psp.acquirer.default-limits.max-concurrent=" + USERS * 2,
+                "--psp.acquirer.default-limits.deadline=30s",
+                "--psp.routing.health.slow-call-threshold=30s",
+                "--psp.admission.enabled=false",
+                "--psp.velocity.enabled=false",
+                "--psp.audit.enabled=false",
+                "--logging.level.root=WARN");
+        try {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            return LoadDriver.run(port, USERS, WARMUP, WINDOW);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.psp.load;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Collects JFR {@code jdk.VirtualThreadPinned} events: a virtual thread parked while it could not unmount from its
+ * carrier, typically blocking inside {@code synchronized} or a native frame. Pins whose stack passes through
+ * application code ({@code com.example.psp}, excluding the load test's own client) are the ones we can fix.
+ */
+final class PinnedThreads implements AutoCloseable {
+
+    private static final String APPLICATION = "com.example.psp.";
+    private static final String TEST_CLIENT = "com.example.psp.load.";
+
+    private final RecordingStream stream = new RecordingStream();
+    private final List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+    PinnedThreads() {
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", events::add);
+        stream.startAsync();
+    }
+
+    /**
+     * Stops recording and returns the stacks of pins through application code, one string per pin.
+     */
+    List<String> stopAndGetApplicationPins() {
+        stream.stop();
+        return events.stream()
+                .filter(PinnedThreads::throughApplication)
+                .map(event -> event.getStackTrace().getFrames().stream()
+                        .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                        .collect(Collectors.joining("\n  at ")))
+                .toList();
+    }
+
+    int totalPins() {
+        return events.size();
+    }
+
+    private static boolean throughApplication(RecordedEvent event) {
+        if (event.getStackTrace() == null) return false;
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APPLICATION) && !type.startsWith(TEST_CLIENT)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.psp.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs concurrent payments through Tomcat on virtual threads while the mock acquirer blocks for a few milliseconds,
+ * and fails if a virtual thread parks while pinned to its carrier inside application code (e.g. a blocking call
+ * under {@code synchronized}).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "psp.acquirer.mock.latency=5ms",
+        "psp.admission.enabled=false",
+        "psp.velocity.enabled=false",
+        "psp.audit.overflow=BLOCK"
+})
+class VirtualThreadPinningTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void paymentPathDoesNotPinCarrierThreads() throws InterruptedException {
+        try (PinnedThreads pinned = new PinnedThreads()) {
+            LoadDriver.Result result = LoadDriver.run(port, 64, Duration.ofMillis(500), Duration.ofSeconds(2));
+
+            assertEquals(0, result.errors(), result.toString());
+            assertTrue(result.requests() > 0, result.toString());
+            List<String> pins = pinned.stopAndGetApplicationPins();
+            assertTrue(pins.isEmpty(), () -> pins.size() + " pinned parks in application code:\n  at " + pins.get(0));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.psp.loadgen;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link LoadGenerator} briefly against the application with a simulated acquirer that declines and fails a
+ * share of payments, and checks that the report tells the outcomes apart.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "psp.acquirer.mock.distribution=normal",
+        "psp.acquirer.mock.latency=2ms",
+        "psp.acquirer.mock.stddev=1ms",
+        "psp.acquirer.mock.decline-rate=0.2",
+        "psp.acquirer.mock.error-rate=0.1",
+        "psp.routing.health.enabled=false"
+})
+class LoadGeneratorTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void reportsThroughputLatencyAndOutcomes() throws InterruptedException {
+        LoadGenerator.Options options = LoadGenerator.Options.parse("--url=http://localhost:" + port,
+                "--merchants=20", "--concurrency=8", "--warmup=200ms", "--duration=2s", "--invalid-rate=0.1");
+        assertEquals(URI.create("http://localhost:" + port), options.url());
+        assertEquals(Duration.ofMillis(200), options.warmup());
+
+        LoadReport report = new LoadGenerator(options, PaymentMix.defaults(options.merchants(), options.invalidRate())).run();
+
+        assertTrue(report.total() > 100, report.format(options.duration()));
+        for (LoadReport.Outcome outcome : new LoadReport.Outcome[]{
+                LoadReport.Outcome.APPROVED, LoadReport.Outcome.DENIED, LoadReport.Outcome.FAILED, LoadReport.Outcome.INVALID}) {
+            assertTrue(report.count(outcome) > 0, outcome + "\n" + report.format(options.duration()));
+        }
+        assertEquals(0, report.count(LoadReport.Outcome.TRANSPORT_ERROR));
+        assertTrue(report.errorRate() > 0 && report.errorRate() < 0.3, report.format(options.duration()));
+        assertTrue(report.percentileMillis(50) > 0);
+    }
+
+    @Test
+    void unknownOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Options.parse("--threads=4"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Options.parse("merchants=4"));
+    }
+}
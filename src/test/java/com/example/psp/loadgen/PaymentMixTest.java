@@ -0,0 +1,80 @@
+package com.example.psp.loadgen;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.util.CardExpiry;
+import com.example.psp.util.Luhn;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PaymentMix}: generated requests are valid apart from the configured invalid share, and
+ * merchants, BINs and currencies follow their weights.
+ */
+
+class PaymentMixTest {
+
+    private static final int SAMPLES = 50_000;
+
+    private static boolean valid(PaymentRequest request) {
+        int expiry = CardExpiry.parse(request.getExpiryDate());
+        return Luhn.isValid(request.getCardNumber()) && expiry != CardExpiry.MALFORMED
+                && !CardExpiry.system().isExpired(expiry);
+    }
+
+    @Test
+    void requestsAreValidWithoutInvalidShare() {
+        PaymentMix mix = PaymentMix.defaults(10, 0);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            PaymentRequest request = mix.next(random);
+            assertTrue(valid(request), request::toString);
+            assertTrue(request.getAmount() > 0);
+            assertEquals(request.getCardNumber().startsWith("37") ? 4 : 3, request.getCvv().length());
+        }
+    }
+
+    @Test
+    void invalidShareIsRespected() {
+        PaymentMix mix = PaymentMix.defaults(10, 0.1);
+        SplittableRandom random = new SplittableRandom(2);
+        int invalid = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (!valid(mix.next(random))) invalid++;
+        }
+        assertEquals(0.1, (double) invalid / SAMPLES, 0.01);
+    }
+
+    @Test
+    void binsAndMerchantsFollowTheirWeights() {
+        PaymentMix mix = PaymentMix.defaults(100, 0);
+        SplittableRandom random = new SplittableRandom(3);
+        Map<String, Integer> merchants = new HashMap<>();
+        int visaTest = 0;
+        int amex = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            PaymentRequest request = mix.next(random);
+            merchants.merge(request.getMerchantId(), 1, Integer::sum);
+            if (request.getCardNumber().startsWith("424242")) visaTest++;
+            if (request.getCardNumber().startsWith("37")) amex++;
+        }
+        assertEquals(0.30, (double) visaTest / SAMPLES, 0.01);
+        assertEquals(0.05, (double) amex / SAMPLES, 0.01);
+
+        // Zipf with exponent 1: the top merchant has 1/H(100) ~ 19% of the volume, twice the second
+        int top = merchants.get(mix.merchant(0));
+        int second = merchants.get(mix.merchant(1));
+        assertEquals(0.193, (double) top / SAMPLES, 0.01);
+        assertEquals(2.0, (double) top / second, 0.15);
+    }
+
+    @Test
+    void checkDigitMakesLuhnValidNumbers() {
+        assertEquals(2, PaymentMix.checkDigit("424242424242424"));
+        assertTrue(Luhn.isValid(PaymentMix.cardNumber(new PaymentMix.Bin("37", 15, 1), new SplittableRandom(4))));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.psp.metrics;
+
+import com.example.psp.model.PaymentRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for {@link PaymentMetrics}: every stage of a payment, the request validation and the card
+ * tokenization are timed and exposed through the actuator metrics endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class PaymentMetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void paymentStagesAreTimedPerAcquirerAndStatus() throws Exception {
+        mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PaymentRequest(
+                                "4242424242424242", "12/30", "123", 10.0, "USD", "M-METRICS"))))
+                .andExpect(status().isOk());
+
+        for (String stage : new String[]{"routing", "store", "acquirer", "response"}) {
+            FunctionCounter count = registry.find(PaymentMetrics.STAGE + ".count")
+                    .tags("stage", stage, "acquirer", "A", "status", "Approved").functionCounter();
+            assertNotNull(count, stage);
+            assertTrue(count.count() > 0, stage);
+        }
+        assertTrue(registry.get(PaymentMetrics.VALIDATION + ".count").tag("outcome", "valid").functionCounter().count() > 0);
+        assertTrue(registry.get(PaymentMetrics.TOKENIZATION + ".count").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum() > 0);
+
+        ResponseEntity<String> percentile = restTemplate.getForEntity("http://127.0.0.1:" + managementPort
+                + "/actuator/metrics/" + PaymentMetrics.STAGE + ".percentile?tag=stage:acquirer&tag=phi:0.99", String.class);
+        assertEquals(200, percentile.getStatusCode().value());
+        JsonNode body = objectMapper.readTree(percentile.getBody());
+        assertEquals("seconds", body.path("baseUnit").asText());
+        assertTrue(body.path("measurements").path(0).path("value").isNumber());
+    }
+
+    @Test
+    void rejectedRequestsAreTimedAsInvalid() throws Exception {
+        mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PaymentRequest(
+                                "4242424242424243", "12/30", "123", 10.0, "USD", "M-METRICS"))))
+                .andExpect(status().isBadRequest());
+
+        assertTrue(registry.get(PaymentMetrics.VALIDATION + ".count").tag("outcome", "invalid").functionCounter().count() > 0);
+    }
+}
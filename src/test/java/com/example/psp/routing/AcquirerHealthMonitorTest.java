@@ -0,0 +1,140 @@
+package com.example.psp.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AcquirerHealthMonitor} with a manual clock.
+ *
+ * <p>Covers opening the circuit on failure and slow-call rates, failover of payments with a secondary acquirer,
+ * half-open probing, reopening on a failed or unanswered probe and closing after successful probes.
+ */
+class AcquirerHealthMonitorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * MS);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AcquirerHealthMonitor monitor() {
+        RoutingProperties properties = new RoutingProperties();
+        RoutingProperties.Health health = properties.getHealth();
+        health.setMinimumCalls(10);
+        health.setSlowCallThreshold(Duration.ofMillis(100));
+        health.setOpenDuration(Duration.ofSeconds(1));
+        health.setHalfOpenProbes(2);
+        health.setProbeTimeout(Duration.ofSeconds(2));
+        return new AcquirerHealthMonitor(properties, registry, clock::get);
+    }
+
+    private static void calls(AcquirerHealthMonitor monitor, String acquirer, int count, long nanos, boolean success) {
+        for (int i = 0; i < count; i++) {
+            monitor.onAcquirerCall(acquirer, nanos, success);
+        }
+    }
+
+    @Test
+    void failingAcquirer_opensCircuitAndFailsOverEligiblePayments() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 5, MS, true);
+        calls(monitor, "A", 4, MS, false);
+        // below the minimum number of calls
+        assertEquals("CLOSED", monitor.state("A"));
+
+        calls(monitor, "A", 1, MS, false);
+        assertEquals("OPEN", monitor.state("A"));
+        assertEquals("B", monitor.choose("A", "B"));
+        // without a secondary the payment stays on its acquirer
+        assertEquals("A", monitor.choose("A", null));
+        assertEquals(1.0, registry.get("psp.routing.failover").tag("acquirer", "A").counter().count());
+        assertEquals(1.0, registry.get("psp.routing.acquirer.state").tag("acquirer", "A").gauge().value());
+        assertEquals(0.5, registry.get("psp.routing.acquirer.failure.rate").tag("acquirer", "A").gauge().value(),
+                1e-9);
+    }
+
+    @Test
+    void slowAcquirer_opensCircuit() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 5, MS, true);
+        calls(monitor, "A", 5, 150 * MS, true);
+
+        assertEquals("OPEN", monitor.state("A"));
+        assertEquals("B", monitor.choose("A", "B"));
+    }
+
+    @Test
+    void failuresOutsideTheWindow_areForgotten() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 9, MS, false);
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        calls(monitor, "A", 9, MS, true);
+        calls(monitor, "A", 1, MS, false);
+
+        assertEquals("CLOSED", monitor.state("A"));
+        assertEquals("A", monitor.choose("A", "B"));
+    }
+
+    @Test
+    void halfOpenCircuit_probesThenClosesOrReopens() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 10, MS, false);
+        assertEquals("OPEN", monitor.state("A"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("A", monitor.choose("A", "B"));
+        assertEquals("HALF_OPEN", monitor.state("A"));
+        assertEquals("A", monitor.choose("A", "B"));
+        // probe permits are used up, further payments keep failing over
+        assertEquals("B", monitor.choose("A", "B"));
+
+        monitor.onAcquirerCall("A", MS, false);
+        assertEquals("OPEN", monitor.state("A"));
+        assertEquals("B", monitor.choose("A", "B"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("A", monitor.choose("A", "B"));
+        assertEquals("A", monitor.choose("A", "B"));
+        calls(monitor, "A", 2, MS, true);
+        assertEquals("CLOSED", monitor.state("A"));
+        assertEquals("A", monitor.choose("A", "B"));
+
+        // the window was cleared when the circuit closed
+        calls(monitor, "A", 1, MS, false);
+        assertEquals("CLOSED", monitor.state("A"));
+    }
+
+    @Test
+    void unansweredProbes_reopenTheCircuit() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 10, MS, false);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("A", monitor.choose("A", "B"));
+        assertEquals("A", monitor.choose("A", "B"));
+        // one probe answered, the other never will (turned away by the bulkhead)
+        monitor.onAcquirerCall("A", MS, true);
+        assertEquals("B", monitor.choose("A", "B"));
+        assertEquals("HALF_OPEN", monitor.state("A"));
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertEquals("B", monitor.choose("A", "B"));
+        assertEquals("OPEN", monitor.state("A"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("A", monitor.choose("A", "B"));
+        assertEquals("HALF_OPEN", monitor.state("A"));
+    }
+
+    @Test
+    void openSecondary_keepsPaymentsOnThePrimary() {
+        AcquirerHealthMonitor monitor = monitor();
+        calls(monitor, "A", 10, MS, false);
+        calls(monitor, "B", 10, MS, false);
+
+        assertEquals("A", monitor.choose("A", "B"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.psp.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BinRoutingTable} and {@link BinRouter}.
+ *
+ * <p>Covers 6- and 8-digit rules, nested rules (narrowest wins), rejected overlaps,
+ * secondary acquirers, the digit-sum fallback and hot reload of a table file.
+ */
+
+class BinRoutingTableTest {
+
+    private static BinRoutingTable parse(String source) throws IOException {
+        return BinRoutingTable.parse(new StringReader(source));
+    }
+
+    @Test
+    void sixAndEightDigitRules_matchCardNumbers() throws IOException {
+        BinRoutingTable table = parse("""
+                # comment
+                424242,A
+                55000000,55000099,B
+                """);
+
+        assertEquals("A", table.lookup("4242424242424242"));
+        assertEquals("B", table.lookup("5500000012345678"));
+        assertNull(table.lookup("5500010012345678"));
+        assertNull(table.lookup("4111111111111111"));
+    }
+
+    @Test
+    void nestedRules_narrowestWins() throws IOException {
+        BinRoutingTable table = parse("""
+                400000,499999,A
+                411111,B
+                41111100,41111109,C
+                """);
+
+        assertEquals("A", table.lookup("4000000000000002"));
+        assertEquals("B", table.lookup("4111111111111111"));
+        assertEquals("C", table.lookup("4111110511111111"));
+        assertEquals("A", table.lookup("4999999999999999"));
+        assertEquals(3, table.rules());
+        assertEquals(4, table.ranges());
+    }
+
+    @Test
+    void partiallyOverlappingRules_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                400000,400099,A
+                400050,400149,B
+                """));
+        assertThrows(IllegalArgumentException.class, () -> parse("424242,A\n424242,B\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("42424,A\n"));
+    }
+
+    @Test
+    void secondaryAcquirer_isKeptPerRange() throws IOException {
+        BinRoutingTable table = parse("""
+                400000,499999,A/B
+                411111,B
+                424242,A / C
+                """);
+
+        int range = table.find("4000000000000002");
+        assertEquals("A", table.acquirer(range));
+        assertEquals("B", table.secondary(range));
+        assertNull(table.secondary(table.find("4111111111111111")));
+        assertEquals("C", table.secondary(table.find("4242424242424242")));
+        assertEquals(-1, table.find("5555555555554444"));
+
+        assertThrows(IllegalArgumentException.class, () -> parse("424242,A/A\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("424242,A/\n"));
+        assertThrows(IllegalArgumentException.class, () -> parse("424242,A/B/C\n"));
+    }
+
+    @Test
+    void nonDigitPrefix_isNotMatched() throws IOException {
+        BinRoutingTable table = parse("424242,A\n");
+        assertNull(table.lookup("42424B4242424242"));
+        assertNull(table.lookup("4242"));
+    }
+
+    @Test
+    void router_fallsBackToDigitSumRule() {
+        assertEquals("A", BinRouter.defaultAcquirer("4242424242424242"));
+        assertEquals("B", BinRouter.defaultAcquirer("4111111111111111"));
+    }
+
+    @Test
+    void router_reloadsChangedFileAndKeepsTableOnError(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("bins.csv");
+        Files.writeString(file, "600000,C\n");
+        RoutingProperties properties = new RoutingProperties();
+        properties.setTable(file.toUri().toString());
+        BinRouter router = new BinRouter(new DefaultResourceLoader(), properties);
+        assertEquals("C", router.route("6000001234567890"));
+
+        Files.writeString(file, "600000,D\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 2_000));
+        router.reloadIfChanged();
+        assertEquals("D", router.route("6000001234567890"));
+
+        Files.writeString(file, "600000,E\n600000,F\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 4_000));
+        router.reloadIfChanged();
+        assertEquals("D", router.route("6000001234567890"));
+    }
+}
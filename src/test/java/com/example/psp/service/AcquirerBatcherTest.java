@@ -0,0 +1,86 @@
+package com.example.psp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AcquirerBatcher}.
+ *
+ * <p>Covers dispatch on the size threshold, dispatch of a partial batch on the time threshold,
+ * per-caller completion and the fill/queueing metrics.
+ */
+
+class AcquirerBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AcquirerBatcher batcher;
+
+    /**
+     * Records every batch and approves even, denies odd last digits.
+     */
+    private final AcquirerService recording = new AcquirerService() {
+        @Override
+        public String process(String cardNumber, String acquirer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<List<String>> processBatch(List<String> cardNumbers, String acquirer) {
+            batches.add(cardNumbers);
+            return CompletableFuture.completedFuture(cardNumbers.stream()
+                    .map(card -> (card.charAt(card.length() - 1) - '0') % 2 == 0 ? "Approved" : "Denied")
+                    .toList());
+        }
+    };
+
+    private AcquirerBatcher batcher(int maxSize, Duration maxDelay) {
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getBatch().setMaxSize(maxSize);
+        properties.getBatch().setMaxDelay(maxDelay);
+        batcher = new AcquirerBatcher(recording, properties, registry);
+        return batcher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void fullBatch_isDispatchedBeforeDelayAndCompletesEachCaller() {
+        AcquirerBatcher batcher = batcher(4, Duration.ofMinutes(1));
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(batcher.submit("424242424242424" + i, "A"));
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join());
+        assertEquals(List.of("Approved", "Denied", "Approved", "Denied"), results.stream().map(CompletableFuture::join).toList());
+        assertEquals(1, batches.size());
+        assertEquals(4, batches.get(0).size());
+        assertEquals(1.0, registry.get("psp.acquirer.batch.fill").tag("acquirer", "A").summary().mean());
+    }
+
+    @Test
+    void partialBatch_isDispatchedAfterMaxDelay() {
+        AcquirerBatcher batcher = batcher(32, Duration.ofMillis(20));
+        CompletableFuture<String> first = batcher.submit("4242424242424242", "B");
+        CompletableFuture<String> second = batcher.submit("4111111111111111", "B");
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> CompletableFuture.allOf(first, second).join());
+        assertEquals("Approved", first.join());
+        assertEquals("Denied", second.join());
+        assertEquals(List.of(List.of("4242424242424242", "4111111111111111")), batches);
+        assertEquals(2, registry.get("psp.acquirer.batch.queue.latency").tag("acquirer", "B").timer().count());
+    }
+}
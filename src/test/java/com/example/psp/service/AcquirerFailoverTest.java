@@ -0,0 +1,77 @@
+package com.example.psp.service;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.routing.AcquirerHealthMonitor;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.routing.RoutingProperties;
+import com.example.psp.store.InMemoryTransactionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payments end to end through {@link BinRouter}, {@link AcquirerGateway} and a mock acquirer with injected faults:
+ * a failing or slow acquirer is taken out of rotation for BINs with a secondary and brought back by probing.
+ */
+class AcquirerFailoverTest {
+
+    // 424242 routes to A and fails over to B (bin-routes.csv)
+    private static final PaymentRequest ELIGIBLE =
+            new PaymentRequest("4242424242424242", "12/30", "123", 10.0, "USD", "M123");
+
+    private final AcquirerProperties acquirerProperties = new AcquirerProperties();
+    private final AcquirerServiceMockImpl acquirer = new AcquirerServiceMockImpl(acquirerProperties);
+    private final AcquirerHealthMonitor monitor;
+    private final PaymentService service;
+
+    AcquirerFailoverTest() {
+        RoutingProperties routing = new RoutingProperties();
+        routing.getHealth().setMinimumCalls(5);
+        routing.getHealth().setSlowCallThreshold(Duration.ofMillis(30));
+        routing.getHealth().setOpenDuration(Duration.ofMillis(200));
+        routing.getHealth().setHalfOpenProbes(2);
+        acquirerProperties.getDefaultLimits().setDeadline(Duration.ofMillis(500));
+        monitor = new AcquirerHealthMonitor(routing, new SimpleMeterRegistry());
+        AcquirerGateway gateway = new AcquirerGateway(acquirer, acquirerProperties, null, List.of(monitor));
+        service = PaymentServices.create(new InMemoryTransactionStore(), gateway,
+                new BinRouter(new DefaultResourceLoader(), routing, monitor));
+    }
+
+    @Test
+    void failingAcquirer_isReplacedBySecondaryUntilProbesSucceed() throws InterruptedException {
+        acquirer.injectFault("A", Duration.ZERO, 1.0);
+        for (int i = 0; i < 5; i++) {
+            PaymentResponse failed = service.processPayment(ELIGIBLE);
+            assertEquals("Failed", failed.getStatus());
+        }
+        assertEquals("OPEN", monitor.state("A"));
+
+        PaymentResponse failedOver = service.processPayment(ELIGIBLE);
+        assertEquals("Approved", failedOver.getStatus());
+        assertEquals("Processed by Acquirer B", failedOver.getMessage());
+
+        acquirer.clearFaults();
+        Thread.sleep(250);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Processed by Acquirer A", service.processPayment(ELIGIBLE).getMessage());
+        }
+        assertEquals("CLOSED", monitor.state("A"));
+        assertEquals("Processed by Acquirer A", service.processPayment(ELIGIBLE).getMessage());
+    }
+
+    @Test
+    void slowAcquirer_isReplacedBySecondary() {
+        acquirer.injectFault("A", Duration.ofMillis(50), 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Processed by Acquirer A", service.processPayment(ELIGIBLE).getMessage());
+        }
+        assertEquals("OPEN", monitor.state("A"));
+        assertEquals("Processed by Acquirer B", service.processPayment(ELIGIBLE).getMessage());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.psp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AcquirerGateway}.
+ *
+ * <p>Covers the per-acquirer bulkhead (fail fast when full, isolated between acquirers),
+ * deadlines, cancellation of timed out calls, permit release only once the underlying call has ended, and the
+ * outcomes reported to listeners.
+ */
+
+class AcquirerGatewayTest {
+
+    /**
+     * Acquirer "A" never answers; every other acquirer approves immediately.
+     */
+    private static final AcquirerService HANGING_A = new AcquirerService() {
+        @Override
+        public String process(String cardNumber, String acquirer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+            return "A".equals(acquirer) ? new CompletableFuture<>() : CompletableFuture.completedFuture("Approved");
+        }
+    };
+
+    private static AcquirerGateway gateway(int maxConcurrent, Duration deadline) {
+        return new AcquirerGateway(HANGING_A, limits(maxConcurrent, deadline));
+    }
+
+    private static AcquirerProperties limits(int maxConcurrent, Duration deadline) {
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getDefaultLimits().setMaxConcurrent(maxConcurrent);
+        properties.getDefaultLimits().setDeadline(deadline);
+        return properties;
+    }
+
+    /**
+     * Hands out futures that the test completes itself.
+     */
+    private static AcquirerService controlled(List<CompletableFuture<String>> calls) {
+        return new AcquirerService() {
+            @Override
+            public String process(String cardNumber, String acquirer) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+                CompletableFuture<String> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+        };
+    }
+
+    @Test
+    void fullBulkhead_failsFastWithoutAffectingOtherAcquirers() {
+        AcquirerGateway gateway = gateway(2, Duration.ofMinutes(1));
+        gateway.authorize("4242424242424242", "A");
+        gateway.authorize("4242424242424242", "A");
+
+        CompletableFuture<String> rejected = gateway.authorize("4242424242424242", "A");
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(AcquirerUnavailableException.class, e.getCause());
+
+        assertEquals("Approved", gateway.authorize("4242424242424242", "B").join());
+        assertEquals(2, gateway.availablePermits("B"));
+    }
+
+    @Test
+    void slowAcquirer_timesOutAndReleasesPermit() {
+        AcquirerGateway gateway = gateway(1, Duration.ofMillis(50));
+
+        CompletableFuture<String> call = gateway.authorize("4242424242424242", "A");
+        ExecutionException e = assertThrows(ExecutionException.class, call::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(1, gateway.availablePermits("A"));
+    }
+
+    @Test
+    void timeout_answersCallerAndCancelsUnderlyingCall() {
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        List<Boolean> reported = new ArrayList<>();
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getDefaultLimits().setMaxConcurrent(1);
+        properties.getDefaultLimits().setDeadline(Duration.ofMillis(50));
+        AcquirerGateway gateway = new AcquirerGateway(controlled(calls), properties, null,
+                List.of((acquirer, nanos, success) -> reported.add(success)));
+
+        CompletableFuture<String> answer = gateway.authorize("4242424242424242", "A");
+        ExecutionException e = assertThrows(ExecutionException.class, answer::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(calls.get(0).isCancelled());
+        assertEquals(1, gateway.availablePermits("A"));
+        assertEquals(List.of(false), reported);
+    }
+
+    @Test
+    void permit_isHeldUntilUnderlyingCallFinishes() {
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        AcquirerGateway gateway = new AcquirerGateway(controlled(calls), limits(1, Duration.ofMinutes(1)));
+
+        CompletableFuture<String> answer = gateway.authorize("4242424242424242", "A");
+        // the caller giving up does not stop the acquirer from working on the call
+        answer.cancel(true);
+        assertFalse(calls.get(0).isDone());
+        assertEquals(0, gateway.availablePermits("A"));
+
+        calls.get(0).complete("Approved");
+        assertEquals(1, gateway.availablePermits("A"));
+    }
+
+    @Test
+    void callFailingBeforeItReturns_isReportedAsFailure() {
+        List<Boolean> reported = new ArrayList<>();
+        AcquirerService broken = new AcquirerService() {
+            @Override
+            public String process(String cardNumber, String acquirer) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<String> processAsync(String cardNumber, String acquirer) {
+                throw new IllegalStateException("no connection");
+            }
+        };
+        AcquirerGateway gateway = new AcquirerGateway(broken, limits(1, Duration.ofMinutes(1)), null,
+                List.of((acquirer, nanos, success) -> reported.add(success)));
+
+        CompletableFuture<String> answer = gateway.authorize("4242424242424242", "A");
+        ExecutionException e = assertThrows(ExecutionException.class, answer::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, gateway.availablePermits("A"));
+        assertEquals(List.of(false), reported);
+    }
+
+    @Test
+    void perAcquirerLimits_overrideDefaults() {
+        AcquirerProperties properties = new AcquirerProperties();
+        AcquirerProperties.Limits limits = new AcquirerProperties.Limits();
+        limits.setMaxConcurrent(1);
+        properties.getLimits().put("A", limits);
+        AcquirerGateway gateway = new AcquirerGateway(HANGING_A, properties);
+
+        assertEquals(1, gateway.availablePermits("A"));
+        assertEquals(properties.getDefaultLimits().getMaxConcurrent(), gateway.availablePermits("B"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.psp.service;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the acquirer simulator ({@link AcquirerSimulator} behind {@link AcquirerServiceMockImpl}).
+ *
+ * <p>Covers the latency distributions, error, timeout and decline rates, per-acquirer settings and validation.
+ */
+
+class AcquirerSimulatorTest {
+
+    private static final int SAMPLES = 100_000;
+
+    private static AcquirerProperties.Simulation simulation(AcquirerProperties.LatencyDistribution distribution,
+                                                            Duration latency) {
+        AcquirerProperties.Simulation simulation = new AcquirerProperties.Simulation();
+        simulation.setDistribution(distribution);
+        simulation.setLatency(latency);
+        return simulation;
+    }
+
+    private static Histogram sample(AcquirerSimulator simulator) {
+        SplittableRandom random = new SplittableRandom(7);
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            histogram.recordValue(simulator.sampleLatencyNanos(random));
+        }
+        return histogram;
+    }
+
+    @Test
+    void fixedLatency_isConstantAndIncludesFaultLatency() {
+        AcquirerProperties.Fault fault = new AcquirerProperties.Fault();
+        fault.setLatency(Duration.ofMillis(5));
+        AcquirerSimulator simulator = AcquirerSimulator.of(
+                simulation(AcquirerProperties.LatencyDistribution.FIXED, Duration.ofMillis(20)), fault);
+
+        assertEquals(Duration.ofMillis(25).toNanos(), simulator.sampleLatencyNanos(new SplittableRandom(1)));
+    }
+
+    @Test
+    void normalLatency_hasConfiguredMeanAndDeviationAndIsNeverNegative() {
+        AcquirerProperties.Simulation simulation = simulation(AcquirerProperties.LatencyDistribution.NORMAL, Duration.ofMillis(100));
+        simulation.setStddev(Duration.ofMillis(20));
+        Histogram histogram = sample(AcquirerSimulator.of(simulation, null));
+
+        assertEquals(100e6, histogram.getMean(), 1e6);
+        assertEquals(20e6, histogram.getStdDeviation(), 1e6);
+
+        simulation.setStddev(Duration.ofMillis(200));
+        assertTrue(sample(AcquirerSimulator.of(simulation, null)).getMinValue() >= 0);
+    }
+
+    @Test
+    void longTailLatency_hasConfiguredMedianAndP99() {
+        AcquirerProperties.Simulation simulation = simulation(AcquirerProperties.LatencyDistribution.LONG_TAIL, Duration.ofMillis(80));
+        simulation.setP99(Duration.ofMillis(1500));
+        Histogram histogram = sample(AcquirerSimulator.of(simulation, null));
+
+        assertEquals(80e6, histogram.getValueAtPercentile(50), 4e6);
+        assertEquals(1500e6, histogram.getValueAtPercentile(99), 150e6);
+        assertTrue(histogram.getMaxValue() > 3 * histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void outcomesFollowConfiguredRates() {
+        AcquirerProperties.Simulation simulation = simulation(AcquirerProperties.LatencyDistribution.FIXED, Duration.ZERO);
+        simulation.setErrorRate(0.2);
+        simulation.setTimeoutRate(0.1);
+        simulation.setDeclineRate(0.3);
+        AcquirerSimulator simulator = AcquirerSimulator.of(simulation, null);
+        SplittableRandom random = new SplittableRandom(3);
+
+        int errors = 0, timeouts = 0, declines = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            switch (simulator.drawOutcome(random)) {
+                case ERROR -> errors++;
+                case TIMEOUT -> timeouts++;
+                case ANSWER -> { }
+            }
+            // the parity rule would approve every one of these
+            if (simulator.declines("4242424242424242", random)) declines++;
+        }
+        assertEquals(0.1, (double) timeouts / SAMPLES, 0.01);
+        assertEquals(0.2 * 0.9, (double) errors / SAMPLES, 0.01);
+        assertEquals(0.3, (double) declines / SAMPLES, 0.01);
+    }
+
+    @Test
+    void withoutDeclineRate_oddLastDigitIsDeclined() {
+        AcquirerSimulator simulator = AcquirerSimulator.of(new AcquirerProperties.Simulation(), null);
+
+        assertFalse(simulator.declines("4242424242424242", new SplittableRandom(1)));
+        assertTrue(simulator.declines("4111111111111111", new SplittableRandom(1)));
+    }
+
+    @Test
+    void invalidSettings_areRejected() {
+        AcquirerProperties.Simulation longTail = simulation(AcquirerProperties.LatencyDistribution.LONG_TAIL, Duration.ofMillis(80));
+        longTail.setP99(Duration.ofMillis(50));
+        assertThrows(IllegalArgumentException.class, () -> AcquirerSimulator.of(longTail, null));
+
+        AcquirerProperties.Simulation badRate = new AcquirerProperties.Simulation();
+        badRate.setErrorRate(1.5);
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getMock().getAcquirers().put("B", badRate);
+        assertThrows(IllegalArgumentException.class, () -> new AcquirerServiceMockImpl(properties));
+    }
+
+    @Test
+    void perAcquirerSimulation_timesOutThroughTheGatewayDeadline() {
+        AcquirerProperties properties = new AcquirerProperties();
+        properties.getDefaultLimits().setDeadline(Duration.ofMillis(50));
+        AcquirerProperties.Simulation hanging = new AcquirerProperties.Simulation();
+        hanging.setTimeoutRate(1);
+        properties.getMock().getAcquirers().put("B", hanging);
+        AcquirerGateway gateway = new AcquirerGateway(new AcquirerServiceMockImpl(properties), properties);
+
+        assertEquals("Approved", gateway.authorize("4242424242424242", "A").join());
+        CompletableFuture<String> call = gateway.authorize("4242424242424242", "B");
+        ExecutionException e = assertThrows(ExecutionException.class, call::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(properties.getDefaultLimits().getMaxConcurrent(), gateway.availablePermits("B"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.psp.service;
+
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.store.MerchantLimitExceededException;
+import com.example.psp.validation.PaymentRequestValidator;
+import com.example.psp.validation.ValidationProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BatchPaymentProcessor} against a payment service that fails some payments synchronously.
+ */
+class BatchPaymentProcessorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    /**
+     * Fails payments of merchant {@code FULL} before returning a future, as the store does when its merchant table
+     * is full.
+     */
+    private static final class ThrowingPaymentService implements PaymentService {
+
+        @Override
+        public PaymentResponse processPayment(PaymentRequest request) {
+            return processPaymentAsync(request).join();
+        }
+
+        @Override
+        public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request) {
+            if (request.getMerchantId().equals("FULL")) {
+                throw new MerchantLimitExceededException("Too many merchants with stored transactions");
+            }
+            return CompletableFuture.completedFuture(new PaymentResponse("tx", "Approved", "Processed by Acquirer A"));
+        }
+
+        @Override
+        public PaymentResponse processPayment(PaymentRequest request, String idempotencyKey) {
+            return processPayment(request);
+        }
+
+        @Override
+        public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request, String idempotencyKey) {
+            return processPaymentAsync(request);
+        }
+    }
+
+    @Test
+    void synchronousFailureIsReportedPerLineAndReleasesItsSlot() throws Exception {
+        PaymentRequestValidator validator = new PaymentRequestValidator(new ValidationProperties(),
+                validatorFactory.getValidator(), new PaymentMetrics(new SimpleMeterRegistry(), false));
+        // one payment in flight: a leaked slot would block the next line
+        BatchPaymentProcessor processor = new BatchPaymentProcessor(new ThrowingPaymentService(), validator,
+                objectMapper, 1);
+        StringBuilder input = new StringBuilder();
+        for (String merchant : List.of("FULL", "M123", "FULL", "M123")) {
+            input.append(objectMapper.writeValueAsString(
+                    new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", merchant))).append('\n');
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> processor.process(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), output));
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        lines.sort((a, b) -> Long.compare(a.get("line").asLong(), b.get("line").asLong()));
+        assertEquals(4, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode line = lines.get(i);
+            if (i % 2 == 0) {
+                assertEquals("Processing failed", line.get("errors").get(0).get("message").asText());
+            } else {
+                assertEquals("Approved", line.get("status").asText());
+            }
+        }
+    }
+}
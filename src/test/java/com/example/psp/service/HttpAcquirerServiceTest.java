@@ -0,0 +1,172 @@
+package com.example.psp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link HttpAcquirerService} against a local {@link StubAcquirer}.
+ *
+ * <p>Covers connections opened at startup and reused by calls (HTTP/2 multiplexing, HTTP/1.1 keep-alive), fail-fast
+ * on a full pool, deadlines, retries within the retry budget and the pool/round-trip metrics.
+ */
+
+class HttpAcquirerServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AcquirerProperties properties = new AcquirerProperties();
+    private StubAcquirer stub;
+    private HttpAcquirerService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubAcquirer();
+        properties.getHttp().getEndpoints().put("A", stub.endpoint());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) service.close();
+        stub.close();
+    }
+
+    private HttpAcquirerService start() {
+        service = new HttpAcquirerService(properties, new ObjectMapper(), registry);
+        service.start();
+        return service;
+    }
+
+    private Set<Integer> ports(List<StubAcquirer.Received> requests) {
+        return requests.stream().map(StubAcquirer.Received::remotePort).collect(Collectors.toSet());
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).tag("acquirer", "A").gauge().value();
+    }
+
+    @Test
+    void http2_multiplexesCallsOverConnectionsOpenedAtStartup() {
+        start();
+        Set<Integer> warmedUp = ports(stub.received);
+        assertEquals(2, warmedUp.size());
+        assertTrue(stub.received.stream().allMatch(r -> r.method().equals("GET") && r.path().equals("/health")),
+                stub.received::toString);
+
+        stub.delay = Duration.ofMillis(50);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            calls.add(service.processAsync("424242424242424" + (i % 10), "A"));
+        }
+        assertTrue(gauge("psp.acquirer.http.pool.saturation") > 0);
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(i % 2 == 0 ? "Approved" : "Denied", calls.get(i).join());
+        }
+
+        List<StubAcquirer.Received> authorizations = stub.authorizations();
+        assertEquals(40, authorizations.size());
+        assertTrue(authorizations.stream().allMatch(r -> r.protocol().equals("HTTP/2.0")), authorizations::toString);
+        assertEquals(warmedUp, ports(authorizations));
+        assertEquals(0, gauge("psp.acquirer.http.pool.in-flight"));
+        assertEquals(40, registry.get("psp.acquirer.http.rtt").tags("acquirer", "A", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void http11_reusesKeptAliveConnectionsAndFailsFastWhenAllAreBusy() {
+        properties.getHttp().setVersion(HttpClient.Version.HTTP_1_1);
+        start();
+        Set<Integer> warmedUp = ports(stub.received);
+        assertEquals(2, warmedUp.size());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Approved", service.process("4242424242424242", "A"));
+        }
+        stub.delay = Duration.ofMillis(200);
+        CompletableFuture<String> first = service.processAsync("4242424242424242", "A");
+        CompletableFuture<String> second = service.processAsync("4242424242424242", "A");
+        CompletableFuture<String> third = service.processAsync("4242424242424242", "A");
+        assertEquals(1.0, gauge("psp.acquirer.http.pool.saturation"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, third::get);
+        assertInstanceOf(AcquirerUnavailableException.class, e.getCause());
+        assertEquals(1, registry.get("psp.acquirer.http.pool.rejected").counter().count());
+        assertEquals("Approved", first.join());
+        assertEquals("Approved", second.join());
+
+        assertTrue(stub.authorizations().stream().allMatch(r -> r.protocol().equals("HTTP/1.1")));
+        assertEquals(warmedUp, ports(stub.authorizations()));
+    }
+
+    @Test
+    void callsAreAbandonedAtTheAcquirerDeadline() {
+        properties.getDefaultLimits().setDeadline(Duration.ofMillis(100));
+        start();
+        stub.delay = Duration.ofSeconds(1);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.processAsync("4242424242424242", "A").get());
+        assertInstanceOf(HttpTimeoutException.class, e.getCause());
+        assertEquals(0, gauge("psp.acquirer.http.pool.in-flight"));
+    }
+
+    @Test
+    void unavailableAnswersAreRetriedWithTheSameRequestId() {
+        start();
+        stub.unavailable.set(1);
+
+        assertEquals("Approved", service.process("4242424242424242", "A"));
+
+        List<StubAcquirer.Received> authorizations = stub.authorizations();
+        assertEquals(2, authorizations.size());
+        assertEquals(authorizations.get(0).requestId(), authorizations.get(1).requestId());
+        assertEquals(1, registry.get("psp.acquirer.http.retries").counter().count());
+    }
+
+    @Test
+    void retriesStopWhenTheBudgetIsSpent() {
+        properties.getHttp().getRetry().setMaxBudget(1);
+        properties.getHttp().getRetry().setBudgetRatio(0);
+        start();
+        stub.unavailable.set(10);
+
+        assertThrows(AcquirerUnavailableException.class, () -> service.process("4242424242424242", "A"));
+        assertThrows(AcquirerUnavailableException.class, () -> service.process("4242424242424242", "A"));
+
+        // two calls, one retry
+        assertEquals(3, stub.authorizations().size());
+        assertEquals(1, registry.get("psp.acquirer.http.retries").counter().count());
+    }
+
+    @Test
+    void connectionFailuresAreRetriedAndReported() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        properties.getHttp().getEndpoints().put("B", URI.create("http://localhost:" + closedPort + "/authorize"));
+        start();
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> service.processAsync("4242424242424242", "B").get());
+        assertInstanceOf(ConnectException.class, e.getCause());
+        assertEquals(1, registry.get("psp.acquirer.http.retries").tag("acquirer", "B").counter().count());
+
+        assertThrows(AcquirerUnavailableException.class, () -> service.process("4242424242424242", "C"));
+    }
+}
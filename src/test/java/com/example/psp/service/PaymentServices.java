@@ -0,0 +1,33 @@
+package com.example.psp.service;
+
+import com.example.psp.audit.AuditLog;
+import com.example.psp.id.TimeOrderedIdGenerator;
+import com.example.psp.idempotency.IdempotencyGuard;
+import com.example.psp.idempotency.IdempotencyProperties;
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.settlement.SettlementLedger;
+import com.example.psp.settlement.SettlementProperties;
+import com.example.psp.store.TransactionStore;
+import com.example.psp.tokenization.CardTokenizer;
+import com.example.psp.velocity.VelocityEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link PaymentServiceImpl} for tests and benchmarks that only care about the store, the acquirers and routing:
+ * audit log and velocity checks off, default idempotency and settlement, a random tokenization key.
+ */
+public final class PaymentServices {
+
+    private PaymentServices() {
+    }
+
+    public static PaymentServiceImpl create(TransactionStore storage, AcquirerGateway acquirerGateway,
+                                            BinRouter binRouter) {
+        return new PaymentServiceImpl(storage, acquirerGateway, binRouter,
+                new IdempotencyGuard(new IdempotencyProperties()),
+                new PaymentMetrics(new SimpleMeterRegistry(), false), AuditLog.disabled(),
+                new SettlementLedger(new SettlementProperties()), new TimeOrderedIdGenerator(),
+                VelocityEngine.disabled(), CardTokenizer.withRandomKey());
+    }
+}
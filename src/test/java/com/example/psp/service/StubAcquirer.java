@@ -0,0 +1,96 @@
+package com.example.psp.service;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Acquirer endpoint for tests: embedded Tomcat speaking HTTP/1.1 and HTTP/2 (h2c upgrade). Approves cards with an
+ * even last digit, answers {@code GET /health} keep-alive requests with 204 and records every request.
+ */
+class StubAcquirer implements AutoCloseable {
+
+    private static final Pattern CARD = Pattern.compile("\"cardNumber\":\"(\\d+)\"");
+
+    record Received(String method, String path, String protocol, int remotePort, String requestId) {
+    }
+
+    final List<Received> received = new CopyOnWriteArrayList<>();
+    /** Authorizations answered with 503 before answering normally again. */
+    final AtomicInteger unavailable = new AtomicInteger();
+    volatile Duration delay = Duration.ZERO;
+
+    private final Tomcat tomcat = new Tomcat();
+
+    StubAcquirer() throws IOException, LifecycleException {
+        tomcat.setBaseDir(Files.createTempDirectory("stub-acquirer").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().addUpgradeProtocol(new Http2Protocol());
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "acquirer", new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                handle(request, response);
+            }
+        });
+        context.addServletMappingDecoded("/*", "acquirer");
+        tomcat.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/authorize");
+    }
+
+    List<Received> authorizations() {
+        return received.stream().filter(r -> r.method().equals("POST")).toList();
+    }
+
+    private void handle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        received.add(new Received(request.getMethod(), request.getRequestURI(), request.getProtocol(), request.getRemotePort(),
+                request.getHeader("X-Request-Id")));
+        if (request.getMethod().equals("GET")) {
+            response.setStatus(request.getRequestURI().equals("/health") ? 204 : 405);
+            return;
+        }
+        String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (unavailable.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            response.setStatus(503);
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Matcher card = CARD.matcher(body);
+        if (!card.find()) {
+            response.setStatus(400);
+            return;
+        }
+        String number = card.group(1);
+        boolean approved = (number.charAt(number.length() - 1) - '0') % 2 == 0;
+        response.setContentType("application/json");
+        response.getWriter().write("{\"status\":\"" + (approved ? "Approved" : "Denied") + "\"}");
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.psp.settlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SettlementLedger}.
+ *
+ * <p>Covers grouping, exact sums in minor units, concurrent recording, day boundaries and retention, and the
+ * settlement file.
+ */
+
+class SettlementLedgerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+    private final AtomicLong clock = new AtomicLong(DAY.atTime(12, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+    private final SettlementProperties properties = new SettlementProperties();
+    private final SettlementLedger ledger = new SettlementLedger(properties, clock::get);
+
+    private static SettlementTotal find(List<SettlementTotal> totals, String merchantId, String currency, String status) {
+        return totals.stream()
+                .filter(t -> t.merchantId().equals(merchantId) && t.currency().equals(currency) && t.status().equals(status))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void totalsAreGroupedByMerchantCurrencyAcquirerAndStatus() {
+        for (int i = 0; i < 10; i++) {
+            ledger.record("M1", "USD", "A", "Approved", 0.1);
+        }
+        ledger.record("M1", "USD", "A", "Denied", 5.0);
+        ledger.record("M1", "EUR", "B", "Approved", 19.99);
+        ledger.record("M2", "JPY", "A", "Approved", 1500);
+        ledger.record("M2", "JPY", "A", "Approved", 250);
+
+        List<SettlementTotal> totals = ledger.totals(DAY, null);
+        assertEquals(4, totals.size());
+        SettlementTotal approved = find(totals, "M1", "USD", "Approved");
+        assertEquals(10, approved.count());
+        assertEquals(new BigDecimal("1.00"), approved.amount());
+        assertEquals(new BigDecimal("5.00"), find(totals, "M1", "USD", "Denied").amount());
+        assertEquals("B", find(totals, "M1", "EUR", "Approved").acquirer());
+        assertEquals(new BigDecimal("1750"), find(totals, "M2", "JPY", "Approved").amount());
+
+        assertEquals(1, ledger.totals(DAY, "M2").size());
+        assertTrue(ledger.totals(DAY.plusDays(1), null).isEmpty());
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.startVirtualThread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ledger.record("M1", "USD", "A", "Approved", 1.25);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        SettlementTotal total = ledger.totals(DAY, "M1").get(0);
+        assertEquals(80_000, total.count());
+        assertEquals(new BigDecimal("100000.00"), total.amount());
+    }
+
+    @Test
+    void transactionsCountOnTheirCompletionDayAndOldDaysAreDropped() {
+        properties.setRetentionDays(2);
+        SettlementLedger ledger = new SettlementLedger(properties, clock::get);
+        ledger.record("M1", "USD", "A", "Approved", 10);
+        clock.addAndGet(86_400_000L);
+        assertEquals(DAY.plusDays(1), ledger.today());
+        ledger.record("M1", "USD", "A", "Approved", 20);
+
+        assertEquals(new BigDecimal("10.00"), ledger.totals(DAY, null).get(0).amount());
+        assertEquals(new BigDecimal("20.00"), ledger.totals(DAY.plusDays(1), null).get(0).amount());
+
+        clock.addAndGet(86_400_000L);
+        ledger.record("M1", "USD", "A", "Approved", 30);
+        assertTrue(ledger.totals(DAY, null).isEmpty());
+        assertEquals(1, ledger.totals(DAY.plusDays(1), null).size());
+    }
+
+    @Test
+    void settlementFileHasOneLinePerGroup() throws IOException {
+        ledger.record("M1", "USD", "A", "Approved", 12.5);
+        ledger.record("M1", "USD", "A", "Approved", 7.5);
+        ledger.record("M,\"2\"", "EUR", "B", "Failed", 3);
+
+        StringWriter out = new StringWriter();
+        ledger.writeCsv(DAY, out);
+        List<String> lines = new ArrayList<>(out.toString().lines().toList());
+        assertEquals(SettlementLedger.CSV_HEADER, lines.remove(0));
+        lines.sort(Comparator.naturalOrder());
+        assertEquals(List.of(
+                "2026-03-14,\"M,\"\"2\"\"\",EUR,B,Failed,1,3.00",
+                "2026-03-14,M1,USD,A,Approved,2,20.00"), lines);
+    }
+
+    @Test
+    void unknownCurrenciesUseTwoDecimals() {
+        assertEquals(2, SettlementLedger.fractionDigits("USD"));
+        assertEquals(0, SettlementLedger.fractionDigits("JPY"));
+        assertEquals(3, SettlementLedger.fractionDigits("KWD"));
+        assertEquals(2, SettlementLedger.fractionDigits("XXQ"));
+    }
+}
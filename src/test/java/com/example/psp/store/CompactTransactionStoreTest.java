@@ -0,0 +1,215 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CompactTransactionStore}.
+ *
+ * <p>Covers round-tripping of the compact record layout and card token, status updates, capacity eviction
+ * (oldest record first), TTL expiry, removal, index consistency after many evictions and the reuse of merchant
+ * codes.
+ */
+
+class CompactTransactionStoreTest {
+
+    private static Transaction transaction(long createdAt) {
+        return transaction(createdAt, "M123");
+    }
+
+    private static Transaction transaction(long createdAt, String merchantId) {
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 100.5, "USD", merchantId);
+        return new Transaction(UUID.randomUUID().toString(), request, "Pending", "A", createdAt);
+    }
+
+    private static List<String> merchantIds(CompactTransactionStore store, String merchantId) {
+        List<String> found = new ArrayList<>();
+        store.findByMerchant(new TransactionQuery(merchantId, Long.MIN_VALUE, Long.MAX_VALUE, null, null, 10),
+                tx -> found.add(tx.getRequest().getMerchantId()));
+        return found;
+    }
+
+    @Test
+    void savedTransaction_isReadBackWithoutCardData() {
+        CompactTransactionStore store = new CompactTransactionStore(16, 1, Duration.ZERO, 16);
+        Transaction tx = transaction(System.currentTimeMillis());
+        store.save(tx);
+
+        Transaction stored = store.findById(tx.getTransactionId()).orElseThrow();
+        assertEquals(tx.getTransactionId(), stored.getTransactionId());
+        assertEquals("Pending", stored.getStatus());
+        assertEquals("A", stored.getAcquirer());
+        assertEquals(tx.getCreatedAt(), stored.getCreatedAt());
+        assertEquals(100.5, stored.getRequest().getAmount());
+        assertEquals("USD", stored.getRequest().getCurrency());
+        assertEquals("M123", stored.getRequest().getMerchantId());
+        assertNull(stored.getRequest().getCardNumber());
+        assertNull(stored.getRequest().getCvv());
+    }
+
+    @Test
+    void cardToken_isReadBack() {
+        CompactTransactionStore store = new CompactTransactionStore(16, 1, Duration.ZERO, 16);
+        Transaction tokenized = transaction(System.currentTimeMillis());
+        tokenized.setCardToken("tok_0123456789abcdeffedcba9876543210");
+        Transaction plain = transaction(System.currentTimeMillis());
+        store.save(tokenized);
+        store.save(plain);
+
+        assertEquals(tokenized.getCardToken(), store.findById(tokenized.getTransactionId()).orElseThrow().getCardToken());
+        assertNull(store.findById(plain.getTransactionId()).orElseThrow().getCardToken());
+    }
+
+    @Test
+    void updateStatus_changesStoredStatus() {
+        CompactTransactionStore store = new CompactTransactionStore(16, 1, Duration.ZERO, 16);
+        Transaction tx = transaction(System.currentTimeMillis());
+        store.save(tx);
+
+        assertTrue(store.updateStatus(tx.getTransactionId(), "Approved"));
+        assertEquals("Approved", store.findById(tx.getTransactionId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void unknownOrMalformedId_isNotFound() {
+        CompactTransactionStore store = new CompactTransactionStore(16, 1, Duration.ZERO, 16);
+        assertTrue(store.findById(UUID.randomUUID().toString()).isEmpty());
+        assertTrue(store.findById("not-a-transaction-id").isEmpty());
+        assertFalse(store.updateStatus("not-a-transaction-id", "Approved"));
+    }
+
+    @Test
+    void fullStore_evictsOldestRecord() {
+        CompactTransactionStore store = new CompactTransactionStore(4, 1, Duration.ZERO, 16);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Transaction tx = transaction(System.currentTimeMillis());
+            store.save(tx);
+            saved.add(tx);
+        }
+
+        assertEquals(4, store.size());
+        assertEquals(1, store.evictions());
+        assertTrue(store.findById(saved.get(0).getTransactionId()).isEmpty());
+        for (int i = 1; i < 5; i++) {
+            assertTrue(store.findById(saved.get(i).getTransactionId()).isPresent());
+        }
+    }
+
+    @Test
+    void expiredRecord_isNotReturnedAndIsSweptOnWrite() {
+        CompactTransactionStore store = new CompactTransactionStore(16, 1, Duration.ofMinutes(1), 16);
+        Transaction old = transaction(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+        store.save(old);
+
+        assertTrue(store.findById(old.getTransactionId()).isEmpty());
+        assertFalse(store.updateStatus(old.getTransactionId(), "Approved"));
+
+        store.save(transaction(System.currentTimeMillis()));
+        assertEquals(1, store.size());
+        assertEquals(1, store.evictions());
+    }
+
+    @Test
+    void manyEvictions_keepIndexConsistent() {
+        CompactTransactionStore store = new CompactTransactionStore(256, 4, Duration.ZERO, 16);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Transaction tx = transaction(System.currentTimeMillis());
+            store.save(tx);
+            saved.add(tx);
+        }
+
+        assertEquals(store.capacity(), store.size());
+        int found = 0;
+        for (Transaction tx : saved) {
+            if (store.findById(tx.getTransactionId()).isPresent()) found++;
+        }
+        assertEquals(store.capacity(), found);
+        // the most recent record of every segment survives
+        assertTrue(store.findById(saved.get(saved.size() - 1).getTransactionId()).isPresent());
+    }
+
+    @Test
+    void removedTransaction_leavesHoleThatIsReclaimed() {
+        CompactTransactionStore store = new CompactTransactionStore(4, 1, Duration.ZERO, 16);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Transaction tx = transaction(System.currentTimeMillis());
+            store.save(tx);
+            saved.add(tx);
+        }
+
+        assertTrue(store.remove(saved.get(0).getTransactionId()));
+        assertFalse(store.remove(saved.get(0).getTransactionId()));
+        assertTrue(store.findById(saved.get(0).getTransactionId()).isEmpty());
+        assertEquals(2, store.size());
+        List<String> live = new ArrayList<>();
+        store.forEach(tx -> live.add(tx.getTransactionId()));
+        assertEquals(List.of(saved.get(1).getTransactionId(), saved.get(2).getTransactionId()), live);
+
+        // wrapping over the hole drops it without counting an eviction
+        store.save(transaction(System.currentTimeMillis()));
+        store.save(transaction(System.currentTimeMillis()));
+        assertEquals(4, store.size());
+        assertEquals(0, store.evictions());
+        assertTrue(store.findById(saved.get(1).getTransactionId()).isPresent());
+    }
+
+    @Test
+    void merchantsWithoutRecords_releaseTheirCodes() {
+        CompactTransactionStore store = new CompactTransactionStore(2, 1, Duration.ZERO, 2);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Transaction tx = transaction(System.currentTimeMillis(), "M" + i);
+            store.save(tx);
+            saved.add(tx);
+        }
+
+        assertEquals("M8", store.findById(saved.get(8).getTransactionId()).orElseThrow().getRequest().getMerchantId());
+        assertEquals("M9", store.findById(saved.get(9).getTransactionId()).orElseThrow().getRequest().getMerchantId());
+        assertEquals(List.of("M9"), merchantIds(store, "M9"));
+        assertEquals(List.of(), merchantIds(store, "M0"));
+    }
+
+    @Test
+    void merchantBeyondLimit_isRejectedUntilACodeIsReleased() {
+        CompactTransactionStore store = new CompactTransactionStore(8, 1, Duration.ZERO, 2);
+        Transaction first = transaction(System.currentTimeMillis(), "M1");
+        store.save(first);
+        store.save(transaction(System.currentTimeMillis(), "M2"));
+        Transaction third = transaction(System.currentTimeMillis(), "M3");
+
+        assertThrows(MerchantLimitExceededException.class, () -> store.save(third));
+        assertTrue(store.findById(third.getTransactionId()).isEmpty());
+        assertEquals(2, store.size());
+
+        assertTrue(store.remove(first.getTransactionId()));
+        store.save(third);
+        assertEquals(List.of("M3"), merchantIds(store, "M3"));
+        assertEquals(List.of(), merchantIds(store, "M1"));
+    }
+
+    @Test
+    void resavedOnlyRecord_keepsItsMerchant() {
+        CompactTransactionStore store = new CompactTransactionStore(8, 1, Duration.ZERO, 1);
+        Transaction tx = transaction(System.currentTimeMillis(), "M1");
+        store.save(tx);
+        tx.setStatus("Approved");
+        store.save(tx);
+        tx.setCreatedAt(tx.getCreatedAt() + 1);
+        store.save(tx);
+
+        assertEquals(List.of("M1"), merchantIds(store, "M1"));
+        assertThrows(MerchantLimitExceededException.class,
+                () -> store.save(transaction(System.currentTimeMillis(), "M2")));
+    }
+}
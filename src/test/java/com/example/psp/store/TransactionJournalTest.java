@@ -0,0 +1,212 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TransactionJournal} and {@link JournalingTransactionStore}.
+ *
+ * <p>Covers replay after restart, segment rolling and retention, group commit waiting and recovery from a corrupt
+ * tail.
+ */
+
+class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private TransactionJournal open(long segmentSize) {
+        return new TransactionJournal(directory, segmentSize, Duration.ofMillis(1), 16, Duration.ZERO);
+    }
+
+    private static Transaction transaction() {
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 42.0, "EUR", "M42");
+        return new Transaction(UUID.randomUUID().toString(), request, "Pending", "B", System.currentTimeMillis());
+    }
+
+    @Test
+    void replay_restoresCreatedTransactionsAndFinalStatus() {
+        Transaction tx = transaction();
+        try (JournalingTransactionStore store = new JournalingTransactionStore(new InMemoryTransactionStore(), open(1 << 20), true)) {
+            store.save(tx);
+            store.updateStatus(tx.getTransactionId(), "Approved");
+        }
+
+        TransactionStore restored = new InMemoryTransactionStore();
+        try (TransactionJournal journal = open(1 << 20)) {
+            assertEquals(2, journal.replay(restored));
+        }
+        Transaction stored = restored.findById(tx.getTransactionId()).orElseThrow();
+        assertEquals("Approved", stored.getStatus());
+        assertEquals("B", stored.getAcquirer());
+        assertEquals(42.0, stored.getRequest().getAmount());
+        assertEquals("EUR", stored.getRequest().getCurrency());
+        assertEquals("M42", stored.getRequest().getMerchantId());
+        assertEquals(tx.getCreatedAt(), stored.getCreatedAt());
+        assertNull(stored.getRequest().getCardNumber());
+    }
+
+    @Test
+    void replay_restoresCardTokenWhenPresent() {
+        Transaction tokenized = transaction();
+        tokenized.setCardToken("tok_00000000000000010000000000000002");
+        Transaction plain = transaction();
+        try (JournalingTransactionStore store = new JournalingTransactionStore(new InMemoryTransactionStore(), open(1 << 20), true)) {
+            store.save(tokenized);
+            store.save(plain);
+        }
+
+        TransactionStore restored = new InMemoryTransactionStore();
+        try (TransactionJournal journal = open(1 << 20)) {
+            assertEquals(2, journal.replay(restored));
+        }
+        assertEquals(tokenized.getCardToken(), restored.findById(tokenized.getTransactionId()).orElseThrow().getCardToken());
+        Transaction stored = restored.findById(plain.getTransactionId()).orElseThrow();
+        assertNull(stored.getCardToken());
+        assertEquals("M42", stored.getRequest().getMerchantId());
+    }
+
+    @Test
+    void replay_dropsRemovedTransactions() {
+        Transaction kept = transaction();
+        Transaction removed = transaction();
+        try (JournalingTransactionStore store = new JournalingTransactionStore(new InMemoryTransactionStore(), open(1 << 20), true)) {
+            store.save(kept);
+            store.save(removed);
+            assertTrue(store.remove(removed.getTransactionId()));
+        }
+
+        TransactionStore restored = new InMemoryTransactionStore();
+        try (TransactionJournal journal = open(1 << 20)) {
+            assertEquals(3, journal.replay(restored));
+        }
+        assertTrue(restored.findById(kept.getTransactionId()).isPresent());
+        assertTrue(restored.findById(removed.getTransactionId()).isEmpty());
+    }
+
+    @Test
+    void smallSegments_areRolledAndReplayedInOrder() throws IOException {
+        List<Transaction> saved = new ArrayList<>();
+        try (TransactionJournal journal = open(512)) {
+            for (int i = 0; i < 50; i++) {
+                Transaction tx = transaction();
+                journal.appendCreated(tx);
+                journal.appendStatus(tx.getTransactionId(), "Denied");
+                saved.add(tx);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+
+        TransactionStore restored = new InMemoryTransactionStore();
+        try (TransactionJournal journal = open(512)) {
+            assertEquals(100, journal.replay(restored));
+        }
+        for (Transaction tx : saved) {
+            assertEquals("Denied", restored.findById(tx.getTransactionId()).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void expiredSegmentsOfEarlierRuns_areDeletedAfterReplay() throws IOException {
+        try (TransactionJournal journal = open(512)) {
+            for (int i = 0; i < 20; i++) {
+                journal.appendCreated(transaction());
+            }
+        }
+        List<Path> earlier;
+        try (Stream<Path> files = Files.list(directory)) {
+            earlier = files.toList();
+        }
+        assertTrue(earlier.size() > 1);
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(2).toMillis());
+        for (Path segment : earlier) {
+            Files.setLastModifiedTime(segment, old);
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(directory, 512, Duration.ofMillis(1), 16,
+                Duration.ofHours(1))) {
+            assertEquals(20, journal.replay(new InMemoryTransactionStore()));
+            for (Path segment : earlier) {
+                assertFalse(Files.exists(segment), segment + " should have expired");
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void emptySegmentsOfEarlierRuns_areDeletedAfterReplay() throws IOException {
+        Transaction tx = transaction();
+        try (TransactionJournal journal = open(1 << 20)) {
+            journal.appendCreated(tx);
+        }
+        for (int restart = 0; restart < 3; restart++) {
+            try (TransactionJournal journal = open(1 << 20)) {
+                TransactionStore restored = new InMemoryTransactionStore();
+                assertEquals(1, journal.replay(restored));
+                assertTrue(restored.findById(tx.getTransactionId()).isPresent());
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // the segment holding the record and the one opened by the last run
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void awaitDurable_returnsOnceGroupCommitCoversRecord() {
+        try (TransactionJournal journal = open(1 << 20)) {
+            long seq = journal.appendCreated(transaction());
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> journal.awaitDurable(seq));
+            assertEquals(seq, journal.appendedSequence());
+        }
+    }
+
+    @Test
+    void corruptRecord_stopsReplayOfSegment() throws IOException {
+        Transaction first = transaction();
+        Transaction second = transaction();
+        try (TransactionJournal journal = open(1 << 20)) {
+            journal.appendCreated(first);
+            journal.appendCreated(second);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            int secondRecord = 8 + length.flip().getInt();
+            // flip one byte inside the payload of the second record
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7f}), secondRecord + 12);
+        }
+
+        TransactionStore restored = new InMemoryTransactionStore();
+        try (TransactionJournal journal = open(1 << 20)) {
+            assertEquals(1, journal.replay(restored));
+        }
+        assertTrue(restored.findById(first.getTransactionId()).isPresent());
+        assertTrue(restored.findById(second.getTransactionId()).isEmpty());
+    }
+}
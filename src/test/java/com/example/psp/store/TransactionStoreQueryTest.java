@@ -0,0 +1,123 @@
+package com.example.psp.store;
+
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TransactionStore#findByMerchant} on both store implementations:
+ * time ordering, time ranges, status filter, cursor pagination and index maintenance on eviction.
+ */
+class TransactionStoreQueryTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    static Stream<Supplier<TransactionStore>> stores() {
+        return Stream.of(InMemoryTransactionStore::new, () -> new CompactTransactionStore(1024, 4, Duration.ZERO, 16));
+    }
+
+    private static Transaction transaction(String merchantId, long createdAt, String status) {
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 10.0, "USD", merchantId);
+        return new Transaction(UUID.randomUUID().toString(), request, status, "A", createdAt);
+    }
+
+    private static List<Transaction> query(TransactionStore store, TransactionQuery query, List<TransactionCursor> next) {
+        List<Transaction> result = new ArrayList<>();
+        next.add(store.findByMerchant(query, result::add));
+        return result;
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void merchantTransactions_areReturnedOldestFirstWithinRange(Supplier<TransactionStore> factory) {
+        TransactionStore store = factory.get();
+        // saved out of order, interleaved with another merchant
+        for (long t : new long[]{5, 1, 3, 2, 4}) {
+            store.save(transaction("M1", T0 + t, "Approved"));
+            store.save(transaction("M2", T0 + t, "Approved"));
+        }
+
+        List<TransactionCursor> next = new ArrayList<>();
+        List<Transaction> page = query(store, new TransactionQuery("M1", T0 + 2, T0 + 5, null, null, 10), next);
+
+        assertEquals(List.of(T0 + 2, T0 + 3, T0 + 4), page.stream().map(Transaction::getCreatedAt).toList());
+        assertTrue(page.stream().allMatch(tx -> tx.getRequest().getMerchantId().equals("M1")));
+        assertNull(next.get(0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void cursor_walksThroughAllPages(Supplier<TransactionStore> factory) {
+        TransactionStore store = factory.get();
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // several transactions per millisecond
+            Transaction tx = transaction("M1", T0 + i / 3, "Approved");
+            store.save(tx);
+            saved.add(tx.getTransactionId());
+        }
+
+        List<String> read = new ArrayList<>();
+        TransactionCursor cursor = null;
+        int pages = 0;
+        do {
+            List<TransactionCursor> next = new ArrayList<>();
+            TransactionQuery query = new TransactionQuery("M1", Long.MIN_VALUE, Long.MAX_VALUE, null,
+                    cursor == null ? null : TransactionCursor.parse(cursor.encode()), 10);
+            query(store, query, next).forEach(tx -> read.add(tx.getTransactionId()));
+            cursor = next.get(0);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(saved, read);
+        assertEquals(3, pages);
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void statusFilter_usesCurrentStatus(Supplier<TransactionStore> factory) {
+        TransactionStore store = factory.get();
+        Transaction approved = transaction("M1", T0, "Pending");
+        store.save(approved);
+        store.save(transaction("M1", T0 + 1, "Pending"));
+        store.updateStatus(approved.getTransactionId(), "Approved");
+
+        List<Transaction> page = query(store,
+                new TransactionQuery("M1", Long.MIN_VALUE, Long.MAX_VALUE, "Approved", null, 10), new ArrayList<>());
+
+        assertEquals(List.of(approved.getTransactionId()), page.stream().map(Transaction::getTransactionId).toList());
+        assertTrue(query(store, new TransactionQuery("M1", Long.MIN_VALUE, Long.MAX_VALUE, "Refunded", null, 10),
+                new ArrayList<>()).isEmpty());
+        assertTrue(query(store, new TransactionQuery("unknown", Long.MIN_VALUE, Long.MAX_VALUE, null, null, 10),
+                new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    void evictedTransactions_leaveTheMerchantIndex() {
+        CompactTransactionStore store = new CompactTransactionStore(64, 1, Duration.ZERO, 16);
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Transaction tx = transaction(i % 2 == 0 ? "M1" : "M2", T0 + i, "Approved");
+            store.save(tx);
+            saved.add(tx.getTransactionId());
+        }
+
+        List<Transaction> page = query(store,
+                new TransactionQuery("M1", Long.MIN_VALUE, Long.MAX_VALUE, null, null, 1000), new ArrayList<>());
+
+        assertEquals(32, page.size());
+        assertEquals(saved.get(936), page.get(0).getTransactionId());
+        assertEquals(saved.get(998), page.get(31).getTransactionId());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.psp.tokenization;
+
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.model.PaymentResponse;
+import com.example.psp.model.Transaction;
+import com.example.psp.routing.BinRouter;
+import com.example.psp.routing.RoutingProperties;
+import com.example.psp.service.AcquirerGateway;
+import com.example.psp.service.AcquirerProperties;
+import com.example.psp.service.AcquirerServiceMockImpl;
+import com.example.psp.service.PaymentService;
+import com.example.psp.service.PaymentServices;
+import com.example.psp.store.InMemoryTransactionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CardTokenizer}: tokens are the keyed HMAC of the card number, stable per key, served from
+ * the hot-token cache on repeat, and payments are stored with the token instead of card data.
+ */
+class CardTokenizerTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+
+    private static TokenizationProperties properties(String key) {
+        TokenizationProperties properties = new TokenizationProperties();
+        properties.setKey(key);
+        properties.setCacheSize(64);
+        properties.setCacheStripes(4);
+        return properties;
+    }
+
+    @Test
+    void token_isTruncatedHmacOfCardNumber() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(KEY), "HmacSHA256"));
+        byte[] digest = mac.doFinal("4242424242424242".getBytes(StandardCharsets.US_ASCII));
+        String expected = "tok_" + HexFormat.of().formatHex(digest, 0, 16);
+
+        CardTokenizer tokenizer = new CardTokenizer(properties(KEY));
+        String token = tokenizer.tokenize("4242424242424242");
+        assertEquals(expected, token);
+        assertTrue(CardTokens.isToken(token));
+        assertEquals(token, CardTokens.format(CardTokens.high(token), CardTokens.low(token)));
+    }
+
+    @Test
+    void tokens_areStablePerKeyAndDistinctPerCard() {
+        String token = new CardTokenizer(properties(KEY)).tokenize("4242424242424242");
+        assertEquals(token, new CardTokenizer(properties(KEY)).tokenize("4242424242424242"));
+        assertNotEquals(token, new CardTokenizer(properties(KEY)).tokenize("5555555555554444"));
+        assertNotEquals(token, CardTokenizer.withRandomKey().tokenize("4242424242424242"));
+
+        String shortKey = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> new CardTokenizer(properties(shortKey)));
+    }
+
+    @Test
+    void missingKey_failsUnlessRandomKeyIsAllowedWithoutJournalOrCluster() {
+        PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry(), false);
+        TokenizationProperties properties = properties("");
+        assertThrows(IllegalArgumentException.class, () -> new CardTokenizer(properties));
+
+        properties.setRandomKey(true);
+        assertNotNull(new CardTokenizer(properties).tokenize("4242424242424242"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CardTokenizer(properties, true, false, metrics, new SimpleMeterRegistry()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CardTokenizer(properties, false, true, metrics, new SimpleMeterRegistry()));
+        assertNotNull(new CardTokenizer(properties(KEY), true, true, metrics, new SimpleMeterRegistry())
+                .tokenize("4242424242424242"));
+    }
+
+    @Test
+    void repeatedCards_areServedFromCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PaymentMetrics metrics = new PaymentMetrics(registry, true);
+        CardTokenizer tokenizer = new CardTokenizer(properties(KEY), metrics, registry);
+
+        String first = tokenizer.tokenize("4242424242424242");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(first, tokenizer.tokenize("4242424242424242"));
+        }
+        assertEquals(0.75, tokenizer.hitRatio());
+        assertEquals(3, registry.get("psp.tokenization.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("psp.tokenization.cache.misses").functionCounter().count());
+        assertEquals(0.75, registry.get("psp.tokenization.cache.hit.ratio").gauge().value());
+        assertEquals(3, registry.get("psp.payment.tokenization.count").tag("cache", "hit").functionCounter().count());
+        assertEquals(1, registry.get("psp.payment.tokenization.count").tag("cache", "miss").functionCounter().count());
+    }
+
+    @Test
+    void payment_isStoredWithTokenAndWithoutCardData() {
+        AcquirerProperties acquirerProperties = new AcquirerProperties();
+        AcquirerGateway gateway = new AcquirerGateway(new AcquirerServiceMockImpl(acquirerProperties),
+                acquirerProperties);
+        InMemoryTransactionStore store = new InMemoryTransactionStore();
+        PaymentService service = PaymentServices.create(store, gateway,
+                new BinRouter(new DefaultResourceLoader(), new RoutingProperties()));
+        PaymentRequest request = new PaymentRequest("4242424242424242", "12/30", "123", 10.0, "USD", "M123");
+
+        PaymentResponse response = service.processPayment(request);
+
+        Transaction stored = store.findById(response.getTransactionId()).orElseThrow();
+        assertTrue(CardTokens.isToken(stored.getCardToken()));
+        assertNull(stored.getRequest().getCardNumber());
+        assertNull(stored.getRequest().getExpiryDate());
+        assertNull(stored.getRequest().getCvv());
+        assertEquals("M123", stored.getRequest().getMerchantId());
+        // the caller's request is left as it was
+        assertEquals("123", request.getCvv());
+    }
+}
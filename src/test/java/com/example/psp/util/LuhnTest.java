@@ -0,0 +1,90 @@
+package com.example.psp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Luhn}: the bulk variants (SWAR on ASCII bytes) must agree with the scalar check on every input.
+ */
+class LuhnTest {
+
+    private static final String[] CARDS = {
+            "4242424242424242", "4242424242424243", "5555555555554444", "4222222222222", "4000000000000000006",
+            "4242abcd42424242", "424242424242424/", "424242424242424:", "42424242424242é2", "1234567",
+            "12345678901234567890", "0000000000000", "9999999999999999995"
+    };
+
+    @Test
+    void knownCards_bulkMatchesScalar() {
+        boolean[] results = new boolean[CARDS.length];
+        int valid = Luhn.validateAll(CARDS, results);
+
+        int expectedValid = 0;
+        for (int i = 0; i < CARDS.length; i++) {
+            assertEquals(Luhn.isValid(CARDS[i]), results[i], CARDS[i]);
+            if (results[i]) expectedValid++;
+        }
+        assertEquals(expectedValid, valid);
+        assertTrue(results[0]);
+        assertFalse(results[1]);
+        assertFalse(results[5]);
+    }
+
+    @Test
+    void randomCards_allVariantsAgree() {
+        Random random = new Random(42);
+        String[] cards = new String[5_000];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = randomCard(random);
+        }
+
+        boolean[] bulk = new boolean[cards.length];
+        Luhn.validateAll(cards, bulk);
+
+        // same cards packed back to back with a separator, as in a raw import buffer
+        StringBuilder buffer = new StringBuilder();
+        int[] offsets = new int[cards.length];
+        int[] lengths = new int[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            offsets[i] = buffer.length();
+            lengths[i] = cards[i].length();
+            buffer.append(cards[i]).append('\n');
+        }
+        boolean[] ascii = new boolean[cards.length];
+        Luhn.validateAll(buffer.toString().getBytes(StandardCharsets.ISO_8859_1), offsets, lengths, ascii);
+
+        int valid = 0;
+        for (int i = 0; i < cards.length; i++) {
+            boolean expected = Luhn.isValid(cards[i]);
+            assertEquals(expected, bulk[i], cards[i]);
+            assertEquals(expected, ascii[i], cards[i]);
+            if (expected) valid++;
+        }
+        assertTrue(valid > 100, "random data should contain valid cards");
+    }
+
+    @Test
+    void mismatchedArrays_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Luhn.validateAll(CARDS, new boolean[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Luhn.validateAll(new byte[16], new int[2], new int[1], new boolean[2]));
+    }
+
+    private static String randomCard(Random random) {
+        int length = 12 + random.nextInt(9);
+        StringBuilder card = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            card.append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextInt(10) == 0) {
+            // a byte just outside '0'..'9' or a letter somewhere in the number
+            char[] bad = {'/', ':', 'a', ' ', 'é'};
+            card.setCharAt(random.nextInt(length), bad[random.nextInt(bad.length)]);
+        }
+        return card.toString();
+    }
+}
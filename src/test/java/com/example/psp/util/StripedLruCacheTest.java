@@ -0,0 +1,74 @@
+package com.example.psp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link StripedLruCache}: LRU bound per stripe, TTL expiry and conditional writes.
+ */
+class StripedLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void putIfAbsent_keepsFirstValue() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(16, 1, Duration.ZERO, clock::get);
+
+        assertNull(cache.putIfAbsent("k", "first"));
+        assertEquals("first", cache.putIfAbsent("k", "second"));
+        assertEquals("first", cache.get("k"));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void fullStripe_dropsLeastRecentlyUsed() {
+        StripedLruCache<Integer, String> cache = new StripedLruCache<>(3, 1, Duration.ZERO, clock::get);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        cache.get(1);
+
+        cache.put(4, "d");
+
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void expiredEntries_areAbsentAndReplaceable() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(16, 4, Duration.ofSeconds(10), clock::get);
+        cache.put("k", "old");
+
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals("old", cache.get("k"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get("k"));
+        assertNull(cache.putIfAbsent("k", "new"));
+        assertEquals("new", cache.get("k"));
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void remove_onlyRemovesMatchingValue() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(16, 2, Duration.ZERO, clock::get);
+        String value = "v";
+        cache.put("k", value);
+
+        assertFalse(cache.remove("k", new String("v")));
+        assertTrue(cache.remove("k", value));
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    void stripesMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLruCache<>(16, 3, Duration.ZERO));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.psp.validation;
+
+import com.example.psp.metrics.PaymentMetrics;
+import com.example.psp.model.PaymentRequest;
+import com.example.psp.util.CardExpiry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PaymentRequestValidator}: both modes must accept and reject the same requests with the
+ * same error entries (Bean Validation reports them in no particular order, so they are compared as sets).
+ */
+class PaymentRequestValidatorTest {
+
+    private static final jakarta.validation.ValidatorFactory FACTORY = Validation.buildDefaultValidatorFactory();
+    private static final Validator BEAN_VALIDATOR = FACTORY.getValidator();
+
+    @AfterAll
+    static void closeFactory() {
+        FACTORY.close();
+    }
+
+    private static PaymentRequestValidator validator(ValidationProperties.Mode mode) {
+        return new PaymentRequestValidator(mode, BEAN_VALIDATOR,
+                new PaymentMetrics(new SimpleMeterRegistry(), false), CardExpiry.system());
+    }
+
+    private static PaymentRequest valid() {
+        return new PaymentRequest("4242424242424242", "12/30", "123", 100.0, "USD", "M123");
+    }
+
+    private static Set<Map<String, String>> errors(ValidationProperties.Mode mode, PaymentRequest request) {
+        return new HashSet<>(validator(mode).validate(request));
+    }
+
+    private static Map<String, String> error(String field, String message) {
+        return Map.of("field", field, "message", message);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void validRequestHasNoErrors(ValidationProperties.Mode mode) {
+        assertTrue(validator(mode).validate(valid()).isEmpty());
+        PaymentRequest fourDigitYear = valid();
+        fourDigitYear.setExpiryDate("01/2099");
+        fourDigitYear.setCvv("1234");
+        assertTrue(validator(mode).validate(fourDigitYear).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void everyInvalidFieldIsReported(ValidationProperties.Mode mode) {
+        PaymentRequest request = new PaymentRequest("4242424242424243", "13/30", "12a", 0.0, " ", null);
+
+        assertEquals(Set.of(
+                error("cardNumber", "Invalid card number"),
+                error("expiryDate", "expiryDate must be in MM/YY or MM/YYYY format and month between 01 and 12"),
+                error("cvv", "CVV must be 3 or 4 digits"),
+                error("amount", "Amount must be positive"),
+                error("currency", "Currency is required"),
+                error("merchantId", "Merchant ID is required")), errors(mode, request));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void malformedExpiryDatesAreRejected(ValidationProperties.Mode mode) {
+        for (String expiry : new String[]{null, "", "1/30", "00/30", "12-30", "12/3a", "12/301", "12/30000"}) {
+            PaymentRequest request = valid();
+            request.setExpiryDate(expiry);
+            assertEquals(Set.of(error("expiryDate",
+                    "expiryDate must be in MM/YY or MM/YYYY format and month between 01 and 12")),
+                    errors(mode, request), String.valueOf(expiry));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void expiredCardIsRejected(ValidationProperties.Mode mode) {
+        PaymentRequest request = valid();
+        request.setExpiryDate("01/20");
+        assertEquals(Set.of(error("expiryDate", "Card has expired")), errors(mode, request));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void unknownCurrencyIsRejected(ValidationProperties.Mode mode) {
+        for (String currency : new String[]{"usd", "XXQ", "US", "USDD"}) {
+            PaymentRequest request = valid();
+            request.setCurrency(currency);
+            assertEquals(Set.of(error("currency", "Currency must be an ISO 4217 code")), errors(mode, request),
+                    currency);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationProperties.Mode.class)
+    void missingCvvIsRejected(ValidationProperties.Mode mode) {
+        PaymentRequest request = valid();
+        request.setCvv(null);
+        assertEquals(Set.of(error("cvv", "CVV must be 3 or 4 digits")), errors(mode, request));
+    }
+
+    @Test
+    void cardIsValidThroughTheLastDayOfItsExpiryMonth() {
+        PaymentRequestValidator lastDay = new PaymentRequestValidator(ValidationProperties.Mode.FAST, BEAN_VALIDATOR,
+                new PaymentMetrics(new SimpleMeterRegistry(), false),
+                new CardExpiry(Clock.fixed(Instant.parse("2027-03-31T23:59:59Z"), ZoneOffset.UTC)));
+        PaymentRequestValidator nextMonth = new PaymentRequestValidator(ValidationProperties.Mode.FAST, BEAN_VALIDATOR,
+                new PaymentMetrics(new SimpleMeterRegistry(), false),
+                new CardExpiry(Clock.fixed(Instant.parse("2027-04-01T00:00:00Z"), ZoneOffset.UTC)));
+        PaymentRequest request = valid();
+        request.setExpiryDate("03/27");
+
+        assertTrue(lastDay.validate(request).isEmpty());
+        assertEquals(List.of(error("expiryDate", "Card has expired")), nextMonth.validate(request));
+    }
+
+    @Test
+    void invalidRequestFailsRequireValid() {
+        PaymentRequest request = valid();
+        request.setAmount(-1.0);
+
+        InvalidPaymentException e = assertThrows(InvalidPaymentException.class,
+                () -> validator(ValidationProperties.Mode.FAST).requireValid(request));
+        assertEquals(List.of(error("amount", "Amount must be positive")), e.getErrors());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.psp.velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Accuracy and expiry of the sliding-window structures behind {@link VelocityEngine}.
+ */
+class SlidingSketchesTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void countMinSketch_neverUndercountsAndStaysWithinItsErrorBound() {
+        SlidingCountMinSketch sketch = new SlidingCountMinSketch(WINDOW, 6, 4, 4096, clock::get);
+        int beyondBound = 0;
+        for (int key = 0; key < 20_000; key++) {
+            int estimate = sketch.addAndEstimate(VelocityEngine.hash("key-" + key));
+            assertTrue(estimate >= 1);
+            // overcount of at most e * additions / width, except with probability e^-depth (1.8%)
+            if (estimate - 1 > Math.E * (key + 1) / 4096) beyondBound++;
+        }
+        assertTrue(beyondBound < 20_000 * 0.018, beyondBound + " keys beyond the error bound");
+
+        for (int i = 2; i <= 50; i++) {
+            assertTrue(sketch.addAndEstimate(VelocityEngine.hash("hot")) >= i);
+        }
+    }
+
+    @Test
+    void countMinSketch_forgetsBucketsLeavingTheWindow() {
+        SlidingCountMinSketch sketch = new SlidingCountMinSketch(WINDOW, 6, 4, 1024, clock::get);
+        long key = VelocityEngine.hash("card");
+        for (int i = 0; i < 10; i++) {
+            sketch.addAndEstimate(key);
+        }
+        clock.addAndGet(WINDOW.toNanos() / 2);
+        assertEquals(11, sketch.addAndEstimate(key));
+        clock.addAndGet(WINDOW.toNanos() / 2);
+        assertEquals(2, sketch.addAndEstimate(key));
+        clock.addAndGet(WINDOW.toNanos() * 10);
+        assertEquals(1, sketch.addAndEstimate(key));
+    }
+
+    @Test
+    void hyperLogLog_estimatesDistinctKeys() {
+        for (int distinct : new int[]{10, 1_000, 100_000}) {
+            SlidingHyperLogLog hll = new SlidingHyperLogLog(WINDOW, 6, 10, clock::get);
+            long estimate = 0;
+            for (int round = 0; round < 3; round++) {
+                for (int key = 0; key < distinct; key++) {
+                    estimate = hll.addAndEstimate(VelocityEngine.hash("card-" + key));
+                }
+            }
+            assertEquals(distinct, estimate, Math.max(1, distinct * 0.1), "distinct " + distinct);
+            assertEquals(6 * 1024, hll.memoryBytes());
+        }
+    }
+
+    @Test
+    void hyperLogLog_andCounter_slideWithTheWindow() {
+        SlidingHyperLogLog hll = new SlidingHyperLogLog(WINDOW, 2, 8, clock::get);
+        SlidingCounter counter = new SlidingCounter(WINDOW, 2, clock::get);
+        for (int key = 0; key < 50; key++) {
+            hll.addAndEstimate(VelocityEngine.hash("old-" + key));
+            counter.increment();
+        }
+        clock.addAndGet(WINDOW.toNanos() / 2);
+        for (int key = 0; key < 20; key++) {
+            hll.addAndEstimate(VelocityEngine.hash("new-" + key));
+            counter.increment();
+        }
+        assertEquals(70, hll.estimate(), 5);
+        assertEquals(70, counter.sum());
+
+        clock.addAndGet(WINDOW.toNanos() / 2);
+        assertEquals(20, hll.estimate(), 3);
+        assertEquals(20, counter.sum());
+    }
+}
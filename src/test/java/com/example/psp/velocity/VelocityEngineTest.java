@@ -0,0 +1,154 @@
+package com.example.psp.velocity;
+
+import com.example.psp.model.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link VelocityEngine}: each rule trips at its limit and recovers once the window has slid past,
+ * distinct cards at the expected volume are not blocked, and memory stays the same however many cards are seen.
+ */
+class VelocityEngineTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private VelocityEngine engine(VelocityProperties properties) {
+        return new VelocityEngine(properties, registry, clock::get);
+    }
+
+    private static PaymentRequest payment(String card, String merchantId) {
+        return new PaymentRequest(card, "12/30", "123", 10.0, "USD", merchantId);
+    }
+
+    private static String card(long n) {
+        return String.format("4%015d", n);
+    }
+
+    @Test
+    void cardAttempts_areLimitedPerWindow() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setMaxCardAttempts(3);
+        properties.setExpectedAttemptsPerWindow(10_000);
+        VelocityEngine engine = engine(properties);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(engine.check(payment(card(1), "M" + i)));
+        }
+        assertEquals(VelocityEngine.Rule.CARD_ATTEMPTS, engine.check(payment(card(1), "M9")));
+        assertNull(engine.check(payment(card(2), "M1")));
+        assertEquals(1.0, registry.get("psp.velocity.blocked").tag("rule", "card-attempts").counter().count());
+
+        clock.addAndGet(properties.getWindow().toNanos());
+        assertNull(engine.check(payment(card(1), "M1")));
+    }
+
+    @Test
+    void distinctCardsAtExpectedVolume_areNotBlocked() {
+        VelocityProperties properties = new VelocityProperties();
+        VelocityEngine engine = engine(properties);
+        long attempts = properties.getExpectedAttemptsPerWindow();
+        long step = properties.getWindow().toNanos() / attempts;
+
+        // two windows of traffic at the expected volume: mostly new cards, plus regulars paying a few times
+        int blocked = 0;
+        for (int i = 0; i < 2 * attempts; i++) {
+            String card = i % 10 == 0 ? card(1_000_000_000L + (i / 10) % 5_000) : card(i);
+            if (engine.check(payment(card, "M" + i % 1000)) == VelocityEngine.Rule.CARD_ATTEMPTS) blocked++;
+            clock.addAndGet(step);
+        }
+        assertEquals(0, blocked);
+    }
+
+    @Test
+    void sketchTooNarrowForExpectedVolume_failsStartup() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setSketchWidth(4096);
+        assertThrows(IllegalArgumentException.class, () -> engine(properties));
+
+        properties.setExpectedAttemptsPerWindow(10_000);
+        assertNotNull(engine(properties));
+    }
+
+    @Test
+    void burstOfNewCards_atOneMerchantIsBlocked() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setMaxDistinctCards(100);
+        properties.setPrecision(10);
+        VelocityEngine engine = engine(properties);
+
+        int firstBlocked = -1;
+        for (int i = 0; i < 1000 && firstBlocked < 0; i++) {
+            if (engine.check(payment(card(i), "M-TESTED")) == VelocityEngine.Rule.DISTINCT_CARDS) firstBlocked = i;
+        }
+        assertTrue(firstBlocked >= 90 && firstBlocked <= 115, "blocked after " + firstBlocked + " cards");
+        assertNull(engine.check(payment(card(5000), "M-OTHER")));
+    }
+
+    @Test
+    void merchantDeclines_areLimitedPerWindow() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setMaxMerchantDeclines(5);
+        properties.setBuckets(4);
+        VelocityEngine engine = engine(properties);
+
+        for (int i = 0; i < 5; i++) {
+            engine.recordDecline("M-DECLINED");
+        }
+        assertEquals(VelocityEngine.Rule.MERCHANT_DECLINES, engine.check(payment(card(1), "M-DECLINED")));
+        assertNull(engine.check(payment(card(2), "M-OTHER")));
+
+        // three of four buckets later the declines are still in the window, one more and they are gone
+        clock.addAndGet(properties.getWindow().toNanos() * 3 / 4);
+        assertEquals(VelocityEngine.Rule.MERCHANT_DECLINES, engine.check(payment(card(3), "M-DECLINED")));
+        clock.addAndGet(properties.getWindow().toNanos() / 4);
+        assertNull(engine.check(payment(card(4), "M-DECLINED")));
+    }
+
+    @Test
+    void memory_doesNotGrowWithCards() {
+        VelocityEngine engine = engine(new VelocityProperties());
+        engine.check(payment(card(0), "M1"));
+        long memory = engine.memoryBytes();
+
+        for (int i = 1; i < 200_000; i++) {
+            engine.check(payment(card(i), "M1"));
+            if (i % 1000 == 0) clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        }
+        assertEquals(memory, engine.memoryBytes());
+        assertEquals((double) memory, registry.get("psp.velocity.memory").gauge().value());
+    }
+
+    @Test
+    void disabledEngine_letsEverythingThrough() {
+        VelocityEngine engine = VelocityEngine.disabled();
+        for (int i = 0; i < 100; i++) {
+            assertNull(engine.check(payment(card(1), "M1")));
+        }
+        assertEquals(0, engine.memoryBytes());
+    }
+
+    @Test
+    void idleMerchant_isDroppedToMakeRoom() {
+        VelocityProperties properties = new VelocityProperties();
+        properties.setMaxDistinctCards(2);
+        properties.setMaxMerchants(1);
+        VelocityEngine engine = engine(properties);
+
+        assertNull(engine.check(payment(card(1), "M1")));
+        clock.addAndGet(properties.getWindow().toNanos());
+
+        // M1 saw no payment for a window, so M2 takes its place and M3 gets the overflow counters
+        assertNull(engine.check(payment(card(2), "M2")));
+        assertNull(engine.check(payment(card(3), "M2")));
+        assertNull(engine.check(payment(card(4), "M3")));
+        assertNull(engine.check(payment(card(5), "M3")));
+        assertEquals(VelocityEngine.Rule.DISTINCT_CARDS, engine.check(payment(card(6), "M3")));
+        assertNull(engine.check(payment(card(3), "M2")));
+    }
+}